@@ -97,16 +97,24 @@ public class MinCostFlow {
 	}
 
 	public static int[] minCostFlow(List<Edge>[] graph, int s, int t, int maxf, boolean runBellmanFord) {
+		int[] pot = new int[graph.length];
+		if (runBellmanFord) {
+			bellmanFord(graph, s, pot); // bellmanFord invocation can be skipped if edges costs are non-negative
+		}
+		return minCostFlow(graph, s, t, maxf, pot);
+	}
+
+	/**
+	 * @param pot initial node potentials: for each edge with free capacity, (cost + pot[from] - pot[to]) must be
+	 *            non-negative. Good potentials (e.g. derived from the solution of a similar problem) shorten the
+	 *            searches. Contains the final potentials on return.
+	 */
+	public static int[] minCostFlow(List<Edge>[] graph, int s, int t, int maxf, int[] pot) {
 		int n = graph.length;
 		int[] prio = new int[n];
 		int[] curflow = new int[n];
 		int[] prevedge = new int[n];
 		int[] prevnode = new int[n];
-		int[] pot = new int[n];
-
-		if (runBellmanFord) {
-			bellmanFord(graph, s, pot); // bellmanFord invocation can be skipped if edges costs are non-negative
-		}
 
 		int flow = 0;
 		int flowCost = 0;
@@ -0,0 +1,77 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.analysis.zonal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.drt.run.DrtConfigGroup;
+import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
+import org.matsim.contrib.dvrp.run.ModalProviders;
+import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.contrib.zone.ZonalSkims;
+import org.matsim.core.config.Config;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.TravelTime;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Calculates zone-to-zone skims between the links nearest to the centroids of DrtZonalSystem zones, using the current
+ * DVRP travel time estimates. Bound (per mode) together with the DrtZonalSystem, so it can be used both by the QSim
+ * (e.g. for rebalancing) and by analysis code outside the QSim.
+ */
+public class DrtZonalSkimsProvider extends ModalProviders.AbstractProvider<ZonalSkims> {
+	@Inject
+	@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING)
+	private Network network;
+
+	@Inject
+	@Named(DvrpTravelTimeModule.DVRP_ESTIMATED)
+	private TravelTime travelTime;
+
+	@Inject
+	private Config config;
+
+	private final DrtConfigGroup drtCfg;
+
+	public DrtZonalSkimsProvider(DrtConfigGroup drtCfg) {
+		super(drtCfg.getMode());
+		this.drtCfg = drtCfg;
+	}
+
+	@Override
+	public ZonalSkims get() {
+		DrtZonalSystem zonalSystem = getModalInstance(DrtZonalSystem.class);
+		Map<String, Link> zoneLinks = new LinkedHashMap<>();
+		for (String zone : zonalSystem.getZones().keySet()) {
+			zoneLinks.put(zone, NetworkUtils.getNearestLink(network, zonalSystem.getZoneCentroid(zone)));
+		}
+
+		return new ZonalSkims(network, travelTime,
+				getModalInstance(TravelDisutilityFactory.class).createTravelDisutility(travelTime), zoneLinks,
+				new TimeDiscretizer(config.travelTimeCalculator()), drtCfg.getNumberOfThreads());
+	}
+}
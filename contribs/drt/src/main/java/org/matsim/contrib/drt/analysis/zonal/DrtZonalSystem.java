@@ -25,6 +25,7 @@ package org.matsim.contrib.drt.analysis.zonal;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 
@@ -50,6 +51,8 @@ public class DrtZonalSystem {
 	private final Map<Id<Link>, String> link2zone = new HashMap<>();
 	private final Network network;
 	private final Map<String, Geometry> zones;
+	// computing the centroid of a geometry is expensive, and zones are often queried pairwise (e.g. rebalancing)
+	private final Map<String, Coord> zoneCentroids = new ConcurrentHashMap<>();
 
 	/**
 	 * 
@@ -96,14 +99,12 @@ public class DrtZonalSystem {
 	}
 
 	public Coord getZoneCentroid(String zoneId) {
-
 		Geometry zone = zones.get(zoneId);
 		if (zone == null) {
 			Logger.getLogger(getClass()).error("Zone " + zoneId + " not found.");
 			return null;
 		}
-		Coord c = MGC.point2Coord(zone.getCentroid());
-		return c;
+		return zoneCentroids.computeIfAbsent(zoneId, id -> MGC.point2Coord(zone.getCentroid()));
 	}
 
 	public static class DrtZonalSystemProvider implements Provider<DrtZonalSystem> {
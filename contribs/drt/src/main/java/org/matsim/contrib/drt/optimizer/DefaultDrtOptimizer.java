@@ -86,7 +86,7 @@ public class DefaultDrtOptimizer implements DrtOptimizer {
 
 	@Override
 	public void notifyMobsimBeforeSimStep(@SuppressWarnings("rawtypes") MobsimBeforeSimStepEvent e) {
-		if (requiresReoptimization) {
+		if (requiresReoptimization && e.getSimulationTime() % drtCfg.getRequestInsertionInterval() == 0) {
 			for (DvrpVehicle v : fleet.getVehicles().values()) {
 				scheduleTimingUpdater.updateTimings(v);
 			}
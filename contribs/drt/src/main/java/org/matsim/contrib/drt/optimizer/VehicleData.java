@@ -19,21 +19,29 @@
 
 package org.matsim.contrib.drt.optimizer;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
 
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.schedule.DrtStopTask;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.util.LinkTimePair;
+import org.matsim.contrib.util.distance.DistanceUtils;
 
 import com.google.common.collect.ImmutableList;
 
@@ -107,8 +115,21 @@ public class VehicleData {
 	private final EntryFactory entryFactory;
 	private final Map<Id<DvrpVehicle>, Entry> entries;
 
+	// grid of the locations (start and stops) of the entries, null if not used
+	private final double cellSize;
+	private final Map<Long, Map<Id<DvrpVehicle>, Entry>> entriesInCells;
+
 	public VehicleData(double currentTime, Stream<? extends DvrpVehicle> vehicles, EntryFactory entryFactory,
 			ForkJoinPool forkJoinPool) {
+		this(currentTime, vehicles, entryFactory, forkJoinPool, Double.NaN);
+	}
+
+	/**
+	 * @param cellSize size of the grid cells used by {@link #getEntriesWithinDistance(Coord, double)}; if NaN, no grid
+	 *                 is created and all entries are checked
+	 */
+	public VehicleData(double currentTime, Stream<? extends DvrpVehicle> vehicles, EntryFactory entryFactory,
+			ForkJoinPool forkJoinPool, double cellSize) {
 		this.currentTime = currentTime;
 		this.entryFactory = entryFactory;
 		try {
@@ -120,21 +141,137 @@ public class VehicleData {
 		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
+
+		this.cellSize = cellSize;
+		if (Double.isNaN(cellSize)) {
+			entriesInCells = null;
+		} else {
+			entriesInCells = new HashMap<>();
+			for (Entry e : entries.values()) {
+				addToCells(e);
+			}
+		}
 	}
 
 	public void updateEntry(DvrpVehicle vehicle) {
 		Entry e = entryFactory.create(vehicle, currentTime);
-		if (e != null) {
-			entries.put(vehicle.getId(), e);
+		Entry oldEntry = e != null ? entries.put(vehicle.getId(), e) : entries.remove(vehicle.getId());
+		if (entriesInCells != null) {
+			if (oldEntry != null) {
+				removeFromCells(oldEntry);
+			}
+			if (e != null) {
+				addToCells(e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the entries that start or stop at a link located not further than the given (beeline) distance from the
+	 * given coordinate. Uses the grid if available.
+	 */
+	public Collection<Entry> getEntriesWithinDistance(Coord coord, double distance) {
+		if (distance < 0) {
+			return Collections.emptyList();
+		}
+
+		Collection<Entry> candidates;
+		if (entriesInCells == null) {
+			candidates = entries.values();
 		} else {
-			entries.remove(vehicle.getId());
+			double cellCountX = Math.floor((coord.getX() + distance) / cellSize)
+					- Math.floor((coord.getX() - distance) / cellSize) + 1;
+			double cellCountY = Math.floor((coord.getY() + distance) / cellSize)
+					- Math.floor((coord.getY() - distance) / cellSize) + 1;
+			if (cellCountX * cellCountY > entriesInCells.size()) {
+				candidates = entries.values();// cheaper to check all entries
+			} else {
+				long minX = getCellIndex(coord.getX() - distance);
+				long maxX = getCellIndex(coord.getX() + distance);
+				long minY = getCellIndex(coord.getY() - distance);
+				long maxY = getCellIndex(coord.getY() + distance);
+				Map<Id<DvrpVehicle>, Entry> entriesInRange = new LinkedHashMap<>();
+				for (long x = minX; x <= maxX; x++) {
+					for (long y = minY; y <= maxY; y++) {
+						Map<Id<DvrpVehicle>, Entry> entriesInCell = entriesInCells.get(getCellKey(x, y));
+						if (entriesInCell != null) {
+							entriesInRange.putAll(entriesInCell);
+						}
+					}
+				}
+				candidates = entriesInRange.values();
+			}
+		}
+
+		List<Entry> entriesWithinDistance = new ArrayList<>();
+		for (Entry e : candidates) {
+			if (isWithinDistance(e, coord, distance)) {
+				entriesWithinDistance.add(e);
+			}
+		}
+		return entriesWithinDistance;
+	}
+
+	private static boolean isWithinDistance(Entry entry, Coord coord, double distance) {
+		if (DistanceUtils.calculateDistance(entry.start.link.getCoord(), coord) <= distance) {
+			return true;
+		}
+		for (Stop s : entry.stops) {
+			if (DistanceUtils.calculateDistance(s.task.getLink().getCoord(), coord) <= distance) {
+				return true;
+			}
 		}
+		return false;
+	}
+
+	private void addToCells(Entry entry) {
+		for (long key : getCellKeys(entry)) {
+			entriesInCells.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(entry.vehicle.getId(), entry);
+		}
+	}
+
+	private void removeFromCells(Entry entry) {
+		for (long key : getCellKeys(entry)) {
+			Map<Id<DvrpVehicle>, Entry> entriesInCell = entriesInCells.get(key);
+			entriesInCell.remove(entry.vehicle.getId());
+			if (entriesInCell.isEmpty()) {
+				entriesInCells.remove(key);
+			}
+		}
+	}
+
+	private Set<Long> getCellKeys(Entry entry) {
+		Set<Long> keys = new HashSet<>();
+		keys.add(getCellKey(entry.start.link.getCoord()));
+		for (Stop s : entry.stops) {
+			keys.add(getCellKey(s.task.getLink().getCoord()));
+		}
+		return keys;
+	}
+
+	private long getCellKey(Coord coord) {
+		return getCellKey(getCellIndex(coord.getX()), getCellIndex(coord.getY()));
+	}
+
+	private long getCellIndex(double value) {
+		return (long)Math.floor(value / cellSize);
+	}
+
+	private static long getCellKey(long x, long y) {
+		return (x << 32) ^ (y & 0xffffffffL);
 	}
 
 	public int getSize() {
 		return entries.size();
 	}
 
+	/**
+	 * @return the entry of the vehicle, <code>null</code> if the vehicle cannot serve any requests
+	 */
+	public Entry getEntry(Id<DvrpVehicle> vehicleId) {
+		return entries.get(vehicleId);
+	}
+
 	public Collection<Entry> getEntries() {
 		return Collections.unmodifiableCollection(entries.values());
 	}
@@ -18,7 +18,6 @@
 
 package org.matsim.contrib.drt.optimizer;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
@@ -94,18 +93,22 @@ public class VehicleDataEntryFactoryImpl implements EntryFactory {
 			nextTaskIdx = 0;
 		}
 
-		List<DrtStopTask> stopTasks = new ArrayList<>();
-		for (DrtTask task : tasks.subList(nextTaskIdx, tasks.size())) {
-			if (task.getDrtTaskType() == DrtTaskType.STOP) {
-				stopTasks.add((DrtStopTask)task);
+		// no intermediate list of stop tasks (entries are created for all vehicles at each re-optimisation)
+		int stopCount = 0;
+		for (int i = nextTaskIdx; i < tasks.size(); i++) {
+			if (tasks.get(i).getDrtTaskType() == DrtTaskType.STOP) {
+				stopCount++;
 			}
 		}
 
-		Stop[] stops = new Stop[stopTasks.size()];
+		Stop[] stops = new Stop[stopCount];
 		int outputOccupancy = 0;
-		for (int i = stops.length - 1; i >= 0; i--) {
-			Stop s = stops[i] = new Stop(stopTasks.get(i), outputOccupancy);
-			outputOccupancy -= s.occupancyChange;
+		for (int i = tasks.size() - 1, s = stopCount - 1; s >= 0; i--) {
+			DrtTask task = tasks.get(i);
+			if (task.getDrtTaskType() == DrtTaskType.STOP) {
+				Stop stop = stops[s--] = new Stop((DrtStopTask)task, outputOccupancy);
+				outputOccupancy -= stop.occupancyChange;
+			}
 		}
 
 		return new Entry(vehicle, start, outputOccupancy, ImmutableList.copyOf(stops));
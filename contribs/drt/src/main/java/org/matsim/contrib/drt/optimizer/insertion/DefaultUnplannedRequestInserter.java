@@ -19,19 +19,32 @@
 
 package org.matsim.contrib.drt.optimizer.insertion;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.contrib.drt.optimizer.VehicleData;
+import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
 import org.matsim.contrib.drt.optimizer.insertion.SingleVehicleInsertionProblem.BestInsertion;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.passenger.events.DrtRequestScheduledEvent;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.drt.scheduler.RequestInsertionScheduler;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.fleet.Fleet;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestRejectedEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
@@ -56,6 +69,11 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 	private final ForkJoinPool forkJoinPool;
 	private final ParallelMultiVehicleInsertionProblem insertionProblem;
 
+	// vehicles are pre-selected by distance only if late pickups are rejected (otherwise any vehicle may serve)
+	private final boolean preselectVehicles;
+	private final double optimisticBeelineSpeed;
+	private final double vehicleGridCellSize;
+
 	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
 			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
 			VehicleData.EntryFactory vehicleDataEntryFactory, PrecalculablePathDataProvider pathDataProvider,
@@ -70,6 +88,11 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		forkJoinPool = new ForkJoinPool(drtCfg.getNumberOfThreads());
 		insertionProblem = new ParallelMultiVehicleInsertionProblem(pathDataProvider, drtCfg, mobsimTimer, forkJoinPool,
 				penaltyCalculator);
+		preselectVehicles = penaltyCalculator instanceof InsertionCostCalculator.RejectSoftConstraintViolations;
+		optimisticBeelineSpeed = DetourLinksProvider.getOptimisticBeelineSpeed(drtCfg);
+		// cells of the size of the typical pickup neighbourhood
+		double cellSize = drtCfg.getMaxWaitTime() * optimisticBeelineSpeed;
+		vehicleGridCellSize = preselectVehicles && cellSize > 0 ? cellSize : Double.NaN;
 		insertionScheduler.initSchedules();
 	}
 
@@ -85,37 +108,171 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		}
 
 		VehicleData vData = new VehicleData(mobsimTimer.getTimeOfDay(), fleet.getVehicles().values().stream(),
-				vehicleDataEntryFactory, forkJoinPool);
+				vehicleDataEntryFactory, forkJoinPool, vehicleGridCellSize);
+
+		boolean batchInsertion = drtCfg.getRequestInsertionInterval() > 1;
+
+		// valid until a vehicle gets modified
+		Map<DrtRequest, DetourLinksProvider> detourLinksProviders = new HashMap<>();
+		if (unplannedRequests.size() > 1 && (batchInsertion || insertionProblem.isPrefetchingSupported())) {
+			for (DrtRequest req : unplannedRequests) {
+				detourLinksProviders.put(req, insertionProblem.findDetourLinks(req, getCandidateEntries(req, vData)));
+			}
+			insertionProblem.prefetchPathData(detourLinksProviders);
+		}
+
+		if (batchInsertion) {
+			scheduleRequestBatch(unplannedRequests, vData, detourLinksProviders);
+			unplannedRequests.clear();
+			return;
+		}
 
 		Iterator<DrtRequest> reqIter = unplannedRequests.iterator();
 		while (reqIter.hasNext()) {
 			DrtRequest req = reqIter.next();
-			Optional<BestInsertion> best = insertionProblem.findBestInsertion(req, vData.getEntries());
+			Optional<BestInsertion> best = findBestInsertion(req, vData, detourLinksProviders);
 			if (!best.isPresent()) {
-				req.setRejected(true);
-				eventsManager.processEvent(
-						new PassengerRequestRejectedEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
-								NO_INSERTION_FOUND_CAUSE));
-				eventsManager.processEvent(new PersonStuckEvent(mobsimTimer.getTimeOfDay(), req.getPassengerId(),
-						req.getFromLink().getId(), req.getMode()));
-				if (drtCfg.isPrintDetailedWarnings()) {
-					log.warn("No insertion found for drt request "
-							+ req
-							+ " from passenger id="
-							+ req.getPassengerId()
-							+ " fromLinkId="
-							+ req.getFromLink().getId());
-				}
+				rejectRequest(req);
 			} else {
-				BestInsertion bestInsertion = best.get();
-				insertionScheduler.scheduleRequest(bestInsertion.vehicleEntry, req, bestInsertion.insertion);
-				vData.updateEntry(bestInsertion.vehicleEntry.vehicle);
-				eventsManager.processEvent(
-						new DrtRequestScheduledEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
-								bestInsertion.vehicleEntry.vehicle.getId(), req.getPickupTask().getEndTime(),
-								req.getDropoffTask().getBeginTime()));
+				scheduleRequest(req, best.get(), vData);
+				detourLinksProviders.clear();
 			}
 			reqIter.remove();
 		}
 	}
+
+	private Optional<BestInsertion> findBestInsertion(DrtRequest req, VehicleData vData,
+			Map<DrtRequest, DetourLinksProvider> detourLinksProviders) {
+		Collection<Entry> vEntries = getCandidateEntries(req, vData);
+		DetourLinksProvider detourLinksProvider = detourLinksProviders.get(req);
+		return detourLinksProvider == null ?
+				insertionProblem.findBestInsertion(req, vEntries) :
+				insertionProblem.findBestInsertion(req, vEntries, detourLinksProvider);
+	}
+
+	/**
+	 * Assigns the requests collected over the insertion interval in rounds. In each round, the best insertions of the
+	 * requests are processed in the order of increasing cost and each vehicle gets at most one request. A request whose
+	 * best vehicle has already been taken in this round is deferred to the next round.
+	 * <p>
+	 * The best insertion into each vehicle is kept per request. Since the insertions into the vehicles not modified in
+	 * a round remain valid, the deferred requests are re-evaluated only against the modified vehicles. This differs
+	 * slightly from evaluating them against the whole fleet again: the insertions at the end of schedules are then
+	 * not limited to the nearest vehicles (see {@link DetourLinksProvider}), so a few more insertions are considered.
+	 * <p>
+	 * The requests are evaluated in parallel.
+	 */
+	private void scheduleRequestBatch(Collection<DrtRequest> requests, VehicleData vData,
+			Map<DrtRequest, DetourLinksProvider> detourLinksProviders) {
+		Map<DrtRequest, Map<Id<DvrpVehicle>, BestInsertion>> bestInsertionsPerVehicle = findBestInsertionsPerVehicle(
+				requests, req -> getCandidateEntries(req, vData), detourLinksProviders);
+		detourLinksProviders.clear();
+
+		List<DrtRequest> remainingRequests = new ArrayList<>(requests);
+		while (!remainingRequests.isEmpty()) {
+			Map<DrtRequest, BestInsertion> bestInsertions = new HashMap<>();
+			List<DrtRequest> assignableRequests = new ArrayList<>(remainingRequests.size());
+			for (DrtRequest req : remainingRequests) {
+				Optional<BestInsertion> best = bestInsertionsPerVehicle.get(req)
+						.values()
+						.stream()
+						.min(Comparator.comparingDouble(i -> i.cost));
+				if (!best.isPresent()) {
+					rejectRequest(req);
+				} else {
+					bestInsertions.put(req, best.get());
+					assignableRequests.add(req);
+				}
+			}
+
+			// stable sort, so ties are resolved by the order of submission
+			assignableRequests.sort(Comparator.comparingDouble(req -> bestInsertions.get(req).cost));
+
+			Set<Id<DvrpVehicle>> modifiedVehicles = new HashSet<>();
+			remainingRequests = new ArrayList<>();
+			for (DrtRequest req : assignableRequests) {
+				BestInsertion bestInsertion = bestInsertions.get(req);
+				if (modifiedVehicles.add(bestInsertion.vehicleEntry.vehicle.getId())) {
+					scheduleRequest(req, bestInsertion, vData);
+				} else {
+					remainingRequests.add(req);
+				}
+			}
+
+			if (!remainingRequests.isEmpty()) {
+				List<Entry> modifiedEntries = new ArrayList<>(modifiedVehicles.size());
+				for (Id<DvrpVehicle> vehicleId : modifiedVehicles) {
+					Entry vEntry = vData.getEntry(vehicleId);
+					if (vEntry != null) {
+						modifiedEntries.add(vEntry);
+					}
+				}
+				for (DrtRequest req : remainingRequests) {
+					bestInsertionsPerVehicle.get(req).keySet().removeAll(modifiedVehicles);
+				}
+				Map<DrtRequest, Map<Id<DvrpVehicle>, BestInsertion>> newBestInsertions = findBestInsertionsPerVehicle(
+						remainingRequests, req -> modifiedEntries, Collections.emptyMap());
+				for (DrtRequest req : remainingRequests) {
+					bestInsertionsPerVehicle.get(req).putAll(newBestInsertions.get(req));
+				}
+			}
+		}
+	}
+
+	private Map<DrtRequest, Map<Id<DvrpVehicle>, BestInsertion>> findBestInsertionsPerVehicle(
+			Collection<DrtRequest> requests, Function<DrtRequest, Collection<Entry>> vEntriesProvider,
+			Map<DrtRequest, DetourLinksProvider> detourLinksProviders) {
+		return forkJoinPool.submit(() -> requests.parallelStream()
+				.collect(Collectors.toMap(req -> req, req -> {
+					Collection<Entry> vEntries = vEntriesProvider.apply(req);
+					DetourLinksProvider detourLinksProvider = detourLinksProviders.get(req);
+					if (detourLinksProvider == null) {
+						detourLinksProvider = insertionProblem.findDetourLinks(req, vEntries);
+					}
+					Map<Id<DvrpVehicle>, BestInsertion> bestInsertions = new HashMap<>();
+					for (BestInsertion i : insertionProblem.findBestInsertionPerVehicle(req, vEntries,
+							detourLinksProvider)) {
+						bestInsertions.put(i.vehicleEntry.vehicle.getId(), i);
+					}
+					return bestInsertions;
+				})))
+				.join();
+	}
+
+	/**
+	 * If late pickups are rejected, only vehicles that start or stop close enough to the pickup link are returned.
+	 * Since the vehicles depart from their locations not earlier than now, the other vehicles cannot reach the pickup
+	 * before the latest start time, even at the optimistic beeline speed used for filtering the insertions.
+	 */
+	private Collection<Entry> getCandidateEntries(DrtRequest req, VehicleData vData) {
+		if (!preselectVehicles) {
+			return vData.getEntries();
+		}
+		double maxDriveTime = req.getLatestStartTime() - drtCfg.getStopDuration() - mobsimTimer.getTimeOfDay();
+		return vData.getEntriesWithinDistance(req.getFromLink().getCoord(), maxDriveTime * optimisticBeelineSpeed);
+	}
+
+	private void rejectRequest(DrtRequest req) {
+		req.setRejected(true);
+		eventsManager.processEvent(new PassengerRequestRejectedEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(),
+				req.getId(), NO_INSERTION_FOUND_CAUSE));
+		eventsManager.processEvent(new PersonStuckEvent(mobsimTimer.getTimeOfDay(), req.getPassengerId(),
+				req.getFromLink().getId(), req.getMode()));
+		if (drtCfg.isPrintDetailedWarnings()) {
+			log.warn("No insertion found for drt request "
+					+ req
+					+ " from passenger id="
+					+ req.getPassengerId()
+					+ " fromLinkId="
+					+ req.getFromLink().getId());
+		}
+	}
+
+	private void scheduleRequest(DrtRequest req, BestInsertion bestInsertion, VehicleData vData) {
+		insertionScheduler.scheduleRequest(bestInsertion.vehicleEntry, req, bestInsertion.insertion);
+		vData.updateEntry(bestInsertion.vehicleEntry.vehicle);
+		eventsManager.processEvent(new DrtRequestScheduledEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(),
+				req.getId(), bestInsertion.vehicleEntry.vehicle.getId(), req.getPickupTask().getEndTime(),
+				req.getDropoffTask().getBeginTime()));
+	}
 }
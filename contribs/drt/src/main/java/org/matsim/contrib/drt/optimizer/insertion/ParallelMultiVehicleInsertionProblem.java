@@ -20,11 +20,14 @@
 package org.matsim.contrib.drt.optimizer.insertion;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.log4j.Logger;
@@ -60,26 +63,73 @@ public class ParallelMultiVehicleInsertionProblem implements MultiVehicleInserti
 
 	@Override
 	public Optional<BestInsertion> findBestInsertion(DrtRequest drtRequest, Collection<Entry> vEntries) {
-		DetourLinksProvider detourLinksProvider = new DetourLinksProvider(drtCfg, timer, drtRequest, penaltyCalculator);
-		detourLinksProvider.findInsertionsAndLinks(forkJoinPool, vEntries);
+		return findBestInsertion(drtRequest, vEntries, findDetourLinks(drtRequest, vEntries));
+	}
+
+	/**
+	 * @param detourLinksProvider found by {@link #findDetourLinks(DrtRequest, Collection)} for the same request and
+	 *                            vehicle entries (i.e. no vehicle may have been modified in the meantime)
+	 */
+	Optional<BestInsertion> findBestInsertion(DrtRequest drtRequest, Collection<Entry> vEntries,
+			DetourLinksProvider detourLinksProvider) {
+		return findBestInsertionPerVehicle(drtRequest, vEntries, detourLinksProvider).stream()
+				.min(Comparator.comparing(i -> i.cost));
+	}
 
+	/**
+	 * Can be called concurrently for different requests.
+	 *
+	 * @return the best insertion into each vehicle (if any)
+	 */
+	List<BestInsertion> findBestInsertionPerVehicle(DrtRequest drtRequest, Collection<Entry> vEntries,
+			DetourLinksProvider detourLinksProvider) {
 		detourLinksStats.updateStats(vEntries, detourLinksProvider);
 		Map<Entry, List<Insertion>> filteredInsertions = detourLinksProvider.getFilteredInsertions();
 		if (filteredInsertions.isEmpty()) {
-			return Optional.empty();
+			return Collections.emptyList();
 		}
 
-		pathDataProvider.precalculatePathData(drtRequest, detourLinksProvider.getDetourLinksSet());
+		PathDataProvider pathData = pathDataProvider.calcPathData(drtRequest,
+				detourLinksProvider.getDetourLinksSet());
 
 		return forkJoinPool.submit(() -> filteredInsertions.entrySet().parallelStream()//
-				.map(e -> new SingleVehicleInsertionProblem(pathDataProvider, insertionCostCalculator)
+				.map(e -> new SingleVehicleInsertionProblem(pathData, insertionCostCalculator)
 						.findBestInsertion(drtRequest, e.getKey(), e.getValue()))//
 				.filter(Optional::isPresent)//
 				.map(Optional::get)//
-				.min(Comparator.comparing(i -> i.cost)))//
+				.collect(Collectors.toList()))//
 				.join();
 	}
 
+	DetourLinksProvider findDetourLinks(DrtRequest drtRequest, Collection<Entry> vEntries) {
+		DetourLinksProvider detourLinksProvider = new DetourLinksProvider(drtCfg, timer, drtRequest, penaltyCalculator);
+		detourLinksProvider.findInsertionsAndLinks(forkJoinPool, vEntries);
+		return detourLinksProvider;
+	}
+
+	/**
+	 * Lets the path data provider calculate the path data of all requests in parallel. The detour links are found by
+	 * the caller (see {@link #findDetourLinks(DrtRequest, Collection)}), who can then reuse them for inserting the
+	 * requests until a vehicle gets modified. The path data for the new stops created while the requests are being
+	 * inserted one by one are calculated later on by {@link #findBestInsertion(DrtRequest, Collection)}.
+	 */
+	void prefetchPathData(Map<DrtRequest, DetourLinksProvider> detourLinksProviders) {
+		if (!pathDataProvider.isPrefetchingSupported()) {
+			return;
+		}
+		Map<DrtRequest, DetourLinksSet> detourLinksSets = new HashMap<>();
+		for (Map.Entry<DrtRequest, DetourLinksProvider> e : detourLinksProviders.entrySet()) {
+			if (!e.getValue().getFilteredInsertions().isEmpty()) {
+				detourLinksSets.put(e.getKey(), e.getValue().getDetourLinksSet());
+			}
+		}
+		pathDataProvider.prefetchPathData(detourLinksSets);
+	}
+
+	boolean isPrefetchingSupported() {
+		return pathDataProvider.isPrefetchingSupported();
+	}
+
 	public void shutdown() {
 		forkJoinPool.shutdown();
 		detourLinksStats.printStats();
@@ -97,7 +147,7 @@ public class ParallelMultiVehicleInsertionProblem implements MultiVehicleInserti
 		private final SummaryStatistics insertionAtEndStats = new SummaryStatistics();
 		private final SummaryStatistics insertionAtEndWhenNoStopsStats = new SummaryStatistics();
 
-		private void updateStats(Collection<Entry> vEntries, DetourLinksProvider detourLinksProvider) {
+		private synchronized void updateStats(Collection<Entry> vEntries, DetourLinksProvider detourLinksProvider) {
 			addSet(detourLinksProvider.getDetourLinksSet(), vEntries.size());
 			updateInsertionStats(detourLinksProvider.getFilteredInsertions());
 		}
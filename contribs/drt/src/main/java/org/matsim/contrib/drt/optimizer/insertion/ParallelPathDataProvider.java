@@ -15,120 +15,234 @@
  *   See also COPYING, LICENSE and WARRANTY file                           *
  *                                                                         *
  * *********************************************************************** */
-
 package org.matsim.contrib.drt.optimizer.insertion;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import javax.inject.Named;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
-import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
 import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
+import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
+import org.matsim.contrib.locationchoice.router.BackwardFastMultiNodeDijkstraFactory;
+import org.matsim.contrib.util.ExecutorServiceWithResource;
+import org.matsim.contrib.util.ExecutorServiceWithResource.CallableWithResource;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
 import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
 import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
+import org.matsim.core.router.FastMultiNodeDijkstraFactory;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
+import com.google.common.util.concurrent.Futures;
+
 /**
+ * Path data are cached per search (start link, direction and start time) and shared by all requests processed in the
+ * same time step, so for each search only the paths to links not searched before are calculated. The cache is cleared
+ * after each time step, which also covers updates of the (online) DVRP travel time estimates. Since every shortest path
+ * tree is computed by a separate (single-threaded) Dijkstra, the results do not depend on how the searches are split.
+ * 
  * @author michalm
  */
-public class ParallelPathDataProvider implements PrecalculablePathDataProvider, MobsimBeforeCleanupListener {
+public class ParallelPathDataProvider
+		implements PrecalculablePathDataProvider, MobsimAfterSimStepListener, MobsimBeforeCleanupListener {
+	/**
+	 * @deprecated the number of threads is no longer limited, use {@link DrtConfigGroup#getNumberOfThreads()}
+	 */
+	@Deprecated
 	public static final int MAX_THREADS = 4;
 
-	private final OneToManyPathSearch toPickupPathSearch;
-	private final OneToManyPathSearch fromPickupPathSearch;
-	private final OneToManyPathSearch toDropoffPathSearch;
-	private final OneToManyPathSearch fromDropoffPathSearch;
+	private static class PathSearches {
+		private final OneToManyPathSearch forwardSearch;
+		private final OneToManyPathSearch backwardSearch;
+
+		private PathSearches(OneToManyPathSearch forwardSearch, OneToManyPathSearch backwardSearch) {
+			this.forwardSearch = forwardSearch;
+			this.backwardSearch = backwardSearch;
+		}
+	}
+
+	private static class SearchKey {
+		private final Link fromLink;
+		private final boolean forward;
+		private final double startTime;
+
+		private SearchKey(Link fromLink, boolean forward, double startTime) {
+			this.fromLink = fromLink;
+			this.forward = forward;
+			this.startTime = startTime;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof SearchKey)) {
+				return false;
+			}
+			SearchKey other = (SearchKey)obj;
+			return fromLink == other.fromLink && forward == other.forward && startTime == other.startTime;
+		}
 
-	private final double stopDuration;
+		@Override
+		public int hashCode() {
+			return 31 * (31 * fromLink.getId().hashCode() + Boolean.hashCode(forward)) + Double.hashCode(startTime);
+		}
+	}
 
-	private final ExecutorService executorService;
+	private final DrtConfigGroup drtCfg;
+	private final ExecutorServiceWithResource<PathSearches> executorService;
+
+	// cleared after each sim step
+	private final Map<SearchKey, Map<Id<Link>, PathData>> pathDataCache = new ConcurrentHashMap<>();
 
 	// ==== recalculated by precalculatePathData()
-	private Map<Id<Link>, PathData> pathsToPickupMap;
-	private Map<Id<Link>, PathData> pathsFromPickupMap;
-	private Map<Id<Link>, PathData> pathsToDropoffMap;
-	private Map<Id<Link>, PathData> pathsFromDropoffMap;
+	private PathDataProvider precalculatedPathData;
 
 	public ParallelPathDataProvider(@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network,
 			@Named(DvrpTravelTimeModule.DVRP_ESTIMATED) TravelTime travelTime, TravelDisutility travelDisutility,
 			DrtConfigGroup drtCfg) {
-		toPickupPathSearch = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
-		fromPickupPathSearch = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
-		toDropoffPathSearch = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
-		fromDropoffPathSearch = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
-		stopDuration = drtCfg.getStopDuration();
-		executorService = Executors.newFixedThreadPool(Math.min(drtCfg.getNumberOfThreads(), MAX_THREADS));
+		this.drtCfg = drtCfg;
+		// the factories create the routing network once, so only the per-search data are allocated per thread
+		FastMultiNodeDijkstraFactory forwardFactory = new FastMultiNodeDijkstraFactory(true);
+		BackwardFastMultiNodeDijkstraFactory backwardFactory = new BackwardFastMultiNodeDijkstraFactory(true);
+		List<PathSearches> pathSearches = new ArrayList<>();
+		for (int i = 0; i < drtCfg.getNumberOfThreads(); i++) {
+			pathSearches.add(new PathSearches(
+					OneToManyPathSearch.createForwardSearch(forwardFactory, network, travelTime, travelDisutility),
+					OneToManyPathSearch.createBackwardSearch(backwardFactory, network, travelTime, travelDisutility)));
+		}
+		executorService = new ExecutorServiceWithResource<>(pathSearches);
 	}
 
 	@Override
 	public void precalculatePathData(DrtRequest drtRequest, DetourLinksSet detourLinksSet) {
+		precalculatedPathData = calcPathData(drtRequest, detourLinksSet);
+	}
+
+	@Override
+	public PathDataProvider calcPathData(DrtRequest drtRequest, DetourLinksSet detourLinksSet) {
 		Link pickup = drtRequest.getFromLink();
 		Link dropoff = drtRequest.getToLink();
 
 		double earliestPickupTime = drtRequest.getEarliestStartTime(); // optimistic
-		double minTravelTime = 15 * 60; // FIXME inaccurate temp solution: fixed 15 min
-		double earliestDropoffTime = earliestPickupTime + minTravelTime + stopDuration;
+		double earliestDropoffTime = PrecalculablePathDataProvider.calcEarliestDropoffTime(drtRequest, drtCfg);
 
 		// with vehicle insertion filtering -- pathsToPickup is the most computationally demanding task, while
 		// pathsFromDropoff is the least demanding one
 
 		// highest computation time (approx. 45% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsToPickupFuture = executorService.submit(() -> {
-			// calc backward dijkstra from pickup to ends of selected stops + starts
-			return toPickupPathSearch.calcPathDataMap(pickup, detourLinksSet.pickupDetourStartLinks.values(),
-					earliestPickupTime);
-		});
+		// calc backward dijkstra from pickup to ends of selected stops + starts
+		Future<Map<Id<Link>, PathData>> pathsToPickupFuture = submitSearch(
+				new SearchKey(pickup, false, earliestPickupTime), detourLinksSet.pickupDetourStartLinks.values());
 
 		// medium computation time (approx. 25% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsFromPickupFuture = executorService.submit(() -> {
-			// calc forward dijkstra from pickup to beginnings of selected stops + dropoff
-			return fromPickupPathSearch.calcPathDataMap(pickup, detourLinksSet.pickupDetourEndLinks.values(),
-					earliestPickupTime);
-		});
+		// calc forward dijkstra from pickup to beginnings of selected stops + dropoff
+		Future<Map<Id<Link>, PathData>> pathsFromPickupFuture = submitSearch(
+				new SearchKey(pickup, true, earliestPickupTime), detourLinksSet.pickupDetourEndLinks.values());
 
 		// medium computation time (approx. 25% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsToDropoffFuture = executorService.submit(() -> {
-			// calc backward dijkstra from dropoff to ends of selected stops
-			return toDropoffPathSearch.calcPathDataMap(dropoff, detourLinksSet.dropoffDetourStartLinks.values(),
-					earliestDropoffTime);
-		});
+		// calc backward dijkstra from dropoff to ends of selected stops
+		Future<Map<Id<Link>, PathData>> pathsToDropoffFuture = submitSearch(
+				new SearchKey(dropoff, false, earliestDropoffTime), detourLinksSet.dropoffDetourStartLinks.values());
 
 		// lowest computation time (approx. 5% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsFromDropoffFuture = executorService.submit(() -> {
-			// calc forward dijkstra from dropoff to beginnings of selected stops
-			return fromDropoffPathSearch.calcPathDataMap(dropoff, detourLinksSet.dropoffDetourEndLinks.values(),
-					earliestDropoffTime);
-		});
-
-		try {
-			// start from earliest (fastest) to latest (slowest)
-			pathsFromDropoffMap = pathsFromDropoffFuture.get();
-			pathsToDropoffMap = pathsToDropoffFuture.get();
-			pathsFromPickupMap = pathsFromPickupFuture.get();
-			pathsToPickupMap = pathsToPickupFuture.get();
-		} catch (InterruptedException | ExecutionException e) {
-			throw new RuntimeException(e);
+		// calc forward dijkstra from dropoff to beginnings of selected stops
+		Future<Map<Id<Link>, PathData>> pathsFromDropoffFuture = submitSearch(
+				new SearchKey(dropoff, true, earliestDropoffTime), detourLinksSet.dropoffDetourEndLinks.values());
+
+		// start from earliest (fastest) to latest (slowest)
+		Map<Id<Link>, PathData> pathsFromDropoffMap = Futures.getUnchecked(pathsFromDropoffFuture);
+		Map<Id<Link>, PathData> pathsToDropoffMap = Futures.getUnchecked(pathsToDropoffFuture);
+		Map<Id<Link>, PathData> pathsFromPickupMap = Futures.getUnchecked(pathsFromPickupFuture);
+		Map<Id<Link>, PathData> pathsToPickupMap = Futures.getUnchecked(pathsToPickupFuture);
+		return PrecalculablePathDataProvider.createPathDataProvider(pathsToPickupMap, pathsFromPickupMap,
+				pathsToDropoffMap, pathsFromDropoffMap);
+	}
+
+	/**
+	 * Runs the searches of all requests in parallel. Searches from the same link, in the same direction and at the same
+	 * time are merged into one.
+	 */
+	@Override
+	public void prefetchPathData(Map<DrtRequest, DetourLinksSet> detourLinksSets) {
+		Map<SearchKey, Map<Id<Link>, Link>> toLinksPerSearch = new HashMap<>();
+		for (Map.Entry<DrtRequest, DetourLinksSet> e : detourLinksSets.entrySet()) {
+			DrtRequest drtRequest = e.getKey();
+			DetourLinksSet detourLinksSet = e.getValue();
+			double earliestPickupTime = drtRequest.getEarliestStartTime();
+			double earliestDropoffTime = PrecalculablePathDataProvider.calcEarliestDropoffTime(drtRequest, drtCfg);
+
+			addToLinks(toLinksPerSearch, new SearchKey(drtRequest.getFromLink(), false, earliestPickupTime),
+					detourLinksSet.pickupDetourStartLinks);
+			addToLinks(toLinksPerSearch, new SearchKey(drtRequest.getFromLink(), true, earliestPickupTime),
+					detourLinksSet.pickupDetourEndLinks);
+			addToLinks(toLinksPerSearch, new SearchKey(drtRequest.getToLink(), false, earliestDropoffTime),
+					detourLinksSet.dropoffDetourStartLinks);
+			addToLinks(toLinksPerSearch, new SearchKey(drtRequest.getToLink(), true, earliestDropoffTime),
+					detourLinksSet.dropoffDetourEndLinks);
 		}
+
+		List<Future<Map<Id<Link>, PathData>>> futures = toLinksPerSearch.entrySet()
+				.stream()
+				.map(e -> submitSearch(e.getKey(), e.getValue().values()))
+				.collect(Collectors.toList());
+		futures.forEach(Futures::getUnchecked);
+	}
+
+	private static void addToLinks(Map<SearchKey, Map<Id<Link>, Link>> toLinksPerSearch, SearchKey key,
+			Map<Id<Link>, Link> toLinks) {
+		toLinksPerSearch.computeIfAbsent(key, k -> new HashMap<>()).putAll(toLinks);
+	}
+
+	/**
+	 * If called concurrently for the same key, the paths to the same links may be searched more than once (with the
+	 * same results).
+	 */
+	private Future<Map<Id<Link>, PathData>> submitSearch(SearchKey key, Collection<Link> toLinks) {
+		Map<Id<Link>, PathData> pathDataMap = pathDataCache.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+		List<Link> missingLinks = toLinks.stream()
+				.filter(link -> !pathDataMap.containsKey(link.getId()))
+				.collect(Collectors.toList());
+		CallableWithResource<Map<Id<Link>, PathData>, PathSearches> task = searches -> {
+			if (!missingLinks.isEmpty()) {
+				OneToManyPathSearch search = key.forward ? searches.forwardSearch : searches.backwardSearch;
+				pathDataMap.putAll(search.calcPathDataMap(key.fromLink, missingLinks, key.startTime));
+			}
+			return pathDataMap;
+		};
+		return executorService.submitCallable(task);
+	}
+
+	@Override
+	public boolean isPrefetchingSupported() {
+		return true;
 	}
 
 	@Override
 	public PathDataSet getPathDataSet(DrtRequest drtRequest, Entry vEntry) {
-		return PrecalculablePathDataProvider.getPathDataSet(drtRequest, vEntry, pathsToPickupMap, pathsFromPickupMap,
-				pathsToDropoffMap, pathsFromDropoffMap);
+		return precalculatedPathData.getPathDataSet(drtRequest, vEntry);
+	}
+
+	@Override
+	public void notifyMobsimAfterSimStep(@SuppressWarnings("rawtypes") MobsimAfterSimStepEvent e) {
+		if (!pathDataCache.isEmpty()) {
+			pathDataCache.clear();
+		}
 	}
 
 	@Override
@@ -26,7 +26,9 @@ import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
 import org.matsim.contrib.drt.optimizer.VehicleData.Stop;
 import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
+import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
+import org.matsim.contrib.util.distance.DistanceUtils;
 
 /**
  * @author michalm
@@ -34,6 +36,45 @@ import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
 public interface PrecalculablePathDataProvider extends PathDataProvider {
 	void precalculatePathData(DrtRequest drtRequest, DetourLinksSet detourLinkSet);
 
+	/**
+	 * Same as {@link #precalculatePathData(DrtRequest, DetourLinksSet)}, but the path data are returned instead of
+	 * being kept by this provider, so several requests can be processed concurrently.
+	 */
+	PathDataProvider calcPathData(DrtRequest drtRequest, DetourLinksSet detourLinkSet);
+
+	/**
+	 * Precalculates path data for several requests at once (e.g. all requests submitted in the same time step), so
+	 * that the subsequent calls to {@link #precalculatePathData(DrtRequest, DetourLinksSet)} for these requests can
+	 * reuse them. Does nothing by default.
+	 */
+	default void prefetchPathData(Map<DrtRequest, DetourLinksSet> detourLinksSets) {
+	}
+
+	/**
+	 * @return <code>true</code> if {@link #prefetchPathData(Map)} is implemented, otherwise finding the detour links
+	 * for prefetching is not worth it
+	 */
+	default boolean isPrefetchingSupported() {
+		return false;
+	}
+
+	/**
+	 * Optimistic (i.e. not later than the actual) dropoff time, assuming a direct ride starting at the earliest pickup
+	 * time. Uses the same optimistic beeline speed as the insertion filtering in {@link DetourLinksProvider}.
+	 */
+	static double calcEarliestDropoffTime(DrtRequest drtRequest, DrtConfigGroup drtCfg) {
+		double minTravelTime = DistanceUtils.calculateDistance(drtRequest.getFromLink(), drtRequest.getToLink())
+				/ DetourLinksProvider.getOptimisticBeelineSpeed(drtCfg);
+		return drtRequest.getEarliestStartTime() + minTravelTime + drtCfg.getStopDuration();
+	}
+
+	static PathDataProvider createPathDataProvider(Map<Id<Link>, PathData> pathsToPickupMap,
+			Map<Id<Link>, PathData> pathsFromPickupMap, Map<Id<Link>, PathData> pathsToDropoffMap,
+			Map<Id<Link>, PathData> pathsFromDropoffMap) {
+		return (drtRequest, vEntry) -> getPathDataSet(drtRequest, vEntry, pathsToPickupMap, pathsFromPickupMap,
+				pathsToDropoffMap, pathsFromDropoffMap);
+	}
+
 	static PathDataSet getPathDataSet(DrtRequest drtRequest, Entry vEntry, Map<Id<Link>, PathData> pathsToPickupMap,
 			Map<Id<Link>, PathData> pathsFromPickupMap, Map<Id<Link>, PathData> pathsToDropoffMap,
 			Map<Id<Link>, PathData> pathsFromDropoffMap) {
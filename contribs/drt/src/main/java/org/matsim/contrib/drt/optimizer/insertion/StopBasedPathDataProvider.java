@@ -19,11 +19,9 @@
 package org.matsim.contrib.drt.optimizer.insertion;
 
 import java.util.List;
-import java.util.Map;
 
 import javax.inject.Named;
 
-import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.passenger.DrtRequest;
@@ -31,7 +29,6 @@ import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
 import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.dvrp.path.ManyToManyPathData;
-import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
 import org.matsim.contrib.dvrp.util.TimeDiscretizer;
@@ -46,20 +43,17 @@ import com.google.common.collect.ImmutableList;
  * @author michalm
  */
 public class StopBasedPathDataProvider implements PrecalculablePathDataProvider {
-	private final double stopDuration;
+	private final DrtConfigGroup drtCfg;
 
 	private final ManyToManyPathData manyToManyPathData;
 
-	// ==== recalculated by calcPathData()
-	private Map<Id<Link>, PathData> pathsToPickupMap;
-	private Map<Id<Link>, PathData> pathsFromPickupMap;
-	private Map<Id<Link>, PathData> pathsToDropoffMap;
-	private Map<Id<Link>, PathData> pathsFromDropoffMap;
+	// ==== recalculated by precalculatePathData()
+	private PathDataProvider precalculatedPathData;
 
 	public StopBasedPathDataProvider(@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network,
 			@Named(DvrpTravelTimeModule.DVRP_ESTIMATED) TravelTime travelTime, TravelDisutility travelDisutility,
 			TransitSchedule schedule, TravelTimeCalculatorConfigGroup ttcConfig, DrtConfigGroup drtCfg) {
-		stopDuration = drtCfg.getStopDuration();
+		this.drtCfg = drtCfg;
 
 		List<Link> stopLinks = schedule.getFacilities()
 				.values()
@@ -73,23 +67,27 @@ public class StopBasedPathDataProvider implements PrecalculablePathDataProvider
 
 	@Override
 	public void precalculatePathData(DrtRequest drtRequest, DetourLinksSet detourLinkSet) {
+		precalculatedPathData = calcPathData(drtRequest, detourLinkSet);
+	}
+
+	@Override
+	public PathDataProvider calcPathData(DrtRequest drtRequest, DetourLinksSet detourLinkSet) {
 		Link pickup = drtRequest.getFromLink();
 		Link dropoff = drtRequest.getToLink();
 
 		final double earliestPickupTime = drtRequest.getEarliestStartTime(); // optimistic
-		final double minTravelTime = 15 * 60; // FIXME inaccurate temp solution: fixed 15 min
-		final double earliestDropoffTime = earliestPickupTime + minTravelTime + stopDuration;
+		final double earliestDropoffTime = PrecalculablePathDataProvider.calcEarliestDropoffTime(drtRequest, drtCfg);
 
 		// NOTE: all paths are calculated forward from startTime (no backward Dijkstra used)
-		pathsToPickupMap = manyToManyPathData.getIncomingPathData(pickup.getId(), earliestPickupTime);
-		pathsFromPickupMap = manyToManyPathData.getOutgoingPathData(pickup.getId(), earliestPickupTime);
-		pathsToDropoffMap = manyToManyPathData.getIncomingPathData(dropoff.getId(), earliestDropoffTime);
-		pathsFromDropoffMap = manyToManyPathData.getOutgoingPathData(dropoff.getId(), earliestDropoffTime);
+		return PrecalculablePathDataProvider.createPathDataProvider(
+				manyToManyPathData.getIncomingPathData(pickup.getId(), earliestPickupTime),
+				manyToManyPathData.getOutgoingPathData(pickup.getId(), earliestPickupTime),
+				manyToManyPathData.getIncomingPathData(dropoff.getId(), earliestDropoffTime),
+				manyToManyPathData.getOutgoingPathData(dropoff.getId(), earliestDropoffTime));
 	}
 
 	@Override
 	public PathDataSet getPathDataSet(DrtRequest drtRequest, Entry vEntry) {
-		return PrecalculablePathDataProvider.getPathDataSet(drtRequest, vEntry, pathsToPickupMap, pathsFromPickupMap,
-				pathsToDropoffMap, pathsFromDropoffMap);
+		return precalculatedPathData.getPathDataSet(drtRequest, vEntry);
 	}
 }
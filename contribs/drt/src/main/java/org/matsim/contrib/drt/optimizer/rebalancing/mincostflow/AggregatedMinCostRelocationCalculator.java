@@ -20,8 +20,11 @@ package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
@@ -34,30 +37,56 @@ import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.schedule.Schedules;
 import org.matsim.contrib.util.distance.DistanceUtils;
+import org.matsim.contrib.zone.ZonalSkims;
+import org.matsim.core.mobsim.framework.MobsimTimer;
 import org.matsim.core.network.NetworkUtils;
-import org.matsim.core.utils.geometry.geotools.MGC;
 
 import com.google.inject.name.Named;
-import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * @author michalm
  */
 public class AggregatedMinCostRelocationCalculator implements MinCostRelocationCalculator {
+	// longer relocations make no sense; also keeps the (int) costs summed up by MinCostFlow far from overflowing
+	private static final double MAX_TRAVEL_TIME = 24 * 3600;
+
 	private final DrtZonalSystem zonalSystem;
 	private final Network network;
+	// warm-started with the solution from the previous rebalancing interval
+	private final TransportProblem<String, String> transportProblem;
+
+	// zones do not change, so the nearest links to their centroids can be reused in all rebalancing intervals
+	private final Map<String, Link> destinationLinks = new HashMap<>();
 
 	public AggregatedMinCostRelocationCalculator(DrtZonalSystem zonalSystem,
 			@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network) {
 		this.zonalSystem = zonalSystem;
 		this.network = network;
+		this.transportProblem = new TransportProblem<>(this::calcStraightLineDistance);
+	}
+
+	/**
+	 * Relocation costs are the zone-to-zone travel times at the current time. No vehicles are relocated between zones
+	 * that are not connected.
+	 */
+	public AggregatedMinCostRelocationCalculator(DrtZonalSystem zonalSystem,
+			@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network, ZonalSkims skims, MobsimTimer timer) {
+		this.zonalSystem = zonalSystem;
+		this.network = network;
+		this.transportProblem = new TransportProblem<>((zone1, zone2) -> toRelocationCost(
+				skims.getTravelTime(zone1, zone2, timer.getTimeOfDay())));
+	}
+
+	// (int)Infinity would be Integer.MAX_VALUE, which makes the flow costs overflow, so unreachable zones
+	// (infinite travel time) are not connected at all
+	private static int toRelocationCost(double travelTime) {
+		return travelTime <= MAX_TRAVEL_TIME ? (int)travelTime : TransportProblem.NO_CONNECTION;
 	}
 
 	@Override
 	public List<Relocation> calcRelocations(List<Pair<String, Integer>> supply, List<Pair<String, Integer>> demand,
 			Map<String, List<DvrpVehicle>> rebalancableVehiclesPerZone) {
-		List<Triple<String, String, Integer>> interZonalRelocations = new TransportProblem<String, String>(
-				this::calcStraightLineDistance).solve(supply, demand);
+		List<Triple<String, String, Integer>> interZonalRelocations = transportProblem.solve(supply, demand);
 		return calcRelocations(rebalancableVehiclesPerZone, interZonalRelocations);
 	}
 
@@ -72,25 +101,32 @@ public class AggregatedMinCostRelocationCalculator implements MinCostRelocationC
 		for (Triple<String, String, Integer> r : interZonalRelocations) {
 			List<DvrpVehicle> rebalancableVehicles = rebalancableVehiclesPerZone.get(r.getLeft());
 
-			String toZone = r.getMiddle();
-			Geometry z = zonalSystem.getZone(toZone);
-			Coord zoneCentroid = MGC.point2Coord(z.getCentroid());
-			Link destinationLink = NetworkUtils.getNearestLink(network, zoneCentroid);
-
-			int flow = r.getRight();
-			for (int f = 0; f < flow; f++) {
-				// TODO use BestDispatchFinder (needs to be moved from taxi to dvrp) instead
-				DvrpVehicle nearestVehicle = findNearestVehicle(rebalancableVehicles, destinationLink);
-				relocations.add(new Relocation(nearestVehicle, destinationLink));
-				rebalancableVehicles.remove(nearestVehicle);// TODO use map to have O(1) removal
+			Link destinationLink = destinationLinks.computeIfAbsent(r.getMiddle(),
+					z -> NetworkUtils.getNearestLink(network, zonalSystem.getZoneCentroid(z)));
+
+			// TODO use BestDispatchFinder (needs to be moved from taxi to dvrp) instead
+			List<DvrpVehicle> nearestVehicles = findNearestVehicles(rebalancableVehicles, destinationLink,
+					r.getRight());
+			for (DvrpVehicle v : nearestVehicles) {
+				relocations.add(new Relocation(v, destinationLink));
 			}
+			rebalancableVehicles.removeAll(new HashSet<>(nearestVehicles));
 		}
 		return relocations;
 	}
 
-	private DvrpVehicle findNearestVehicle(List<DvrpVehicle> rebalancableVehicles, Link destinationLink) {
+	// stable sorting: the same vehicles (and order) as if the nearest vehicle was chosen and removed 'count' times
+	private List<DvrpVehicle> findNearestVehicles(List<DvrpVehicle> rebalancableVehicles, Link destinationLink,
+			int count) {
 		Coord toCoord = destinationLink.getFromNode().getCoord();
-		return rebalancableVehicles.stream().min(Comparator.comparing(v -> DistanceUtils.calculateSquaredDistance(//
-				Schedules.getLastLinkInSchedule(v).getToNode().getCoord(), toCoord))).get();
+		Map<DvrpVehicle, Double> squaredDistances = new HashMap<>();
+		for (DvrpVehicle v : rebalancableVehicles) {
+			squaredDistances.put(v, DistanceUtils.calculateSquaredDistance(//
+					Schedules.getLastLinkInSchedule(v).getToNode().getCoord(), toCoord));
+		}
+		return rebalancableVehicles.stream()
+				.sorted(Comparator.comparingDouble(squaredDistances::get))
+				.limit(count)
+				.collect(Collectors.toList());
 	}
 }
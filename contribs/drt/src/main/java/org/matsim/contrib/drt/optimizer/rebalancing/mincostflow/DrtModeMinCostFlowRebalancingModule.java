@@ -21,6 +21,7 @@
 package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.drt.analysis.zonal.DrtZonalSkimsProvider;
 import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
 import org.matsim.contrib.drt.analysis.zonal.ZonalDemandAggregator;
 import org.matsim.contrib.drt.optimizer.rebalancing.RebalancingStrategy;
@@ -30,7 +31,9 @@ import org.matsim.contrib.dvrp.fleet.Fleet;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeModule;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
+import org.matsim.contrib.zone.ZonalSkims;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.MobsimTimer;
 
 /**
  * @author michalm
@@ -47,6 +50,9 @@ public class DrtModeMinCostFlowRebalancingModule extends AbstractDvrpModeModule
 	public void install() {
 		MinCostFlowRebalancingParams params = drtCfg.getMinCostFlowRebalancing();
 		bindModal(DrtZonalSystem.class).toProvider(new DrtZonalSystem.DrtZonalSystemProvider(params.getCellSize()));
+		// not a singleton: each instance uses the travel time estimates current at the time of its creation, so that
+		// the QSim and the analysis (e.g. after each iteration) get up-to-date skims
+		bindModal(ZonalSkims.class).toProvider(new DrtZonalSkimsProvider(drtCfg));
 
 		installQSimModule(new AbstractDvrpModeQSimModule(getMode()) {
 			@Override
@@ -60,10 +66,28 @@ public class DrtModeMinCostFlowRebalancingModule extends AbstractDvrpModeModule
 						getter -> new LinearRebalancingTargetCalculator(getter.getModal(ZonalDemandAggregator.class),
 								drtCfg))).asEagerSingleton();
 
-				bindModal(MinCostRelocationCalculator.class).toProvider(modalProvider(
-						getter -> new AggregatedMinCostRelocationCalculator(getter.getModal(DrtZonalSystem.class),
-								getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING))))
-						.asEagerSingleton();
+				switch (params.getRelocationCost()) {
+					case STRAIGHT_LINE_DISTANCE:
+						bindModal(MinCostRelocationCalculator.class).toProvider(modalProvider(
+								getter -> new AggregatedMinCostRelocationCalculator(
+										getter.getModal(DrtZonalSystem.class),
+										getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING))))
+								.asEagerSingleton();
+						break;
+
+					case TRAVEL_TIME:
+						// skims are recalculated for each iteration (using the current travel time estimates)
+						bindModal(MinCostRelocationCalculator.class).toProvider(modalProvider(
+								getter -> new AggregatedMinCostRelocationCalculator(
+										getter.getModal(DrtZonalSystem.class),
+										getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING),
+										getter.getModal(ZonalSkims.class), getter.get(MobsimTimer.class))))
+								.asEagerSingleton();
+						break;
+
+					default:
+						throw new IllegalArgumentException();
+				}
 			}
 		});
 
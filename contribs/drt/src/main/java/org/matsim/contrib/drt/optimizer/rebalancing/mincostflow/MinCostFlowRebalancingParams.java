@@ -20,6 +20,7 @@ package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
 import java.util.Map;
 
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
@@ -61,6 +62,15 @@ public class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 	static final String CELL_SIZE_EXP = "size of square cells used for demand aggregation."
 			+ " Depends on demand, supply and network. Often used with values in the range of 500 - 2000 m";
 
+	public enum RelocationCost {
+		STRAIGHT_LINE_DISTANCE, TRAVEL_TIME
+	}
+
+	public static final String RELOCATION_COST = "relocationCost";
+	static final String RELOCATION_COST_EXP = "Cost of relocating a vehicle between two zones. STRAIGHT_LINE_DISTANCE"
+			+ " between zone centroids, or (expected) TRAVEL_TIME taken from zone-to-zone skims calculated (on demand,"
+			+ " per time bin) in each iteration. Default is STRAIGHT_LINE_DISTANCE.";
+
 	@PositiveOrZero
 	private int interval = 1800;// [s], if 0 then no rebalancing
 
@@ -79,6 +89,9 @@ public class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 	@Positive
 	public double cellSize = Double.NaN;// [m]
 
+	@NotNull
+	private RelocationCost relocationCost = RelocationCost.STRAIGHT_LINE_DISTANCE;
+
 	public MinCostFlowRebalancingParams() {
 		super(SET_NAME);
 	}
@@ -92,6 +105,7 @@ public class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 		map.put(TARGET_ALPHA, TARGET_ALPHA_EXP);
 		map.put(TARGET_BETA, TARGET_BETA_EXP);
 		map.put(CELL_SIZE, CELL_SIZE_EXP);
+		map.put(RELOCATION_COST, RELOCATION_COST_EXP);
 		return map;
 	}
 
@@ -196,4 +210,21 @@ public class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 	public void setCellSize(double cellSize) {
 		this.cellSize = cellSize;
 	}
+
+	/**
+	 * @return -- {@value #RELOCATION_COST_EXP}
+	 */
+	@StringGetter(RELOCATION_COST)
+	public RelocationCost getRelocationCost() {
+		return relocationCost;
+	}
+
+	/**
+	 * @param relocationCost
+	 *            -- {@value #RELOCATION_COST_EXP}
+	 */
+	@StringSetter(RELOCATION_COST)
+	public void setRelocationCost(RelocationCost relocationCost) {
+		this.relocationCost = relocationCost;
+	}
 }
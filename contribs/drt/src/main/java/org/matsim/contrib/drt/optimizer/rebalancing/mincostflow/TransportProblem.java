@@ -20,7 +20,9 @@ package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.ToIntBiFunction;
 import java.util.stream.Stream;
 
@@ -31,11 +33,25 @@ import graphs.flows.MinCostFlow;
 import graphs.flows.MinCostFlow.Edge;
 
 /**
+ * Solved as a min-cost flow problem. Each solution warm-starts the next one: the consumer potentials of the previous
+ * solution are used as the initial consumer potentials, the other potentials are derived from them such that all
+ * reduced costs are non-negative. The solution is optimal for any initial consumer potentials, but the fewer the
+ * supply, demand and costs change between subsequent problems, the shorter the searches.
+ *
  * @author michalm
  */
 public class TransportProblem<P, C> {
+	/**
+	 * Cost of a producer-consumer pair that cannot be connected (e.g. the consumer cannot be reached by the producer).
+	 * No flow is assigned to such pairs.
+	 */
+	public static final int NO_CONNECTION = Integer.MAX_VALUE;
+
 	private final ToIntBiFunction<P, C> costFunction;
 
+	// relative to the sink potential
+	private final Map<C, Integer> consumerPotentials = new HashMap<>();
+
 	public TransportProblem(ToIntBiFunction<P, C> costFunction) {
 		this.costFunction = costFunction;
 	}
@@ -62,16 +78,35 @@ public class TransportProblem<P, C> {
 			totalSupply += supplyValue;
 		}
 
+		// initial potentials of the consumers (from the previous solution) and the sink
+		int[] potentials = new int[N];
+		int sinkPotential = Integer.MAX_VALUE;
+		for (int j = 0; j < C; j++) {
+			int potential = consumerPotentials.getOrDefault(demand.get(j).getKey(), 0);
+			potentials[1 + P + j] = potential;
+			sinkPotential = Math.min(sinkPotential, potential);
+		}
+		potentials[N - 1] = C == 0 ? 0 : sinkPotential;
+
 		// producers --> consumers
+		int sourcePotential = Integer.MIN_VALUE;
 		for (int i = 0; i < P; i++) {
+			int producerPotential = potentials[N - 1];
 			Pair<P, Integer> producer = supply.get(i);
 			for (int j = 0; j < C; j++) {
 				Pair<C, Integer> consumer = demand.get(j);
-				int capacity = Math.min(producer.getValue(), consumer.getValue());
 				int cost = costFunction.applyAsInt(producer.getKey(), consumer.getKey());
+				if (cost == NO_CONNECTION) {
+					continue;
+				}
+				int capacity = Math.min(producer.getValue(), consumer.getValue());
 				MinCostFlow.addEdge(graph, 1 + i, 1 + P + j, capacity, cost);
+				producerPotential = Math.max(producerPotential, potentials[1 + P + j] - cost);
 			}
+			potentials[1 + i] = producerPotential;
+			sourcePotential = Math.max(sourcePotential, producerPotential);
 		}
+		potentials[0] = P == 0 ? 0 : sourcePotential;
 
 		// consumers -> sink
 		int totalDemand = 0;
@@ -82,7 +117,10 @@ public class TransportProblem<P, C> {
 		}
 
 		// solve min cost flow problem
-		int[] result = MinCostFlow.minCostFlow(graph, 0, N - 1, Math.min(totalSupply, totalDemand), false);
+		int[] result = MinCostFlow.minCostFlow(graph, 0, N - 1, Math.min(totalSupply, totalDemand), potentials);
+		for (int j = 0; j < C; j++) {
+			consumerPotentials.put(demand.get(j).getKey(), potentials[1 + P + j] - potentials[N - 1]);
+		}
 		if (result[0] == 0) {
 			return Collections.emptyList();
 		}
@@ -31,7 +31,6 @@ import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
 import org.matsim.api.core.v01.TransportMode;
-import org.matsim.contrib.drt.optimizer.insertion.ParallelPathDataProvider;
 import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.MinCostFlowRebalancingParams;
 import org.matsim.contrib.dvrp.run.Modal;
 import org.matsim.core.config.Config;
@@ -116,8 +115,16 @@ public class DrtConfigGroup extends ReflectiveConfigGroup implements Modal {
 	public static final String NUMBER_OF_THREADS = "numberOfThreads";
 	static final String NUMBER_OF_THREADS_EXP =
 			"Number of threads used for parallel evaluation of request insertion into existing schedules."
-					+ " Scales well up to 4, due to path data provision, the most computationally intensive part,"
-					+ " using up to 4 threads. Default value is 'min(4, no. of cores available to JVM)'";
+					+ " Also determines the number of path searches run in parallel by the path data provider."
+					+ " Default value is the number of cores available to JVM";
+
+	public static final String REQUEST_INSERTION_INTERVAL = "requestInsertionInterval";
+	static final String REQUEST_INSERTION_INTERVAL_EXP =
+			"Interval [s] at which the submitted requests are inserted into the vehicle schedules. If 1 (default),"
+					+ " requests are inserted one by one (in the order of submission) in the time step following their"
+					+ " submission. If greater than 1, requests are collected over the interval and assigned as a batch,"
+					+ " in the order of increasing insertion cost (at most one request per vehicle in each round)."
+					+ " The waiting time spent in the batch counts towards maxWaitTime.";
 
 	@NotBlank
 	private String mode = TransportMode.drt; // travel mode (passengers'/customers' perspective)
@@ -166,8 +173,10 @@ public class DrtConfigGroup extends ReflectiveConfigGroup implements Modal {
 	private boolean printDetailedWarnings = true;
 
 	@Positive
-	private int numberOfThreads = Math.min(Runtime.getRuntime().availableProcessors(),
-			ParallelPathDataProvider.MAX_THREADS);
+	private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+	@Positive
+	private int requestInsertionInterval = 1;// [s]
 
 	public enum OperationalScheme {
 		stopbased, door2door
@@ -197,6 +206,7 @@ public class DrtConfigGroup extends ReflectiveConfigGroup implements Modal {
 		map.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_EXP);
 		map.put(PRINT_WARNINGS, PRINT_WARNINGS_EXP);
 		map.put(REQUEST_REJECTION, REQUEST_REJECTION_EXP);
+		map.put(REQUEST_INSERTION_INTERVAL, REQUEST_INSERTION_INTERVAL_EXP);
 		return map;
 	}
 
@@ -472,6 +482,22 @@ public class DrtConfigGroup extends ReflectiveConfigGroup implements Modal {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	/**
+	 * @return -- {@value #REQUEST_INSERTION_INTERVAL_EXP}
+	 */
+	@StringGetter(REQUEST_INSERTION_INTERVAL)
+	public int getRequestInsertionInterval() {
+		return requestInsertionInterval;
+	}
+
+	/**
+	 * @param -- {@value #REQUEST_INSERTION_INTERVAL_EXP}
+	 */
+	@StringSetter(REQUEST_INSERTION_INTERVAL)
+	public void setRequestInsertionInterval(int requestInsertionInterval) {
+		this.requestInsertionInterval = requestInsertionInterval;
+	}
+
 	/**
 	 * @return -- {@value #PRINT_WARNINGS_EXP}
 	 */
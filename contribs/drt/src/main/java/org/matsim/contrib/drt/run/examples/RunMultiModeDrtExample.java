@@ -46,7 +46,10 @@ public class RunMultiModeDrtExample {
 	public static void run(boolean otfvis, int lastIteration) {
 		Config config = ConfigUtils.loadConfig(CONFIG_FILE, new MultiModeDrtConfigGroup(), new DvrpConfigGroup(),
 				new OTFVisConfigGroup());
+		run(config, otfvis);
+	}
 
+	public static void run(Config config, boolean otfvis) {
 		DrtConfigs.adjustMultiModeDrtConfig(MultiModeDrtConfigGroup.get(config), config.planCalcScore());
 		config.addConfigConsistencyChecker(new DrtConfigConsistencyChecker());
 		config.checkConsistency();
@@ -85,9 +85,11 @@ public class EDrtModeQSimModule extends AbstractDvrpModeQSimModule {
 		install(new VrpAgentSourceQSimModule(getMode()));
 		install(new PassengerEngineQSimModule(getMode()));
 
-		addModalComponent(DrtOptimizer.class, modalProvider(
+		// not stepped concurrently: charger assignment mutates the (non-modal) ChargingInfrastructure
+		addModalOptimizerComponent(DrtOptimizer.class, modalProvider(
 				getter -> new EDrtOptimizer(getter.getModal(DefaultDrtOptimizer.class),
-						getter.getModal(EmptyVehicleChargingScheduler.class), getter.get(MobsimTimer.class))));
+						getter.getModal(EmptyVehicleChargingScheduler.class), getter.get(MobsimTimer.class))),
+				false);
 
 		bindModal(DefaultDrtOptimizer.class).toProvider(modalProvider(
 				getter -> new DefaultDrtOptimizer(drtCfg, getter.getModal(Fleet.class), getter.get(MobsimTimer.class),
@@ -121,7 +123,7 @@ public class EDrtModeQSimModule extends AbstractDvrpModeQSimModule {
 
 		addModalComponent(DefaultUnplannedRequestInserter.class, modalProvider(
 				getter -> new DefaultUnplannedRequestInserter(drtCfg, getter.getModal(Fleet.class),
-						getter.get(MobsimTimer.class), getter.get(EventsManager.class),
+						getter.get(MobsimTimer.class), getter.getModal(EventsManager.class),
 						getter.getModal(RequestInsertionScheduler.class),
 						getter.getModal(VehicleData.EntryFactory.class),
 						getter.getModal(PrecalculablePathDataProvider.class),
@@ -0,0 +1,133 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * VehicleDataTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
+import org.matsim.contrib.drt.schedule.DrtStopTask;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.contrib.dvrp.util.LinkTimePair;
+import org.matsim.core.network.NetworkUtils;
+
+import com.google.common.collect.ImmutableList;
+
+public class VehicleDataTest {
+
+	private static final int LINKS = 100;
+	private static final int VEHICLES = 200;
+
+	@Test
+	public void testGetEntriesWithinDistance_sameAsWithoutGrid() {
+		Random random = new Random(4711);
+		List<Link> links = createLinks(random);
+		List<DvrpVehicle> vehicles = new ArrayList<>();
+		for (int i = 0; i < VEHICLES; i++) {
+			vehicles.add(new DvrpVehicleImpl(ImmutableDvrpVehicleSpecification.newBuilder()
+					.id(Id.create(i, DvrpVehicle.class))
+					.startLinkId(links.get(i % LINKS).getId())
+					.capacity(4)
+					.serviceBeginTime(0)
+					.serviceEndTime(3600)
+					.build(), links.get(i % LINKS)));
+		}
+
+		// each vehicle starts at its start link and then stops at up to 3 random links (changed with each version)
+		AtomicInteger version = new AtomicInteger();
+		VehicleData.EntryFactory entryFactory = (vehicle, currentTime) -> {
+			Random vehicleRandom = new Random(Integer.parseInt(vehicle.getId().toString()) * 31 + version.get());
+			List<VehicleData.Stop> stops = new ArrayList<>();
+			for (int i = vehicleRandom.nextInt(4); i > 0; i--) {
+				stops.add(new VehicleData.Stop(
+						new DrtStopTask(0, 60, links.get(vehicleRandom.nextInt(LINKS))), 0));
+			}
+			return new Entry(vehicle, new LinkTimePair(vehicle.getStartLink(), currentTime), 0,
+					ImmutableList.copyOf(stops));
+		};
+
+		ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+		VehicleData withoutGrid = new VehicleData(0, vehicles.stream(), entryFactory, forkJoinPool);
+		VehicleData withGrid = new VehicleData(0, vehicles.stream(), entryFactory, forkJoinPool, 500);
+		assertSameEntriesWithinDistance(withoutGrid, withGrid, random);
+
+		// schedules of some vehicles changed
+		version.incrementAndGet();
+		for (int i = 0; i < VEHICLES; i += 3) {
+			withoutGrid.updateEntry(vehicles.get(i));
+			withGrid.updateEntry(vehicles.get(i));
+		}
+		assertSameEntriesWithinDistance(withoutGrid, withGrid, random);
+		forkJoinPool.shutdown();
+	}
+
+	private static void assertSameEntriesWithinDistance(VehicleData withoutGrid, VehicleData withGrid,
+			Random random) {
+		int found = 0;
+		for (int i = 0; i < 100; i++) {
+			Coord coord = new Coord(random.nextDouble() * 10000, random.nextDouble() * 10000);
+			double distance = random.nextDouble() * 3000;
+			Set<Id<DvrpVehicle>> expected = getIds(withoutGrid.getEntriesWithinDistance(coord, distance));
+			Set<Id<DvrpVehicle>> actual = getIds(withGrid.getEntriesWithinDistance(coord, distance));
+			Assert.assertEquals(expected, actual);
+			found += expected.size();
+		}
+		Assert.assertTrue(found > 0);
+	}
+
+	private static Set<Id<DvrpVehicle>> getIds(Collection<Entry> entries) {
+		return entries.stream().map(e -> e.vehicle.getId()).collect(Collectors.toSet());
+	}
+
+	private static List<Link> createLinks(Random random) {
+		Network network = NetworkUtils.createNetwork();
+		List<Link> links = new ArrayList<>();
+		for (int i = 0; i < LINKS; i++) {
+			Node from = network.getFactory()
+					.createNode(Id.createNodeId("from" + i),
+							new Coord(random.nextDouble() * 10000, random.nextDouble() * 10000));
+			Node to = network.getFactory()
+					.createNode(Id.createNodeId("to" + i),
+							new Coord(from.getCoord().getX() + 100, from.getCoord().getY()));
+			network.addNode(from);
+			network.addNode(to);
+			Link link = network.getFactory().createLink(Id.createLinkId(i), from, to);
+			network.addLink(link);
+			links.add(link);
+		}
+		return links;
+	}
+}
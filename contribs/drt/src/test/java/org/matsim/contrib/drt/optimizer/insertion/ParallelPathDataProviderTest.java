@@ -0,0 +1,199 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelPathDataProviderTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
+import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
+import org.matsim.contrib.drt.optimizer.insertion.PathDataProvider.PathDataSet;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.run.DrtConfigGroup;
+import org.matsim.contrib.dvrp.optimizer.Request;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
+import org.matsim.contrib.dvrp.util.LinkTimePair;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import com.google.common.collect.ImmutableList;
+
+public class ParallelPathDataProviderTest {
+
+	private static final int GRID_SIZE = 5;
+
+	private final AtomicInteger travelTimeCalls = new AtomicInteger();
+	private final TravelTime travelTime = (link, time, person, vehicle) -> {
+		travelTimeCalls.incrementAndGet();
+		return link.getLength() / link.getFreespeed();
+	};
+	private final TravelDisutility travelDisutility = new OnlyTimeDependentTravelDisutility(travelTime);
+
+	private Network network;
+	private ParallelPathDataProvider provider;
+
+	@Before
+	public void setUp() {
+		network = createGridNetwork();
+		DrtConfigGroup drtCfg = new DrtConfigGroup();
+		drtCfg.setNumberOfThreads(2);
+		provider = new ParallelPathDataProvider(network, travelTime, travelDisutility, drtCfg);
+	}
+
+	@After
+	public void tearDown() {
+		provider.notifyMobsimBeforeCleanup(null);
+	}
+
+	@Test
+	public void testPrecalculatePathData_sameAsSingleSearch() {
+		DrtRequest request = createRequest("r", "0_0->1_0", "4_4->3_4");
+		Link vehicleLink = link("2_3->2_2");
+		provider.precalculatePathData(request, createDetourLinksSet(vehicleLink, request));
+		PathDataSet pathDataSet = provider.getPathDataSet(request, createEntry(vehicleLink));
+
+		PathData toPickup = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility)
+				.calcPathDataMap(request.getFromLink(), Collections.singleton(vehicleLink),
+						request.getEarliestStartTime())
+				.get(vehicleLink.getId());
+		Assert.assertEquals(toPickup.getTravelTime(), pathDataSet.pathsToPickup[0].getTravelTime(), 1e-9);
+		Assert.assertEquals(toPickup.getPathLength(), pathDataSet.pathsToPickup[0].getPathLength(), 1e-9);
+
+		PathData fromPickup = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility)
+				.calcPathDataMap(request.getFromLink(), Collections.singleton(request.getToLink()),
+						request.getEarliestStartTime())
+				.get(request.getToLink().getId());
+		Assert.assertEquals(fromPickup.getTravelTime(), pathDataSet.pathsFromPickup[0].getTravelTime(), 1e-9);
+		Assert.assertEquals(fromPickup.getPathLength(), pathDataSet.pathsFromPickup[0].getPathLength(), 1e-9);
+	}
+
+	@Test
+	public void testPrecalculatePathData_cachedWithinTimeStep() {
+		DrtRequest request = createRequest("r", "0_0->1_0", "4_4->3_4");
+		Link vehicleLink = link("2_3->2_2");
+		DetourLinksSet detourLinksSet = createDetourLinksSet(vehicleLink, request);
+		Entry vEntry = createEntry(vehicleLink);
+
+		provider.precalculatePathData(request, detourLinksSet);
+		PathData toPickup = provider.getPathDataSet(request, vEntry).pathsToPickup[0];
+		int calls = travelTimeCalls.get();
+		Assert.assertTrue(calls > 0);
+
+		// same time step: no searches
+		provider.precalculatePathData(request, detourLinksSet);
+		Assert.assertEquals(calls, travelTimeCalls.get());
+		Assert.assertSame(toPickup, provider.getPathDataSet(request, vEntry).pathsToPickup[0]);
+
+		// next time step: searched again
+		provider.notifyMobsimAfterSimStep(null);
+		provider.precalculatePathData(request, detourLinksSet);
+		Assert.assertTrue(travelTimeCalls.get() > calls);
+		PathData recalculatedToPickup = provider.getPathDataSet(request, vEntry).pathsToPickup[0];
+		Assert.assertNotSame(toPickup, recalculatedToPickup);
+		Assert.assertEquals(toPickup.getTravelTime(), recalculatedToPickup.getTravelTime(), 1e-9);
+	}
+
+	@Test
+	public void testPrefetchPathData_reusedByPrecalculatePathData() {
+		DrtRequest request1 = createRequest("r1", "0_0->1_0", "4_4->3_4");
+		DrtRequest request2 = createRequest("r2", "0_4->0_3", "4_0->4_1");
+		Link vehicleLink = link("2_3->2_2");
+		Map<DrtRequest, DetourLinksSet> detourLinksSets = new HashMap<>();
+		detourLinksSets.put(request1, createDetourLinksSet(vehicleLink, request1));
+		detourLinksSets.put(request2, createDetourLinksSet(vehicleLink, request2));
+
+		provider.prefetchPathData(detourLinksSets);
+		int calls = travelTimeCalls.get();
+		Assert.assertTrue(calls > 0);
+
+		for (Map.Entry<DrtRequest, DetourLinksSet> e : detourLinksSets.entrySet()) {
+			provider.precalculatePathData(e.getKey(), e.getValue());
+			PathDataSet pathDataSet = provider.getPathDataSet(e.getKey(), createEntry(vehicleLink));
+			Assert.assertNotNull(pathDataSet.pathsToPickup[0]);
+			Assert.assertNotNull(pathDataSet.pathsFromPickup[0]);
+		}
+		Assert.assertEquals(calls, travelTimeCalls.get());
+	}
+
+	private Link link(String id) {
+		return network.getLinks().get(Id.createLinkId(id));
+	}
+
+	private DrtRequest createRequest(String id, String fromLinkId, String toLinkId) {
+		return new DrtRequest(Id.create(id, Request.class), Id.create(id, Person.class), "drt", link(fromLinkId),
+				link(toLinkId), 0, 900, 3600, 0);
+	}
+
+	private static DetourLinksSet createDetourLinksSet(Link vehicleLink, DrtRequest request) {
+		return new DetourLinksSet(Collections.singletonMap(vehicleLink.getId(), vehicleLink),
+				Collections.singletonMap(request.getToLink().getId(), request.getToLink()), Collections.emptyMap(),
+				Collections.emptyMap());
+	}
+
+	private static Entry createEntry(Link startLink) {
+		return new Entry(null, new LinkTimePair(startLink, 0), 0, ImmutableList.of());
+	}
+
+	private static Network createGridNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100, y * 100));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLinks(network, x + "_" + y, (x + 1) + "_" + y);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLinks(network, x + "_" + y, x + "_" + (y + 1));
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinks(Network network, String nodeId1, String nodeId2) {
+		Node node1 = network.getNodes().get(Id.createNodeId(nodeId1));
+		Node node2 = network.getNodes().get(Id.createNodeId(nodeId2));
+		// slower links in one direction, so that the forward and backward paths differ
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(nodeId1 + "->" + nodeId2), node1, node2, 100, 10, 1000,
+				1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(nodeId2 + "->" + nodeId1), node2, node1, 100, 5, 1000,
+				1);
+	}
+}
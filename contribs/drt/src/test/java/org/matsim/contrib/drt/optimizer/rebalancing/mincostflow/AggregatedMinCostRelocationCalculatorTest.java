@@ -0,0 +1,226 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.ToIntBiFunction;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
+import org.matsim.contrib.drt.optimizer.rebalancing.RebalancingStrategy.Relocation;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.contrib.dvrp.router.TimeAsTravelDisutility;
+import org.matsim.contrib.dvrp.schedule.Schedules;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.contrib.util.distance.DistanceUtils;
+import org.matsim.contrib.zone.ZonalSkims;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.core.utils.geometry.geotools.MGC;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class AggregatedMinCostRelocationCalculatorTest {
+	private final Network network = NetworkUtils.createNetwork();
+	private final Map<String, Geometry> zones = new LinkedHashMap<>();
+
+	// zones "a" and "b" are connected, zone "island" cannot be reached from them
+	public AggregatedMinCostRelocationCalculatorTest() {
+		Node a1 = createNode("a1", 100, 500);
+		Node a2 = createNode("a2", 900, 500);
+		Node b1 = createNode("b1", 1100, 500);
+		Node b2 = createNode("b2", 1900, 500);
+		Node island1 = createNode("island1", 5100, 500);
+		Node island2 = createNode("island2", 5900, 500);
+		addLinks(a1, a2);
+		addLinks(a2, b1);
+		addLinks(b1, b2);
+		addLinks(island1, island2);
+
+		zones.put("a", createSquare(0));
+		zones.put("b", createSquare(1000));
+		zones.put("island", createSquare(5000));
+	}
+
+	@Test
+	public void testDisconnectedZone() {
+		DrtZonalSystem zonalSystem = new DrtZonalSystem(network, zones);
+		Map<String, Link> zoneLinks = new LinkedHashMap<>();
+		for (String zone : zones.keySet()) {
+			zoneLinks.put(zone, NetworkUtils.getNearestLink(network, zonalSystem.getZoneCentroid(zone)));
+		}
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		ZonalSkims skims = new ZonalSkims(network, travelTime, new TimeAsTravelDisutility(travelTime), zoneLinks,
+				TimeDiscretizer.CYCLIC_24_HOURS, 1);
+		AggregatedMinCostRelocationCalculator calculator = new AggregatedMinCostRelocationCalculator(zonalSystem,
+				network, skims, new MobsimTimer());
+
+		Link vehicleLink = network.getLinks().get(Id.createLinkId("a1_a2"));
+		Map<String, List<DvrpVehicle>> rebalancableVehicles = new HashMap<>();
+		rebalancableVehicles.put("a", new ArrayList<>(
+				Arrays.asList(createVehicle("v1", vehicleLink), createVehicle("v2", vehicleLink))));
+
+		List<Relocation> relocations = calculator.calcRelocations(Arrays.asList(Pair.of("a", 2)),
+				Arrays.asList(Pair.of("b", 1), Pair.of("island", 1)), rebalancableVehicles);
+
+		assertEquals(1, relocations.size());
+		assertEquals(zoneLinks.get("b"), relocations.get(0).link);
+		assertEquals(1, rebalancableVehicles.get("a").size());
+	}
+
+	// cached centroids and destination links, and one stable sort per flow, select the same vehicles as the previous
+	// implementation: centroids computed for each flow, the nearest vehicle chosen and removed 'flow' times
+	@Test
+	public void testSameRelocationsAsWithoutCaching() {
+		Network grid = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[10][10];
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(grid, Id.createNodeId(x + "_" + y),
+						new Coord(x * 500 + 50, y * 500 + 50));// links not on the zone borders
+			}
+		}
+		List<Link> links = new ArrayList<>();
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				if (x + 1 < 10) {
+					links.add(NetworkUtils.createAndAddLink(grid, Id.createLinkId(x + "_" + y + "_x"), nodes[x][y],
+							nodes[x + 1][y], 500, 10, 1000, 1));
+				}
+				if (y + 1 < 10) {
+					links.add(NetworkUtils.createAndAddLink(grid, Id.createLinkId(x + "_" + y + "_y"), nodes[x][y],
+							nodes[x][y + 1], 500, 10, 1000, 1));
+				}
+			}
+		}
+		DrtZonalSystem zonalSystem = new DrtZonalSystem(grid, 1000);
+
+		// vehicles on random links; many of them at the same location (ties are broken by the list order)
+		Random random = new Random(42);
+		Map<String, List<DvrpVehicle>> vehiclesPerZone = new HashMap<>();
+		for (int i = 0; i < 200; i++) {
+			Link link = links.get(random.nextInt(links.size() / 4) * 4);
+			vehiclesPerZone.computeIfAbsent(zonalSystem.getZoneForLinkId(link.getId()), z -> new ArrayList<>())
+					.add(createVehicle("v" + i, link));
+		}
+		List<Pair<String, Integer>> supply = new ArrayList<>();
+		List<Pair<String, Integer>> demand = new ArrayList<>();
+		for (String zone : new TreeSet<>(zonalSystem.getZones().keySet())) {
+			int vehicles = vehiclesPerZone.getOrDefault(zone, Collections.emptyList()).size();
+			if (vehicles > 0 && random.nextBoolean()) {
+				supply.add(Pair.of(zone, vehicles));
+			} else {
+				demand.add(Pair.of(zone, 1 + random.nextInt(10)));
+			}
+		}
+
+		// previous implementation
+		Map<String, List<DvrpVehicle>> expectedVehiclesPerZone = copy(vehiclesPerZone);
+		List<Relocation> expected = new ArrayList<>();
+		ToIntBiFunction<String, String> distance = (z1, z2) -> (int)DistanceUtils.calculateDistance(
+				MGC.point2Coord(zonalSystem.getZone(z1).getCentroid()),
+				MGC.point2Coord(zonalSystem.getZone(z2).getCentroid()));
+		for (Triple<String, String, Integer> r : new TransportProblem<>(distance).solve(supply, demand)) {
+			List<DvrpVehicle> rebalancableVehicles = expectedVehiclesPerZone.get(r.getLeft());
+			Link destinationLink = NetworkUtils.getNearestLink(grid,
+					MGC.point2Coord(zonalSystem.getZone(r.getMiddle()).getCentroid()));
+			Coord toCoord = destinationLink.getFromNode().getCoord();
+			for (int f = 0; f < r.getRight(); f++) {
+				DvrpVehicle nearestVehicle = rebalancableVehicles.stream()
+						.min(Comparator.comparing(v -> DistanceUtils.calculateSquaredDistance(
+								Schedules.getLastLinkInSchedule(v).getToNode().getCoord(), toCoord)))
+						.get();
+				expected.add(new Relocation(nearestVehicle, destinationLink));
+				rebalancableVehicles.remove(nearestVehicle);
+			}
+		}
+
+		Map<String, List<DvrpVehicle>> actualVehiclesPerZone = copy(vehiclesPerZone);
+		List<Relocation> actual = new AggregatedMinCostRelocationCalculator(zonalSystem, grid).calcRelocations(
+				supply, demand, actualVehiclesPerZone);
+
+		assertTrue(expected.size() > 20);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i).vehicle, actual.get(i).vehicle);
+			assertSame(expected.get(i).link, actual.get(i).link);
+		}
+		assertEquals(expectedVehiclesPerZone, actualVehiclesPerZone);
+	}
+
+	private static Map<String, List<DvrpVehicle>> copy(Map<String, List<DvrpVehicle>> vehiclesPerZone) {
+		Map<String, List<DvrpVehicle>> copy = new HashMap<>();
+		vehiclesPerZone.forEach((zone, vehicles) -> copy.put(zone, new ArrayList<>(vehicles)));
+		return copy;
+	}
+
+	private Node createNode(String id, double x, double y) {
+		return NetworkUtils.createAndAddNode(network, Id.createNodeId(id), new Coord(x, y));
+	}
+
+	private void addLinks(Node n1, Node n2) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(n1.getId() + "_" + n2.getId()), n1, n2, 800, 10, 1000,
+				1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(n2.getId() + "_" + n1.getId()), n2, n1, 800, 10, 1000,
+				1);
+	}
+
+	private static Geometry createSquare(double minX) {
+		double maxX = minX + 1000;
+		return new GeometryFactory().createPolygon(new Coordinate[] { new Coordinate(minX, 0),
+				new Coordinate(maxX, 0), new Coordinate(maxX, 1000), new Coordinate(minX, 1000),
+				new Coordinate(minX, 0) });
+	}
+
+	private static DvrpVehicle createVehicle(String id, Link startLink) {
+		return new DvrpVehicleImpl(ImmutableDvrpVehicleSpecification.newBuilder()
+				.id(Id.create(id, DvrpVehicle.class))
+				.startLinkId(startLink.getId())
+				.capacity(1)
+				.serviceBeginTime(0)
+				.serviceEndTime(3600)
+				.build(), startLink);
+	}
+}
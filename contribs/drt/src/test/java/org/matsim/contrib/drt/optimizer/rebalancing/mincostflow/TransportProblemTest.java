@@ -0,0 +1,80 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntBiFunction;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.junit.Test;
+
+public class TransportProblemTest {
+	private static final int ZONES = 30;
+
+	@Test
+	public void testWarmStartedSolutionsAreOptimal() {
+		Random random = new Random(4711);
+		int[][] costs = new int[ZONES][ZONES];
+		ToIntBiFunction<Integer, Integer> costFunction = (p, c) -> costs[p][c];
+		TransportProblem<Integer, Integer> warmStarted = new TransportProblem<>(costFunction);
+
+		for (int interval = 0; interval < 50; interval++) {
+			// costs change over time (e.g. travel times), some zones are not connected
+			for (int p = 0; p < ZONES; p++) {
+				for (int c = 0; c < ZONES; c++) {
+					costs[p][c] = random.nextInt(10) == 0 ?
+							TransportProblem.NO_CONNECTION :
+							random.nextInt(interval % 10 == 0 ? 1000 : 50) + Math.abs(p - c) * 10;
+				}
+			}
+
+			// each zone has either supply or demand (or neither)
+			List<Pair<Integer, Integer>> supply = new ArrayList<>();
+			List<Pair<Integer, Integer>> demand = new ArrayList<>();
+			for (int zone = 0; zone < ZONES; zone++) {
+				int balance = random.nextInt(21) - 10;
+				if (balance > 0) {
+					supply.add(Pair.of(zone, balance));
+				} else if (balance < 0) {
+					demand.add(Pair.of(zone, -balance));
+				}
+			}
+
+			List<Triple<Integer, Integer, Integer>> expected = new TransportProblem<>(costFunction).solve(supply,
+					demand);
+			List<Triple<Integer, Integer, Integer>> actual = warmStarted.solve(supply, demand);
+			assertEquals(totalFlow(expected), totalFlow(actual));
+			assertEquals(totalCost(expected, costs), totalCost(actual, costs));
+		}
+	}
+
+	private static int totalFlow(List<Triple<Integer, Integer, Integer>> flows) {
+		return flows.stream().mapToInt(Triple::getRight).sum();
+	}
+
+	private static long totalCost(List<Triple<Integer, Integer, Integer>> flows, int[][] costs) {
+		return flows.stream().mapToLong(f -> (long)f.getRight() * costs[f.getLeft()][f.getMiddle()]).sum();
+	}
+}
@@ -22,22 +22,34 @@
  */
 package org.matsim.contrib.drt.run.examples;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
+import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.MinCostFlowRebalancingParams.RelocationCost;
+import org.matsim.contrib.drt.passenger.events.DrtRequestScheduledEvent;
+import org.matsim.contrib.drt.passenger.events.DrtRequestScheduledEventHandler;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.drt.run.DrtControlerCreator;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.contrib.dvrp.passenger.PassengerRequestRejectedEvent;
+import org.matsim.contrib.dvrp.passenger.PassengerRequestRejectedEventHandler;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestValidator;
+import org.matsim.contrib.dvrp.run.AbstractDvrpModeModule;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
 import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.contrib.zone.ZonalSkims;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.vis.otfvis.OTFVisConfigGroup;
 
@@ -103,6 +115,86 @@ public class RunDrtExampleIT {
 				personIdValidator.isValidateRequestWasCalled());
 	}
 
+	@Test
+	public void testRunDrtExampleWithRequestInsertionInterval() {
+		String configFile = "./src/main/resources/drt_example/drtconfig_door2door.xml";
+		Config config = ConfigUtils.loadConfig(configFile, new DrtConfigGroup(), new DvrpConfigGroup(),
+				new OTFVisConfigGroup());
+		config.plans().setInputFile("cb-drtplans_test.xml.gz");
+		DrtConfigGroup.get(config).setRequestInsertionInterval(30);
+
+		config.controler().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+		config.controler().setOutputDirectory(utils.getOutputDirectory());
+		Controler controler = DrtControlerCreator.createControlerWithSingleModeDrt(config, false);
+
+		RequestCounter requestCounter = new RequestCounter();
+		controler.addOverridingModule(new AbstractModule() {
+			@Override
+			public void install() {
+				addEventHandlerBinding().toInstance(requestCounter);
+			}
+		});
+		controler.run();
+
+		Assert.assertEquals("scheduled requests", 22, requestCounter.scheduled);
+		Assert.assertEquals("rejected requests", 0, requestCounter.rejected);
+	}
+
+	@Test
+	public void testRunDrtExampleWithTravelTimeRelocationCost() {
+		String configFile = "./src/main/resources/drt_example/drtconfig_door2door.xml";
+		Config config = ConfigUtils.loadConfig(configFile, new DrtConfigGroup(), new DvrpConfigGroup(),
+				new OTFVisConfigGroup());
+		config.plans().setInputFile("cb-drtplans_test.xml.gz");
+		DrtConfigGroup drtCfg = DrtConfigGroup.get(config);
+		drtCfg.getMinCostFlowRebalancing().setRelocationCost(RelocationCost.TRAVEL_TIME);
+
+		config.controler().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+		config.controler().setOutputDirectory(utils.getOutputDirectory());
+		Controler controler = DrtControlerCreator.createControlerWithSingleModeDrt(config, false);
+
+		// the skims can also be used outside the QSim, e.g. by analysis after each iteration
+		List<Double> travelTimes = new ArrayList<>();
+		controler.addOverridingModule(new AbstractDvrpModeModule(drtCfg.getMode()) {
+			@Override
+			public void install() {
+				addControlerListenerBinding().toProvider(modalProvider(getter -> (IterationEndsListener)event -> {
+					ZonalSkims skims = getter.getModal(ZonalSkims.class);
+					String zone = getter.getModal(DrtZonalSystem.class).getZones().keySet().iterator().next();
+					travelTimes.add(skims.getTravelTime(zone, zone, 8 * 3600));
+				}));
+			}
+		});
+		controler.run();
+
+		Assert.assertEquals(config.controler().getLastIteration() + 1, travelTimes.size());
+		for (double travelTime : travelTimes) {
+			Assert.assertTrue(travelTime >= 0 && travelTime < Double.POSITIVE_INFINITY);
+		}
+	}
+
+	private static class RequestCounter
+			implements DrtRequestScheduledEventHandler, PassengerRequestRejectedEventHandler {
+		private int scheduled;
+		private int rejected;
+
+		@Override
+		public void handleEvent(DrtRequestScheduledEvent event) {
+			scheduled++;
+		}
+
+		@Override
+		public void handleEvent(PassengerRequestRejectedEvent event) {
+			rejected++;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			scheduled = 0;
+			rejected = 0;
+		}
+	}
+
 	@Test
 	public void testRunDrtStopbasedExample() {
 		String configFile = "./src/main/resources/drt_example/drtconfig_stopbased.xml";
@@ -20,11 +20,53 @@
 
 package org.matsim.contrib.drt.run.examples;
 
+import static org.matsim.utils.eventsfilecomparison.EventsFileComparator.Result.FILES_ARE_EQUAL;
+
+import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.matsim.contrib.drt.run.MultiModeDrtConfigGroup;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.utils.eventsfilecomparison.EventsFileComparator;
+import org.matsim.vis.otfvis.OTFVisConfigGroup;
 
 public class RunMultiModeDrtExampleTestIT {
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
 	@Test
 	public void testRun() {
 		RunMultiModeDrtExample.run(false, 1);
 	}
+
+	@Test
+	public void testRunWithConcurrentOptimizers() {
+		String sequentialEvents = runAndGetEventsFile(1, 1, "sequential/");
+		String concurrentEvents = runAndGetEventsFile(3, 1, "concurrent/");
+		Assert.assertEquals("Different event files.", FILES_ARE_EQUAL,
+				EventsFileComparator.compare(sequentialEvents, concurrentEvents));
+	}
+
+	@Test
+	public void testRunWithConcurrentDynActivities() {
+		String sequentialEvents = runAndGetEventsFile(1, 1, "sequential/");
+		String concurrentEvents = runAndGetEventsFile(1, 4, "concurrent/");
+		Assert.assertEquals("Different event files.", FILES_ARE_EQUAL,
+				EventsFileComparator.compare(sequentialEvents, concurrentEvents));
+	}
+
+	private String runAndGetEventsFile(int numberOfThreadsForOptimizers, int numberOfThreadsForDynActivities,
+			String subDirectory) {
+		Config config = ConfigUtils.loadConfig(
+				"./src/main/resources/multi_mode_one_shared_taxi/multi_mode_one_shared_taxi_config.xml",
+				new MultiModeDrtConfigGroup(), new DvrpConfigGroup(), new OTFVisConfigGroup());
+		DvrpConfigGroup.get(config).setNumberOfThreadsForOptimizers(numberOfThreadsForOptimizers);
+		DvrpConfigGroup.get(config).setNumberOfThreadsForDynActivities(numberOfThreadsForDynActivities);
+		config.controler().setOutputDirectory(utils.getOutputDirectory() + subDirectory);
+		RunMultiModeDrtExample.run(config, false);
+		return utils.getOutputDirectory() + subDirectory + "output_events.xml.gz";
+	}
 }
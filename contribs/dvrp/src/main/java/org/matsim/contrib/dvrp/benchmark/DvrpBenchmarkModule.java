@@ -19,7 +19,9 @@
 package org.matsim.contrib.dvrp.benchmark;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.ParallelVrpOptimizerStepperModule;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
 import org.matsim.contrib.dvrp.run.MobsimTimerProvider;
 import org.matsim.contrib.dvrp.vrpagent.VrpAgentSourceQSimModule;
 import org.matsim.contrib.dynagent.run.DynActivityEngineModule;
@@ -46,7 +48,9 @@ public class DvrpBenchmarkModule extends AbstractModule {
 				.toProvider(DvrpRoutingNetworkProvider.class)
 				.asEagerSingleton();
 
-		installQSimModule(new DynActivityEngineModule());
+		installQSimModule(new DynActivityEngineModule(
+				DvrpConfigGroup.get(getConfig()).getNumberOfThreadsForDynActivities()));
+		installQSimModule(new ParallelVrpOptimizerStepperModule());
 		installQSimModule(new AbstractQSimModule() {
 			@Override
 			protected void configureQSim() {
@@ -0,0 +1,152 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Notifies the optimizers of different DVRP modes concurrently (if
+ * {@link DvrpConfigGroup#getNumberOfThreadsForOptimizers()} > 1). The optimizers must not share any mutable state.
+ * <p>
+ * Events thrown by an optimizer (via its modal EventsManager) are buffered while optimising and then emitted in the
+ * order of modes, so the events are the same regardless of the number of threads.
+ */
+public class ParallelVrpOptimizerStepper implements MobsimBeforeSimStepListener, MobsimBeforeCleanupListener {
+	public static final String COMPONENT_NAME = "ParallelVrpOptimizerStepper";
+
+	private final List<MobsimBeforeSimStepListener> optimizers = new ArrayList<>();
+	private final List<BufferedEventsManager> eventsBuffers = new ArrayList<>();
+	private final ExecutorService executorService;
+
+	@Inject
+	public ParallelVrpOptimizerStepper(@Named(COMPONENT_NAME) Map<String, MobsimBeforeSimStepListener> optimizers,
+			@Named(COMPONENT_NAME) Map<String, BufferedEventsManager> eventsBuffers, Config config) {
+		for (Map.Entry<String, MobsimBeforeSimStepListener> e : optimizers.entrySet()) {
+			this.optimizers.add(e.getValue());
+			this.eventsBuffers.add(eventsBuffers.get(e.getKey()));
+		}
+
+		int threads = Math.min(DvrpConfigGroup.get(config).getNumberOfThreadsForOptimizers(), optimizers.size());
+		executorService = threads == 0 ? null : Executors.newFixedThreadPool(threads);
+	}
+
+	@Override
+	public void notifyMobsimBeforeSimStep(@SuppressWarnings("rawtypes") MobsimBeforeSimStepEvent e) {
+		if (optimizers.isEmpty()) {
+			return;
+		}
+
+		eventsBuffers.forEach(b -> b.buffering = true);
+		List<Future<?>> futures = optimizers.stream()
+				.map(o -> executorService.submit(() -> o.notifyMobsimBeforeSimStep(e)))
+				.collect(Collectors.toList());
+		futures.forEach(Futures::getUnchecked);
+
+		for (BufferedEventsManager b : eventsBuffers) {
+			b.flush();
+		}
+	}
+
+	@Override
+	public void notifyMobsimBeforeCleanup(@SuppressWarnings("rawtypes") MobsimBeforeCleanupEvent e) {
+		if (executorService != null) {
+			executorService.shutdown();
+		}
+	}
+
+	/**
+	 * Modal EventsManager that buffers events thrown by the optimizer during {@link #notifyMobsimBeforeSimStep}.
+	 * At all other times, events are passed to the delegate immediately.
+	 */
+	public static class BufferedEventsManager implements EventsManager {
+		private final EventsManager delegate;
+		private final List<Event> bufferedEvents = new ArrayList<>();
+		private boolean buffering = false;// set and reset by the stepper (main thread)
+
+		public BufferedEventsManager(EventsManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void processEvent(Event event) {
+			if (buffering) {
+				bufferedEvents.add(event);
+			} else {
+				delegate.processEvent(event);
+			}
+		}
+
+		private void flush() {
+			buffering = false;
+			bufferedEvents.forEach(delegate::processEvent);
+			bufferedEvents.clear();
+		}
+
+		@Override
+		public void addHandler(EventHandler handler) {
+			delegate.addHandler(handler);
+		}
+
+		@Override
+		public void removeHandler(EventHandler handler) {
+			delegate.removeHandler(handler);
+		}
+
+		@Override
+		public void resetHandlers(int iteration) {
+			delegate.resetHandlers(iteration);
+		}
+
+		@Override
+		public void initProcessing() {
+			delegate.initProcessing();
+		}
+
+		@Override
+		public void afterSimStep(double time) {
+			delegate.afterSimStep(time);
+		}
+
+		@Override
+		public void finishProcessing() {
+			delegate.finishProcessing();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.optimizer;
+
+import org.matsim.contrib.dvrp.optimizer.ParallelVrpOptimizerStepper.BufferedEventsManager;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
+import org.matsim.core.mobsim.qsim.AbstractQSimModule;
+
+import com.google.inject.multibindings.MapBinder;
+import com.google.inject.name.Names;
+
+public class ParallelVrpOptimizerStepperModule extends AbstractQSimModule {
+	@Override
+	protected void configureQSim() {
+		// optimizers (and their events buffers) are added per mode if they are to be run concurrently
+		MapBinder.newMapBinder(binder(), String.class, MobsimBeforeSimStepListener.class,
+				Names.named(ParallelVrpOptimizerStepper.COMPONENT_NAME));
+		MapBinder.newMapBinder(binder(), String.class, BufferedEventsManager.class,
+				Names.named(ParallelVrpOptimizerStepper.COMPONENT_NAME));
+		bind(ParallelVrpOptimizerStepper.class).asEagerSingleton();
+		addQSimComponentBinding(ParallelVrpOptimizerStepper.COMPONENT_NAME).to(ParallelVrpOptimizerStepper.class);
+	}
+}
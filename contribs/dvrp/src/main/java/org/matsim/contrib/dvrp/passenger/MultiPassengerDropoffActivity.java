@@ -43,6 +43,11 @@ public class MultiPassengerDropoffActivity extends FirstLastSimStepDynActivity {
 		departureTime = dropoffTask.getEndTime();
 	}
 
+	@Override
+	protected boolean areMiddleStepsConcurrent() {
+		return true;
+	}
+
 	@Override
 	protected boolean isLastStep(double now) {
 		return now >= departureTime;
@@ -46,6 +46,11 @@ public class MultiPassengerPickupActivity extends FirstLastSimStepDynActivity im
 		this.expectedEndTime = pickupTask.getEndTime();
 	}
 
+	@Override
+	protected boolean areMiddleStepsConcurrent() {
+		return true;
+	}
+
 	@Override
 	protected boolean isLastStep(double now) {
 		return passengersPickedUp == requests.size() && now >= expectedEndTime;
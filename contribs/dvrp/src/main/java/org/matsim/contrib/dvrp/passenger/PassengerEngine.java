@@ -19,9 +19,9 @@
 
 package org.matsim.contrib.dvrp.passenger;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
@@ -57,7 +57,9 @@ public class PassengerEngine implements MobsimEngine, DepartureHandler {
 
 	private final AdvanceRequestStorage advanceRequestStorage;
 	private final AwaitingPickupStorage awaitingPickupStorage;
-	private final Map<Id<Request>, MobsimPassengerAgent> passengersByRequestId = new HashMap<>();
+	// departures may be handled concurrently (e.g. by parallel QNetsimEngine threads), so request intake is synchronised
+	// (incl. optimizer.requestSubmitted()), whereas drop-offs only need a concurrent map
+	private final Map<Id<Request>, MobsimPassengerAgent> passengersByRequestId = new ConcurrentHashMap<>();
 
 	public PassengerEngine(String mode, EventsManager eventsManager, PassengerRequestCreator requestCreator,
 			VrpOptimizer optimizer, Network network, PassengerRequestValidator requestValidator) {
@@ -96,8 +98,8 @@ public class PassengerEngine implements MobsimEngine, DepartureHandler {
 	/**
 	 * This is to register an advance booking. The method is called when, in reality, the request is made.
 	 */
-	public boolean prebookTrip(double now, MobsimPassengerAgent passenger, Id<Link> fromLinkId, Id<Link> toLinkId,
-			double departureTime) {
+	public synchronized boolean prebookTrip(double now, MobsimPassengerAgent passenger, Id<Link> fromLinkId,
+			Id<Link> toLinkId, double departureTime) {
 		if (departureTime <= now) {
 			throw new IllegalStateException("This is not a call ahead");
 		}
@@ -121,16 +123,19 @@ public class PassengerEngine implements MobsimEngine, DepartureHandler {
 		double departureTime = now;
 		internalInterface.registerAdditionalAgentOnLink(passenger);
 
-		PassengerRequest prebookedRequest = advanceRequestStorage.retrieveAdvanceRequest(passenger, fromLinkId,
-				toLinkId, now);
-		if (prebookedRequest == null) {// this is an immediate request
-			//TODO what if it was already rejected while prebooking??
-			createValidateAndSubmitRequest(passenger, fromLinkId, toLinkId, departureTime, now);
-		} else {
-			passengersByRequestId.put(prebookedRequest.getId(), passenger);
-			PassengerPickupActivity awaitingPickup = awaitingPickupStorage.retrieveAwaitingPickup(prebookedRequest);
-			if (awaitingPickup != null) {
-				awaitingPickup.notifyPassengerIsReadyForDeparture(passenger, now);
+		synchronized (this) {
+			PassengerRequest prebookedRequest = advanceRequestStorage.retrieveAdvanceRequest(passenger, fromLinkId,
+					toLinkId, now);
+			if (prebookedRequest == null) {// this is an immediate request
+				//TODO what if it was already rejected while prebooking??
+				createValidateAndSubmitRequest(passenger, fromLinkId, toLinkId, departureTime, now);
+			} else {
+				passengersByRequestId.put(prebookedRequest.getId(), passenger);
+				PassengerPickupActivity awaitingPickup = awaitingPickupStorage.retrieveAwaitingPickup(
+						prebookedRequest);
+				if (awaitingPickup != null) {
+					awaitingPickup.notifyPassengerIsReadyForDeparture(passenger, now);
+				}
 			}
 		}
 
@@ -188,7 +193,7 @@ public class PassengerEngine implements MobsimEngine, DepartureHandler {
 
 	// ================ PICKUP / DROPOFF
 
-	public boolean pickUpPassenger(PassengerPickupActivity pickupActivity, MobsimDriverAgent driver,
+	public synchronized boolean pickUpPassenger(PassengerPickupActivity pickupActivity, MobsimDriverAgent driver,
 			PassengerRequest request, double now) {
 		Id<Link> linkId = driver.getCurrentLinkId();
 		MobsimPassengerAgent passenger = passengersByRequestId.get(request.getId());
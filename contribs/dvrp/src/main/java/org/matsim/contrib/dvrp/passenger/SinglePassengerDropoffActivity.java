@@ -41,6 +41,11 @@ public class SinglePassengerDropoffActivity extends FirstLastSimStepDynActivity
 		departureTime = dropoffTask.getEndTime();
 	}
 
+	@Override
+	protected boolean areMiddleStepsConcurrent() {
+		return true;
+	}
+
 	@Override
 	protected boolean isLastStep(double now) {
 		return now >= departureTime;
@@ -42,6 +42,11 @@ public class SinglePassengerPickupActivity extends FirstLastSimStepDynActivity i
 		this.expectedEndTime = pickupTask.getEndTime();
 	}
 
+	@Override
+	protected boolean areMiddleStepsConcurrent() {
+		return true;
+	}
+
 	@Override
 	protected boolean isLastStep(double now) {
 		return passengerAboard && now >= expectedEndTime;
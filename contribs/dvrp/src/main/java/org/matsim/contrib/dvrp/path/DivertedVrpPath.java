@@ -19,6 +19,7 @@
 
 package org.matsim.contrib.dvrp.path;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.matsim.api.core.v01.network.Link;
@@ -28,6 +29,10 @@ import com.google.common.collect.Iterators;
 /**
  * A DivertedVrpPath is a VrpPath which additionally keeps information about the original path, where the new path
  * deviates from the original one, and at which link index they diverted.
+ * <p>
+ * Links and travel times are not copied. Instead, the path is a sequence of (non-diverted) segments, so that diverting
+ * an already diverted path adds one segment instead of wrapping the original path once more (which would make each
+ * link lookup go through all the previous diversions).
  * 
  * @author (of documentation) nagel
  */
@@ -36,6 +41,10 @@ public class DivertedVrpPath implements VrpPath {
 	private final VrpPath newSubPath;
 	private final int diversionLinkIdx;// originalPath.getLink(diversionLinkIdx) == newSubPath.getLink(0)
 
+	// segment k covers indices (segmentStarts[k], segmentStarts[k + 1]], except for segment 0, which starts at 0
+	private final VrpPath[] segmentPaths;
+	private final int[] segmentStarts;
+
 	public DivertedVrpPath(VrpPath originalPath, VrpPath newSubPath, int diversionLinkIdx) {
 		if (originalPath.getLink(diversionLinkIdx) != newSubPath.getLink(0)) {
 			throw new IllegalArgumentException();
@@ -44,6 +53,22 @@ public class DivertedVrpPath implements VrpPath {
 		this.originalPath = originalPath;
 		this.newSubPath = newSubPath;
 		this.diversionLinkIdx = diversionLinkIdx;
+
+		if (originalPath instanceof DivertedVrpPath) {
+			// keep the segments of the original path that are (at least partially) before the diversion
+			DivertedVrpPath diverted = (DivertedVrpPath)originalPath;
+			int count = 1;
+			while (count < diverted.segmentStarts.length && diverted.segmentStarts[count] < diversionLinkIdx) {
+				count++;
+			}
+			segmentPaths = Arrays.copyOf(diverted.segmentPaths, count + 1);
+			segmentStarts = Arrays.copyOf(diverted.segmentStarts, count + 1);
+		} else {
+			segmentPaths = new VrpPath[] { originalPath, null };
+			segmentStarts = new int[] { 0, 0 };
+		}
+		segmentPaths[segmentPaths.length - 1] = newSubPath;
+		segmentStarts[segmentStarts.length - 1] = diversionLinkIdx;
 	}
 
 	@Override
@@ -53,36 +78,32 @@ public class DivertedVrpPath implements VrpPath {
 
 	@Override
 	public Link getLink(int idx) {
-		if (isInOriginalPath(idx)) {
-			return originalPath.getLink(idx);
-		} else {
-			return newSubPath.getLink(idx - diversionLinkIdx);
-		}
+		int k = findSegment(idx);
+		return segmentPaths[k].getLink(idx - segmentStarts[k]);
 	}
 
 	@Override
 	public double getLinkTravelTime(int idx) {
-		if (isInOriginalPath(idx)) {
-			return originalPath.getLinkTravelTime(idx);
-		} else {
-			return newSubPath.getLinkTravelTime(idx - diversionLinkIdx);
-		}
+		int k = findSegment(idx);
+		return segmentPaths[k].getLinkTravelTime(idx - segmentStarts[k]);
 	}
 
-	private boolean isInOriginalPath(int idx) {
-		// for getLink() both idx < diversionLinkIdx and idx <= diversionLinkIdx are OK
-		// for getLinkTT() diversionLinkIdx must be taken from originalPath since TT for the first link
-		// in newSubPath is 1 second (a vehicle enters the link at its end)
-		return idx <= diversionLinkIdx;
+	// for getLink() both idx < diversionLinkIdx and idx <= diversionLinkIdx are OK
+	// for getLinkTT() diversionLinkIdx must be taken from originalPath since TT for the first link
+	// in newSubPath is 1 second (a vehicle enters the link at its end)
+	private int findSegment(int idx) {
+		// usually, the vehicle is on one of the last segments
+		int k = segmentStarts.length - 1;
+		while (k > 0 && idx <= segmentStarts[k]) {
+			k--;
+		}
+		return k;
 	}
 
 	@Override
 	public void setLinkTravelTime(int idx, double linkTT) {
-		if (isInOriginalPath(idx)) {
-			originalPath.setLinkTravelTime(idx, linkTT);
-		} else {
-			newSubPath.setLinkTravelTime(idx - diversionLinkIdx, linkTT);
-		}
+		int k = findSegment(idx);
+		segmentPaths[k].setLinkTravelTime(idx - segmentStarts[k], linkTT);
 	}
 
 	@Override
@@ -45,14 +45,31 @@ import com.google.common.collect.Maps;
 public class OneToManyPathSearch {
 	public static OneToManyPathSearch createForwardSearch(Network network, TravelTime travelTime,
 			TravelDisutility travelDisutility) {
-		return create((MultiNodePathCalculator)new FastMultiNodeDijkstraFactory(true).createPathCalculator(network,
-				travelDisutility, travelTime));
+		return createForwardSearch(new FastMultiNodeDijkstraFactory(true), network, travelTime, travelDisutility);
+	}
+
+	/**
+	 * Searches created by the same factory share the routing network (which is read-only while searching), so they
+	 * can be used by different threads without each of them holding a copy of the network.
+	 */
+	public static OneToManyPathSearch createForwardSearch(FastMultiNodeDijkstraFactory factory, Network network,
+			TravelTime travelTime, TravelDisutility travelDisutility) {
+		return create((MultiNodePathCalculator)factory.createPathCalculator(network, travelDisutility, travelTime));
 	}
 
 	public static OneToManyPathSearch createBackwardSearch(Network network, TravelTime travelTime,
 			TravelDisutility travelDisutility) {
-		return create((BackwardMultiNodePathCalculator)new BackwardFastMultiNodeDijkstraFactory(true)
-				.createPathCalculator(network, travelDisutility, travelTime));
+		return createBackwardSearch(new BackwardFastMultiNodeDijkstraFactory(true), network, travelTime,
+				travelDisutility);
+	}
+
+	/**
+	 * See {@link #createForwardSearch(FastMultiNodeDijkstraFactory, Network, TravelTime, TravelDisutility)}
+	 */
+	public static OneToManyPathSearch createBackwardSearch(BackwardFastMultiNodeDijkstraFactory factory,
+			Network network, TravelTime travelTime, TravelDisutility travelDisutility) {
+		return create((BackwardMultiNodePathCalculator)factory.createPathCalculator(network, travelDisutility,
+				travelTime));
 	}
 
 	public static OneToManyPathSearch create(MultiNodePathCalculator multiNodeDijkstra) {
@@ -71,6 +88,15 @@ public class OneToManyPathSearch {
 		public double getTravelTime() {
 			return path.travelTime + firstAndLastLinkTT;
 		}
+
+		// excluding the first and last links
+		public double getPathLength() {
+			double length = 0;
+			for (Link link : path.links) {
+				length += link.getLength();
+			}
+			return length;
+		}
 	}
 
 	private static class ToNode extends InitialNode {
@@ -89,6 +115,9 @@ public class OneToManyPathSearch {
 		this.forward = !(multiNodeDijkstra instanceof BackwardFastMultiNodeDijkstra);
 	}
 
+	/**
+	 * @return path data for each of the toLinks, <code>null</code> for links that cannot be reached from fromLink
+	 */
 	public PathData[] calcPathDataArray(Link fromLink, List<Link> toLinks, double startTime) {
 		Node fromNode = getFromNode(fromLink);
 		Map<Id<Node>, ToNode> toNodes = createToNodes(fromLink, toLinks);
@@ -96,6 +125,9 @@ public class OneToManyPathSearch {
 		return createPathDataArray(fromLink, toLinks, startTime, toNodes);
 	}
 
+	/**
+	 * @return path data for each of the toLinks, <code>null</code> for links that cannot be reached from fromLink
+	 */
 	public Map<Id<Link>, PathData> calcPathDataMap(Link fromLink, Collection<Link> toLinks, double startTime) {
 		Node fromNode = getFromNode(fromLink);
 		Map<Id<Node>, ToNode> toNodes = createToNodes(fromLink, toLinks);
@@ -151,6 +183,9 @@ public class OneToManyPathSearch {
 			return createZeroPathData(fromLink);
 		} else {
 			ToNode toNode = toNodes.get(getToNode(toLink).getId());
+			if (toNode.path == null) {
+				return null;// not reachable
+			}
 			return new PathData(toNode.path, getFirstAndLastLinkTT(fromLink, toLink, toNode.path, startTime));
 		}
 	}
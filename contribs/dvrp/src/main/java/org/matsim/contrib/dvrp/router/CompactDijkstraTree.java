@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.vehicles.Vehicle;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable copy of a shortest path tree computed by {@link DijkstraTree}. The tree is stored in arrays indexed by
+ * node index, so it takes a fraction of the memory of DijkstraTree (no per-node data objects, no priority queue etc.)
+ * and can be queried by many threads at the same time.
+ */
+public class CompactDijkstraTree implements LeastCostPathCalculator {
+	private final Map<Id<Node>, Integer> nodeIndices;
+	private final Node fromNode;
+	private final double startTime;
+
+	private final double[] times;
+	private final double[] costs;
+	private final Link[] prevLinks;
+
+	/**
+	 * @param nodes       all nodes of the network (ordered by their indices)
+	 * @param nodeIndices node indices (shared by all trees calculated for the same network)
+	 */
+	public CompactDijkstraTree(DijkstraTree tree, Node[] nodes, Map<Id<Node>, Integer> nodeIndices) {
+		this.nodeIndices = nodeIndices;
+		this.fromNode = tree.getFromNode();
+		this.startTime = tree.getStartTime();
+
+		times = new double[nodes.length];
+		costs = new double[nodes.length];
+		prevLinks = new Link[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			times[i] = tree.getTime(nodes[i]);
+			costs[i] = tree.getCost(nodes[i]);
+			prevLinks[i] = tree.getPrevLink(nodes[i]);
+		}
+	}
+
+	@Override
+	public Path calcLeastCostPath(Node fromNode, Node toNode, double startTime, Person person, Vehicle vehicle) {
+		if (fromNode != this.fromNode || startTime != this.startTime || person != null || vehicle != null) {
+			throw new IllegalArgumentException();
+		}
+
+		return getLeastCostPath(toNode);
+	}
+
+	public Path getLeastCostPath(Node toNode) {
+		int toIdx = nodeIndices.get(toNode.getId());
+		List<Link> links = new ArrayList<>();
+
+		Link tmpLink = prevLinks[toIdx];
+		if (tmpLink != null) {
+			while (tmpLink.getFromNode() != fromNode) {
+				links.add(tmpLink);
+				tmpLink = prevLinks[nodeIndices.get(tmpLink.getFromNode().getId())];
+			}
+			links.add(tmpLink);
+		}
+
+		return new Path(null, ImmutableList.copyOf(links).reverse(), times[toIdx] - startTime, costs[toIdx]);
+	}
+
+	public double getTime(Node toNode) {
+		return times[nodeIndices.get(toNode.getId())];
+	}
+
+	public double getCost(Node toNode) {
+		return costs[nodeIndices.get(toNode.getId())];
+	}
+}
@@ -19,53 +19,84 @@
 
 package org.matsim.contrib.dvrp.router;
 
-import org.matsim.api.core.v01.Id;
+import java.util.concurrent.ExecutionException;
+
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.contrib.dvrp.util.TimeDiscretizer;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.vehicles.Vehicle;
 
-import com.google.common.collect.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
+/**
+ * Caches paths (one per from-node, to-node and time bin) in a size-bounded LRU cache. The cache can be used by many
+ * threads at the same time, but the wrapped calculator is called by one thread at a time.
+ */
 public class DefaultLeastCostPathCalculatorWithCache implements LeastCostPathCalculatorWithCache {
+	public static final long DEFAULT_MAX_PATH_COUNT = 1_000_000;
+
 	private final LeastCostPathCalculator calculator;
 	private final TimeDiscretizer timeDiscretizer;
-	private final Table<Id<Node>, Id<Node>, Path>[] pathCache;
-
-	private CacheStats cacheStats = new CacheStats();
+	private final Cache<PathKey, Path> pathCache;
 
-	@SuppressWarnings("unchecked")
 	public DefaultLeastCostPathCalculatorWithCache(LeastCostPathCalculator calculator,
 			TimeDiscretizer timeDiscretizer) {
+		this(calculator, timeDiscretizer, DEFAULT_MAX_PATH_COUNT);
+	}
+
+	public DefaultLeastCostPathCalculatorWithCache(LeastCostPathCalculator calculator, TimeDiscretizer timeDiscretizer,
+			long maxPathCount) {
 		this.calculator = calculator;
 		this.timeDiscretizer = timeDiscretizer;
-
-		pathCache = new Table[timeDiscretizer.getIntervalCount()];
-		for (int i = 0; i < pathCache.length; i++) {
-			pathCache[i] = HashBasedTable.create();
-		}
+		pathCache = CacheBuilder.newBuilder().maximumSize(maxPathCount).recordStats().build();
 	}
 
 	@Override
 	public Path calcLeastCostPath(Node fromNode, Node toNode, double startTime, Person person, Vehicle vehicle) {
-		Table<Id<Node>, Id<Node>, Path> spCacheSlice = pathCache[timeDiscretizer.getIdx(startTime)];
-		Path path = spCacheSlice.get(fromNode.getId(), toNode.getId());
-
-		if (path == null) {
-			cacheStats.incMisses();
-			path = calculator.calcLeastCostPath(fromNode, toNode, timeDiscretizer.discretize(startTime), person,
-					vehicle);
-			spCacheSlice.put(fromNode.getId(), toNode.getId(), path);
-		} else {
-			cacheStats.incHits();
+		PathKey key = new PathKey(fromNode, toNode, timeDiscretizer.getIdx(startTime));
+		try {
+			return pathCache.get(key, () -> {
+				synchronized (calculator) {
+					return calculator.calcLeastCostPath(fromNode, toNode, timeDiscretizer.discretize(startTime),
+							person, vehicle);
+				}
+			});
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
 		}
-
-		return path;
 	}
 
 	@Override
 	public CacheStats getCacheStats() {
-		return cacheStats;
+		return CacheStats.of(pathCache.stats());
+	}
+
+	private static final class PathKey {
+		private final Node fromNode;
+		private final Node toNode;
+		private final int timeIdx;
+
+		private PathKey(Node fromNode, Node toNode, int timeIdx) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.timeIdx = timeIdx;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof PathKey)) {
+				return false;
+			}
+			PathKey other = (PathKey)o;
+			return timeIdx == other.timeIdx && fromNode.getId().equals(other.fromNode.getId()) && toNode.getId()
+					.equals(other.toNode.getId());
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * fromNode.getId().hashCode() + toNode.getId().hashCode()) * 31 + timeIdx;
+		}
 	}
 }
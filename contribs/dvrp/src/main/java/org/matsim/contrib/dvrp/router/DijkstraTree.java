@@ -65,6 +65,18 @@ public class DijkstraTree extends DijkstraWithThinPath {
 		return constructPath(fromNode, toNode, startTime, getData(toNode).getTime());
 	}
 
+	public Node getFromNode() {
+		return fromNode;
+	}
+
+	public double getStartTime() {
+		return startTime;
+	}
+
+	public Link getPrevLink(Node toNode) {
+		return getData(toNode).getPrevLink();
+	}
+
 	public double getTime(Node toNode) {
 		return getData(toNode).getTime();
 	}
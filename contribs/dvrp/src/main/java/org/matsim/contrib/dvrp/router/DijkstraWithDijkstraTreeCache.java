@@ -20,6 +20,7 @@
 package org.matsim.contrib.dvrp.router;
 
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.*;
@@ -28,29 +29,49 @@ import org.matsim.contrib.dvrp.util.TimeDiscretizer;
 import org.matsim.core.router.util.*;
 import org.matsim.vehicles.Vehicle;
 
-import com.google.common.collect.Maps;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
 
+/**
+ * Caches shortest path trees (one per from-node and time bin) in a size-bounded LRU cache. The trees are stored as
+ * {@link CompactDijkstraTree}s. The cache can be used by many threads at the same time; a missing tree is calculated
+ * once even if it is requested by several threads.
+ */
 public class DijkstraWithDijkstraTreeCache implements LeastCostPathCalculatorWithCache {
+	// ~200 MB (time + cost + prev link per node entry)
+	public static final long DEFAULT_MAX_NODE_ENTRIES = 10_000_000;
+
 	private final Network network;
 	private final TravelDisutility costFunction;
 	private final TravelTime timeFunction;
 	private final TimeDiscretizer timeDiscretizer;
-	private final Map<Id<Node>, DijkstraTree>[] treeCache;
 
-	private CacheStats cacheStats = new CacheStats();
+	private final Node[] nodes;
+	private final Map<Id<Node>, Integer> nodeIndices;
+	private final Cache<Long, CompactDijkstraTree> treeCache;
 
-	@SuppressWarnings("unchecked")
 	public DijkstraWithDijkstraTreeCache(Network network, TravelDisutility costFunction, final TravelTime timeFunction,
 			TimeDiscretizer timeDiscretizer) {
+		this(network, costFunction, timeFunction, timeDiscretizer,
+				Math.max(1, DEFAULT_MAX_NODE_ENTRIES / Math.max(1, network.getNodes().size())));
+	}
+
+	public DijkstraWithDijkstraTreeCache(Network network, TravelDisutility costFunction, final TravelTime timeFunction,
+			TimeDiscretizer timeDiscretizer, long maxTreeCount) {
 		this.network = network;
 		this.costFunction = costFunction;
 		this.timeFunction = timeFunction;
 		this.timeDiscretizer = timeDiscretizer;
 
-		treeCache = new Map[timeDiscretizer.getIntervalCount()];
-		for (int i = 0; i < treeCache.length; i++) {
-			treeCache[i] = Maps.newHashMap();
+		nodes = network.getNodes().values().toArray(new Node[0]);
+		ImmutableMap.Builder<Id<Node>, Integer> nodeIndicesBuilder = ImmutableMap.builder();
+		for (int i = 0; i < nodes.length; i++) {
+			nodeIndicesBuilder.put(nodes[i].getId(), i);
 		}
+		nodeIndices = nodeIndicesBuilder.build();
+
+		treeCache = CacheBuilder.newBuilder().maximumSize(maxTreeCount).recordStats().build();
 	}
 
 	@Override
@@ -59,24 +80,22 @@ public class DijkstraWithDijkstraTreeCache implements LeastCostPathCalculatorWit
 				person, vehicle);
 	}
 
-	public DijkstraTree getTree(Node fromNode, double startTime) {
-		Map<Id<Node>, DijkstraTree> treeCacheSlice = treeCache[timeDiscretizer.getIdx(startTime)];
-		DijkstraTree tree = treeCacheSlice.get(fromNode.getId());
-
-		if (tree == null) {
-			cacheStats.incMisses();
-			tree = new DijkstraTree(network, costFunction, timeFunction);
-			tree.calcLeastCostPathTree(fromNode, timeDiscretizer.discretize(startTime));
-			treeCacheSlice.put(fromNode.getId(), tree);
-		} else {
-			cacheStats.incHits();
+	public CompactDijkstraTree getTree(Node fromNode, double startTime) {
+		int timeIdx = timeDiscretizer.getIdx(startTime);
+		long key = (long)timeIdx * nodes.length + nodeIndices.get(fromNode.getId());
+		try {
+			return treeCache.get(key, () -> {
+				DijkstraTree tree = new DijkstraTree(network, costFunction, timeFunction);
+				tree.calcLeastCostPathTree(fromNode, timeDiscretizer.discretize(startTime));
+				return new CompactDijkstraTree(tree, nodes, nodeIndices);
+			});
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
 		}
-
-		return tree;
 	}
 
 	@Override
 	public CacheStats getCacheStats() {
-		return cacheStats;
+		return CacheStats.of(treeCache.stats());
 	}
 }
@@ -26,20 +26,24 @@ import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 public class LeastCostPathCalculatorCacheStats {
 	private final SummaryStatistics hitStats = new SummaryStatistics();
 	private final SummaryStatistics missStats = new SummaryStatistics();
+	private final SummaryStatistics evictionStats = new SummaryStatistics();
 
 	public void updateStats(LeastCostPathCalculatorWithCache calculatorWithCache) {
-		hitStats.addValue(calculatorWithCache.getCacheStats().getHits());
-		missStats.addValue(calculatorWithCache.getCacheStats().getMisses());
+		LeastCostPathCalculatorWithCache.CacheStats cacheStats = calculatorWithCache.getCacheStats();
+		hitStats.addValue(cacheStats.getHits());
+		missStats.addValue(cacheStats.getMisses());
+		evictionStats.addValue(cacheStats.getEvictions());
 	}
 
-	public static final String HEADER = "cfg\tHits\tMisses";
+	public static final String HEADER = "cfg\tHits\tMisses\tEvictions";
 
 	public void printStats(PrintWriter pw, String id) {
-		pw.printf("%10s\t%f\t%f\n", id, hitStats.getMean(), missStats.getMean());
+		pw.printf("%10s\t%f\t%f\t%f\n", id, hitStats.getMean(), missStats.getMean(), evictionStats.getMean());
 	}
 
 	public void clearStats() {
 		hitStats.clear();
 		missStats.clear();
+		evictionStats.clear();
 	}
 }
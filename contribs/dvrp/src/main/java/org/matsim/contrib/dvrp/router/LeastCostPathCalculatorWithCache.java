@@ -23,25 +23,35 @@ import org.matsim.core.router.util.LeastCostPathCalculator;
 
 public interface LeastCostPathCalculatorWithCache extends LeastCostPathCalculator {
 	class CacheStats {
-		private int hits = 0;
-		private int misses = 0;
-
-		public void incHits() {
-			hits++;
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+
+		public CacheStats(long hits, long misses, long evictions) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
 		}
 
-		public void incMisses() {
-			misses++;
+		public static CacheStats of(com.google.common.cache.CacheStats stats) {
+			return new CacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount());
 		}
 
-		public int getHits() {
+		public long getHits() {
 			return hits;
 		}
 
-		public int getMisses() {
+		public long getMisses() {
 			return misses;
 		}
+
+		public long getEvictions() {
+			return evictions;
+		}
 	}
 
+	/**
+	 * @return snapshot of the cache statistics
+	 */
 	CacheStats getCacheStats();
-}
\ No newline at end of file
+}
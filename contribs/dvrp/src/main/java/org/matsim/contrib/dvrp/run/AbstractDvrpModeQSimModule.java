@@ -22,6 +22,10 @@ package org.matsim.contrib.dvrp.run;
 
 import java.util.function.Function;
 
+import org.matsim.contrib.dvrp.optimizer.ParallelVrpOptimizerStepper;
+import org.matsim.contrib.dvrp.optimizer.ParallelVrpOptimizerStepper.BufferedEventsManager;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
 import org.matsim.core.mobsim.framework.listeners.MobsimListener;
 import org.matsim.core.mobsim.qsim.AbstractQSimModule;
 import org.matsim.core.mobsim.qsim.components.QSimComponent;
@@ -29,6 +33,8 @@ import org.matsim.core.mobsim.qsim.components.QSimComponent;
 import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.binder.LinkedBindingBuilder;
+import com.google.inject.multibindings.MapBinder;
+import com.google.inject.name.Names;
 
 /**
  * @author Michal Maciejewski (michalm)
@@ -100,6 +106,45 @@ public abstract class AbstractDvrpModeQSimModule extends AbstractQSimModule {
 		addQSimComponentBinding(getDvrpMode()).to(Key.get(componentClass, getDvrpMode()));
 	}
 
+	/**
+	 * Adds the optimizer of this mode. If {@link DvrpConfigGroup#getNumberOfThreadsForOptimizers()} > 1, the optimizer
+	 * is not a QSim component, but it is notified by {@link ParallelVrpOptimizerStepper} concurrently with the
+	 * optimizers of other modes. Events thrown while optimising should be sent to the modal EventsManager (bound
+	 * here), which buffers them in the concurrent case.
+	 */
+	protected final <T extends MobsimBeforeSimStepListener> void addModalOptimizerComponent(Class<T> optimizerClass,
+			Provider<T> optimizerProvider) {
+		addModalOptimizerComponent(optimizerClass, optimizerProvider, true);
+	}
+
+	/**
+	 * As {@link #addModalOptimizerComponent(Class, Provider)}, but {@code concurrentStepping == false} keeps the
+	 * optimizer out of {@link ParallelVrpOptimizerStepper}. This is required if the optimizer mutates state shared
+	 * with other modes (e.g. the non-modal ChargingInfrastructure used by electric fleets).
+	 */
+	protected final <T extends MobsimBeforeSimStepListener> void addModalOptimizerComponent(Class<T> optimizerClass,
+			Provider<T> optimizerProvider, boolean concurrentStepping) {
+		if (concurrentStepping && DvrpConfigGroup.get(getConfig()).getNumberOfThreadsForOptimizers() > 1) {
+			bind(optimizerClass).annotatedWith(getDvrpMode()).toProvider(optimizerProvider).asEagerSingleton();
+			MapBinder.newMapBinder(binder(), String.class, MobsimBeforeSimStepListener.class,
+					Names.named(ParallelVrpOptimizerStepper.COMPONENT_NAME))
+					.addBinding(mode)
+					.to(Key.get(optimizerClass, getDvrpMode()));
+
+			bindModal(BufferedEventsManager.class).toProvider(
+					modalProvider(getter -> new BufferedEventsManager(getter.get(EventsManager.class))))
+					.asEagerSingleton();
+			bindModal(EventsManager.class).to(modalKey(BufferedEventsManager.class));
+			MapBinder.newMapBinder(binder(), String.class, BufferedEventsManager.class,
+					Names.named(ParallelVrpOptimizerStepper.COMPONENT_NAME))
+					.addBinding(mode)
+					.to(modalKey(BufferedEventsManager.class));
+		} else {
+			addModalComponent(optimizerClass, optimizerProvider);
+			bindModal(EventsManager.class).to(EventsManager.class);
+		}
+	}
+
 	protected final <T> Provider<T> modalProvider(Function<ModalProviders.InstanceGetter, T> delegate) {
 		return ModalProviders.createProvider(mode, delegate);
 	}
@@ -80,6 +80,19 @@ public class DvrpConfigGroup extends ReflectiveConfigGroup {
 			+ " whereas if 'time < currentTime' it is 1."
 			////
 			+ " If beta is sufficiently large, 'beta >> 0', only the currently observed TT is used.";
+	public static final String NUMBER_OF_THREADS_FOR_OPTIMIZERS = "numberOfThreadsForOptimizers";
+	static final String NUMBER_OF_THREADS_FOR_OPTIMIZERS_EXP =
+			"Number of threads used for running the optimizers of different DVRP modes (e.g. competing DRT/taxi"
+					+ " operators) concurrently in each time step. Optimizers of electric fleets (eDRT,"
+					+ " eTaxi) share the charging infrastructure and are therefore always run sequentially."
+					+ " Default is 1, i.e. the optimizers are run sequentially on the QSim thread.";
+	public static final String NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES = "numberOfThreadsForDynActivities";
+	static final String NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES_EXP =
+			"Number of threads used for simulating DynActivities (e.g. DVRP stay tasks and stops) concurrently in"
+					+ " each time step. Only activities that declare their current step as concurrent are simulated"
+					+ " in parallel, all activity ends are processed sequentially in a fixed order."
+					+ " Default is 1, i.e. all activities are simulated sequentially on the QSim thread.";
+
 	// In DVRP 'time < currentTime' may only happen for backward path search, a adding proper search termination
 	// criterion should prevent this from happening
 
@@ -96,6 +109,12 @@ public class DvrpConfigGroup extends ReflectiveConfigGroup {
 	@PositiveOrZero
 	private double travelTimeEstimationBeta = 0; // [s], 0 ==> only offline TT estimation
 
+	@Positive
+	private int numberOfThreadsForOptimizers = 1;
+
+	@Positive
+	private int numberOfThreadsForDynActivities = 1;
+
 	public DvrpConfigGroup() {
 		super(GROUP_NAME);
 	}
@@ -107,6 +126,8 @@ public class DvrpConfigGroup extends ReflectiveConfigGroup {
 		map.put(MOBSIM_MODE, MOBSIM_MODE_EXP);
 		map.put(TRAVEL_TIME_ESTIMATION_ALPHA, TRAVEL_TIME_ESTIMATION_ALPHA_EXP);
 		map.put(TRAVEL_TIME_ESTIMATION_BETA, TRAVEL_TIME_ESTIMATION_BETA_EXP);
+		map.put(NUMBER_OF_THREADS_FOR_OPTIMIZERS, NUMBER_OF_THREADS_FOR_OPTIMIZERS_EXP);
+		map.put(NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES, NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES_EXP);
 		return map;
 	}
 
@@ -173,4 +194,36 @@ public class DvrpConfigGroup extends ReflectiveConfigGroup {
 	public void setTravelTimeEstimationBeta(double travelTimeEstimationBeta) {
 		this.travelTimeEstimationBeta = travelTimeEstimationBeta;
 	}
+
+	/**
+	 * @return {@value #NUMBER_OF_THREADS_FOR_OPTIMIZERS_EXP}
+	 */
+	@StringGetter(NUMBER_OF_THREADS_FOR_OPTIMIZERS)
+	public int getNumberOfThreadsForOptimizers() {
+		return numberOfThreadsForOptimizers;
+	}
+
+	/**
+	 * @param numberOfThreadsForOptimizers {@value #NUMBER_OF_THREADS_FOR_OPTIMIZERS_EXP}
+	 */
+	@StringSetter(NUMBER_OF_THREADS_FOR_OPTIMIZERS)
+	public void setNumberOfThreadsForOptimizers(int numberOfThreadsForOptimizers) {
+		this.numberOfThreadsForOptimizers = numberOfThreadsForOptimizers;
+	}
+
+	/**
+	 * @return {@value #NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES_EXP}
+	 */
+	@StringGetter(NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES)
+	public int getNumberOfThreadsForDynActivities() {
+		return numberOfThreadsForDynActivities;
+	}
+
+	/**
+	 * @param numberOfThreadsForDynActivities {@value #NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES_EXP}
+	 */
+	@StringSetter(NUMBER_OF_THREADS_FOR_DYN_ACTIVITIES)
+	public void setNumberOfThreadsForDynActivities(int numberOfThreadsForDynActivities) {
+		this.numberOfThreadsForDynActivities = numberOfThreadsForDynActivities;
+	}
 }
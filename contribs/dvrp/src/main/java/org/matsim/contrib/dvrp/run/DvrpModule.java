@@ -20,6 +20,7 @@
 package org.matsim.contrib.dvrp.run;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.optimizer.ParallelVrpOptimizerStepperModule;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
 import org.matsim.contrib.dvrp.vrpagent.VrpAgentQueryHelper;
@@ -57,7 +58,9 @@ public final class DvrpModule extends AbstractModule {
 				.toProvider(DvrpRoutingNetworkProvider.class)
 				.asEagerSingleton();
 
-		installQSimModule(new DynActivityEngineModule());
+		installQSimModule(new DynActivityEngineModule(
+				DvrpConfigGroup.get(getConfig()).getNumberOfThreadsForDynActivities()));
+		installQSimModule(new ParallelVrpOptimizerStepperModule());
 		installQSimModule(new AbstractQSimModule() {
 			@Override
 			protected void configureQSim() {
@@ -20,6 +20,7 @@
 
 package org.matsim.contrib.dvrp.run;
 
+import org.matsim.contrib.dvrp.optimizer.ParallelVrpOptimizerStepper;
 import org.matsim.contrib.dynagent.run.DynActivityEngineModule;
 import org.matsim.core.mobsim.qsim.components.QSimComponentsConfigurator;
 
@@ -30,6 +31,7 @@ public class DvrpQSimComponents {
 	public static QSimComponentsConfigurator activateModes(String... modes) {
 		return components -> {
 			DynActivityEngineModule.configureComponents(components);
+			components.addNamedComponent(ParallelVrpOptimizerStepper.COMPONENT_NAME);
 			for (String m : modes) {
 				components.addComponent(DvrpModes.mode(m));
 			}
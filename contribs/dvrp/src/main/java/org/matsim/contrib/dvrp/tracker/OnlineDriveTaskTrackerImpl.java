@@ -43,7 +43,8 @@ public class OnlineDriveTaskTrackerImpl implements OnlineDriveTaskTracker {
 	private VrpPath path;
 	private int currentLinkIdx;
 	private double linkEnterTime;
-	private double[] remainingTTs;// excluding the current link
+	private double[] remainingTTs;// excluding the current link; indexed from remainingTTsOffset
+	private int remainingTTsOffset;// links before are already passed (and may be many after several diversions)
 
 	public OnlineDriveTaskTrackerImpl(DvrpVehicle vehicle, VrpLeg vrpDynLeg,
 			OnlineTrackerListener onlineTrackerListener,
@@ -54,19 +55,20 @@ public class OnlineDriveTaskTrackerImpl implements OnlineDriveTaskTracker {
 		this.onlineTrackerListener = onlineTrackerListener;
 		this.timer = timer;
 
-		initForPath(driveTask.getPath());
+		initForPath(driveTask.getPath(), 0);
 		currentLinkIdx = 0;
 		linkEnterTime = driveTask.getBeginTime();
 	}
 
-	private void initForPath(VrpPath path) {
+	private void initForPath(VrpPath path, int fromLinkIdx) {
 		this.path = path;
-		remainingTTs = new double[path.getLinkCount()];
+		remainingTTsOffset = fromLinkIdx;
+		remainingTTs = new double[path.getLinkCount() - fromLinkIdx];
 
 		double tt = 0;
 		for (int i = remainingTTs.length - 1; i >= 0; i--) {
 			remainingTTs[i] = tt;
-			tt += path.getLinkTravelTime(i);
+			tt += path.getLinkTravelTime(fromLinkIdx + i);
 		}
 	}
 
@@ -121,7 +123,7 @@ public class OnlineDriveTaskTrackerImpl implements OnlineDriveTaskTracker {
 
 		int diversionLinkIdx = currentLinkIdx + (vrpDynLeg.canChangeNextLink() ? 0 : 1);
 		DivertedVrpPath divertedPath = new DivertedVrpPath(path, newSubPath, diversionLinkIdx);
-		initForPath(divertedPath);
+		initForPath(divertedPath, currentLinkIdx);
 
 		vrpDynLeg.pathDiverted(divertedPath);
 		driveTask.pathDiverted(divertedPath, newSubPath.getArrivalTime());
@@ -129,7 +131,7 @@ public class OnlineDriveTaskTrackerImpl implements OnlineDriveTaskTracker {
 
 	@Override
 	public double predictEndTime() {
-		return predictLinkExitTime() + remainingTTs[currentLinkIdx];
+		return predictLinkExitTime() + remainingTTs[currentLinkIdx - remainingTTsOffset];
 	}
 
 	private double predictLinkExitTime() {
@@ -52,4 +52,16 @@ public interface DynActivity extends DynAction {
 	// TODO this method may possibly be pulled up to DynAction since even when travelling (either by
 	// PuT or PrT) an agent may think, talk (also on the phone), collaborate etc.
 	void doSimStep(double now);
+
+	/**
+	 * Allows DynActivityEngine to simulate this step concurrently with other activities. Return true only if
+	 * doSimStep(now) and getEndTime() read and modify nothing but the state of this activity (and throw no events).
+	 * Activity ends are always processed sequentially.
+	 *
+	 * @param now current time
+	 * @return true if the step can be simulated concurrently with other activities
+	 */
+	default boolean isSimStepConcurrent(double now) {
+		return false;
+	}
 }
@@ -197,6 +197,10 @@ public final class DynAgent implements MobsimDriverPassengerAgent {
 		dynActivity.doSimStep(now);
 	}
 
+	public boolean isSimStepConcurrent(double now) {
+		return dynActivity.isSimStepConcurrent(now);
+	}
+
 	// MobsimAgent
 	@Override
 	public void notifyArrivalOnLinkByNonNetworkMode(Id<Link> linkId) {
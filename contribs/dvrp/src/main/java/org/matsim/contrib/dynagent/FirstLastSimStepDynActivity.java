@@ -60,6 +60,22 @@ public abstract class FirstLastSimStepDynActivity implements DynActivity {
 		}
 	}
 
+	/**
+	 * The first and the last step are always simulated sequentially. The steps in between are simulated concurrently
+	 * if allowed by {@link #areMiddleStepsConcurrent()}.
+	 */
+	@Override
+	public final boolean isSimStepConcurrent(double now) {
+		return !beforeFirstStep && areMiddleStepsConcurrent() && !isLastStep(now);
+	}
+
+	/**
+	 * Override to return true if simStep() and isLastStep() only read/modify the state of this activity.
+	 */
+	protected boolean areMiddleStepsConcurrent() {
+		return false;
+	}
+
 	protected abstract boolean isLastStep(double now);
 
 	protected void beforeFirstStep(double now) {
@@ -23,8 +23,12 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
@@ -38,20 +42,35 @@ import org.matsim.core.mobsim.qsim.InternalInterface;
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 
+import com.google.common.util.concurrent.Futures;
+
 /**
  * DynActivityEngine and ActivityEngine could be decoupled (if we can ensure DynActivityEngine's handleActivity() is
  * called before that of ActivityEngine)
+ * <p>
+ * If numberOfThreads > 1, the steps of activities that are {@link DynAgent#isSimStepConcurrent(double) concurrent}
+ * are simulated in parallel at the beginning of each time step. Then all agents are processed sequentially (in the
+ * same order as with a single thread): the remaining activities are simulated and the ended activities are handled.
+ * Since concurrent steps only modify the state of their own activities, the results do not depend on the number of
+ * threads.
  */
 public class DynActivityEngine implements MobsimEngine, ActivityHandler {
+	public static final String NUMBER_OF_THREADS = "dynActivityEngineNumberOfThreads";
+
 	private InternalInterface internalInterface;
 	private final ActivityEngine activityEngine;
 
 	private final List<DynAgent> dynAgents = new LinkedList<>();
 	private final List<DynAgent> newDynAgents = new ArrayList<>();// will to be handled in the next timeStep
 
+	private final int numberOfThreads;
+	private final ExecutorService executorService;
+
 	@Inject
-	public DynActivityEngine(EventsManager eventsManager) {
+	public DynActivityEngine(EventsManager eventsManager, @Named(NUMBER_OF_THREADS) int numberOfThreads) {
 		this.activityEngine = new ActivityEngine(eventsManager);
+		this.numberOfThreads = numberOfThreads;
+		executorService = numberOfThreads > 1 ? Executors.newFixedThreadPool(numberOfThreads) : null;
 	}
 
 	// See handleActivity for the reason for this.
@@ -63,13 +82,21 @@ public class DynActivityEngine implements MobsimEngine, ActivityHandler {
 		dynAgents.addAll(newDynAgents);
 		newDynAgents.clear();
 
+		// end times of the concurrently simulated activities (NaN if simulated sequentially)
+		double[] concurrentEndTimes = executorService == null ? null : doConcurrentSimSteps(time);
+
 		Iterator<DynAgent> dynAgentIter = dynAgents.iterator();
-		while (dynAgentIter.hasNext()) {
+		for (int i = 0; dynAgentIter.hasNext(); i++) {
 			DynAgent agent = dynAgentIter.next();
 			if (agent.getState() == State.ACTIVITY) {
-				agent.doSimStep(time);
-				// ask agents about the current activity end time;
-				double currentEndTime = agent.getActivityEndTime();
+				double currentEndTime;
+				if (concurrentEndTimes != null && !Double.isNaN(concurrentEndTimes[i])) {
+					currentEndTime = concurrentEndTimes[i];
+				} else {
+					agent.doSimStep(time);
+					// ask agents about the current activity end time;
+					currentEndTime = agent.getActivityEndTime();
+				}
 
 				if (currentEndTime == Double.POSITIVE_INFINITY) { // agent says: stop simulating me
 					unregisterAgentAtActivityLocation(agent);
@@ -88,6 +115,31 @@ public class DynActivityEngine implements MobsimEngine, ActivityHandler {
 		activityEngine.doSimStep(time);
 	}
 
+	private double[] doConcurrentSimSteps(double time) {
+		DynAgent[] agents = dynAgents.toArray(new DynAgent[0]);
+		double[] endTimes = new double[agents.length];
+		int chunkSize = (agents.length + numberOfThreads - 1) / numberOfThreads;
+
+		List<Future<?>> futures = new ArrayList<>(numberOfThreads);
+		for (int start = 0; start < agents.length; start += chunkSize) {
+			int from = start;
+			int to = Math.min(start + chunkSize, agents.length);
+			futures.add(executorService.submit(() -> {
+				for (int i = from; i < to; i++) {
+					DynAgent agent = agents[i];
+					if (agent.getState() == State.ACTIVITY && agent.isSimStepConcurrent(time)) {
+						agent.doSimStep(time);
+						endTimes[i] = agent.getActivityEndTime();
+					} else {
+						endTimes[i] = Double.NaN;
+					}
+				}
+			}));
+		}
+		futures.forEach(Futures::getUnchecked);
+		return endTimes;
+	}
+
 	@Override
 	public boolean handleActivity(MobsimAgent agent) {
 		if (!(agent instanceof DynAgent)) {
@@ -124,6 +176,9 @@ public class DynActivityEngine implements MobsimEngine, ActivityHandler {
 	public void afterSim() {
 		activityEngine.afterSim();
 		dynAgents.clear();
+		if (executorService != null) {
+			executorService.shutdown();
+		}
 	}
 
 	@Override
@@ -4,11 +4,27 @@ import org.matsim.core.mobsim.qsim.AbstractQSimModule;
 import org.matsim.core.mobsim.qsim.ActivityEngineModule;
 import org.matsim.core.mobsim.qsim.components.QSimComponentsConfig;
 
+import com.google.inject.name.Names;
+
 public class DynActivityEngineModule extends AbstractQSimModule {
 	public final static String COMPONENT_NAME = "DynActivityEngine";
 
+	private final int numberOfThreads;
+
+	public DynActivityEngineModule() {
+		this(1);
+	}
+
+	/**
+	 * @param numberOfThreads number of threads for simulating DynActivities (see {@link DynActivityEngine})
+	 */
+	public DynActivityEngineModule(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	@Override
 	protected void configureQSim() {
+		bindConstant().annotatedWith(Names.named(DynActivityEngine.NUMBER_OF_THREADS)).to(numberOfThreads);
 		bind(DynActivityEngine.class).asEagerSingleton();
 		addNamedComponent(DynActivityEngine.class, COMPONENT_NAME);
 	}
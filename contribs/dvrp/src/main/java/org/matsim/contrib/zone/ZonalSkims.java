@@ -0,0 +1,142 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.zone;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.contrib.util.ExecutorServiceWithResource;
+import org.matsim.contrib.util.ExecutorServiceWithResource.RunnableWithResource;
+import org.matsim.core.router.FastMultiNodeDijkstraFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Zone-to-zone travel times and distances (skims) for each time bin. Each zone is represented by one link (e.g. the
+ * link nearest to the zone centroid). The skims for a time bin are calculated in parallel (one-to-many search from
+ * each zone) when the bin is requested for the first time, and then stored in float arrays (zone-by-zone matrices).
+ * <p>
+ * Travel times include the first and last links. Distances exclude the first link and include the last one (as in
+ * {@link org.matsim.contrib.dvrp.path.VrpPaths#calcDistance}). If a zone cannot be reached from another one, both
+ * the travel time and the distance are infinite.
+ */
+public class ZonalSkims {
+	private static final Logger log = Logger.getLogger(ZonalSkims.class);
+
+	private final Map<String, Integer> zoneIndices;
+	private final List<Link> zoneLinks;
+	private final TimeDiscretizer discretizer;
+	private final List<OneToManyPathSearch> searches;
+
+	// [timeIdx][fromZoneIdx * zoneCount + toZoneIdx], null if not calculated yet
+	private final float[][] travelTimes;
+	private final float[][] distances;
+
+	public ZonalSkims(Network network, TravelTime travelTime, TravelDisutility travelDisutility,
+			Map<String, Link> zoneLinks, TimeDiscretizer discretizer, int threads) {
+		this.zoneLinks = ImmutableList.copyOf(zoneLinks.values());
+		this.discretizer = discretizer;
+
+		ImmutableMap.Builder<String, Integer> zoneIndicesBuilder = ImmutableMap.builder();
+		int zoneIdx = 0;
+		for (String zone : zoneLinks.keySet()) {
+			zoneIndicesBuilder.put(zone, zoneIdx++);
+		}
+		zoneIndices = zoneIndicesBuilder.build();
+
+		// one factory, so that all searches share the same routing network
+		FastMultiNodeDijkstraFactory factory = new FastMultiNodeDijkstraFactory(true);
+		searches = IntStream.range(0, threads)
+				.mapToObj(i -> OneToManyPathSearch.createForwardSearch(factory, network, travelTime, travelDisutility))
+				.collect(Collectors.toList());
+
+		travelTimes = new float[discretizer.getIntervalCount()][];
+		distances = new float[discretizer.getIntervalCount()][];
+	}
+
+	public double getTravelTime(String fromZone, String toZone, double departureTime) {
+		int timeIdx = discretizer.getIdx(departureTime);
+		calcSkimsIfMissing(timeIdx);
+		return travelTimes[timeIdx][getIdx(fromZone, toZone)];
+	}
+
+	public double getDistance(String fromZone, String toZone, double departureTime) {
+		int timeIdx = discretizer.getIdx(departureTime);
+		calcSkimsIfMissing(timeIdx);
+		return distances[timeIdx][getIdx(fromZone, toZone)];
+	}
+
+	private int getIdx(String fromZone, String toZone) {
+		return zoneIndices.get(fromZone) * zoneLinks.size() + zoneIndices.get(toZone);
+	}
+
+	private synchronized void calcSkimsIfMissing(int timeIdx) {
+		if (travelTimes[timeIdx] != null) {
+			return;
+		}
+
+		log.info("Skims calculation started for time bin " + timeIdx);
+		int zoneCount = zoneLinks.size();
+		float[] binTravelTimes = new float[zoneCount * zoneCount];
+		float[] binDistances = new float[zoneCount * zoneCount];
+
+		ExecutorServiceWithResource<OneToManyPathSearch> executorService = new ExecutorServiceWithResource<>(
+				searches);
+		executorService.submitRunnablesAndWait(IntStream.range(0, zoneCount) // from each zone
+				.mapToObj(fromIdx -> (RunnableWithResource<OneToManyPathSearch>)(//
+						search -> calcRow(search, fromIdx, timeIdx, binTravelTimes, binDistances))));
+		executorService.shutdown();
+
+		travelTimes[timeIdx] = binTravelTimes;
+		distances[timeIdx] = binDistances;
+		log.info("Skims calculation finished for time bin " + timeIdx);
+	}
+
+	private void calcRow(OneToManyPathSearch search, int fromIdx, int timeIdx, float[] binTravelTimes,
+			float[] binDistances) {
+		Link fromLink = zoneLinks.get(fromIdx);
+		PathData[] pathData = search.calcPathDataArray(fromLink, zoneLinks, timeIdx * discretizer.getTimeInterval());
+
+		int offset = fromIdx * zoneLinks.size();
+		for (int toIdx = 0; toIdx < zoneLinks.size(); toIdx++) {
+			Link toLink = zoneLinks.get(toIdx);
+			if (pathData[toIdx] == null) {
+				binTravelTimes[offset + toIdx] = Float.POSITIVE_INFINITY;
+				binDistances[offset + toIdx] = Float.POSITIVE_INFINITY;
+				continue;
+			}
+			binTravelTimes[offset + toIdx] = (float)pathData[toIdx].getTravelTime();
+			binDistances[offset + toIdx] = toLink == fromLink ?
+					0 :
+					(float)(pathData[toIdx].getPathLength() + toLink.getLength());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+import com.google.common.collect.Lists;
+
+public class DivertedVrpPathTest {
+	private final Network network = NetworkUtils.createNetwork();
+	private final Link[] links = new Link[20];
+
+	public DivertedVrpPathTest() {
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0, 0));
+		for (int i = 0; i < links.length; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + 1), new Coord(i + 1, 0));
+			links[i] = NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 1, 1, 1, 1);
+			previous = node;
+		}
+	}
+
+	// links: [first, first + count); link TTs: ttBase + idx
+	private VrpPathWithTravelData createPath(int first, int count, double ttBase) {
+		Link[] pathLinks = new Link[count];
+		double[] linkTTs = new double[count];
+		for (int i = 0; i < count; i++) {
+			pathLinks[i] = links[first + i];
+			linkTTs[i] = ttBase + i;
+		}
+		return new VrpPathWithTravelDataImpl(0, 0, pathLinks, linkTTs);
+	}
+
+	@Test
+	public void testRepeatedDiversions() {
+		VrpPath path0 = createPath(0, 10, 100);
+		VrpPath sub1 = createPath(3, 8, 200);
+		VrpPath sub2 = createPath(6, 6, 300);
+		VrpPath sub3 = createPath(4, 3, 400);// diverts again before the previous diversion point
+
+		DivertedVrpPath path1 = new DivertedVrpPath(path0, sub1, 3);
+		DivertedVrpPath path2 = new DivertedVrpPath(path1, sub2, 6);
+		DivertedVrpPath path3 = new DivertedVrpPath(path2, sub3, 4);
+
+		// path1: path0[0..3] + sub1[1..7]
+		assertPath(path1, new VrpPath[] { path0, sub1 }, new int[] { 0, 3 });
+		// path2: path0[0..3] + sub1[1..3] + sub2[1..5]
+		assertPath(path2, new VrpPath[] { path0, sub1, sub2 }, new int[] { 0, 3, 6 });
+		// path3: path0[0..3] + sub1[1] + sub3[1..2]
+		assertPath(path3, new VrpPath[] { path0, sub1, sub3 }, new int[] { 0, 3, 4 });
+
+		assertSame(path2, path3.getOriginalPath());
+		assertEquals(links[4], path3.getLink(4));
+		assertEquals(201, path3.getLinkTravelTime(4), 0);// diversion link TT comes from the original path
+		assertEquals(401, path3.getLinkTravelTime(5), 0);
+
+		path3.setLinkTravelTime(2, 1000);
+		assertEquals(1000, path0.getLinkTravelTime(2), 0);
+	}
+
+	// the expected (nested) semantics: index idx in (starts[k], starts[k + 1]] comes from paths[k]
+	private void assertPath(VrpPath path, VrpPath[] paths, int[] starts) {
+		int last = paths.length - 1;
+		int linkCount = starts[last] + paths[last].getLinkCount();
+		assertEquals(linkCount, path.getLinkCount());
+
+		List<Link> expectedLinks = new ArrayList<>();
+		for (int idx = 0; idx < linkCount; idx++) {
+			int k = last;
+			while (k > 0 && idx <= starts[k]) {
+				k--;
+			}
+			Link expectedLink = paths[k].getLink(idx - starts[k]);
+			assertEquals(expectedLink, path.getLink(idx));
+			assertEquals(paths[k].getLinkTravelTime(idx - starts[k]), path.getLinkTravelTime(idx), 0);
+			expectedLinks.add(expectedLink);
+		}
+
+		assertEquals(expectedLinks, Lists.newArrayList(path));
+		assertEquals(links[0], path.getFromLink());
+		assertEquals(expectedLinks.get(linkCount - 1), path.getToLink());
+	}
+}
@@ -0,0 +1,104 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.router.LeastCostPathCalculatorWithCache.CacheStats;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+
+public class DijkstraWithDijkstraTreeCacheTest {
+	private static final int SIZE = 5;
+
+	private final Network network = NetworkUtils.createNetwork();
+	private final Node[][] nodes = new Node[SIZE][SIZE];
+
+	// grid with two-way links of different lengths
+	public DijkstraWithDijkstraTreeCacheTest() {
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x, y));
+			}
+		}
+		int id = 0;
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				if (x + 1 < SIZE) {
+					addLinks(nodes[x][y], nodes[x + 1][y], 100 + 7 * ((x + 3 * y) % 5), id++);
+				}
+				if (y + 1 < SIZE) {
+					addLinks(nodes[x][y], nodes[x][y + 1], 100 + 11 * ((2 * x + y) % 3), id++);
+				}
+			}
+		}
+	}
+
+	private void addLinks(Node a, Node b, double length, int id) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(id + "_ab"), a, b, length, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(id + "_ba"), b, a, length, 10, 1000, 1);
+	}
+
+	@Test
+	public void testCompactTreeEqualsDijkstraTree() {
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		TimeAsTravelDisutility travelDisutility = new TimeAsTravelDisutility(travelTime);
+		DijkstraWithDijkstraTreeCache calculator = new DijkstraWithDijkstraTreeCache(network, travelDisutility,
+				travelTime, TimeDiscretizer.CYCLIC_24_HOURS);
+
+		for (Node fromNode : network.getNodes().values()) {
+			DijkstraTree tree = new DijkstraTree(network, travelDisutility, travelTime);
+			tree.calcLeastCostPathTree(fromNode, 0);
+
+			for (Node toNode : network.getNodes().values()) {
+				Path expected = tree.getLeastCostPath(toNode);
+				Path actual = calculator.calcLeastCostPath(fromNode, toNode, 0, null, null);
+				assertEquals(expected.links, actual.links);
+				assertEquals(expected.travelTime, actual.travelTime, 0);
+				assertEquals(expected.travelCost, actual.travelCost, 0);
+			}
+		}
+	}
+
+	@Test
+	public void testBoundedCacheStats() {
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		DijkstraWithDijkstraTreeCache calculator = new DijkstraWithDijkstraTreeCache(network,
+				new DistanceAsTravelDisutility(), travelTime, TimeDiscretizer.CYCLIC_1_HOUR, 2);
+
+		calculator.getTree(nodes[0][0], 0);// miss
+		calculator.getTree(nodes[0][0], 10);// hit (same time bin)
+		calculator.getTree(nodes[0][0], 3600);// miss
+		calculator.getTree(nodes[1][1], 0);// miss, evicts the least recently used tree: (0_0, 0)
+		calculator.getTree(nodes[0][0], 0);// miss, evicts (0_0, 3600)
+
+		CacheStats stats = calculator.getCacheStats();
+		assertEquals(1, stats.getHits());
+		assertEquals(4, stats.getMisses());
+		assertEquals(2, stats.getEvictions());
+	}
+}
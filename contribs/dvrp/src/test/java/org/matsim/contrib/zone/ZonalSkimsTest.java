@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.zone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.path.VrpPathWithTravelData;
+import org.matsim.contrib.dvrp.path.VrpPaths;
+import org.matsim.contrib.dvrp.router.DijkstraWithThinPath;
+import org.matsim.contrib.dvrp.router.TimeAsTravelDisutility;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+
+public class ZonalSkimsTest {
+	private static final int SIZE = 4;
+
+	private final Network network = NetworkUtils.createNetwork();
+	private final Node[][] nodes = new Node[SIZE][SIZE];
+
+	// grid with two-way links of different lengths and speeds
+	public ZonalSkimsTest() {
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x, y));
+			}
+		}
+		int id = 0;
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = 0; y < SIZE; y++) {
+				if (x + 1 < SIZE) {
+					addLinks(nodes[x][y], nodes[x + 1][y], 100 + 7 * ((x + 3 * y) % 5), 10 + y, id++);
+				}
+				if (y + 1 < SIZE) {
+					addLinks(nodes[x][y], nodes[x][y + 1], 100 + 11 * ((2 * x + y) % 3), 10 + x, id++);
+				}
+			}
+		}
+	}
+
+	private void addLinks(Node a, Node b, double length, double freespeed, int id) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(id + "_ab"), a, b, length, freespeed, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(id + "_ba"), b, a, length, freespeed, 1000, 1);
+	}
+
+	@Test
+	public void testSkimsEqualVrpPaths() {
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		TimeAsTravelDisutility travelDisutility = new TimeAsTravelDisutility(travelTime);
+
+		Map<String, Link> zoneLinks = new LinkedHashMap<>();
+		int zone = 0;
+		for (Link link : network.getLinks().values()) {
+			if (zone++ % 3 == 0) {
+				zoneLinks.put("zone_" + zone, link);
+			}
+		}
+
+		ZonalSkims skims = new ZonalSkims(network, travelTime, travelDisutility, zoneLinks,
+				TimeDiscretizer.CYCLIC_24_HOURS, 2);
+
+		DijkstraWithThinPath router = new DijkstraWithThinPath(network, travelDisutility, travelTime);
+		for (Map.Entry<String, Link> from : zoneLinks.entrySet()) {
+			for (Map.Entry<String, Link> to : zoneLinks.entrySet()) {
+				VrpPathWithTravelData path = VrpPaths.calcAndCreatePath(from.getValue(), to.getValue(), 0, router,
+						travelTime);
+				assertEquals(path.getTravelTime(), skims.getTravelTime(from.getKey(), to.getKey(), 0), 1e-3);
+				assertEquals(VrpPaths.calcDistance(path), skims.getDistance(from.getKey(), to.getKey(), 0), 1e-3);
+			}
+		}
+	}
+
+	@Test
+	public void testDisconnectedZone() {
+		// an island that is not connected to the grid
+		Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("island_a"), new Coord(10, 10));
+		Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("island_b"), new Coord(11, 10));
+		addLinks(a, b, 100, 10, -1);
+
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		Map<String, Link> zoneLinks = new LinkedHashMap<>();
+		zoneLinks.put("grid_1", network.getLinks().get(Id.createLinkId("0_ab")));
+		zoneLinks.put("grid_2", network.getLinks().get(Id.createLinkId("5_ba")));
+		zoneLinks.put("island", network.getLinks().get(Id.createLinkId("-1_ab")));
+
+		ZonalSkims skims = new ZonalSkims(network, travelTime, new TimeAsTravelDisutility(travelTime), zoneLinks,
+				TimeDiscretizer.CYCLIC_24_HOURS, 1);
+
+		assertTrue(Double.isFinite(skims.getTravelTime("grid_1", "grid_2", 0)));
+		assertTrue(Double.isFinite(skims.getDistance("grid_1", "grid_2", 0)));
+		assertEquals(0, skims.getTravelTime("island", "island", 0), 0);
+		assertEquals(Double.POSITIVE_INFINITY, skims.getTravelTime("grid_1", "island", 0), 0);
+		assertEquals(Double.POSITIVE_INFINITY, skims.getDistance("grid_1", "island", 0), 0);
+		assertEquals(Double.POSITIVE_INFINITY, skims.getTravelTime("island", "grid_2", 0), 0);
+		assertEquals(Double.POSITIVE_INFINITY, skims.getDistance("island", "grid_2", 0), 0);
+	}
+}
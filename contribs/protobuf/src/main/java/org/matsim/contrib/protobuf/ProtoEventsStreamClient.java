@@ -0,0 +1,58 @@
+package org.matsim.contrib.protobuf;
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+import org.matsim.contrib.protobuf.events.ProtobufEvents;
+import org.matsim.core.api.experimental.events.EventsManager;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Connects to a {@link ProtoEventsStreamer} of a running simulation and passes the received events on to an
+ * {@link EventsManager}, like {@link ProtoEventsParser} does for events files.
+ */
+public class ProtoEventsStreamClient {
+
+	private final EventsManager em;
+
+	public ProtoEventsStreamClient(EventsManager em) {
+		this.em = em;
+	}
+
+	/**
+	 * Receives events from the streamer listening on the given port of the local machine until the stream ends,
+	 * i.e. until the streamer is closed.
+	 */
+	public void receive(int port) {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024)) {
+			ProtobufEvents.Event pe;
+			while ((pe = ProtobufEvents.Event.parseDelimitedFrom(in)) != null) {
+				this.em.processEvent(ProtoEvent2Event.getEvent(pe));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
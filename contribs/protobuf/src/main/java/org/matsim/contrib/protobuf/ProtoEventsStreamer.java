@@ -0,0 +1,259 @@
+package org.matsim.contrib.protobuf;
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.contrib.protobuf.events.ProtobufEvents;
+import org.matsim.core.events.handler.BasicEventHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the events of a running simulation to one consumer on the same machine, e.g. an analysis running in a
+ * separate JVM (see {@link ProtoEventsStreamClient}).
+ *
+ * <p>The streamer listens on a port of the loopback interface. The events are converted on the calling thread and put
+ * into a bounded queue; a separate thread waits for the consumer to connect and writes the events in batches as
+ * length-delimited protobuf messages, the same format as written by {@link ProtoEventsWriter}. If the consumer is
+ * slower than the simulation, the queue fills up and, depending on the {@link Backpressure} mode, the simulation
+ * either waits for the consumer or events are dropped (and counted).</p>
+ *
+ * <p>{@link #close()} must be called after the last event, it sends the remaining events and ends the stream. It
+ * waits at most the close timeout for the consumer, so a missing or stalled consumer cannot block the shutdown. The
+ * {@link ProtoEventsStreamingModule} creates the streamer from the {@link ProtoEventsStreamingConfigGroup} and
+ * closes it on shutdown.</p>
+ */
+public class ProtoEventsStreamer implements BasicEventHandler, Closeable {
+
+	private static final Logger log = Logger.getLogger(ProtoEventsStreamer.class);
+
+	public enum Backpressure {
+		/** the simulation waits until there is space in the queue */
+		BLOCK,
+		/** events which do not fit into the queue are dropped */
+		DROP
+	}
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+	public static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 60 * 1000;
+	private static final int MAX_BATCH_SIZE = 1024;
+	/** marks the end of the stream in the queue; compared by identity, never written */
+	private static final ProtobufEvents.Event END_OF_STREAM = ProtobufEvents.Event.newBuilder().buildPartial();
+
+	private final ServerSocket serverSocket;
+	private final BlockingQueue<ProtobufEvents.Event> queue;
+	private final Backpressure backpressure;
+	private final long closeTimeoutMillis;
+	private final Thread writerThread;
+	private final AtomicLong droppedEvents = new AtomicLong(0);
+	private long droppedEventsBeforeIteration = 0;
+	private volatile Socket socket = null;
+	private volatile IOException writeException = null;
+	private volatile boolean abandoned = false;
+	private boolean closed = false;
+
+	/**
+	 * @param port the port to listen on, or 0 to use any free port (see {@link #getPort()})
+	 */
+	public ProtoEventsStreamer(int port) throws IOException {
+		this(port, DEFAULT_QUEUE_CAPACITY, Backpressure.BLOCK);
+	}
+
+	/**
+	 * @param port the port to listen on, or 0 to use any free port (see {@link #getPort()})
+	 * @param queueCapacity the number of events which may wait for the consumer
+	 * @param backpressure what to do if the queue is full
+	 */
+	public ProtoEventsStreamer(int port, int queueCapacity, Backpressure backpressure) throws IOException {
+		this(port, queueCapacity, backpressure, DEFAULT_CLOSE_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * @param port the port to listen on, or 0 to use any free port (see {@link #getPort()})
+	 * @param queueCapacity the number of events which may wait for the consumer
+	 * @param backpressure what to do if the queue is full
+	 * @param closeTimeoutMillis how long {@link #close()} waits for the consumer to connect and read the remaining
+	 * events
+	 */
+	public ProtoEventsStreamer(int port, int queueCapacity, Backpressure backpressure, long closeTimeoutMillis)
+			throws IOException {
+		this.closeTimeoutMillis = closeTimeoutMillis;
+		this.serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.backpressure = backpressure;
+		this.writerThread = new Thread(new Writer(), "ProtoEventsStreamer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+		log.info("waiting for an events consumer on port " + getPort());
+	}
+
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	public long getNumberOfDroppedEvents() {
+		return this.droppedEvents.get();
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		if (this.writeException != null) {
+			throw new RuntimeException(this.writeException);
+		}
+		ProtobufEvents.Event pe = Event2ProtoEvent.getProtoEvent(event);
+		if (this.backpressure == Backpressure.BLOCK) {
+			put(pe);
+		} else if (!this.queue.offer(pe)) {
+			long dropped = this.droppedEvents.incrementAndGet();
+			if ((dropped & (dropped - 1)) == 0) { // log at powers of two
+				log.warn(dropped + " events dropped because the consumer is too slow.");
+			}
+		}
+	}
+
+	/**
+	 * The stream spans all iterations; only the statistics of dropped events are kept per iteration.
+	 */
+	@Override
+	public void reset(int iteration) {
+		long dropped = this.droppedEvents.get();
+		if (dropped > this.droppedEventsBeforeIteration) {
+			log.warn((dropped - this.droppedEventsBeforeIteration) + " events were dropped before iteration "
+					+ iteration + ".");
+		}
+		this.droppedEventsBeforeIteration = dropped;
+	}
+
+	/**
+	 * Sends the remaining events, ends the stream and waits until everything is written. If no consumer
+	 * has connected yet, this waits for one, but not longer than the close timeout. After the timeout, the remaining
+	 * events are discarded.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		long deadline = System.currentTimeMillis() + this.closeTimeoutMillis;
+		try {
+			if (this.writeException == null && offerUntil(END_OF_STREAM, deadline)) {
+				this.writerThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+			}
+			if (this.writerThread.isAlive()) {
+				log.warn("the events consumer did not read the stream within " + this.closeTimeoutMillis
+						+ " ms; discarding the remaining " + this.queue.size() + " events.");
+				this.abandoned = true;
+				this.writerThread.interrupt();
+				Socket socket = this.socket;
+				if (socket != null) {
+					socket.close(); // unblocks a write to a stalled consumer
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			this.serverSocket.close(); // unblocks accept() if no consumer has connected
+		}
+		if (this.droppedEvents.get() > 0) {
+			log.warn(this.droppedEvents.get() + " events were dropped in total.");
+		}
+		if (this.writeException != null) {
+			throw this.writeException;
+		}
+	}
+
+	private boolean offerUntil(ProtobufEvents.Event pe, long deadline) throws InterruptedException {
+		long remaining;
+		while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+			if (this.queue.offer(pe, Math.min(remaining, 1000), TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+			if (this.writeException != null) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private void put(ProtobufEvents.Event pe) {
+		try {
+			// don't wait forever if the writer died, e.g. because the consumer disconnected
+			while (!this.queue.offer(pe, 1, TimeUnit.SECONDS)) {
+				if (this.writeException != null) {
+					throw new RuntimeException(this.writeException);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private class Writer implements Runnable {
+		@Override
+		public void run() {
+			List<ProtobufEvents.Event> batch = new ArrayList<>(MAX_BATCH_SIZE);
+			try (Socket socket = serverSocket.accept();
+					OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024)) {
+				ProtoEventsStreamer.this.socket = socket;
+				log.info("events consumer connected from " + socket.getRemoteSocketAddress());
+				socket.setTcpNoDelay(true);
+				while (true) {
+					batch.add(queue.take());
+					queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+					for (ProtobufEvents.Event pe : batch) {
+						if (pe == END_OF_STREAM) {
+							out.flush();
+							return;
+						}
+						pe.writeDelimitedTo(out);
+					}
+					batch.clear();
+					if (queue.isEmpty()) {
+						out.flush();
+					}
+				}
+			} catch (IOException e) {
+				if (!abandoned) { // otherwise caused by close() after the timeout
+					writeException = e;
+					log.error("streaming events failed", e);
+				}
+				queue.clear();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
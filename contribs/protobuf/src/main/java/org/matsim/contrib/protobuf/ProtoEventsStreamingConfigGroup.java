@@ -0,0 +1,126 @@
+package org.matsim.contrib.protobuf;
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigGroup;
+import org.matsim.core.config.ReflectiveConfigGroup;
+
+import java.util.Map;
+
+/**
+ * Configures the live event streaming of {@link ProtoEventsStreamingModule}.
+ */
+public class ProtoEventsStreamingConfigGroup extends ReflectiveConfigGroup {
+	public static final String GROUP_NAME = "protobufEventsStreaming";
+
+	public static ProtoEventsStreamingConfigGroup get(Config config) {
+		return (ProtoEventsStreamingConfigGroup)config.getModule(GROUP_NAME);
+	}
+
+	public static final String PORT = "port";
+	static final String PORT_EXP = "Port on the loopback interface on which the events consumer connects."
+			+ " 0 means any free port (logged at startup). Default is 0.";
+
+	public static final String QUEUE_CAPACITY = "queueCapacity";
+	static final String QUEUE_CAPACITY_EXP = "Number of events which may wait for the consumer. Default is "
+			+ ProtoEventsStreamer.DEFAULT_QUEUE_CAPACITY + ".";
+
+	public static final String BACKPRESSURE = "backpressure";
+	static final String BACKPRESSURE_EXP = "What to do if the consumer is slower than the simulation and the queue is"
+			+ " full: BLOCK (the simulation waits) or DROP (events are dropped and counted). Default is BLOCK.";
+
+	public static final String CLOSE_TIMEOUT = "closeTimeout";
+	static final String CLOSE_TIMEOUT_EXP = "Maximum time [s] to wait at shutdown for the consumer to connect and read"
+			+ " the remaining events. Default is " + ProtoEventsStreamer.DEFAULT_CLOSE_TIMEOUT_MILLIS / 1000 + " s.";
+
+	private int port = 0;
+	private int queueCapacity = ProtoEventsStreamer.DEFAULT_QUEUE_CAPACITY;
+	private ProtoEventsStreamer.Backpressure backpressure = ProtoEventsStreamer.Backpressure.BLOCK;
+	private double closeTimeout = ProtoEventsStreamer.DEFAULT_CLOSE_TIMEOUT_MILLIS / 1000.;// [s]
+
+	public ProtoEventsStreamingConfigGroup() {
+		super(GROUP_NAME);
+	}
+
+	@Override
+	public Map<String, String> getComments() {
+		Map<String, String> map = super.getComments();
+		map.put(PORT, PORT_EXP);
+		map.put(QUEUE_CAPACITY, QUEUE_CAPACITY_EXP);
+		map.put(BACKPRESSURE, BACKPRESSURE_EXP);
+		map.put(CLOSE_TIMEOUT, CLOSE_TIMEOUT_EXP);
+		return map;
+	}
+
+	@Override
+	protected void checkConsistency(Config config) {
+		super.checkConsistency(config);
+		if (port < 0 || port > 65535) {
+			throw new RuntimeException(PORT + " must be in [0, 65535]");
+		}
+		if (queueCapacity <= 0) {
+			throw new RuntimeException(QUEUE_CAPACITY + " must be positive");
+		}
+		if (closeTimeout < 0) {
+			throw new RuntimeException(CLOSE_TIMEOUT + " must not be negative");
+		}
+	}
+
+	@StringGetter(PORT)
+	public int getPort() {
+		return port;
+	}
+
+	@StringSetter(PORT)
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	@StringGetter(QUEUE_CAPACITY)
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	@StringSetter(QUEUE_CAPACITY)
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	@StringGetter(BACKPRESSURE)
+	public ProtoEventsStreamer.Backpressure getBackpressure() {
+		return backpressure;
+	}
+
+	@StringSetter(BACKPRESSURE)
+	public void setBackpressure(ProtoEventsStreamer.Backpressure backpressure) {
+		this.backpressure = backpressure;
+	}
+
+	@StringGetter(CLOSE_TIMEOUT)
+	public double getCloseTimeout() {
+		return closeTimeout;
+	}
+
+	@StringSetter(CLOSE_TIMEOUT)
+	public void setCloseTimeout(double closeTimeout) {
+		this.closeTimeout = closeTimeout;
+	}
+}
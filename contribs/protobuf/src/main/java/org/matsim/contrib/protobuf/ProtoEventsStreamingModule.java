@@ -0,0 +1,69 @@
+package org.matsim.contrib.protobuf;
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams the events of all iterations to a consumer connected with {@link ProtoEventsStreamClient}, as configured
+ * in {@link ProtoEventsStreamingConfigGroup}. The stream ends when the controler shuts down.
+ */
+public class ProtoEventsStreamingModule extends AbstractModule {
+	@Override
+	public void install() {
+		ProtoEventsStreamingConfigGroup streamingCfg = ConfigUtils.addOrGetModule(getConfig(),
+				ProtoEventsStreamingConfigGroup.class);
+		bind(ProtoEventsStreamer.class).toProvider(new Provider<ProtoEventsStreamer>() {
+			@Override
+			public ProtoEventsStreamer get() {
+				try {
+					return new ProtoEventsStreamer(streamingCfg.getPort(), streamingCfg.getQueueCapacity(),
+							streamingCfg.getBackpressure(), (long)(streamingCfg.getCloseTimeout() * 1000));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}).in(Singleton.class);
+		addEventHandlerBinding().to(ProtoEventsStreamer.class);
+
+		addControlerListenerBinding().toInstance(new ShutdownListener() {
+			@Inject
+			private ProtoEventsStreamer streamer;
+
+			@Override
+			public void notifyShutdown(ShutdownEvent event) {
+				try {
+					streamer.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+}
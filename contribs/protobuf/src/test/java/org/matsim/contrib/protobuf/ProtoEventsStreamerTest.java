@@ -0,0 +1,109 @@
+package org.matsim.contrib.protobuf;
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProtoEventsStreamerTest {
+
+	@Test
+	public final void testStreamEvents() throws Exception {
+		final ProtoEventsStreamer streamer = new ProtoEventsStreamer(0, 16, ProtoEventsStreamer.Backpressure.BLOCK);
+
+		final List<Event> received = new ArrayList<>();
+		EventsManager em = EventsUtils.createEventsManager();
+		em.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				received.add(event);
+			}
+
+			@Override
+			public void reset(int iteration) {
+			}
+		});
+		final ProtoEventsStreamClient client = new ProtoEventsStreamClient(em);
+		Thread clientThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				client.receive(streamer.getPort());
+			}
+		});
+		clientThread.start();
+
+		// more events than fit into the queue, so the simulation has to wait for the client
+		List<Event> sent = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Id<Link> linkId = Id.createLinkId("link" + (i % 7));
+			Id<Vehicle> vehId = Id.createVehicleId("veh" + (i % 3));
+			sent.add(new LinkEnterEvent(i, vehId, linkId));
+			sent.add(new LinkLeaveEvent(i + 0.5, vehId, linkId));
+		}
+		for (Event event : sent) {
+			streamer.handleEvent(event);
+		}
+		streamer.close();
+		clientThread.join(10000);
+
+		Assert.assertFalse(clientThread.isAlive());
+		Assert.assertEquals(0, streamer.getNumberOfDroppedEvents());
+		Assert.assertEquals(sent.size(), received.size());
+		for (int i = 0; i < sent.size(); i++) {
+			Assert.assertEquals(sent.get(i).toString(), received.get(i).toString());
+		}
+	}
+
+	@Test
+	public final void testCloseWithoutConsumer_block() throws Exception {
+		ProtoEventsStreamer streamer = new ProtoEventsStreamer(0, 4, ProtoEventsStreamer.Backpressure.BLOCK, 500);
+		for (int i = 0; i < 4; i++) { // fills the queue
+			streamer.handleEvent(new LinkEnterEvent(i, Id.createVehicleId("veh"), Id.createLinkId("link")));
+		}
+		long start = System.currentTimeMillis();
+		streamer.close();
+		Assert.assertTrue("close() must not wait for a consumer forever", System.currentTimeMillis() - start < 5000);
+	}
+
+	@Test
+	public final void testCloseWithoutConsumer_drop() throws Exception {
+		ProtoEventsStreamer streamer = new ProtoEventsStreamer(0, 4, ProtoEventsStreamer.Backpressure.DROP, 500);
+		for (int i = 0; i < 10; i++) {
+			streamer.handleEvent(new LinkEnterEvent(i, Id.createVehicleId("veh"), Id.createLinkId("link")));
+		}
+		Assert.assertEquals(6, streamer.getNumberOfDroppedEvents());
+		long start = System.currentTimeMillis();
+		streamer.close();
+		Assert.assertTrue("close() must not wait for a consumer forever", System.currentTimeMillis() - start < 5000);
+	}
+
+}
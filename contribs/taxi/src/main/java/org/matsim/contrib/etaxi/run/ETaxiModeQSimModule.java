@@ -69,7 +69,8 @@ public class ETaxiModeQSimModule extends AbstractDvrpModeQSimModule {
 		install(new VrpAgentSourceQSimModule(getMode()));
 		install(new PassengerEngineQSimModule(getMode()));
 
-		addModalComponent(TaxiOptimizer.class, new ModalProviders.AbstractProvider<TaxiOptimizer>(taxiCfg.getMode()) {
+		// not stepped concurrently: charger assignment mutates the (non-modal) ChargingInfrastructure
+		addModalOptimizerComponent(TaxiOptimizer.class, new ModalProviders.AbstractProvider<TaxiOptimizer>(taxiCfg.getMode()) {
 			@Inject
 			@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING)
 			private Network network;
@@ -96,7 +97,7 @@ public class ETaxiModeQSimModule extends AbstractDvrpModeQSimModule {
 				return new ETaxiOptimizerProvider(taxiCfg, fleet, network, timer, travelTime, travelDisutility,
 						eTaxiScheduler, chargingInfrastructure).get();
 			}
-		});
+		}, false);
 
 		bindModal(ETaxiScheduler.class).toProvider(
 				new ModalProviders.AbstractProvider<ETaxiScheduler>(taxiCfg.getMode()) {
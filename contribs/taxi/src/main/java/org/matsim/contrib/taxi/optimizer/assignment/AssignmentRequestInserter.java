@@ -70,7 +70,7 @@ public class AssignmentRequestInserter implements UnplannedRequestInserter {
 		this.params = params;
 
 		assignmentProblem = new VehicleAssignmentProblem<>(travelTime, multiNodeRouter, backwardMultiNodeRouter, router,
-				params.nearestRequestsLimit, params.nearestVehiclesLimit);
+				params.nearestRequestsLimit, params.nearestVehiclesLimit, params.assignmentSolver, params.nullPathCost);
 
 		assignmentCostProvider = new TaxiToRequestAssignmentCostProvider(params);
 	}
@@ -22,6 +22,7 @@ package org.matsim.contrib.taxi.optimizer.assignment;
 import org.apache.commons.configuration.Configuration;
 import org.matsim.contrib.taxi.optimizer.DefaultTaxiOptimizerParams;
 import org.matsim.contrib.taxi.optimizer.assignment.TaxiToRequestAssignmentCostProvider.Mode;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem.Solver;
 
 public class AssignmentTaxiOptimizerParams extends DefaultTaxiOptimizerParams {
 	public static final String MODE = "mode";
@@ -34,6 +35,9 @@ public class AssignmentTaxiOptimizerParams extends DefaultTaxiOptimizerParams {
 	public static final String NEAREST_REQUESTS_LIMIT = "nearestRequestsLimit";
 	public static final String NEAREST_VEHICLES_LIMIT = "nearestVehiclesLimit";
 
+	// HUNGARIAN (default) or SUCCESSIVE_SHORTEST_PATH (sparse, limited to the nearest requests/vehicles)
+	public static final String ASSIGNMENT_SOLVER = "assignmentSolver";
+
 	public final Mode mode;
 	public final double nullPathCost;
 
@@ -43,6 +47,8 @@ public class AssignmentTaxiOptimizerParams extends DefaultTaxiOptimizerParams {
 	public final int nearestRequestsLimit;
 	public final int nearestVehiclesLimit;
 
+	public final Solver assignmentSolver;
+
 	public AssignmentTaxiOptimizerParams(Configuration optimizerConfig) {
 		super(optimizerConfig, true, true);
 
@@ -57,5 +63,7 @@ public class AssignmentTaxiOptimizerParams extends DefaultTaxiOptimizerParams {
 
 		nearestRequestsLimit = optimizerConfig.getInt(NEAREST_REQUESTS_LIMIT);
 		nearestVehiclesLimit = optimizerConfig.getInt(NEAREST_VEHICLES_LIMIT);
+
+		assignmentSolver = Solver.valueOf(optimizerConfig.getString(ASSIGNMENT_SOLVER, Solver.HUNGARIAN.name()));
 	}
 }
@@ -0,0 +1,230 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.optimizer.assignment;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Solves a sparse assignment problem, where each row can be assigned only to some columns (e.g. vehicles to the
+ * nearest requests), using successive shortest augmenting paths (Dijkstra with reduced costs) over the given arcs.
+ * <p>
+ * Each row has also a private dummy column, which means that the row stays unassigned (at the given cost). Therefore,
+ * each row is assigned in one augmentation, and the number of augmentations is equal to the number of rows, so rows
+ * should be the smaller side of the problem. The total cost is minimal.
+ * <p>
+ * The column potentials (prices) can be initialised with the ones from a previous solution of a similar problem, so
+ * that the searches stop early. All paths end in a common sink, and a free column is connected to the sink at the cost
+ * of its price excess over the lowest initial price. This keeps the solution optimal for any initial prices.
+ */
+public class SuccessiveShortestPathAlgorithm {
+	private final int rowCount;
+	private final int columnCount;// without dummy columns
+	private final int[][] rowColumns;
+	private final double[][] rowCosts;
+	private final double[] unassignedCosts;
+
+	private final double[] rowPotentials;
+	private final double[] columnPotentials;// including dummy columns (columnCount + row)
+	private final double sinkPotential;// not greater than the potentials of free columns
+	private final int[] columnToRow;
+	private final int[] rowToColumn;
+
+	// Dijkstra data (reused for all augmentations)
+	private final double[] distances;
+	private final int[] predecessorRows;
+	private final int[] visitedColumns;
+	private final boolean[] finalized;
+	private final int[] touchedColumns;
+
+	/**
+	 * @param columnCount     number of columns
+	 * @param rowColumns      columns that can be assigned to each row
+	 * @param rowCosts        costs of the assignments given in rowColumns
+	 * @param unassignedCosts costs of leaving each row unassigned
+	 * @param columnPrices    initial column potentials (e.g. from a previous solution), or null
+	 */
+	public SuccessiveShortestPathAlgorithm(int columnCount, int[][] rowColumns, double[][] rowCosts,
+			double[] unassignedCosts, double[] columnPrices) {
+		this.rowCount = rowColumns.length;
+		this.columnCount = columnCount;
+		this.rowColumns = rowColumns;
+		this.rowCosts = rowCosts;
+		this.unassignedCosts = unassignedCosts;
+
+		int allColumnCount = columnCount + rowCount;
+		rowPotentials = new double[rowCount];
+		columnPotentials = new double[allColumnCount];
+		if (columnPrices != null) {
+			System.arraycopy(columnPrices, 0, columnPotentials, 0, columnCount);
+			sinkPotential = Math.min(0, Arrays.stream(columnPrices).min().orElse(0));
+		} else {
+			sinkPotential = 0;
+		}
+		Arrays.fill(columnPotentials, columnCount, allColumnCount, sinkPotential);
+		columnToRow = new int[allColumnCount];
+		Arrays.fill(columnToRow, -1);
+		rowToColumn = new int[rowCount];
+		Arrays.fill(rowToColumn, -1);
+
+		distances = new double[allColumnCount];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		predecessorRows = new int[allColumnCount];
+		visitedColumns = new int[allColumnCount];
+		finalized = new boolean[allColumnCount];
+		touchedColumns = new int[allColumnCount];
+	}
+
+	/**
+	 * @return the column assigned to each row, -1 if the row is unassigned
+	 */
+	public int[] execute() {
+		for (int row = 0; row < rowCount; row++) {
+			augment(row);
+		}
+
+		int[] assignments = new int[rowCount];
+		for (int row = 0; row < rowCount; row++) {
+			int column = rowToColumn[row];
+			assignments[row] = column < columnCount ? column : -1;
+		}
+		return assignments;
+	}
+
+	/**
+	 * @return the column potentials of the solution, to be used as the initial prices for the next problem
+	 */
+	public double[] getColumnPrices() {
+		return Arrays.copyOf(columnPotentials, columnCount);
+	}
+
+	private double reducedCost(int row, double cost, int column) {
+		return cost - rowPotentials[row] - columnPotentials[column];
+	}
+
+	private void augment(int startRow) {
+		// make the cheapest arc of the start row tight
+		double minCost = unassignedCosts[startRow] - columnPotentials[columnCount + startRow];
+		int[] columns = rowColumns[startRow];
+		double[] costs = rowCosts[startRow];
+		for (int k = 0; k < columns.length; k++) {
+			minCost = Math.min(minCost, costs[k] - columnPotentials[columns[k]]);
+		}
+		rowPotentials[startRow] = minCost;
+
+		PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+		int touchedCount = 0;
+		int visitedCount = 0;
+
+		touchedCount = relaxRow(startRow, 0, queue, touchedCount);
+
+		// the sink is reached through the free column with the lowest distance plus price excess
+		int freeColumn = -1;
+		double delta = Double.POSITIVE_INFINITY;
+		while (!queue.isEmpty()) {
+			double[] head = queue.poll();
+			if (head[0] >= delta) {
+				break;// the sink is closer than any remaining column
+			}
+			int column = (int)head[1];
+			if (finalized[column] || head[0] > distances[column]) {
+				continue;// outdated queue entry
+			}
+			finalized[column] = true;
+			visitedColumns[visitedCount++] = column;
+
+			int row = columnToRow[column];
+			if (row == -1) {
+				double sinkDistance = distances[column] + columnPotentials[column] - sinkPotential;
+				if (sinkDistance < delta) {
+					freeColumn = column;
+					delta = sinkDistance;
+				}
+			} else {
+				touchedCount = relaxRow(row, distances[column], queue, touchedCount);
+			}
+		}
+
+		if (freeColumn == -1) {
+			// cannot happen: the private dummy column of the start row is free until the start row is assigned
+			throw new IllegalStateException("No augmenting path found for row " + startRow);
+		}
+
+		// update potentials, so that the reduced costs remain non-negative and the path becomes tight
+		// (the potentials of the visited free columns do not drop below the sink potential)
+		rowPotentials[startRow] += delta;
+		for (int i = 0; i < visitedCount; i++) {
+			int column = visitedColumns[i];
+			double shift = delta - distances[column];
+			columnPotentials[column] -= shift;
+			int row = columnToRow[column];
+			if (row != -1) {
+				rowPotentials[row] += shift;
+			}
+		}
+
+		// augment along the path
+		int column = freeColumn;
+		while (true) {
+			int row = predecessorRows[column];
+			int previousColumn = rowToColumn[row];
+			rowToColumn[row] = column;
+			columnToRow[column] = row;
+			if (row == startRow) {
+				break;
+			}
+			column = previousColumn;
+		}
+
+		// reset Dijkstra data
+		for (int i = 0; i < touchedCount; i++) {
+			int c = touchedColumns[i];
+			distances[c] = Double.POSITIVE_INFINITY;
+			finalized[c] = false;
+		}
+	}
+
+	private int relaxRow(int row, double rowDistance, PriorityQueue<double[]> queue, int touchedCount) {
+		int[] columns = rowColumns[row];
+		double[] costs = rowCosts[row];
+		for (int k = 0; k < columns.length; k++) {
+			touchedCount = relax(row, columns[k], rowDistance + reducedCost(row, costs[k], columns[k]), queue,
+					touchedCount);
+		}
+		int dummyColumn = columnCount + row;
+		return relax(row, dummyColumn, rowDistance + reducedCost(row, unassignedCosts[row], dummyColumn), queue,
+				touchedCount);
+	}
+
+	private int relax(int row, int column, double distance, PriorityQueue<double[]> queue, int touchedCount) {
+		if (finalized[column]) {
+			return touchedCount;
+		}
+		if (distances[column] == Double.POSITIVE_INFINITY) {
+			touchedColumns[touchedCount++] = column;
+		} else if (distance >= distances[column]) {
+			return touchedCount;
+		}
+		distances[column] = distance;
+		predecessorRows[column] = row;
+		queue.add(new double[] { distance, column });
+		return touchedCount;
+	}
+}
@@ -21,7 +21,9 @@ package org.matsim.contrib.taxi.optimizer.assignment;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
@@ -47,6 +49,11 @@ public class VehicleAssignmentProblem<D> {
 		double calc(VehicleData.Entry departure, DestEntry<D> dest, PathData pathData);
 	}
 
+	public enum Solver {
+		HUNGARIAN, // dense cost matrix, O(n^3)
+		SUCCESSIVE_SHORTEST_PATH;// only kNN pairs, warm-started with prices from the previous assignment
+	}
+
 	private final TravelTime travelTime;
 	private final LeastCostPathCalculator router;
 
@@ -56,6 +63,12 @@ public class VehicleAssignmentProblem<D> {
 	private final StraightLineKnnFinder<VehicleData.Entry, DestEntry<D>> destinationFinder;
 	private final StraightLineKnnFinder<DestEntry<D>, VehicleData.Entry> vehicleFinder;
 
+	private final Solver solver;
+	private final double nullPathCost;
+
+	// column prices (vehicles or destinations) from the previous sparse assignment
+	private Map<Object, Double> columnPrices = new HashMap<>();
+
 	private AssignmentCost<D> assignmentCost;
 	private VehicleData vData;
 	private AssignmentDestinationData<D> dData;
@@ -63,14 +76,20 @@ public class VehicleAssignmentProblem<D> {
 	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator router,
 			BackwardMultiNodePathCalculator backwardRouter) {
 		// we do not need Euclidean router when there is not kNN filtering
-		this(travelTime, router, backwardRouter, null, -1, -1);
+		this(travelTime, router, backwardRouter, null, -1, -1, Solver.HUNGARIAN, Double.NaN);
 	}
 
+	/**
+	 * @param nullPathCost used only by the sparse solver; leaving a vehicle (or destination) unassigned costs
+	 *                     nullPathCost more than its most expensive candidate assignment
+	 */
 	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator multiNodeRouter,
 			BackwardMultiNodePathCalculator backwardMultiNodeRouter, LeastCostPathCalculator router,
-			int nearestDestinationLimit, int nearestVehicleLimit) {
+			int nearestDestinationLimit, int nearestVehicleLimit, Solver solver, double nullPathCost) {
 		this.travelTime = travelTime;
 		this.router = router;
+		this.solver = solver;
+		this.nullPathCost = nullPathCost;
 
 		forwardPathSearch = OneToManyPathSearch.create(multiNodeRouter);
 		backwardPathSearch = OneToManyPathSearch.create(backwardMultiNodeRouter);
@@ -88,6 +107,10 @@ public class VehicleAssignmentProblem<D> {
 		this.dData = dData;
 		this.assignmentCost = assignmentCost;
 
+		if (solver == Solver.SUCCESSIVE_SHORTEST_PATH) {
+			return findSparseAssignments();
+		}
+
 		PathData[][] pathDataMatrix = createPathDataMatrix();
 		double[][] costMatrix = createCostMatrix(pathDataMatrix);
 		int[] assignments = new HungarianAlgorithm(costMatrix).execute();
@@ -165,6 +188,97 @@ public class VehicleAssignmentProblem<D> {
 		return costMatrix;
 	}
 
+	// Rows are the smaller side (the one the paths are calculated from), each row has only its kNN columns.
+	// Unlike with the dense matrix, rows for which all nearest columns are taken stay unassigned (instead of being
+	// dispatched along a null path), and so they will be re-considered in the next optimisation.
+	private List<Dispatch<D>> findSparseAssignments() {
+		boolean vehicleRows = dData.getSize() > vData.getSize();
+		int rowCount = vehicleRows ? vData.getSize() : dData.getSize();
+		int columnCount = vehicleRows ? dData.getSize() : vData.getSize();
+
+		int[][] rowColumns = new int[rowCount][];
+		PathData[][] rowPaths = new PathData[rowCount][];
+		if (vehicleRows) {
+			calcSparsePathsForVehicles(rowColumns, rowPaths);
+		} else {
+			calcSparsePathsForDestinations(rowColumns, rowPaths);
+		}
+
+		double[][] rowCosts = new double[rowCount][];
+		double[] unassignedCosts = new double[rowCount];
+		for (int row = 0; row < rowCount; row++) {
+			int[] columns = rowColumns[row];
+			double[] costs = rowCosts[row] = new double[columns.length];
+			double maxCost = 0;
+			for (int k = 0; k < columns.length; k++) {
+				int v = vehicleRows ? row : columns[k];
+				int d = vehicleRows ? columns[k] : row;
+				costs[k] = assignmentCost.calc(vData.getEntry(v), dData.getEntry(d), rowPaths[row][k]);
+				maxCost = Math.max(maxCost, costs[k]);
+			}
+			unassignedCosts[row] = maxCost + nullPathCost;
+		}
+
+		double[] prices = new double[columnCount];
+		for (int c = 0; c < columnCount; c++) {
+			prices[c] = columnPrices.getOrDefault(getColumnObject(c, vehicleRows), 0.);
+		}
+
+		SuccessiveShortestPathAlgorithm ssp = new SuccessiveShortestPathAlgorithm(columnCount, rowColumns, rowCosts,
+				unassignedCosts, prices);
+		int[] assignments = ssp.execute();
+
+		prices = ssp.getColumnPrices();
+		columnPrices = new HashMap<>();
+		for (int c = 0; c < columnCount; c++) {
+			columnPrices.put(getColumnObject(c, vehicleRows), prices[c]);
+		}
+
+		List<Dispatch<D>> dispatches = new ArrayList<>(rowCount);
+		for (int row = 0; row < rowCount; row++) {
+			int column = assignments[row];
+			if (column == -1) {
+				continue;
+			}
+			int k = 0;
+			while (rowColumns[row][k] != column) {
+				k++;
+			}
+			int v = vehicleRows ? row : column;
+			int d = vehicleRows ? column : row;
+			dispatches.add(createDispatch(vData.getEntry(v), dData.getEntry(d), rowPaths[row][k]));
+		}
+		return dispatches;
+	}
+
+	private Object getColumnObject(int column, boolean vehicleRows) {
+		return vehicleRows ? dData.getEntry(column).destination : vData.getEntry(column).vehicle;
+	}
+
+	private void calcSparsePathsForVehicles(int[][] rowColumns, PathData[][] rowPaths) {
+		for (int v = 0; v < vData.getSize(); v++) {
+			VehicleData.Entry departure = vData.getEntry(v);
+
+			List<DestEntry<D>> filteredDests = destinationFinder == null ? dData.getEntries()
+					: destinationFinder.findNearest(departure, dData.getEntries().stream());
+			List<Link> toLinks = Lists.transform(filteredDests, dest -> dest.link);
+			rowPaths[v] = forwardPathSearch.calcPathDataArray(departure.link, toLinks, departure.time);
+			rowColumns[v] = filteredDests.stream().mapToInt(dest -> dest.idx).toArray();
+		}
+	}
+
+	private void calcSparsePathsForDestinations(int[][] rowColumns, PathData[][] rowPaths) {
+		for (int d = 0; d < dData.getSize(); d++) {
+			DestEntry<D> dest = dData.getEntry(d);
+
+			List<VehicleData.Entry> filteredVehs = vehicleFinder == null ? vData.getEntries()
+					: vehicleFinder.findNearest(dest, vData.getEntries().stream());
+			List<Link> toLinks = Lists.transform(filteredVehs, veh -> veh.link);
+			rowPaths[d] = backwardPathSearch.calcPathDataArray(dest.link, toLinks, dest.time);
+			rowColumns[d] = filteredVehs.stream().mapToInt(veh -> veh.idx).toArray();
+		}
+	}
+
 	private List<Dispatch<D>> createDispatches(int[] assignments, PathData[][] pathDataMatrix, TravelTime travelTime) {
 		List<Dispatch<D>> dispatches = new ArrayList<>(Math.min(vData.getSize(), dData.getSize()));
 		for (int v = 0; v < assignments.length; v++) {
@@ -174,18 +288,17 @@ public class VehicleAssignmentProblem<D> {
 				continue;
 			}
 
-			VehicleData.Entry departure = vData.getEntry(v);
-			DestEntry<D> dest = dData.getEntry(d);
-			PathData pathData = pathDataMatrix[v][d];
-
-			// TODO if null is frequent we may be more efficient by increasing the neighbourhood
-			VrpPathWithTravelData vrpPath = pathData == null ? //
-					VrpPaths.calcAndCreatePath(departure.link, dest.link, departure.time, router, travelTime)
-					: VrpPaths.createPath(departure.link, dest.link, departure.time, pathData, travelTime);
-
-			dispatches.add(new Dispatch<>(departure.vehicle, dest.destination, vrpPath));
+			dispatches.add(createDispatch(vData.getEntry(v), dData.getEntry(d), pathDataMatrix[v][d]));
 		}
 
 		return dispatches;
 	}
+
+	private Dispatch<D> createDispatch(VehicleData.Entry departure, DestEntry<D> dest, PathData pathData) {
+		// TODO if null is frequent we may be more efficient by increasing the neighbourhood
+		VrpPathWithTravelData vrpPath = pathData == null ? //
+				VrpPaths.calcAndCreatePath(departure.link, dest.link, departure.time, router, travelTime)
+				: VrpPaths.createPath(departure.link, dest.link, departure.time, pathData, travelTime);
+		return new Dispatch<>(departure.vehicle, dest.destination, vrpPath);
+	}
 }
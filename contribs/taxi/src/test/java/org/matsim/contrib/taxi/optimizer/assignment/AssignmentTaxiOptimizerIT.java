@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.matsim.contrib.taxi.optimizer.DefaultTaxiOptimizerParams;
 import org.matsim.contrib.taxi.optimizer.DefaultTaxiOptimizerProvider.OptimizerType;
 import org.matsim.contrib.taxi.optimizer.assignment.TaxiToRequestAssignmentCostProvider.Mode;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem.Solver;
 import org.matsim.testcases.MatsimTestUtils;
 
 public class AssignmentTaxiOptimizerIT {
@@ -55,5 +56,8 @@ public class AssignmentTaxiOptimizerIT {
 		params.put(AssignmentTaxiOptimizerParams.NEAREST_VEHICLES_LIMIT, 10 + "");
 		params.put(DefaultTaxiOptimizerParams.REOPTIMIZATION_TIME_STEP, 10 + "");
 		runBenchmark(variants, params, benchmark, utils.getOutputDirectory() + "_B");
+
+		params.put(AssignmentTaxiOptimizerParams.ASSIGNMENT_SOLVER, Solver.SUCCESSIVE_SHORTEST_PATH.name());
+		runBenchmark(variants, params, benchmark, utils.getOutputDirectory() + "_C");
 	}
 }
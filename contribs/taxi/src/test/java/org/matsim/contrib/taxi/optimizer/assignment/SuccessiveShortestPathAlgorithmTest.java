@@ -0,0 +1,134 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.optimizer.assignment;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SuccessiveShortestPathAlgorithmTest {
+	private static final double MISSING_ARC_COST = 1e7;
+
+	@Test
+	public void testCompleteProblems() {
+		Random random = new Random(1);
+		for (int i = 0; i < 50; i++) {
+			int rowCount = 1 + random.nextInt(15);
+			int columnCount = rowCount + random.nextInt(15);
+			assertOptimal(createProblem(random, rowCount, columnCount, columnCount), random);
+		}
+	}
+
+	@Test
+	public void testSparseProblems() {
+		Random random = new Random(2);
+		for (int i = 0; i < 50; i++) {
+			int rowCount = 1 + random.nextInt(15);
+			int columnCount = rowCount + random.nextInt(15);
+			int arcsPerRow = 1 + random.nextInt(Math.min(4, columnCount));
+			assertOptimal(createProblem(random, rowCount, columnCount, arcsPerRow), random);
+		}
+	}
+
+	private static class Problem {
+		private final int columnCount;
+		private final int[][] rowColumns;
+		private final double[][] rowCosts;
+		private final double[] unassignedCosts;
+
+		private Problem(int columnCount, int[][] rowColumns, double[][] rowCosts, double[] unassignedCosts) {
+			this.columnCount = columnCount;
+			this.rowColumns = rowColumns;
+			this.rowCosts = rowCosts;
+			this.unassignedCosts = unassignedCosts;
+		}
+	}
+
+	private static Problem createProblem(Random random, int rowCount, int columnCount, int arcsPerRow) {
+		int[][] rowColumns = new int[rowCount][];
+		double[][] rowCosts = new double[rowCount][];
+		double[] unassignedCosts = new double[rowCount];
+		for (int r = 0; r < rowCount; r++) {
+			rowColumns[r] = random.ints(0, columnCount).distinct().limit(arcsPerRow).toArray();
+			rowCosts[r] = random.doubles(arcsPerRow, 0, 1000).map(Math::rint).toArray();
+			unassignedCosts[r] = 500 + random.nextInt(1000);
+		}
+		return new Problem(columnCount, rowColumns, rowCosts, unassignedCosts);
+	}
+
+	private static void assertOptimal(Problem problem, Random random) {
+		double expectedCost = calcCost(problem, solveDense(problem));
+
+		int[] assignments = new SuccessiveShortestPathAlgorithm(problem.columnCount, problem.rowColumns,
+				problem.rowCosts, problem.unassignedCosts, null).execute();
+		assertEquals(expectedCost, calcCost(problem, assignments), 1e-6);
+
+		// warm start with arbitrary initial prices
+		double[] prices = random.doubles(problem.columnCount, -1000, 1000).toArray();
+		assignments = new SuccessiveShortestPathAlgorithm(problem.columnCount, problem.rowColumns, problem.rowCosts,
+				problem.unassignedCosts, prices).execute();
+		assertEquals(expectedCost, calcCost(problem, assignments), 1e-6);
+	}
+
+	// the equivalent dense problem: columns + one dummy (unassigned) column per row
+	private static int[] solveDense(Problem problem) {
+		int rowCount = problem.rowColumns.length;
+		double[][] costMatrix = new double[rowCount][problem.columnCount + rowCount];
+		for (int r = 0; r < rowCount; r++) {
+			Arrays.fill(costMatrix[r], MISSING_ARC_COST);
+			for (int k = 0; k < problem.rowColumns[r].length; k++) {
+				costMatrix[r][problem.rowColumns[r][k]] = problem.rowCosts[r][k];
+			}
+			costMatrix[r][problem.columnCount + r] = problem.unassignedCosts[r];
+		}
+
+		int[] assignments = new HungarianAlgorithm(costMatrix).execute();
+		for (int r = 0; r < rowCount; r++) {
+			if (assignments[r] >= problem.columnCount) {
+				assignments[r] = -1;
+			}
+		}
+		return assignments;
+	}
+
+	private static double calcCost(Problem problem, int[] assignments) {
+		boolean[] assigned = new boolean[problem.columnCount];
+		double cost = 0;
+		for (int r = 0; r < assignments.length; r++) {
+			int column = assignments[r];
+			if (column == -1) {
+				cost += problem.unassignedCosts[r];
+				continue;
+			}
+			assertEquals("Column assigned twice", false, assigned[column]);
+			assigned[column] = true;
+
+			int k = 0;
+			while (problem.rowColumns[r][k] != column) {
+				k++;
+			}
+			cost += problem.rowCosts[r][k];
+		}
+		return cost;
+	}
+}
@@ -23,8 +23,10 @@ package org.matsim.analysis;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -32,12 +34,18 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.core.utils.misc.StringUtils;
 
 import javax.inject.Inject;
 
 /**
  * Calculates the average link volumes and travel times over any number of iterations.
+ * <p></p>
+ * The statistics are stored column-wise: for every statistic (min, max, sum) there is one array for the
+ * volumes and one for the travel times, containing one row of hourly values per link. The links are
+ * ordered by their id, as they are written to the file. The links are taken from the network on
+ * every {@link #reset()}, so links added to the network in the meantime are included from then on.
  *
  * @author mrieser
  */
@@ -45,20 +53,15 @@ public class CalcLinkStats {
 
 	private final static Logger log = Logger.getLogger(CalcLinkStats.class);
 
-	private static class LinkData {
-		public final double[][] volumes;
-		public final double[][] ttimes;
-
-		public LinkData(final double[][] linksVolumes, final double[][] linksTTimes) {
-			this.volumes = linksVolumes.clone();
-			this.ttimes = linksTTimes.clone();
-		}
-	}
-
 	private double volScaleFactor = 1.0;
 
 	private int count = 0;
-	private final Map<Id<Link>, LinkData> linkData;
+	private Id<Link>[] linkIds;
+	private Map<Id<Link>, Integer> linkIndices;
+	/** [stat][link * (nofHours + 1) + hour], the last value of every link is the daily value */
+	private double[][] volumes;
+	/** [stat][link * nofHours + hour] */
+	private double[][] ttimes;
 	private final int nofHours;
 	private final Network network;
 
@@ -70,7 +73,6 @@ public class CalcLinkStats {
 	@Inject
 	public CalcLinkStats(final Network network) {
 		this.network = network;
-		this.linkData = new TreeMap<>();
 		this.nofHours = 24;
 		reset();
 	}
@@ -90,17 +92,25 @@ public class CalcLinkStats {
 		this.count++;
 		// TODO verify ttimes has hourly timeBin-Settings
 
+		double[] volMin = this.volumes[MIN];
+		double[] volMax = this.volumes[MAX];
+		double[] volSum = this.volumes[SUM];
+		double[] ttMin = this.ttimes[MIN];
+		double[] ttMax = this.ttimes[MAX];
+		double[] ttSum = this.ttimes[SUM];
+
 		// go through all links
-		for (Id<Link> linkId : this.linkData.keySet()) {
+		for (int l = 0; l < this.linkIds.length; l++) {
+			Id<Link> linkId = this.linkIds[l];
 			
 			// retrieve link from link ID
 			Link link = this.network.getLinks().get(linkId);
 			
 			// get the volumes for the link ID from the analyzier
-			double[] volumes = analyzer.getVolumesPerHourForLink(linkId);
+			double[] linkVolumes = analyzer.getVolumesPerHourForLink(linkId);
 			
-			// get the destination container for the data from link data (could have gotten this through iterator right away)
-			LinkData data = this.linkData.get(linkId);
+			int volOffset = l * (this.nofHours + 1);
+			int ttOffset = l * this.nofHours;
 			
 			// prepare the sum variables (for volumes);
 			long sumVolumes = 0; // daily (0-24) sum
@@ -112,51 +122,63 @@ public class CalcLinkStats {
 				double ttime = ttimes.getLinkTravelTime(link, hour*3600, null, null);
 				
 				// add for daily sum:
-				sumVolumes += volumes[hour];
+				sumVolumes += linkVolumes[hour];
 
+				int v = volOffset + hour;
+				int t = ttOffset + hour;
 				// the following has something to do with the fact that we are doing this for multiple iterations.  So there are variations.
 				// this collects min and max.  There is, however, no good control over how many iterations this is collected.
 				if (this.count == 1) {
-					data.volumes[MIN][hour] = volumes[hour];
-					data.volumes[MAX][hour] = volumes[hour];
-					data.ttimes[MIN][hour] = ttime;
-					data.ttimes[MAX][hour] = ttime;
+					volMin[v] = linkVolumes[hour];
+					volMax[v] = linkVolumes[hour];
+					ttMin[t] = ttime;
+					ttMax[t] = ttime;
 				} else {
-					if (volumes[hour] < data.volumes[MIN][hour]) data.volumes[MIN][hour] = volumes[hour];
-					if (volumes[hour] > data.volumes[MAX][hour]) data.volumes[MAX][hour] = volumes[hour];
-					if (ttime < data.ttimes[MIN][hour]) data.ttimes[MIN][hour] = ttime;
-					if (ttime > data.ttimes[MAX][hour]) data.ttimes[MAX][hour] = ttime;
+					if (linkVolumes[hour] < volMin[v]) volMin[v] = linkVolumes[hour];
+					if (linkVolumes[hour] > volMax[v]) volMax[v] = linkVolumes[hour];
+					if (ttime < ttMin[t]) ttMin[t] = ttime;
+					if (ttime > ttMax[t]) ttMax[t] = ttime;
 				}
 				
 				// this is the regular summing up for each hour
-				data.volumes[SUM][hour] += volumes[hour];
-				data.ttimes[SUM][hour] += volumes[hour] * ttime;
+				volSum[v] += linkVolumes[hour];
+				ttSum[t] += linkVolumes[hour] * ttime;
 			}
-			// dataVolumes[.][nofHours] are daily (0-24) values
+			// volumes[.][volOffset + nofHours] are daily (0-24) values
+			int day = volOffset + this.nofHours;
 			if (this.count == 1) {
-				data.volumes[MIN][this.nofHours] = sumVolumes;
-				data.volumes[SUM][this.nofHours] = sumVolumes;
-				data.volumes[MAX][this.nofHours] = sumVolumes;
+				volMin[day] = sumVolumes;
+				volSum[day] = sumVolumes;
+				volMax[day] = sumVolumes;
 			} else {
-				if (sumVolumes < data.volumes[MIN][this.nofHours]) data.volumes[MIN][this.nofHours] = sumVolumes;
-				data.volumes[SUM][this.nofHours] += sumVolumes;
-				if (sumVolumes > data.volumes[MAX][this.nofHours]) data.volumes[MAX][this.nofHours] = sumVolumes;
+				if (sumVolumes < volMin[day]) volMin[day] = sumVolumes;
+				volSum[day] += sumVolumes;
+				if (sumVolumes > volMax[day]) volMax[day] = sumVolumes;
 			}
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	public void reset() {
-		this.linkData.clear();
 		this.count = 0;
 		log.info( " resetting `count' to zero.  This info is here since we want to check when this" +
 				" is happening during normal simulation runs.  kai, jan'11") ;
 
 		// initialize our data-table
-		for (Link link : this.network.getLinks().values()) {
-			LinkData data = new LinkData(new double[NOF_STATS][this.nofHours + 1], new double[NOF_STATS][this.nofHours]);
-			this.linkData.put(link.getId(), data);
+		if (this.linkIndices == null || !this.linkIndices.keySet().equals(this.network.getLinks().keySet())) {
+			this.linkIds = new TreeSet<>(this.network.getLinks().keySet()).toArray(new Id[0]);
+			this.linkIndices = new HashMap<>((int) (this.linkIds.length * 1.1), 0.95f);
+			for (int i = 0; i < this.linkIds.length; i++) {
+				this.linkIndices.put(this.linkIds[i], i);
+			}
+			this.volumes = new double[NOF_STATS][this.linkIds.length * (this.nofHours + 1)];
+			this.ttimes = new double[NOF_STATS][this.linkIds.length * this.nofHours];
+		} else {
+			for (int stat = 0; stat < NOF_STATS; stat++) {
+				Arrays.fill(this.volumes[stat], 0.0);
+				Arrays.fill(this.ttimes[stat], 0.0);
+			}
 		}
-
 	}
 
 	public void writeFile(final String filename) {
@@ -182,10 +204,11 @@ public class CalcLinkStats {
 			out.write("\n");
 
 			// write data
-			for (Map.Entry<Id<Link>, LinkData> entry : this.linkData.entrySet()) {
-				Id<Link> linkId = entry.getKey();
-				LinkData data = entry.getValue();
+			for (int l = 0; l < this.linkIds.length; l++) {
+				Id<Link> linkId = this.linkIds[l];
 				Link link = this.network.getLinks().get(linkId);
+				int volOffset = l * (this.nofHours + 1);
+				int ttOffset = l * this.nofHours;
 
 				out.write(linkId.toString());
 				out.write("\t"); // origId, no longer supported
@@ -195,44 +218,18 @@ public class CalcLinkStats {
 				out.write("\t" + Double.toString(link.getFreespeed()));
 				out.write("\t" + Double.toString(link.getCapacity()));
 
-				// HRS0-1, HRS1-2, ... HRS23-24
-//				int[] sum = {0, 0, 0};
-				for (int i = 0; i < this.nofHours; i++) {
-					out.write("\t" + Double.toString(data.volumes[MIN][i]));
-//					sum[MIN] = sum[MIN] + data.volumes[MIN][i];
-					out.write("\t" + Double.toString((data.volumes[SUM][i]) / this.count));
-//					sum[SUM] = sum[SUM] + data.volumes[SUM][i];
-					out.write("\t" + Double.toString(data.volumes[MAX][i]));
-//					sum[MAX] = sum[MAX] + data.volumes[MAX][i];
+				// HRS0-1, HRS1-2, ... HRS23-24, HRS0-nofHours
+				for (int i = 0; i <= this.nofHours; i++) {
+					out.write("\t" + Double.toString(this.volumes[MIN][volOffset + i]));
+					out.write("\t" + Double.toString((this.volumes[SUM][volOffset + i]) / this.count));
+					out.write("\t" + Double.toString(this.volumes[MAX][volOffset + i]));
 				}
 
-				// HRS0-nofHours
-				out.write("\t" + Double.toString(data.volumes[MIN][this.nofHours]));
-				out.write("\t" + Double.toString((data.volumes[SUM][this.nofHours]) / this.count));
-				out.write("\t" + Double.toString(data.volumes[MAX][this.nofHours]));
-
 				// TRAVELTIME0-1, TRAVELTIME1-2, ... TRAVELTIME23-24
 				for (int i = 0; i < this.nofHours; i++) {
-					String ttimesMin = Double.toString(data.ttimes[MIN][i]);
-					out.write("\t" + ttimesMin);
-					if (data.volumes[SUM][i] == 0) {
-						// nobody traveled along the link in this hour, so we cannot calculate an average
-						// use the value available or the minimum instead (min and max should be the same, =freespeed)
-						double ttsum = data.ttimes[SUM][i];
-						if (ttsum != 0.0) {
-							out.write("\t" + Double.toString(ttsum));
-						} else {
-							out.write("\t" + ttimesMin);
-						}
-					} else {
-						double ttsum = data.ttimes[SUM][i];
-						if (ttsum == 0) {
-							out.write("\t" + ttimesMin);
-						} else {
-							out.write("\t" + Double.toString(ttsum / data.volumes[SUM][i]));
-						}
-					}
-					out.write("\t" + Double.toString(data.ttimes[MAX][i]));
+					out.write("\t" + Double.toString(this.ttimes[MIN][ttOffset + i]));
+					out.write("\t" + Double.toString(getWrittenAvgTravelTime(l, i)));
+					out.write("\t" + Double.toString(this.ttimes[MAX][ttOffset + i]));
 				}
 				out.write("\n");
 			}
@@ -251,6 +248,52 @@ public class CalcLinkStats {
 		}
 	}
 
+	/**
+	 * Writes the statistics column-wise in CSV format: one line per link and hour, with one column per statistic,
+	 * separated by semicolons. Unlike the wide format of {@link #writeFile(String)}, this is easy to load into data
+	 * analysis tools, but it cannot be read by {@link #readFile(String)}.
+	 */
+	public void writeCsvFile(final String filename) {
+		try (BufferedWriter out = IOUtils.getBufferedWriter(filename)) {
+			out.write("link;hour;volume_min;volume_avg;volume_max;traveltime_min;traveltime_avg;traveltime_max\n");
+			StringBuilder line = new StringBuilder();
+			for (int l = 0; l < this.linkIds.length; l++) {
+				String linkId = this.linkIds[l].toString();
+				int volOffset = l * (this.nofHours + 1);
+				int ttOffset = l * this.nofHours;
+				for (int i = 0; i < this.nofHours; i++) {
+					line.setLength(0);
+					line.append(linkId).append(';').append(i);
+					line.append(';').append(this.volumes[MIN][volOffset + i]);
+					line.append(';').append(this.volumes[SUM][volOffset + i] / this.count);
+					line.append(';').append(this.volumes[MAX][volOffset + i]);
+					line.append(';').append(this.ttimes[MIN][ttOffset + i]);
+					line.append(';').append(getWrittenAvgTravelTime(l, i));
+					line.append(';').append(this.ttimes[MAX][ttOffset + i]);
+					line.append('\n');
+					out.write(line.toString());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * The average travel time as it is written to the files.
+	 */
+	private double getWrittenAvgTravelTime(int l, int hour) {
+		double ttimesMin = this.ttimes[MIN][l * this.nofHours + hour];
+		double ttsum = this.ttimes[SUM][l * this.nofHours + hour];
+		double volSum = this.volumes[SUM][l * (this.nofHours + 1) + hour];
+		if (volSum == 0) {
+			// nobody traveled along the link in this hour, so we cannot calculate an average
+			// use the value available or the minimum instead (min and max should be the same, =freespeed)
+			return (ttsum != 0.0) ? ttsum : ttimesMin;
+		}
+		return (ttsum == 0) ? ttimesMin : ttsum / volSum;
+	}
+
 	public void readFile(final String filename) {
 		// start with a clean, empty data structure
 		reset();
@@ -274,64 +317,20 @@ public class CalcLinkStats {
 				String[] parts = StringUtils.explode(line, '\t');
 				if (parts.length == 154) {
 					Id<Link> linkId = Id.create(parts[0], Link.class);
-					LinkData data = this.linkData.get(linkId);
-					if (data == null) {
+					Integer index = this.linkIndices.get(linkId);
+					if (index == null) {
 						System.err.println("CalcLinkStats.readFile(); unknown link: " + linkId.toString());
 					} else {
-						int baseTTimes;
-						for (int i = 0; i < this.nofHours; i++) {
-							data.volumes[MIN][i] = Double.parseDouble(parts[7 + i*3]);
-							data.volumes[MIN][i] *= this.volScaleFactor;
-							data.volumes[SUM][i] = Double.parseDouble(parts[8 + i*3]);
-							data.volumes[SUM][i] *= this.volScaleFactor;
-							data.volumes[MAX][i] = Double.parseDouble(parts[9 + i*3]);
-							data.volumes[MAX][i] *= this.volScaleFactor;
-							baseTTimes = 7 + (this.nofHours+1)*3;
-							data.ttimes[MIN][i] = Double.parseDouble(parts[baseTTimes + i*3]);
-							if (data.volumes[SUM][i] == 0) {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
-							} else {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * data.volumes[SUM][i];
-							}
-							data.ttimes[MAX][i] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
-						}
-						data.volumes[MIN][this.nofHours] = Double.parseDouble(parts[7 + this.nofHours*3]);
-						data.volumes[MIN][this.nofHours] *= this.volScaleFactor;
-						data.volumes[SUM][this.nofHours] = Double.parseDouble(parts[8 + this.nofHours*3]);
-						data.volumes[SUM][this.nofHours] *= this.volScaleFactor;
-						data.volumes[MAX][this.nofHours] = Double.parseDouble(parts[9 + this.nofHours*3]);
-						data.volumes[MAX][this.nofHours] *= this.volScaleFactor;
+						parseLinkData(index, parts, 7, false);
 					}
 				}
 				else if (parts.length == 153) {
 					String linkId = parts[0];
-					LinkData data = this.linkData.get(Id.create(linkId, Link.class));
-					if (data == null) {
+					Integer index = this.linkIndices.get(Id.create(linkId, Link.class));
+					if (index == null) {
 						System.err.println("CalcLinkStats.readFile(); unknown link: " + linkId);
 					} else {
-						int baseTTimes;
-						for (int i = 0; i < this.nofHours; i++) {
-							data.volumes[MIN][i] = Double.parseDouble(parts[6 + i*3]);
-							data.volumes[MIN][i] *= this.volScaleFactor;
-							data.volumes[SUM][i] = Integer.parseInt(parts[7 + i*3]);
-							data.volumes[SUM][i] *= this.volScaleFactor;
-							data.volumes[MAX][i] = Double.parseDouble(parts[8 + i*3]);
-							data.volumes[MAX][i] *= this.volScaleFactor;
-							baseTTimes = 6 + (this.nofHours+1)*3;
-							data.ttimes[MIN][i] = Double.parseDouble(parts[baseTTimes + i*3]);
-							if (data.volumes[SUM][i] == 0) {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
-							} else {
-								data.ttimes[SUM][i] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * data.volumes[SUM][i];
-							}
-							data.ttimes[MAX][i] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
-						}
-						data.volumes[MIN][this.nofHours] = Double.parseDouble(parts[6 + this.nofHours*3]);
-						data.volumes[MIN][this.nofHours] *= this.volScaleFactor;
-						data.volumes[SUM][this.nofHours] = Double.parseDouble(parts[7 + this.nofHours*3]);
-						data.volumes[SUM][this.nofHours] *= this.volScaleFactor;
-						data.volumes[MAX][this.nofHours] = Double.parseDouble(parts[8 + this.nofHours*3]);
-						data.volumes[MAX][this.nofHours] *= this.volScaleFactor;
+						parseLinkData(index, parts, 6, true);
 					}
 				}
 				else {
@@ -353,23 +352,56 @@ public class CalcLinkStats {
 		}
 	}
 
+	/**
+	 * @param baseVolumes the column of the first volume
+	 * @param integerSums whether the hourly average volumes are written as integers (older file format)
+	 */
+	private void parseLinkData(final int l, final String[] parts, final int baseVolumes, final boolean integerSums) {
+		int volOffset = l * (this.nofHours + 1);
+		int ttOffset = l * this.nofHours;
+		int baseTTimes = baseVolumes + (this.nofHours+1)*3;
+		for (int i = 0; i < this.nofHours; i++) {
+			int v = volOffset + i;
+			int t = ttOffset + i;
+			this.volumes[MIN][v] = Double.parseDouble(parts[baseVolumes + i*3]) * this.volScaleFactor;
+			if (integerSums) {
+				this.volumes[SUM][v] = Integer.parseInt(parts[baseVolumes + 1 + i*3]) * this.volScaleFactor;
+			} else {
+				this.volumes[SUM][v] = Double.parseDouble(parts[baseVolumes + 1 + i*3]) * this.volScaleFactor;
+			}
+			this.volumes[MAX][v] = Double.parseDouble(parts[baseVolumes + 2 + i*3]) * this.volScaleFactor;
+			this.ttimes[MIN][t] = Double.parseDouble(parts[baseTTimes + i*3]);
+			if (this.volumes[SUM][v] == 0) {
+				this.ttimes[SUM][t] = Double.parseDouble(parts[baseTTimes + i*3 + 1]);
+			} else {
+				this.ttimes[SUM][t] = Double.parseDouble(parts[baseTTimes + i*3 + 1]) * this.volumes[SUM][v];
+			}
+			this.ttimes[MAX][t] = Double.parseDouble(parts[baseTTimes + i*3 + 2]);
+		}
+		int day = volOffset + this.nofHours;
+		this.volumes[MIN][day] = Double.parseDouble(parts[baseVolumes + this.nofHours*3]) * this.volScaleFactor;
+		this.volumes[SUM][day] = Double.parseDouble(parts[baseVolumes + 1 + this.nofHours*3]) * this.volScaleFactor;
+		this.volumes[MAX][day] = Double.parseDouble(parts[baseVolumes + 2 + this.nofHours*3]) * this.volScaleFactor;
+	}
+
 	/**
 	 * @param linkId
 	 * @return if no data is available, an array with length 0 is returned.
 	 */
 	public double[] getAvgLinkVolumes(final Id<Link> linkId) {
-		LinkData data = this.linkData.get(linkId);
-		if (data == null) {
+		Integer index = this.linkIndices.get(linkId);
+		if (index == null) {
 			return new double[0];
 		}
 		if (this.count == 0) {
 			return new double[0];
 		}
-		double[] volumes = new double[this.nofHours];
+		int volOffset = index * (this.nofHours + 1);
+		double[] avgVolumes = new double[this.nofHours];
 		for (int i = 0; i < this.nofHours; i++) {
-			volumes[i] = (data.volumes[SUM][i]) / (this.count);
+			avgVolumes[i] = (this.volumes[SUM][volOffset + i]) / (this.count);
 		}
-		return volumes;
+		return avgVolumes;
 	}
 	
 	/**
@@ -381,28 +413,30 @@ public class CalcLinkStats {
 	 */
 	@Deprecated
 	protected double[] getAvgTravelTimes(final Id<Link> linkId) {
-		LinkData data = this.linkData.get(linkId);
-		if (data == null) {
+		Integer index = this.linkIndices.get(linkId);
+		if (index == null) {
 			return new double[0];
 		}
 		if (this.count == 0) {
 			return new double[0];
 		}
+		int volOffset = index * (this.nofHours + 1);
+		int ttOffset = index * this.nofHours;
 		double[] ttimesMin = new double[this.nofHours];
 		double[] ttimesSum = new double[this.nofHours];
-		double[] volumes = new double[this.nofHours];
+		double[] avgVolumes = new double[this.nofHours];
 		
 		double[] avgTTimes = new double[this.nofHours];
 		
 		for (int i = 0; i < this.nofHours; i++) {
-			volumes[i] = (data.volumes[SUM][i]) / (this.count);
-			ttimesMin[i] = (data.ttimes[MIN][i]) / (this.count);
-			ttimesSum[i] = (data.ttimes[SUM][i]) / (this.count);
+			avgVolumes[i] = (this.volumes[SUM][volOffset + i]) / (this.count);
+			ttimesMin[i] = (this.ttimes[MIN][ttOffset + i]) / (this.count);
+			ttimesSum[i] = (this.ttimes[SUM][ttOffset + i]) / (this.count);
 
-			if (volumes[i] == 0.) {
+			if (avgVolumes[i] == 0.) {
 				avgTTimes[i] = ttimesMin[i];
 			} else {
-				avgTTimes[i] = ttimesSum[i] / volumes[i];
+				avgTTimes[i] = ttimesSum[i] / avgVolumes[i];
 			}
 		}
 		return avgTTimes;
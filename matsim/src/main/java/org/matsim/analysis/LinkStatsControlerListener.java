@@ -59,6 +59,9 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 
 		if (createLinkStatsInIteration(iteration)) {
 			linkStats.writeFile(this.controlerIO.getIterationFilename(iteration, Controler.FILENAME_LINKSTATS));
+			if (this.linkStatsConfigGroup.isWriteLinkStatsCsv()) {
+				linkStats.writeCsvFile(this.controlerIO.getIterationFilename(iteration, Controler.FILENAME_LINKSTATS_CSV));
+			}
 			this.doReset = true;
 		}
 	}
@@ -20,10 +20,14 @@
 
 package org.matsim.analysis;
 
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -40,6 +44,12 @@ import javax.inject.Inject;
 
 /**
  * Counts the number of vehicles leaving a link, aggregated into time bins of a specified size.
+ * <p></p>
+ * The rows of time bins with the volumes of the links are stored in an array, by the index of the link ids
+ * (see {@link Id#index()}), so no map needs to be looked up per event. The row of a link is created when
+ * the first vehicle leaves the link, so no memory is used for links without traffic. Volumes per mode are stored the same way. All counters are incremented atomically, so
+ * the analyzer may be fed from several threads at the same time. Events on links which are not part
+ * of the network (e.g. added after the analyzer was created) are still counted, in a separate map.
  *
  * @author mrieser
  */
@@ -49,12 +59,17 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	private final int timeBinSize;
 	private final int maxTime;
 	private final int maxSlotIndex;
-	private final Map<Id<Link>, int[]> links;
-	
+	private final int numberOfSlots;
+
+	/** the network links by the index of their ids, <code>null</code> for ids of links not in the network */
+	private final Id<Link>[] linkIds;
+	private volatile LinkVolumes volumes;
+
 	// for multi-modal support
 	private final boolean observeModes;
 	private final Map<Id<Vehicle>, String> enRouteModes;
-	private final Map<Id<Link>, Map<String, int[]>> linksPerMode;
+	private final ConcurrentMap<String, LinkVolumes> modeVolumes;
+	private volatile LinkVolumes unknownModeVolumes;
 
 	@Inject
 	VolumesAnalyzer(Network network, EventsManager eventsManager) {
@@ -66,19 +81,30 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 		this(timeBinSize, maxTime, network, true);
 	}
 	
+	@SuppressWarnings("unchecked")
 	public VolumesAnalyzer(final int timeBinSize, final int maxTime, final Network network, boolean observeModes) {
 		this.timeBinSize = timeBinSize;
 		this.maxTime = maxTime;
 		this.maxSlotIndex = (this.maxTime/this.timeBinSize) + 1;
-		this.links = new HashMap<>((int) (network.getLinks().size() * 1.1), 0.95f);
+		this.numberOfSlots = this.maxSlotIndex + 1;
+
+		int numberOfLinks = Id.getNumberOfIds(Link.class);
+		this.linkIds = new Id[numberOfLinks];
+		for (Id<Link> linkId : network.getLinks().keySet()) {
+			if (linkId.index() < numberOfLinks) {
+				this.linkIds[linkId.index()] = linkId;
+			}
+		}
+		this.volumes = new LinkVolumes(numberOfLinks);
 		
 		this.observeModes = observeModes;
 		if (this.observeModes) {
-			this.enRouteModes = new HashMap<>();
-			this.linksPerMode = new HashMap<>((int) (network.getLinks().size() * 1.1), 0.95f);
+			this.enRouteModes = new ConcurrentHashMap<>();
+			this.modeVolumes = new ConcurrentHashMap<>();
+			this.unknownModeVolumes = new LinkVolumes(numberOfLinks);
 		} else {
 			this.enRouteModes = null;
-			this.linksPerMode = null;
+			this.modeVolumes = null;
 		}
 	}
 	
@@ -91,30 +117,37 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	
 	@Override
 	public void handleEvent(final LinkLeaveEvent event) {
-		int[] volumes = this.links.get(event.getLinkId());
-		if (volumes == null) {
-			volumes = new int[this.maxSlotIndex + 1]; // initialized to 0 by default, according to JVM specs
-			this.links.put(event.getLinkId(), volumes);
-		}
 		int timeslot = getTimeSlotIndex(event.getTime());
-		volumes[timeslot]++;
+		int index = getLinkIndex(event.getLinkId());
+		this.volumes.getOrCreateRow(index, event.getLinkId(), this.numberOfSlots).incrementAndGet(timeslot);
 		
 		if (observeModes) {
-			Map<String, int[]> modeVolumes = this.linksPerMode.get(event.getLinkId());
-			if (modeVolumes == null) {
-				modeVolumes = new HashMap<>();
-				this.linksPerMode.put(event.getLinkId(), modeVolumes);
-			}
 			String mode = enRouteModes.get(event.getVehicleId());
-			volumes = modeVolumes.get(mode);
-			if (volumes == null) {
-				volumes = new int[this.maxSlotIndex + 1]; // initialized to 0 by default, according to JVM specs
-				modeVolumes.put(mode, volumes);
+			LinkVolumes volumesOfMode;
+			if (mode == null) {
+				// the vehicle did not enter traffic before, the concurrent map does not accept null keys
+				volumesOfMode = this.unknownModeVolumes;
+			} else {
+				volumesOfMode = this.modeVolumes.computeIfAbsent(mode, m -> new LinkVolumes(this.linkIds.length));
 			}
-			volumes[timeslot]++;
+			volumesOfMode.getOrCreateRow(index, event.getLinkId(), this.numberOfSlots).incrementAndGet(timeslot);
 		}
 	}
 
+	/**
+	 * @return the index of the link's row, <code>-1</code> if the link is not part of the network
+	 */
+	private int getLinkIndex(final Id<Link> linkId) {
+		int index = linkId.index();
+		if (index < this.linkIds.length && this.linkIds[index] == linkId) {
+			return index;
+		}
+		// the id may have been created for another type, with another index
+		Id<Link> canonicalId = Id.createLinkId(linkId.toString());
+		index = canonicalId.index();
+		return (index < this.linkIds.length && this.linkIds[index] == canonicalId) ? index : -1;
+	}
+
 	private int getTimeSlotIndex(final double time) {
 		if (time > this.maxTime) {
 			return this.maxSlotIndex;
@@ -125,10 +158,11 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	/**
 	 * @param linkId
 	 * @return Array containing the number of vehicles leaving the link <code>linkId</code> per time bin,
-	 * 		starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.
+	 * 		starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds. <code>null</code> if no vehicle
+	 * 		left the link. The array is a copy, later events are not reflected in it.
 	 */
 	public int[] getVolumesForLink(final Id<Link> linkId) {
-		return this.links.get(linkId);
+		return toArray(this.volumes.getRow(getLinkIndex(linkId), linkId));
 	}
 	
 	/**
@@ -136,11 +170,14 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 * @param mode
 	 * @return Array containing the number of vehicles using the specified mode leaving the link 
 	 *  	<code>linkId</code> per time bin, starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.
+	 *  	<code>null</code> if no vehicle of this mode left the link. The array is a copy, later events are
+	 *  	not reflected in it.
 	 */
 	public int[] getVolumesForLink(final Id<Link> linkId, String mode) {
 		if (observeModes) {
-			Map<String, int[]> modeVolumes = this.linksPerMode.get(linkId);
-			if (modeVolumes != null) return modeVolumes.get(mode);
+			LinkVolumes volumesOfMode = (mode == null) ? this.unknownModeVolumes : this.modeVolumes.get(mode);
+			if (volumesOfMode == null) return null;
+			return toArray(volumesOfMode.getRow(getLinkIndex(linkId), linkId));
 		} 
 		return null;
 	}
@@ -223,11 +260,9 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 */
 	public Set<String> getModes() {
 		Set<String> modes = new TreeSet<>();
-		
-		for (Map<String, int[]> map : this.linksPerMode.values()) {
-			modes.addAll(map.keySet());
+		if (observeModes) {
+			modes.addAll(this.modeVolumes.keySet());
 		}
-		
 		return modes;
 	}
 	
@@ -235,15 +270,65 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 * @return Set of Strings containing all link ids for which counting-values are available.
 	 */
 	public Set<Id<Link>> getLinkIds() {
-		return this.links.keySet();
+		Set<Id<Link>> ids = new LinkedHashSet<>();
+		LinkVolumes volumes = this.volumes;
+		for (int i = 0; i < this.linkIds.length; i++) {
+			if (volumes.rows.get(i) != null) ids.add(this.linkIds[i]);
+		}
+		ids.addAll(volumes.otherLinks.keySet());
+		return ids;
 	}
 
 	@Override
 	public void reset(final int iteration) {
-		this.links.clear();
+		this.volumes = new LinkVolumes(this.linkIds.length);
 		if (observeModes) {
-			this.linksPerMode.clear();
+			this.modeVolumes.clear();
+			this.unknownModeVolumes = new LinkVolumes(this.linkIds.length);
 			this.enRouteModes.clear();
 		}
 	}
+
+	private static int[] toArray(AtomicIntegerArray counts) {
+		if (counts == null) {
+			return null;
+		}
+		int[] array = new int[counts.length()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = counts.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * The volumes of all links (or of the links used by one mode). The row of a link is created when
+	 * the first vehicle leaves the link, and is never replaced afterwards.
+	 */
+	private static class LinkVolumes {
+		final AtomicReferenceArray<AtomicIntegerArray> rows;
+		final ConcurrentMap<Id<Link>, AtomicIntegerArray> otherLinks = new ConcurrentHashMap<>();
+
+		LinkVolumes(int numberOfLinks) {
+			this.rows = new AtomicReferenceArray<>(numberOfLinks);
+		}
+
+		/**
+		 * @param index the index of the link, <code>-1</code> if the link is not part of the network
+		 */
+		AtomicIntegerArray getRow(int index, Id<Link> linkId) {
+			return (index >= 0) ? this.rows.get(index) : this.otherLinks.get(linkId);
+		}
+
+		AtomicIntegerArray getOrCreateRow(int index, Id<Link> linkId, int numberOfSlots) {
+			if (index < 0) {
+				return this.otherLinks.computeIfAbsent(linkId, id -> new AtomicIntegerArray(numberOfSlots));
+			}
+			AtomicIntegerArray row = this.rows.get(index);
+			if (row == null) {
+				AtomicIntegerArray newRow = new AtomicIntegerArray(numberOfSlots);
+				row = this.rows.compareAndSet(index, null, newRow) ? newRow : this.rows.get(index);
+			}
+			return row;
+		}
+	}
 }
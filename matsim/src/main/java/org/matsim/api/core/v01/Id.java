@@ -22,6 +22,7 @@ package org.matsim.api.core.v01;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Node;
@@ -41,6 +42,7 @@ import org.matsim.vehicles.Vehicle;
 public abstract class Id<T> implements Comparable<Id<T>> {
 
 	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static Map<Class<?>, AtomicInteger> numberOfIds = new ConcurrentHashMap<Class<?>, AtomicInteger>();
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -58,20 +60,33 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	 * This method supports a cache where ids are stored and re-used per type.   
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
-		Map<String, Id<?>> map = cache.get(type);
-		if (map == null) {
-			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
-		}
+		Map<String, Id<?>> map = cache.computeIfAbsent(type, t -> new ConcurrentHashMap<String, Id<?>>());
 		Gbl.assertNotNull(key);
 		Id<?> id = map.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
-			map.put(key, id);
+			// computeIfAbsent makes sure only one id (and thus only one index) is created per key
+			AtomicInteger counter = numberOfIds.computeIfAbsent(type, t -> new AtomicInteger());
+			id = map.computeIfAbsent(key, k -> new IdImpl<T>(k, counter.getAndIncrement()));
 		}
 		
 		return (Id<T>) id;
 	}
+
+	/**
+	 * @return the number of ids created so far for the given type. The indices of all of them (see {@link #index()})
+	 * are smaller than this number.
+	 */
+	public static int getNumberOfIds(final Class<?> type) {
+		AtomicInteger counter = numberOfIds.get(type);
+		return counter == null ? 0 : counter.get();
+	}
+
+	/**
+	 * @return the index of this id among the ids of the type it was created for, in the order of creation. The indices
+	 * of each type start at 0 and have no gaps, so they can be used to store data per id in arrays instead of maps
+	 * (see {@link #getNumberOfIds(Class)}).
+	 */
+	public abstract int index();
 	
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
@@ -113,9 +128,16 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index) {
 			this.id = id;
+			this.index = index;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
 		}
 
 		@Override
@@ -32,9 +32,11 @@ public final class LinkStatsConfigGroup extends ReflectiveConfigGroup {
 
 	private static final String WRITELINKSTATSINTERVAL = "writeLinkStatsInterval";
 	private static final String AVERAGELINKSTATSOVERITERATIONS = "averageLinkStatsOverIterations";
+	private static final String WRITELINKSTATSCSV = "writeLinkStatsCsv";
 
 	private int writeLinkStatsInterval = 10;
 	private int averageLinkStatsOverIterations = 5;
+	private boolean writeLinkStatsCsv = false;
 
 	public LinkStatsConfigGroup() {
 		super(GROUP_NAME);
@@ -46,6 +48,8 @@ public final class LinkStatsConfigGroup extends ReflectiveConfigGroup {
 		comments.put(WRITELINKSTATSINTERVAL, "Specifies how often the link stats should be calculated and written. Use 0 to disable the generation of link stats.");
 		comments.put(AVERAGELINKSTATSOVERITERATIONS, "Specifies over how many iterations the link volumes should be averaged that are used for the " +
 				"link statistics. Use 1 or 0 to only use the link volumes of a single iteration. This values cannot be larger than the value specified for " + WRITELINKSTATSINTERVAL);
+		comments.put(WRITELINKSTATSCSV, "If true, the link stats are additionally written column-wise (one line per link and hour) " +
+				"in CSV format, which is easier to load into data analysis tools.");
 		return comments;
 	}
 
@@ -68,4 +72,14 @@ public final class LinkStatsConfigGroup extends ReflectiveConfigGroup {
 	public void setAverageLinkStatsOverIterations(int averageLinkStatsOverIterations) {
 		this.averageLinkStatsOverIterations = averageLinkStatsOverIterations;
 	}
+
+	@StringGetter( WRITELINKSTATSCSV )
+	public boolean isWriteLinkStatsCsv() {
+		return this.writeLinkStatsCsv;
+	}
+
+	@StringSetter( WRITELINKSTATSCSV )
+	public void setWriteLinkStatsCsv(boolean writeLinkStatsCsv) {
+		this.writeLinkStatsCsv = writeLinkStatsCsv;
+	}
 }
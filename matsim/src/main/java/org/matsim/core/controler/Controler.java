@@ -94,6 +94,7 @@ public final class Controler implements ControlerI, MatsimServices, AllowsConfig
 	public static final String FILENAME_TRANSIT_VEHICLES = "transitVehicles.xml.gz";
 	public static final String FILENAME_VEHICLES = "vehicles.xml.gz";
 	public static final String FILENAME_LINKSTATS = "linkstats.txt.gz";
+	public static final String FILENAME_LINKSTATS_CSV = "linkstats.csv.gz";
 	public static final String FILENAME_TRAVELDISTANCESTATS = "traveldistancestats";
 	public static final String OUTPUT_PREFIX = "output_";
 
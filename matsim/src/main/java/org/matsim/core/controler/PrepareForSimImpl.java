@@ -18,6 +18,7 @@ import org.matsim.core.population.algorithms.AbstractPersonAlgorithm;
 import org.matsim.core.population.algorithms.ParallelPersonAlgorithmUtils;
 import org.matsim.core.population.algorithms.PersonPrepareForSim;
 import org.matsim.core.router.PlanRouter;
+import org.matsim.core.router.SingleModeNetworksCache;
 import org.matsim.core.router.TripRouter;
 import org.matsim.core.scenario.Lockable;
 import org.matsim.facilities.ActivityFacilities;
@@ -33,6 +34,8 @@ import javax.inject.Provider;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim {
 	// I think it is ok to have this public final.  Since one may want to use it as a delegate.  kai, may'18
@@ -54,11 +57,13 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 	private final Provider<TripRouter> tripRouterProvider;
 	private final QSimConfigGroup qSimConfigGroup;
 	private final FacilitiesConfigGroup facilitiesConfigGroup;
+	private final SingleModeNetworksCache singleModeNetworksCache;
 
 	@Inject
 	PrepareForSimImpl(GlobalConfigGroup globalConfigGroup, Scenario scenario, Network network,
 				Population population, ActivityFacilities activityFacilities, Provider<TripRouter> tripRouterProvider,
-				QSimConfigGroup qSimConfigGroup, FacilitiesConfigGroup facilitiesConfigGroup) {
+				QSimConfigGroup qSimConfigGroup, FacilitiesConfigGroup facilitiesConfigGroup,
+				SingleModeNetworksCache singleModeNetworksCache) {
 		this.globalConfigGroup = globalConfigGroup;
 		this.scenario = scenario;
 		this.network = network;
@@ -67,6 +72,7 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 		this.tripRouterProvider = tripRouterProvider;
 		this.qSimConfigGroup = qSimConfigGroup;
 		this.facilitiesConfigGroup = facilitiesConfigGroup;
+		this.singleModeNetworksCache = singleModeNetworksCache;
 	}
 
 
@@ -77,16 +83,14 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 		 * own single-mode network. However, this assumes that the main mode is car - which PersonPrepareForSim also does. Should
 		 * be probably adapted in a way that other main modes are possible as well. cdobler, oct'15.
 		 */
-		final Network carOnlyNetwork;
+		long startTime = System.currentTimeMillis();
+		final CompletableFuture<Network> carOnlyNetworkFuture;
 		if (NetworkUtils.isMultimodal(network)) {
 			log.info("Network seems to be multimodal. Create car-only network which is handed over to PersonPrepareForSim.");
-			TransportModeNetworkFilter filter = new TransportModeNetworkFilter(network);
-			carOnlyNetwork = NetworkUtils.createNetwork();
-			HashSet<String> modes = new HashSet<>();
-			modes.add(TransportMode.car);
-			filter.filter(carOnlyNetwork, modes);
+			// the filtering does not depend on the facilities, so it runs while these are prepared
+			carOnlyNetworkFuture = CompletableFuture.supplyAsync(this::getCarOnlyNetwork);
 		} else {
-			carOnlyNetwork = network;
+			carOnlyNetworkFuture = CompletableFuture.completedFuture(network);
 		}
 
 		//matsim-724
@@ -118,10 +122,20 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 			default:
 				throw new RuntimeException("Facilities source '"+this.facilitiesConfigGroup.getFacilitiesSource()+"' is not implemented.");
 		}
+		startTime = logDuration("preparing facilities", startTime);
+
+		final Network carOnlyNetwork;
+		try {
+			carOnlyNetwork = carOnlyNetworkFuture.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+		startTime = logDuration("waiting for car-only network", startTime);
 
 		// get links for facilities
 		// using car only network to get the links for facilities. Amit July'18
-		XY2LinksForFacilities.run(carOnlyNetwork, this.activityFacilities);
+		XY2LinksForFacilities.run(carOnlyNetwork, this.activityFacilities, globalConfigGroup.getNumberOfThreads());
+		startTime = logDuration("assigning links to facilities", startTime);
 
 		// make sure all routes are calculated.
 		// At least xy2links is needed here, i.e. earlier than PrepareForMobsimImpl.  It could, however, presumably be separated out
@@ -134,6 +148,7 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 					}
 				}
 		);
+		startTime = logDuration("preparing persons", startTime);
 
 		// yyyy from a behavioral perspective, the vehicle must be somehow linked to
 		// the person (maybe via the household).    kai, feb'18
@@ -149,6 +164,7 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 			default:
 				throw new RuntimeException( Gbl.NOT_IMPLEMENTED ) ;
 		}
+		logDuration("creating vehicles", startTime);
 		
 		if (scenario instanceof Lockable) {
 			((Lockable)scenario).setLocked();
@@ -170,6 +186,33 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 		// (yyyy means that if someone replaces prepareForSim and does not add the above lines, the containers are not locked.  kai, nov'16)
 	}
 
+	/**
+	 * Uses the same car-only network as the network routers, so it is only filtered once and
+	 * its spatial index is shared.
+	 */
+	private Network getCarOnlyNetwork() {
+		Map<String, Network> cache = this.singleModeNetworksCache.getSingleModeNetworksCache();
+		// same lock as in NetworkRoutingProvider
+		synchronized (cache) {
+			Network carOnlyNetwork = cache.get(TransportMode.car);
+			if (carOnlyNetwork == null) {
+				TransportModeNetworkFilter filter = new TransportModeNetworkFilter(network);
+				carOnlyNetwork = NetworkUtils.createNetwork();
+				HashSet<String> modes = new HashSet<>();
+				modes.add(TransportMode.car);
+				filter.filter(carOnlyNetwork, modes);
+				cache.put(TransportMode.car, carOnlyNetwork);
+			}
+			return carOnlyNetwork;
+		}
+	}
+
+	private static long logDuration(String step, long startTime) {
+		long now = System.currentTimeMillis();
+		log.info("PrepareForSim: " + step + " took " + ((now - startTime) / 1000.0) + " seconds.");
+		return now;
+	}
+
 	private void createAndAddVehiclesForEveryNetworkMode(final Map<String, VehicleType> modeVehicleTypes) {
 		for (Id<Person> personId : scenario.getPopulation().getPersons().keySet()) {
 			for (String mode : scenario.getConfig().qsim().getMainModes()) {
@@ -19,6 +19,13 @@
 
 package org.matsim.core.controler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
@@ -36,11 +43,23 @@ public class XY2LinksForFacilities {
 
     public static final Logger LOGGER = Logger.getLogger(XY2LinksForFacilities.class);
 
+    private static final int MIN_FACILITIES_PER_THREAD = 1000;
+
     public static void run(Network network, ActivityFacilities facilities){
+        run(network, facilities, 1);
+    }
+
+    /**
+     * Same as {@link #run(Network, ActivityFacilities)}, but looks up the nearest links of the facilities
+     * using up to <code>numberOfThreads</code> threads. The spatial index of the network is built before the
+     * threads are started and then shared between them.
+     */
+    public static void run(Network network, ActivityFacilities facilities, int numberOfThreads){
 
         int coordNullWarn = 0;
         int linkNullWarn = 0;
 
+        List<ActivityFacility> facilitiesWithoutLink = new ArrayList<>();
         for (ActivityFacility activityFacility : facilities.getFacilities().values()) {
 
             if (activityFacility.getCoord()==null && activityFacility.getLinkId()== null) {
@@ -51,12 +70,7 @@ public class XY2LinksForFacilities {
                     LOGGER.warn(Gbl.ONLYONCE);
                     linkNullWarn++;
                 }
-                Link link = NetworkUtils.getNearestLink(network, activityFacility.getCoord());
-                if (link==null) {
-                    LOGGER.warn("No nearest link is found for coord "+activityFacility.getCoord());
-                } else{
-                    ((ActivityFacilityImpl)activityFacility).setLinkId(link.getId());
-                }
+                facilitiesWithoutLink.add(activityFacility);
 
             } else if (activityFacility.getCoord()==null){
                 if (coordNullWarn==0) {
@@ -66,5 +80,45 @@ public class XY2LinksForFacilities {
                 }
             }
         }
+        if (facilitiesWithoutLink.isEmpty()) {
+            return;
+        }
+
+        int numOfThreads = Math.max(1, Math.min(numberOfThreads, facilitiesWithoutLink.size() / MIN_FACILITIES_PER_THREAD));
+        if (numOfThreads == 1) {
+            assignNearestLinks(network, facilitiesWithoutLink);
+            return;
+        }
+
+        // build the spatial index once, before the threads would all wait for it
+        NetworkUtils.getNearestNode(network, facilitiesWithoutLink.get(0).getCoord());
+
+        ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(numOfThreads);
+            int chunkSize = (facilitiesWithoutLink.size() + numOfThreads - 1) / numOfThreads;
+            for (int from = 0; from < facilitiesWithoutLink.size(); from += chunkSize) {
+                final List<ActivityFacility> chunk = facilitiesWithoutLink.subList(from, Math.min(from + chunkSize, facilitiesWithoutLink.size()));
+                futures.add(executor.submit(() -> assignNearestLinks(network, chunk)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assignNearestLinks(Network network, List<ActivityFacility> facilities) {
+        for (ActivityFacility activityFacility : facilities) {
+            Link link = NetworkUtils.getNearestLink(network, activityFacility.getCoord());
+            if (link==null) {
+                LOGGER.warn("No nearest link is found for coord "+activityFacility.getCoord());
+            } else{
+                ((ActivityFacilityImpl)activityFacility).setLinkId(link.getId());
+            }
+        }
     }
 }
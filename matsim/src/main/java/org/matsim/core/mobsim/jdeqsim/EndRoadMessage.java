@@ -38,13 +38,23 @@ public class EndRoadMessage extends EventMessage {
 			vehicle.initiateEndingLegMode();
 			vehicle.moveToFirstLinkInNextLeg();
 			Road road = Road.getRoad(vehicle.getCurrentLinkId());
-			road.enterRequest(vehicle, getMessageArrivalTime());
+			enterRequest(road);
 		} else if (!vehicle.isCurrentLegFinished()) {
 			// if leg is not finished yet
 			vehicle.moveToNextLinkInLeg();
 
 			Road nextRoad = Road.getRoad(vehicle.getCurrentLinkId());
+			enterRequest(nextRoad);
+		}
+	}
+
+	private void enterRequest(Road nextRoad) {
+		SimUnit currentRoad = getReceivingUnit();
+		if (currentRoad == null || currentRoad.getScheduler() == nextRoad.getScheduler()) {
 			nextRoad.enterRequest(vehicle, getMessageArrivalTime());
+		} else {
+			// the next road is simulated by another scheduler, which may not be accessed directly
+			vehicle.scheduleEnterRequestMessage(getMessageArrivalTime(), nextRoad);
 		}
 	}
 
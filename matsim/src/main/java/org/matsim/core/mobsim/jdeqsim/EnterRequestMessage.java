@@ -0,0 +1,45 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2008 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+/**
+ * The micro-simulation internal handler for asking a road to be entered.
+ * Only used, if the road is simulated by another scheduler than the road the
+ * vehicle is coming from (see {@link ParallelJDEQSimulation}); otherwise the
+ * request is made directly when the end of the previous road is reached.
+ */
+public class EnterRequestMessage extends EventMessage {
+
+	@Override
+	public void handleMessage() {
+		Road road = (Road) this.getReceivingUnit();
+		road.enterRequest(vehicle, getMessageArrivalTime());
+	}
+
+	public EnterRequestMessage(Scheduler scheduler, Vehicle vehicle) {
+		super(scheduler, vehicle);
+	}
+
+	@Override
+	public void processEvent() {
+		// don't need to output any event
+	}
+
+}
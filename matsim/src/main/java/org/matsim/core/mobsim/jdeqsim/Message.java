@@ -40,6 +40,11 @@ public abstract class Message implements Comparable<Message> {
 	protected int priority = 0;
 	private boolean isAlive = true;
 
+	// intrusive links used by the MessageQueue, so that messages can be removed in O(1) without allocating list nodes
+	Message queuePrev = null;
+	Message queueNext = null;
+	int queueBucket = -1;
+
 	public Message() {
 	}
 
@@ -96,14 +101,28 @@ public abstract class Message implements Comparable<Message> {
 		this.priority = priority;
 	}
 
+	/**
+	 * @deprecated the flag is not evaluated by the {@link MessageQueue} any more, which
+	 *             unlinks removed messages directly; use
+	 *             {@link MessageQueue#removeMessage(Message)} instead
+	 */
+	@Deprecated
 	public void killMessage() {
 		isAlive = false;
 	}
 
+	/**
+	 * @deprecated see {@link #killMessage()}
+	 */
+	@Deprecated
 	public void reviveMessage() {
 		isAlive = true;
 	}
 
+	/**
+	 * @deprecated see {@link #killMessage()}
+	 */
+	@Deprecated
 	public boolean isAlive() {
 		return isAlive;
 	}
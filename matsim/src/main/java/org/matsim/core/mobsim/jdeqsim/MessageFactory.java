@@ -29,142 +29,181 @@ import java.util.LinkedList;
  */
 public class MessageFactory {
 
-	private static LinkedList<EndLegMessage> endLegMessageQueue = new LinkedList<EndLegMessage>();
-	private static LinkedList<EnterRoadMessage> enterRoadMessageQueue = new LinkedList<EnterRoadMessage>();
-	private static LinkedList<StartingLegMessage> startingLegMessageQueue = new LinkedList<StartingLegMessage>();
-	private static LinkedList<LeaveRoadMessage> leaveRoadMessageQueue = new LinkedList<LeaveRoadMessage>();
-	private static LinkedList<EndRoadMessage> endRoadMessageQueue = new LinkedList<EndRoadMessage>();
+	/**
+	 * The messages are pooled per thread, as the {@link ParallelJDEQSimulation} creates and disposes messages in
+	 * several threads at the same time. A message disposed by another thread than the one that created it just
+	 * moves to the pool of that thread.
+	 */
+	private static final ThreadLocal<MessagePools> pools = new ThreadLocal<MessagePools>() {
+		@Override
+		protected MessagePools initialValue() {
+			return new MessagePools();
+		}
+	};
+
+	private static final class MessagePools {
+		private final LinkedList<EndLegMessage> endLegMessageQueue = new LinkedList<EndLegMessage>();
+		private final LinkedList<EnterRoadMessage> enterRoadMessageQueue = new LinkedList<EnterRoadMessage>();
+		private final LinkedList<StartingLegMessage> startingLegMessageQueue = new LinkedList<StartingLegMessage>();
+		private final LinkedList<LeaveRoadMessage> leaveRoadMessageQueue = new LinkedList<LeaveRoadMessage>();
+		private final LinkedList<EndRoadMessage> endRoadMessageQueue = new LinkedList<EndRoadMessage>();
+		private final LinkedList<EnterRequestMessage> enterRequestMessageQueue = new LinkedList<EnterRequestMessage>();
 
-	private static LinkedList<DeadlockPreventionMessage> deadlockPreventionMessageQueue = new LinkedList<DeadlockPreventionMessage>();
+		private final LinkedList<DeadlockPreventionMessage> deadlockPreventionMessageQueue = new LinkedList<DeadlockPreventionMessage>();
+	}
 
 	public static void disposeEndLegMessage(EndLegMessage message) {
 		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
-			endLegMessageQueue.add(message);
+			pools.get().endLegMessageQueue.add(message);
 		}
 	}
 
 	public static void disposeEnterRoadMessage(EnterRoadMessage message) {
 		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
-			enterRoadMessageQueue.add(message);
+			pools.get().enterRoadMessageQueue.add(message);
 		}
 	}
 
 	public static void disposeStartingLegMessage(StartingLegMessage message) {
 		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
-			startingLegMessageQueue.add(message);
+			pools.get().startingLegMessageQueue.add(message);
 		}
 	}
 
 	public static void disposeLeaveRoadMessage(LeaveRoadMessage message) {
 		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
-			leaveRoadMessageQueue.add(message);
+			pools.get().leaveRoadMessageQueue.add(message);
 		}
 	}
 
 	public static void disposeEndRoadMessage(EndRoadMessage message) {
 		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
-			endRoadMessageQueue.add(message);
+			pools.get().endRoadMessageQueue.add(message);
+		}
+	}
+
+	public static void disposeEnterRequestMessage(EnterRequestMessage message) {
+		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
+			pools.get().enterRequestMessageQueue.add(message);
 		}
 	}
 
 	public static void disposeDeadlockPreventionMessage(DeadlockPreventionMessage message) {
 		if (!JDEQSimConfigGroup.isGC_MESSAGES()) {
-			deadlockPreventionMessageQueue.add(message);
+			pools.get().deadlockPreventionMessageQueue.add(message);
 		}
 	}
 
 	public static EndLegMessage getEndLegMessage(Scheduler scheduler, Vehicle vehicle) {
-		if (endLegMessageQueue.size() == 0) {
+		LinkedList<EndLegMessage> queue = pools.get().endLegMessageQueue;
+		if (queue.isEmpty()) {
 			return new EndLegMessage(scheduler, vehicle);
 		} else {
-			EndLegMessage message = endLegMessageQueue.poll();
+			EndLegMessage message = queue.poll();
 			message.resetMessage(scheduler, vehicle);
 			return message;
 		}
 	}
 
 	public static EnterRoadMessage getEnterRoadMessage(Scheduler scheduler, Vehicle vehicle) {
-		if (enterRoadMessageQueue.size() == 0) {
+		LinkedList<EnterRoadMessage> queue = pools.get().enterRoadMessageQueue;
+		if (queue.isEmpty()) {
 			return new EnterRoadMessage(scheduler, vehicle);
 		} else {
-			EnterRoadMessage message = enterRoadMessageQueue.poll();
+			EnterRoadMessage message = queue.poll();
 			message.resetMessage(scheduler, vehicle);
 			return message;
 		}
 	}
 
 	public static StartingLegMessage getStartingLegMessage(Scheduler scheduler, Vehicle vehicle) {
-		if (startingLegMessageQueue.size() == 0) {
+		LinkedList<StartingLegMessage> queue = pools.get().startingLegMessageQueue;
+		if (queue.isEmpty()) {
 			return new StartingLegMessage(scheduler, vehicle);
 		} else {
-			StartingLegMessage message = startingLegMessageQueue.poll();
+			StartingLegMessage message = queue.poll();
 			message.resetMessage(scheduler, vehicle);
 			return message;
 		}
 	}
 
 	public static LeaveRoadMessage getLeaveRoadMessage(Scheduler scheduler, Vehicle vehicle) {
-		if (leaveRoadMessageQueue.size() == 0) {
+		LinkedList<LeaveRoadMessage> queue = pools.get().leaveRoadMessageQueue;
+		if (queue.isEmpty()) {
 			return new LeaveRoadMessage(scheduler, vehicle);
 		} else {
-			LeaveRoadMessage message = leaveRoadMessageQueue.poll();
+			LeaveRoadMessage message = queue.poll();
 			message.resetMessage(scheduler, vehicle);
 			return message;
 		}
 	}
 
 	public static EndRoadMessage getEndRoadMessage(Scheduler scheduler, Vehicle vehicle) {
-		if (endRoadMessageQueue.size() == 0) {
+		LinkedList<EndRoadMessage> queue = pools.get().endRoadMessageQueue;
+		if (queue.isEmpty()) {
 			return new EndRoadMessage(scheduler, vehicle);
 		} else {
-			EndRoadMessage message = endRoadMessageQueue.poll();
+			EndRoadMessage message = queue.poll();
+			message.resetMessage(scheduler, vehicle);
+			return message;
+		}
+	}
+
+	public static EnterRequestMessage getEnterRequestMessage(Scheduler scheduler, Vehicle vehicle) {
+		LinkedList<EnterRequestMessage> queue = pools.get().enterRequestMessageQueue;
+		if (queue.isEmpty()) {
+			return new EnterRequestMessage(scheduler, vehicle);
+		} else {
+			EnterRequestMessage message = queue.poll();
 			message.resetMessage(scheduler, vehicle);
 			return message;
 		}
 	}
 
 	public static DeadlockPreventionMessage getDeadlockPreventionMessage(Scheduler scheduler, Vehicle vehicle) {
-		if (deadlockPreventionMessageQueue.size() == 0) {
+		LinkedList<DeadlockPreventionMessage> queue = pools.get().deadlockPreventionMessageQueue;
+		if (queue.isEmpty()) {
 			return new DeadlockPreventionMessage(scheduler, vehicle);
 		} else {
-			DeadlockPreventionMessage message = deadlockPreventionMessageQueue.poll();
+			DeadlockPreventionMessage message = queue.poll();
 			message.resetMessage(scheduler, vehicle);
 			return message;
 		}
 	}
 
+	/**
+	 * Drops the pooled messages of the current thread.
+	 */
 	public static void GC_ALL_MESSAGES() {
-		endLegMessageQueue = new LinkedList<EndLegMessage>();
-		enterRoadMessageQueue = new LinkedList<EnterRoadMessage>();
-		startingLegMessageQueue = new LinkedList<StartingLegMessage>();
-		leaveRoadMessageQueue = new LinkedList<LeaveRoadMessage>();
-		endRoadMessageQueue = new LinkedList<EndRoadMessage>();
-
-		deadlockPreventionMessageQueue = new LinkedList<DeadlockPreventionMessage>();
+		pools.set(new MessagePools());
 	}
 
 	public static LinkedList<EndLegMessage> getEndLegMessageQueue() {
-		return endLegMessageQueue;
+		return pools.get().endLegMessageQueue;
 	}
 
 	public static LinkedList<EnterRoadMessage> getEnterRoadMessageQueue() {
-		return enterRoadMessageQueue;
+		return pools.get().enterRoadMessageQueue;
 	}
 
 	public static LinkedList<StartingLegMessage> getStartingLegMessageQueue() {
-		return startingLegMessageQueue;
+		return pools.get().startingLegMessageQueue;
 	}
 
 	public static LinkedList<LeaveRoadMessage> getLeaveRoadMessageQueue() {
-		return leaveRoadMessageQueue;
+		return pools.get().leaveRoadMessageQueue;
 	}
 
 	public static LinkedList<EndRoadMessage> getEndRoadMessageQueue() {
-		return endRoadMessageQueue;
+		return pools.get().endRoadMessageQueue;
+	}
+
+	public static LinkedList<EnterRequestMessage> getEnterRequestMessageQueue() {
+		return pools.get().enterRequestMessageQueue;
 	}
 
 	public static LinkedList<DeadlockPreventionMessage> getDeadlockPreventionMessageQueue() {
-		return deadlockPreventionMessageQueue;
+		return pools.get().deadlockPreventionMessageQueue;
 	}
 
 }
@@ -19,73 +19,267 @@
 
 package org.matsim.core.mobsim.jdeqsim;
 
-import java.util.PriorityQueue;
-
 /**
  * The message queue of the micro-simulation.
  *
+ * <p>The queue is implemented as calendar queue (R. Brown, "Calendar queues: a fast O(1) priority queue
+ * implementation for the simulation event set problem", CACM 31(10), 1988): messages are hashed by their
+ * arrival time into an array of buckets ("days") of fixed width, each bucket being a sorted, doubly linked
+ * list. Dequeuing walks through the buckets like through the days of a calendar. The number of buckets and
+ * their width are adapted to the number of messages and to the time between them, so both enqueuing and
+ * dequeuing are O(1) amortized.</p>
+ *
+ * <p>The links of the lists are stored in the messages themselves, so a message can only be in one queue
+ * at a time, but it can be removed in O(1) without leaving dead entries behind.</p>
+ *
+ * <p>Messages with the same arrival time are ordered by priority (see {@link Message#compareTo(Message)}),
+ * messages with the same time and priority are returned in the order they were put into the queue.</p>
+ *
  * @author rashid_waraich
  */
 public class MessageQueue {
-	private PriorityQueue<Message> queue1 = new PriorityQueue<Message>();
+
+	private static final int MIN_BUCKETS = 2;
+	private static final int SAMPLE_SIZE = 25;
+
+	private Message[] heads = new Message[MIN_BUCKETS];
+	private Message[] tails = new Message[MIN_BUCKETS];
+	private double bucketWidth = 1.0;
+	/** the number of the bucket currently looked at, counted from time 0 (i.e. not wrapped around the array) */
+	private long currentBucket = 0;
 	private int queueSize = 0;
 
 	/**
-	 * 
-	 * Putting a message into the queue
+	 *
+	 * Putting a message into the queue. A message can be in at most one queue at a
+	 * time; once it has been taken out of the queue (by {@link #getNextMessage()}
+	 * or {@link #removeMessage(Message)}), it may be put into a queue again.
 	 *
 	 * @param m
+	 * @throws IllegalStateException if the message is already in a queue
 	 */
 	public void putMessage(Message m) {
-		queue1.add(m);
+		if (m.queueBucket >= 0) {
+			throw new IllegalStateException("Message is already in a queue: " + m);
+		}
+		enqueue(m);
 		queueSize++;
+		if (queueSize > 2 * heads.length) {
+			resize(2 * heads.length);
+		}
 	}
 
 	/**
-	 * 
-	 * Remove the message from the queue and discard it. - queue1.remove(m) does
-	 * not function, because it discards all message with the same priority as m
-	 * from the queue. - This java api bug is reported at:
-	 * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6207984
-	 * 
-	 * => queue1.removeAll(Collections.singletonList(m)); can be used, but it has
-	 * been removed because of just putting a flag to kill a message is more efficient.
-	 * 
+	 *
+	 * Remove the message from the queue and discard it. Messages which are not in
+	 * the queue (e.g. because they were already processed) are ignored.
+	 *
 	 * @param m
 	 */
 	public void removeMessage(Message m) {
-		m.killMessage();
+		if (m.queueBucket < 0) {
+			return;
+		}
+		unlink(m);
 		queueSize--;
+		if (queueSize < heads.length / 2 && heads.length > MIN_BUCKETS) {
+			resize(heads.length / 2);
+		}
 	}
 
 	/**
-	 * 
+	 *
 	 * get the first message in the queue (with least time stamp)
 	 *
 	 * @return
 	 */
 	public Message getNextMessage() {
-		Message m = null;
-		if (queue1.peek() != null) {
-			// skip over dead messages
-			while ((m = queue1.poll()) != null && !m.isAlive()) {
-
-			}
-			// only decrement, if message fetched
-			if (m != null) {
-				queueSize--;
-			}
+		if (queueSize == 0) {
+			return null;
+		}
+		Message m = dequeueFirst();
+		queueSize--;
+		if (queueSize < heads.length / 2 && heads.length > MIN_BUCKETS) {
+			resize(heads.length / 2);
 		}
+		return m;
+	}
 
+	/**
+	 *
+	 * get the first message in the queue without removing it
+	 *
+	 * @return
+	 */
+	public Message peekNextMessage() {
+		if (queueSize == 0) {
+			return null;
+		}
+		Message m = dequeueFirst();
+		enqueueFirst(m);
 		return m;
 	}
 
 	public boolean isEmpty() {
-		return queue1.size() == 0;
+		return queueSize == 0;
 	}
 
 	public int getQueueSize() {
 		return queueSize;
 	}
 
-}
\ No newline at end of file
+	private long bucketOf(final double time) {
+		return (long) Math.floor(time / bucketWidth);
+	}
+
+	private void enqueue(Message m) {
+		int index = bucketIndexOf(m);
+		// new messages are usually later than the ones already in the bucket, so search from the end
+		Message prev = tails[index];
+		while (prev != null && prev.compareTo(m) > 0) {
+			prev = prev.queuePrev;
+		}
+		link(m, index, prev);
+	}
+
+	/**
+	 * Like {@link #enqueue(Message)}, but puts the message before other messages with same time and priority.
+	 * Used to put messages back which were taken out of the queue temporarily.
+	 */
+	private void enqueueFirst(Message m) {
+		int index = bucketIndexOf(m);
+		Message next = heads[index];
+		while (next != null && next.compareTo(m) < 0) {
+			next = next.queueNext;
+		}
+		link(m, index, (next == null) ? tails[index] : next.queuePrev);
+	}
+
+	private int bucketIndexOf(Message m) {
+		long bucket = bucketOf(m.getMessageArrivalTime());
+		if (bucket < currentBucket) {
+			// a message earlier than the ones looked at so far; continue the search from there
+			currentBucket = bucket;
+		}
+		return (int) Math.floorMod(bucket, (long) heads.length);
+	}
+
+	private void link(Message m, int index, Message prev) {
+		m.queueBucket = index;
+		Message next = (prev == null) ? heads[index] : prev.queueNext;
+		m.queuePrev = prev;
+		m.queueNext = next;
+		if (prev == null) {
+			heads[index] = m;
+		} else {
+			prev.queueNext = m;
+		}
+		if (next == null) {
+			tails[index] = m;
+		} else {
+			next.queuePrev = m;
+		}
+	}
+
+	private void unlink(Message m) {
+		int index = m.queueBucket;
+		if (m.queuePrev == null) {
+			heads[index] = m.queueNext;
+		} else {
+			m.queuePrev.queueNext = m.queueNext;
+		}
+		if (m.queueNext == null) {
+			tails[index] = m.queuePrev;
+		} else {
+			m.queueNext.queuePrev = m.queuePrev;
+		}
+		m.queuePrev = null;
+		m.queueNext = null;
+		m.queueBucket = -1;
+	}
+
+	private Message dequeueFirst() {
+		// walk through one "year" of buckets, starting at the current one
+		int nBuckets = heads.length;
+		for (int i = 0; i < nBuckets && currentBucket < Long.MAX_VALUE; i++) {
+			Message head = heads[(int) Math.floorMod(currentBucket, (long) nBuckets)];
+			if (head != null && bucketOf(head.getMessageArrivalTime()) <= currentBucket) {
+				unlink(head);
+				return head;
+			}
+			currentBucket++;
+		}
+
+		// nothing found within a year: the next message is far away, search it directly
+		Message first = null;
+		for (Message head : heads) {
+			if (head != null && (first == null || head.compareTo(first) < 0)) {
+				first = head;
+			}
+		}
+		currentBucket = bucketOf(first.getMessageArrivalTime());
+		unlink(first);
+		return first;
+	}
+
+	private void resize(int newNumberOfBuckets) {
+		double newWidth = estimateBucketWidth();
+
+		Message[] oldHeads = heads;
+		heads = new Message[newNumberOfBuckets];
+		tails = new Message[newNumberOfBuckets];
+		bucketWidth = newWidth;
+		currentBucket = Long.MAX_VALUE;
+		for (Message head : oldHeads) {
+			Message m = head;
+			while (m != null) {
+				Message next = m.queueNext;
+				m.queuePrev = null;
+				m.queueNext = null;
+				enqueue(m); // also resets currentBucket to the earliest message
+				m = next;
+			}
+		}
+		if (currentBucket == Long.MAX_VALUE) {
+			currentBucket = 0;
+		}
+	}
+
+	/**
+	 * Estimates a good bucket width from the average time between the next few messages,
+	 * ignoring separations much larger than the average (as proposed by Brown).
+	 */
+	private double estimateBucketWidth() {
+		int n = Math.min(SAMPLE_SIZE, queueSize);
+		if (n < 2) {
+			return bucketWidth;
+		}
+		Message[] sample = new Message[n];
+		long savedBucket = currentBucket;
+		for (int i = 0; i < n; i++) {
+			sample[i] = dequeueFirst();
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			enqueueFirst(sample[i]);
+		}
+		currentBucket = Math.min(savedBucket, bucketOf(sample[0].getMessageArrivalTime()));
+
+		double total = sample[n - 1].getMessageArrivalTime() - sample[0].getMessageArrivalTime();
+		if (Double.isInfinite(total) || Double.isNaN(total)) {
+			return bucketWidth;
+		}
+		double average = total / (n - 1);
+		double sum = 0;
+		int count = 0;
+		for (int i = 1; i < n; i++) {
+			double separation = sample[i].getMessageArrivalTime() - sample[i - 1].getMessageArrivalTime();
+			if (separation <= 2 * average) {
+				sum += separation;
+				count++;
+			}
+		}
+		double width = (count > 0) ? 3 * sum / count : 0;
+		return (width > 0) ? width : bucketWidth;
+	}
+
+}
@@ -0,0 +1,245 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelJDEQSimulation.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.mobsim.framework.Mobsim;
+import org.matsim.core.mobsim.jdeqsim.util.Timer;
+import org.matsim.core.utils.misc.Time;
+
+/**
+ * A multi-threaded version of the {@link JDEQSimulation}.
+ *
+ * <p>The network is cut into stripes along the x coordinate of the links' from nodes, with about the same
+ * number of links each. Every stripe is simulated by its own {@link PartitionScheduler}. The simulation
+ * advances in time windows: within a window, the partitions process their messages independently of each
+ * other; between two windows, all partitions wait at a barrier while the messages sent across the partition
+ * borders are delivered and the collected events are passed on in time order.</p>
+ *
+ * <p>The length of the time windows is the smallest free speed travel time of all links leading into another
+ * partition (but at least one second), so a vehicle entering such a link during a window can not reach the
+ * next partition before the window ends. Interactions across the border which take no simulated time (a
+ * vehicle asking to enter the first road of the next partition, or leaving the last road of the previous one)
+ * are delayed to the end of the window in which they happen. The results therefore differ slightly from the
+ * single-threaded simulation, but they are deterministic, i.e. they do not depend on the scheduling of the
+ * threads.</p>
+ *
+ * <p>Set the number of threads with {@link JDEQSimConfigGroup#setNumberOfThreads(int)}.</p>
+ */
+public class ParallelJDEQSimulation implements Mobsim {
+
+	private final static Logger log = Logger.getLogger(ParallelJDEQSimulation.class);
+
+	private static final double MIN_WINDOW_LENGTH = 1.0;
+
+	private final JDEQSimConfigGroup config;
+	private final Scenario scenario;
+	private final EventsManager events;
+	private final int numberOfThreads;
+
+	protected final PlansConfigGroup.ActivityDurationInterpretation activityDurationInterpretation;
+
+	@Inject
+	public ParallelJDEQSimulation(final JDEQSimConfigGroup config, final Scenario scenario, final EventsManager events) {
+		this(config, scenario, events, config.getNumberOfThreads());
+	}
+
+	public ParallelJDEQSimulation(final JDEQSimConfigGroup config, final Scenario scenario, final EventsManager events, final int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads must be at least 1, but is " + numberOfThreads);
+		}
+		this.config = config;
+		this.scenario = scenario;
+		this.events = events;
+		this.numberOfThreads = numberOfThreads;
+		this.activityDurationInterpretation = this.scenario.getConfig().plans().getActivityDurationInterpretation();
+	}
+
+	@Override
+	public void run() {
+		Road.setConfig(this.config);
+		PartitionEventsBuffer eventsBuffer = new PartitionEventsBuffer(this.events);
+		Message.setEventsManager(eventsBuffer);
+
+		this.events.initProcessing();
+		Timer t = new Timer();
+		t.startTimer();
+
+		int numberOfPartitions = Math.max(1, Math.min(this.numberOfThreads, this.scenario.getNetwork().getLinks().size()));
+		PartitionScheduler[] partitions = new PartitionScheduler[numberOfPartitions];
+		for (int i = 0; i < numberOfPartitions; i++) {
+			partitions[i] = new PartitionScheduler(i, numberOfPartitions);
+		}
+		double windowLength = initNetwork(partitions);
+		log.info("Simulating the network with " + numberOfPartitions + " partitions and time windows of " + windowLength + " seconds.");
+
+		for (Person person : this.scenario.getPopulation().getPersons().values()) {
+			new PartitionedVehicle(person, this.activityDurationInterpretation); // the vehicle registers itself to the scheduler
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfPartitions, new PartitionThreadFactory());
+		try {
+			runWindows(partitions, eventsBuffer, windowLength, executor);
+		} finally {
+			executor.shutdownNow();
+			Message.setEventsManager(this.events);
+		}
+
+		t.endTimer();
+		log.info("Time needed for one iteration (only ParallelJDEQSimulation part): " + t.getMeasuredTime() + "[ms]");
+		this.events.finishProcessing();
+	}
+
+	/**
+	 * Creates the roads and assigns them to the partitions.
+	 *
+	 * @return the length of the time windows
+	 */
+	private double initNetwork(PartitionScheduler[] partitions) {
+		List<Link> links = new ArrayList<>(this.scenario.getNetwork().getLinks().values());
+		links.sort(new Comparator<Link>() {
+			@Override
+			public int compare(Link l1, Link l2) {
+				int cmp = Double.compare(l1.getFromNode().getCoord().getX(), l2.getFromNode().getCoord().getX());
+				return (cmp != 0) ? cmp : l1.getId().compareTo(l2.getId());
+			}
+		});
+
+		Road.setAllRoads(new HashMap<Id<Link>, Road>());
+		HashMap<Id<Link>, Integer> partitionOfLink = new HashMap<>();
+		for (int i = 0, n = links.size(); i < n; i++) {
+			int partition = (int) ((long) i * partitions.length / n);
+			Link link = links.get(i);
+			Road.getAllRoads().put(link.getId(), new Road(partitions[partition], link));
+			partitionOfLink.put(link.getId(), partition);
+		}
+
+		double windowLength = Double.POSITIVE_INFINITY;
+		for (Link link : links) {
+			int partition = partitionOfLink.get(link.getId());
+			for (Link nextLink : link.getToNode().getOutLinks().values()) {
+				if (partitionOfLink.get(nextLink.getId()) != partition) {
+					windowLength = Math.min(windowLength, link.getLength() / link.getFreespeed(Time.getUndefinedTime()));
+					break;
+				}
+			}
+		}
+		if (Double.isInfinite(windowLength) || Double.isNaN(windowLength)) {
+			// there are no links between the partitions, so they never need to wait for each other
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.max(windowLength, MIN_WINDOW_LENGTH);
+	}
+
+	private void runWindows(PartitionScheduler[] partitions, PartitionEventsBuffer eventsBuffer, double windowLength, ExecutorService executor) {
+		List<PartitionScheduler> tasks = Arrays.asList(partitions);
+		double simulationEndTime = this.config.getSimulationEndTime();
+		double hourlyLogTime = 3600;
+
+		double windowStart = getNextMessageArrivalTime(partitions);
+		while (windowStart < simulationEndTime && !Double.isInfinite(windowStart)) {
+			double windowEnd = Math.min(windowStart + windowLength, simulationEndTime);
+			for (PartitionScheduler partition : partitions) {
+				partition.setWindowEnd(windowEnd);
+			}
+			try {
+				for (Future<Void> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+
+			eventsBuffer.flush(partitions);
+			for (PartitionScheduler partition : partitions) {
+				partition.deliverMessages(partitions, windowEnd);
+			}
+
+			if (windowEnd > hourlyLogTime) {
+				hourlyLogTime = windowEnd + 3600;
+				log.info("Simulation at " + windowEnd / 3600 + "[h]");
+			}
+
+			// skip the time in which no partition has anything to do
+			windowStart = getNextMessageArrivalTime(partitions);
+		}
+	}
+
+	private static double getNextMessageArrivalTime(PartitionScheduler[] partitions) {
+		double time = Double.POSITIVE_INFINITY;
+		for (PartitionScheduler partition : partitions) {
+			time = Math.min(time, partition.getNextMessageArrivalTime());
+		}
+		return time;
+	}
+
+	/**
+	 * As the vehicles move through all partitions, they have no scheduler of their own: their messages are
+	 * scheduled by the partition of the road receiving the message.
+	 */
+	private static final class PartitionedVehicle extends Vehicle {
+
+		PartitionedVehicle(Person ownerPerson, PlansConfigGroup.ActivityDurationInterpretation activityDurationInterpretation) {
+			super(null, ownerPerson, activityDurationInterpretation);
+		}
+
+		@Override
+		public void sendMessage(Message m, SimUnit targetUnit, double messageArrivalTime) {
+			m.setSendingUnit(this);
+			m.setReceivingUnit(targetUnit);
+			m.setMessageArrivalTime(messageArrivalTime);
+			targetUnit.getScheduler().schedule(m);
+		}
+	}
+
+	private static final class PartitionThreadFactory implements ThreadFactory {
+		private int counter = 0;
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ParallelJDEQSimulation." + this.counter++);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
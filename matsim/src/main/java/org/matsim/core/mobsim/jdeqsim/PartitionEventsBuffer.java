@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PartitionEventsBuffer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.mobsim.jdeqsim.PartitionScheduler.BufferedEvent;
+
+/**
+ * Collects the events created by the messages of the {@link PartitionScheduler}s during a time window
+ * and passes them on to the real events manager in the order of their messages, so that the event handlers are only
+ * called from one thread and the order of the events does not depend on the thread scheduling.
+ */
+final class PartitionEventsBuffer implements EventsManager {
+
+	/** same order as in the {@link MessageQueue}: by the time of the message, then higher priority first */
+	private static final Comparator<BufferedEvent> QUEUE_ORDER = new Comparator<BufferedEvent>() {
+		@Override
+		public int compare(BufferedEvent e1, BufferedEvent e2) {
+			int cmp = Double.compare(e1.messageArrivalTime, e2.messageArrivalTime);
+			return (cmp != 0) ? cmp : Integer.compare(e2.priority, e1.priority);
+		}
+	};
+
+	private final EventsManager delegate;
+
+	PartitionEventsBuffer(EventsManager delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void processEvent(Event event) {
+		PartitionScheduler current = PartitionScheduler.getCurrent();
+		if (current == null) {
+			this.delegate.processEvent(event);
+		} else {
+			current.bufferEvent(event);
+		}
+	}
+
+	/**
+	 * Passes the events of all partitions on to the real events manager. The events of each partition
+	 * are already in the order of their messages; they are merged like the message queue would have
+	 * ordered the messages, ties are resolved by the order of the partitions.
+	 */
+	void flush(PartitionScheduler[] partitions) {
+		int[] next = new int[partitions.length];
+		while (true) {
+			int first = -1;
+			BufferedEvent firstEvent = null;
+			for (int i = 0; i < partitions.length; i++) {
+				List<BufferedEvent> events = partitions[i].getBufferedEvents();
+				if (next[i] < events.size()) {
+					BufferedEvent event = events.get(next[i]);
+					if (firstEvent == null || QUEUE_ORDER.compare(event, firstEvent) < 0) {
+						first = i;
+						firstEvent = event;
+					}
+				}
+			}
+			if (first < 0) {
+				break;
+			}
+			next[first]++;
+			this.delegate.processEvent(firstEvent.event);
+		}
+		for (PartitionScheduler partition : partitions) {
+			partition.getBufferedEvents().clear();
+		}
+	}
+
+	@Override
+	public void addHandler(EventHandler handler) {
+		this.delegate.addHandler(handler);
+	}
+
+	@Override
+	public void removeHandler(EventHandler handler) {
+		this.delegate.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		this.delegate.afterSimStep(time);
+	}
+
+	@Override
+	public void finishProcessing() {
+		this.delegate.finishProcessing();
+	}
+
+}
@@ -0,0 +1,169 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PartitionScheduler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * The scheduler of one part of the network in the {@link ParallelJDEQSimulation}.
+ *
+ * <p>Each partition has its own message queue, which is only accessed by the thread currently simulating the
+ * partition. Messages sent to a road of another partition during a time window are collected in an outbox
+ * of the sending partition and delivered by {@link #deliverMessages(PartitionScheduler[], double)} after the
+ * window, when all partitions are waiting at the barrier. Once a vehicle has sent a message to another partition,
+ * its further messages of the same window are delayed as well, so that e.g. leaving the last road of one partition
+ * still happens before entering the first road of the next one. Events are collected together with the time and priority
+ * of the message creating them and passed on in the order of the message queue after the window.</p>
+ */
+final class PartitionScheduler extends Scheduler implements Callable<Void> {
+
+	/** the partition simulated by the current thread, <code>null</code> outside of the time windows */
+	private static final ThreadLocal<PartitionScheduler> CURRENT = new ThreadLocal<>();
+
+	private final int index;
+	private final List<List<Message>> outboxes;
+	private final Set<SimUnit> deferredSenders = Collections.newSetFromMap(new IdentityHashMap<SimUnit, Boolean>());
+	private final List<BufferedEvent> events = new ArrayList<>();
+	private double windowEnd = 0;
+	private double currentTime = 0;
+	private int currentPriority = 0;
+
+	PartitionScheduler(int index, int numberOfPartitions) {
+		super(new MessageQueue());
+		this.index = index;
+		this.outboxes = new ArrayList<>(numberOfPartitions);
+		for (int i = 0; i < numberOfPartitions; i++) {
+			this.outboxes.add(new ArrayList<Message>());
+		}
+	}
+
+	static PartitionScheduler getCurrent() {
+		return CURRENT.get();
+	}
+
+	@Override
+	public void schedule(Message m) {
+		PartitionScheduler current = CURRENT.get();
+		if (current == null) {
+			queue.putMessage(m);
+		} else if (current == this) {
+			if (m.getMessageArrivalTime() < this.windowEnd && this.deferredSenders.contains(m.getSendingUnit())) {
+				this.outboxes.get(this.index).add(m);
+			} else {
+				queue.putMessage(m);
+			}
+		} else {
+			current.outboxes.get(this.index).add(m);
+			current.deferredSenders.add(m.getSendingUnit());
+		}
+	}
+
+	@Override
+	public void unschedule(Message m) {
+		if (m.queueBucket < 0) {
+			// the message was delayed to the end of the window
+			this.outboxes.get(this.index).remove(m);
+		} else {
+			queue.removeMessage(m);
+		}
+	}
+
+	void setWindowEnd(double windowEnd) {
+		this.windowEnd = windowEnd;
+	}
+
+	/**
+	 * Processes all messages of this partition before the end of the current time window.
+	 */
+	@Override
+	public Void call() {
+		CURRENT.set(this);
+		try {
+			Message m = queue.peekNextMessage();
+			while (m != null && m.getMessageArrivalTime() < this.windowEnd) {
+				queue.getNextMessage();
+				this.currentTime = m.getMessageArrivalTime();
+				this.currentPriority = m.getPriority();
+				m.processEvent();
+				m.handleMessage();
+				m = queue.peekNextMessage();
+			}
+		} finally {
+			CURRENT.remove();
+			this.deferredSenders.clear();
+		}
+		return null;
+	}
+
+	/**
+	 * @return the arrival time of the next message of this partition, or <code>Double.POSITIVE_INFINITY</code> if there is none
+	 */
+	double getNextMessageArrivalTime() {
+		Message m = queue.peekNextMessage();
+		return (m == null) ? Double.POSITIVE_INFINITY : m.getMessageArrivalTime();
+	}
+
+	/**
+	 * Moves the messages other partitions have sent to this partition during the last window into the own
+	 * queue. Messages which should have arrived already are delayed to the end of the window. Must only be
+	 * called between the time windows.
+	 */
+	void deliverMessages(PartitionScheduler[] partitions, double windowEnd) {
+		for (PartitionScheduler sender : partitions) {
+			List<Message> outbox = sender.outboxes.get(this.index);
+			for (Message m : outbox) {
+				if (m.getMessageArrivalTime() < windowEnd) {
+					m.setMessageArrivalTime(windowEnd);
+				}
+				queue.putMessage(m);
+			}
+			outbox.clear();
+		}
+	}
+
+	void bufferEvent(Event event) {
+		this.events.add(new BufferedEvent(event, this.currentTime, this.currentPriority));
+	}
+
+	List<BufferedEvent> getBufferedEvents() {
+		return this.events;
+	}
+
+	static final class BufferedEvent {
+		final Event event;
+		final double messageArrivalTime;
+		final int priority;
+
+		BufferedEvent(Event event, double messageArrivalTime, int priority) {
+			this.event = event;
+			this.messageArrivalTime = messageArrivalTime;
+			this.priority = priority;
+		}
+	}
+
+}
@@ -275,6 +275,10 @@ public class Vehicle extends SimUnit {
 		sendMessage(MessageFactory.getEndRoadMessage(road.scheduler, this), road, scheduleTime);
 	}
 
+	public void scheduleEnterRequestMessage(double scheduleTime, Road road) {
+		sendMessage(MessageFactory.getEnterRequestMessage(road.scheduler, this), road, scheduleTime);
+	}
+
 	public void scheduleLeaveRoadMessage(double scheduleTime, Road road) {
 		sendMessage(MessageFactory.getLeaveRoadMessage(road.scheduler, this), road, scheduleTime);
 	}
@@ -175,6 +175,10 @@ public final class TransitAgent implements MobsimDriverPassengerAgent, PlanAgent
 		return transitAgentDelegate.getDesiredAccessStopId();
 	}
 	@Override
+	public final Id<TransitLine> getDesiredTransitLineId() {
+		return transitAgentDelegate.getDesiredTransitLineId();
+	}
+	@Override
 	public final Id<TransitStopFacility> getDesiredDestinationStopId() {
 		return transitAgentDelegate.getDesiredDestinationStopId();
 	}
@@ -109,6 +109,19 @@ public final class TransitAgentImpl implements PTPassengerAgent {
 		}
 	}
 
+	@Override
+	public final Id<TransitLine> getDesiredTransitLineId() {
+		switch ( boardingAcceptance ) {
+			case checkLineAndStop:
+				ExperimentalTransitRoute route = (ExperimentalTransitRoute) basicAgentDelegate.getCurrentLeg().getRoute();
+				return route.getLineId();
+			case checkStopOnly:
+				return null;
+			default:
+				throw new RuntimeException("not implemented");
+		}
+	}
+
 	@Override
 	public final Id<TransitStopFacility> getDesiredDestinationStopId() {
 		ExperimentalTransitRoute route = (ExperimentalTransitRoute) basicAgentDelegate.getCurrentLeg().getRoute();
@@ -67,6 +67,17 @@ public interface PTPassengerAgent extends PassengerAgent {
 	
 	public Id<TransitStopFacility> getDesiredDestinationStopId();
 
+	/**
+	 * Asks a passenger which is waiting at a stop which transit line it wants to use. An agent returning a line must
+	 * not accept to board vehicles of other lines in {@link #getEnterTransitRoute(TransitLine, TransitRoute, List, TransitVehicle)};
+	 * this allows the {@link TransitStopAgentTracker} to only offer it vehicles of this line.
+	 *
+	 * @return the id of the line, or <code>null</code> if the agent may board any line
+	 */
+	public default Id<TransitLine> getDesiredTransitLineId() {
+		return null;
+	}
+
 	/**
 	 * @return a statistical weight, how many "real" agents this agent represents, e.g. "5.0" if you simulate a 20%-sample.
 	 */
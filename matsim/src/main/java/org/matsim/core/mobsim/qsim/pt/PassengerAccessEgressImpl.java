@@ -109,28 +109,29 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 		
 		if (this.isGeneratingDeniedBoardingEvents) {
 			
-			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacility(stop.getId())) {
+			int[] remainingCapacity = { freeCapacity };
+			this.agentTracker.forEachAgentAtStop(stop.getId(), transitLine.getId(), agent -> {
 				if (agent.getEnterTransitRoute(transitLine, transitRoute, stopsToCome, vehicle)) {
-					if (freeCapacity >= 1) {
+					if (remainingCapacity[0] >= 1) {
 						passengersEntering.add(agent);
-						freeCapacity--;
+						remainingCapacity[0]--;
 					} else {
 						this.agentsDeniedToBoard.add(agent);
 					}
 				}
-			}
+				return true;
+			});
 
-		} else {
+		} else if (freeCapacity > 0) {
 		
-			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacility(stop.getId())) {
-				if (freeCapacity == 0) {
-					break;
-				}
+			int[] remainingCapacity = { freeCapacity };
+			this.agentTracker.forEachAgentAtStop(stop.getId(), transitLine.getId(), agent -> {
 				if (agent.getEnterTransitRoute(transitLine, transitRoute, stopsToCome, vehicle)) {
 					passengersEntering.add(agent);
-					freeCapacity--;
+					remainingCapacity[0]--;
 				}
-			}
+				return remainingCapacity[0] > 0;
+			});
 		
 		}
 		
@@ -25,15 +25,33 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.mobsim.qsim.AgentTracker;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 /**
+ * Keeps track of the agents waiting at transit stops.
+ *
+ * <p>The agents at each stop are kept in insertion-ordered hash structures, so adding and removing an agent takes
+ * constant time, also at stops with many waiting agents. Agents which tell the line they want to use (see
+ * {@link PTPassengerAgent#getDesiredTransitLineId()}) are additionally kept per line, so that an arriving vehicle
+ * only needs to look at the agents waiting for its line and at those which did not specify one
+ * ({@link #forEachAgentAtStop(Id, Id, Predicate)}).</p>
+ *
+ * <p>The stops can be accessed concurrently by several threads of the QSim; each stop is synchronized on its own.
+ * The methods returning lists copy the agents, which is fine for tests and visualization, but not for the QSim
+ * handling every vehicle at every stop; there {@link #forEachAgentAtStop(Id, Id, Predicate)} is used.</p>
+ *
  * @author mrieser
  */
 public class TransitStopAgentTracker implements AgentTracker {
@@ -41,7 +59,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 	private final static Logger log = Logger.getLogger(TransitStopAgentTracker.class);
 	
 	private final EventsManager events;
-	private final Map<Id<TransitStopFacility>, List<PTPassengerAgent>> agentsAtStops = new ConcurrentHashMap<>();
+	private final Map<Id<TransitStopFacility>, WaitingAgents> agentsAtStops = new ConcurrentHashMap<>();
 
 	public TransitStopAgentTracker(final EventsManager events) {
 		this.events = events;
@@ -51,11 +69,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 		if (stopId == null) {
 			throw new NullPointerException("stop must not be null.");
 		}
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
-		if (agents == null) {
-			agents = new CopyOnWriteArrayList<>();// TODO check again. this might turn out to be slow, but we likely need something thread safe here. marcel/oct2014 
-			this.agentsAtStops.put(stopId, agents);
-		}
+		WaitingAgents agents = this.agentsAtStops.computeIfAbsent(stopId, id -> new WaitingAgents());
 		if ( !agents.add(agent) ) {
 			log.error("did NOT add agent " + agent.getId() + " since it was already there.");
 		}
@@ -67,7 +81,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 		if (stopId == null) {
 			throw new NullPointerException("stopId must not be null.");
 		}
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
+		WaitingAgents agents = this.agentsAtStops.get(stopId);
 		if (agents != null) {
 			if (!agents.remove(agent)) {
 				log.error("Agent " + agent.getId() + " could not be removed from waiting at stop " + stopId);
@@ -77,16 +91,148 @@ public class TransitStopAgentTracker implements AgentTracker {
 		}
 	}
 
+	/**
+	 * @return a snapshot of all agents waiting at the stop, in the order they arrived
+	 */
 	@Override
 	public List<PTPassengerAgent> getAgentsAtFacility(final Id<TransitStopFacility> stopId) {
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
+		WaitingAgents agents = this.agentsAtStops.get(stopId);
 		if (agents == null) {
 			return Collections.emptyList();
 		}
+		return Collections.unmodifiableList(agents.getAgents());
+	}
+
+	/**
+	 * @return a snapshot of the agents waiting at the stop which may want to board a vehicle of the given line,
+	 * i.e. those waiting for this line and those which did not specify a line, in the order they arrived
+	 */
+	public List<PTPassengerAgent> getAgentsAtStop(final Id<TransitStopFacility> stopId, final Id<TransitLine> lineId) {
+		List<PTPassengerAgent> agents = new ArrayList<>();
+		forEachAgentAtStop(stopId, lineId, agents::add);
 		return Collections.unmodifiableList(agents);
 	}
 
+	/**
+	 * Passes the agents waiting at the stop which may want to board a vehicle of the given line (see
+	 * {@link #getAgentsAtStop(Id, Id)}) to the visitor, in the order they arrived, until the visitor returns
+	 * <code>false</code>. No agents are copied; the stop stays locked while the visitor runs, so the visitor must
+	 * not add agents to or remove agents from this stop.
+	 */
+	public void forEachAgentAtStop(final Id<TransitStopFacility> stopId, final Id<TransitLine> lineId,
+			final Predicate<PTPassengerAgent> visitor) {
+		WaitingAgents agents = this.agentsAtStops.get(stopId);
+		if (agents != null) {
+			agents.forEachAgent(lineId, visitor);
+		}
+	}
+
+	/**
+	 * @return a snapshot of the agents waiting at each stop
+	 */
 	public Map<Id<TransitStopFacility>, List<PTPassengerAgent>> getAgentsAtStop() {
-		return this.agentsAtStops;
+		Map<Id<TransitStopFacility>, List<PTPassengerAgent>> agentsAtStop = new LinkedHashMap<>();
+		for (Map.Entry<Id<TransitStopFacility>, WaitingAgents> e : this.agentsAtStops.entrySet()) {
+			agentsAtStop.put(e.getKey(), e.getValue().getAgents());
+		}
+		return agentsAtStop;
+	}
+
+	private static final class WaitingAgents {
+
+		private final Map<PTPassengerAgent, Waiting> all = new LinkedHashMap<>();
+		private final Map<Id<TransitLine>, LinkedHashSet<Waiting>> byLine = new HashMap<>();
+		/** the agents which did not tell which line they want to use */
+		private final LinkedHashSet<Waiting> anyLine = new LinkedHashSet<>();
+		private long nextSequenceNumber = 0;
+
+		synchronized boolean add(PTPassengerAgent agent) {
+			if (this.all.containsKey(agent)) {
+				return false;
+			}
+			Waiting waiting = new Waiting(agent, agent.getDesiredTransitLineId(), this.nextSequenceNumber++);
+			this.all.put(agent, waiting);
+			getLineSet(waiting.lineId, true).add(waiting);
+			return true;
+		}
+
+		synchronized boolean remove(PTPassengerAgent agent) {
+			Waiting waiting = this.all.remove(agent);
+			if (waiting == null) {
+				return false;
+			}
+			LinkedHashSet<Waiting> lineSet = getLineSet(waiting.lineId, false);
+			lineSet.remove(waiting);
+			if (lineSet.isEmpty() && waiting.lineId != null) {
+				this.byLine.remove(waiting.lineId);
+			}
+			return true;
+		}
+
+		synchronized List<PTPassengerAgent> getAgents() {
+			return new ArrayList<>(this.all.keySet());
+		}
+
+		synchronized void forEachAgent(Id<TransitLine> lineId, Predicate<PTPassengerAgent> visitor) {
+			LinkedHashSet<Waiting> forLine = this.byLine.get(lineId);
+			if (forLine == null || forLine.isEmpty()) {
+				forEach(this.anyLine, visitor);
+				return;
+			}
+			if (this.anyLine.isEmpty()) {
+				forEach(forLine, visitor);
+				return;
+			}
+			// merge both by the time the agents arrived
+			Iterator<Waiting> it1 = forLine.iterator();
+			Iterator<Waiting> it2 = this.anyLine.iterator();
+			Waiting w1 = it1.next();
+			Waiting w2 = it2.next();
+			while (w1 != null || w2 != null) {
+				if (w2 == null || (w1 != null && w1.sequenceNumber < w2.sequenceNumber)) {
+					if (!visitor.test(w1.agent)) {
+						return;
+					}
+					w1 = it1.hasNext() ? it1.next() : null;
+				} else {
+					if (!visitor.test(w2.agent)) {
+						return;
+					}
+					w2 = it2.hasNext() ? it2.next() : null;
+				}
+			}
+		}
+
+		private LinkedHashSet<Waiting> getLineSet(Id<TransitLine> lineId, boolean create) {
+			if (lineId == null) {
+				return this.anyLine;
+			}
+			LinkedHashSet<Waiting> lineSet = this.byLine.get(lineId);
+			if (lineSet == null && create) {
+				lineSet = new LinkedHashSet<>();
+				this.byLine.put(lineId, lineSet);
+			}
+			return lineSet;
+		}
+
+		private static void forEach(LinkedHashSet<Waiting> waitings, Predicate<PTPassengerAgent> visitor) {
+			for (Waiting waiting : waitings) {
+				if (!visitor.test(waiting.agent)) {
+					return;
+				}
+			}
+		}
+	}
+
+	private static final class Waiting {
+		final PTPassengerAgent agent;
+		final Id<TransitLine> lineId;
+		final long sequenceNumber;
+
+		Waiting(PTPassengerAgent agent, Id<TransitLine> lineId, long sequenceNumber) {
+			this.agent = agent;
+			this.lineId = lineId;
+			this.sequenceNumber = sequenceNumber;
+		}
 	}
 }
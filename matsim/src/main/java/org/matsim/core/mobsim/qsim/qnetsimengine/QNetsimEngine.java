@@ -45,13 +45,16 @@ import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
 import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -117,6 +120,12 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	private int numOfRunners;
 
 	private ExecutorService pool;
+	
+	/*
+	 * For collecting snapshots in parallel: the runner owning each link, in the order of the links
+	 * in the network. Null while the runners are not active.
+	 */
+	private int[] snapshotLinkOwners = null;
 
 	private final boolean usingThreadpool;
 	
@@ -239,6 +248,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		for (QNetsimEngineRunner engine : this.engines) {
 			engine.afterSim();
 		}
+		this.snapshotLinkOwners = null;
 
 		if (this.usingThreadpool) {
 			this.pool.shutdown();
@@ -338,6 +348,57 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	}
 
 
+	/**
+	 * Adds the positions of all agents on the network to the given collection, in the same order as
+	 * iterating over the links of the {@link QNetwork} would. While the mobsim is running, each
+	 * {@link QNetsimEngineRunner} collects the positions of the agents on its own links.
+	 */
+	/*package*/ void addAgentSnapshotInfos(Collection<AgentSnapshotInfo> positions) {
+		if (this.snapshotLinkOwners == null) {
+			for (QLinkI link : this.network.getNetsimLinks().values()) {
+				link.getVisData().addAgentSnapshotInfo(positions);
+			}
+			return;
+		}
+
+		for (QNetsimEngineRunner engine : this.engines) {
+			engine.setCollectingSnapshot(true);
+		}
+		try {
+			if (this.usingThreadpool) {
+				for (Future<Boolean> future : pool.invokeAll(this.engines)) {
+					future.get();
+				}
+			} else {
+				this.startBarrier.arriveAndAwaitAdvance();
+				this.endBarrier.arriveAndAwaitAdvance();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e) ;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			for (QNetsimEngineRunner engine : this.engines) {
+				engine.setCollectingSnapshot(false);
+			}
+		}
+
+		// merge the positions of the runners in the order of the links
+		int[] nextLink = new int[this.engines.size()];
+		int[] nextPosition = new int[this.engines.size()];
+		for (int owner : this.snapshotLinkOwners) {
+			QNetsimEngineRunner engine = this.engines.get(owner);
+			int count = engine.getSnapshotCounts()[nextLink[owner]++];
+			List<AgentSnapshotInfo> buffer = engine.getSnapshotBuffer();
+			for (int i = 0; i < count; i++) {
+				positions.add(buffer.get(nextPosition[owner]++));
+			}
+		}
+		for (QNetsimEngineRunner engine : this.engines) {
+			engine.clearSnapshotBuffer();
+		}
+	}
+
 	/*package*/ void printSimLog(double time) {
 		if (time >= this.infoTime) {
 			this.infoTime += INFO_PERIOD;
@@ -469,6 +530,8 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
 
+		Map<QLinkI, Integer> owners = new IdentityHashMap<>();
+		
 		int roundRobin = 0;
 		for (QNodeI node : network.getNetsimNodes().values()) {
 			int i = roundRobin % this.numOfRunners;
@@ -484,6 +547,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 				// removing qsim as "person in the middle".  not fully sure if this is the same in the parallel impl.  kai, oct'10
 				qLink.setNetElementActivationRegistry(this.engines.get(i));
+				owners.put(qLink, i);
 
 				/*
 				 * If the QLink contains agents that end their activity in the first time
@@ -507,6 +571,15 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		}
 
 		this.linksToActivateInitially.clear();
+		
+		// the runners collect the snapshots of the links they own
+		this.snapshotLinkOwners = new int[network.getNetsimLinks().size()];
+		int l = 0;
+		for (QLinkI link : network.getNetsimLinks().values()) {
+			Integer owner = owners.get(link);
+			this.snapshotLinkOwners[l++] = owner == null ? 0 : owner;
+			this.engines.get(owner == null ? 0 : owner).addSnapshotLink(link);
+		}
 	}
 
 	public void printEngineRunTimes() {
@@ -22,6 +22,7 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
 
 import java.util.*;
 import java.util.concurrent.Callable;
@@ -76,6 +77,16 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	private boolean movingNodes;
 
+	/*
+	 * The links owned by this runner, in the order of the network. If collectingSnapshot is set,
+	 * the runner collects the positions of the agents on these links instead of moving nodes and
+	 * links. For every link, snapshotCounts contains the number of positions it added to the buffer.
+	 */
+	private final List<QLinkI> snapshotLinks = new ArrayList<>();
+	private final List<AgentSnapshotInfo> snapshotBuffer = new ArrayList<>();
+	private int[] snapshotCounts = new int[0];
+	private volatile boolean collectingSnapshot = false;
+
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
 	{	
@@ -116,7 +127,9 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			return false;
 		}
 
-		if (this.movingNodes) {
+		if (this.collectingSnapshot) {
+			collectSnapshot();
+		} else if (this.movingNodes) {
 			moveNodes();
 		} else {
 			moveLinks();
@@ -144,6 +157,12 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 				return;
 			}
 
+			if (this.collectingSnapshot) {
+				collectSnapshot();
+				this.endBarrier.arriveAndAwaitAdvance();
+				continue;
+			}
+
 			moveNodes();
 
 			// After moving the QNodes all we use a Phaser to synchronize the threads.
@@ -164,6 +183,38 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			this.endBarrier.arriveAndAwaitAdvance();
 		}
 	}
+	private void collectSnapshot() {
+		if (this.snapshotCounts.length != this.snapshotLinks.size()) {
+			this.snapshotCounts = new int[this.snapshotLinks.size()];
+		}
+		int i = 0;
+		for (QLinkI link : this.snapshotLinks) {
+			int before = this.snapshotBuffer.size();
+			link.getVisData().addAgentSnapshotInfo(this.snapshotBuffer);
+			this.snapshotCounts[i++] = this.snapshotBuffer.size() - before;
+		}
+	}
+
+	/*package*/ void addSnapshotLink(QLinkI link) {
+		this.snapshotLinks.add(link);
+	}
+
+	/*package*/ void setCollectingSnapshot(boolean collectingSnapshot) {
+		this.collectingSnapshot = collectingSnapshot;
+	}
+
+	/*package*/ List<AgentSnapshotInfo> getSnapshotBuffer() {
+		return this.snapshotBuffer;
+	}
+
+	/*package*/ int[] getSnapshotCounts() {
+		return this.snapshotCounts;
+	}
+
+	/*package*/ void clearSnapshotBuffer() {
+		this.snapshotBuffer.clear();
+	}
+
 	private void moveNodes() {
 		boolean remainsActive;
 		this.lockNodes = true;
@@ -20,6 +20,7 @@
 
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -32,6 +33,7 @@ import org.matsim.core.mobsim.framework.MobsimTimer;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNode;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
 import org.matsim.vis.snapshotwriters.VisLink;
 
 /**
@@ -89,6 +91,15 @@ public class QNetwork implements NetsimNetwork {
 		return Collections.unmodifiableMap(this.links);
 	}
 
+	@Override
+	public void addAgentSnapshotInfos(Collection<AgentSnapshotInfo> positions) {
+		if (this.simEngine != null) {
+			this.simEngine.addAgentSnapshotInfos(positions);
+		} else {
+			NetsimNetwork.super.addAgentSnapshotInfos(positions);
+		}
+	}
+
 	@Override
 	public Map<Id<Node>, QNodeI> getNetsimNodes() {
 		return Collections.unmodifiableMap(this.nodes);
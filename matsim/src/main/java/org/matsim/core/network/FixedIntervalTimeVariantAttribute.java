@@ -29,6 +29,10 @@ import org.matsim.core.utils.misc.Time;
 /**
  * This class follows the rules assumed in {@link TravelTimeCalculator}: The constructor arguments
  * timeSlice and maxTime have the same meaning as there, and the last time bin is open ended.
+ * <p>
+ * The base value and the values per time bin are kept in one immutable {@link State} that is replaced
+ * as a whole on each recalculation, so {@link #getValue(double)} needs no locking and reading threads
+ * always see a consistent state.
  */
 final class FixedIntervalTimeVariantAttribute
 implements TimeVariantAttribute
@@ -36,11 +40,10 @@ implements TimeVariantAttribute
 	private final int timeSlice;
 	private final int numSlots;
 
-	private double baseValue;
-	private double[] values;
+	/** <code>null</code> until the first recalculation */
+	private volatile State state;
 
-	private int eventsCount = 0;
-	private int eventsCountWhenLastRecalc = -1;
+	private volatile int eventsCount = 0;
 
 
 	public FixedIntervalTimeVariantAttribute(int timeSlice, int maxTime)
@@ -53,7 +56,8 @@ implements TimeVariantAttribute
 	@Override
 	public boolean isRecalcRequired()
 	{
-		return eventsCountWhenLastRecalc != eventsCount;
+		State state = this.state;
+		return state == null || state.eventsCount != eventsCount;
 	}
 
 
@@ -62,18 +66,16 @@ implements TimeVariantAttribute
 	public void recalc(TreeMap<Double, NetworkChangeEvent> changeEvents,
 			ChangeValueGetter valueGetter, double baseValue1)
 	{
-		this.baseValue = baseValue1;
-
+		int eventsCount = this.eventsCount;
 		if (eventsCount == 0) {
+			this.state = new State(baseValue1, null, 0);
 			return;
 		}
 
 		//To save memory, the array is constructed only if there is at least one ChangeEvent.
 		//This saves a lot of memory in cases when only one attribute is time variant, while
 		//the remaining two are invariant.
-		if (values == null) {
-			values = new double[numSlots];
-		}
+		double[] values = new double[numSlots];
 
 		int numEvent = 0;
 		int fromBin = 0;//inclusive
@@ -105,24 +107,25 @@ implements TimeVariantAttribute
 			}
 		}
 		Arrays.fill(values, fromBin, values.length, currentValue);
-		eventsCountWhenLastRecalc = eventsCount;
 
-		if (numEvent != this.eventsCount) {
-			throw new RuntimeException("Expected number of change events (" + (this.eventsCount)
+		if (numEvent != eventsCount) {
+			throw new RuntimeException("Expected number of change events (" + (eventsCount)
 					+ ") differs from the number of events found (" + numEvent + ")!");
 		}
+		this.state = new State(baseValue1, values, eventsCount);
 	}
 
 
 	@Override
 	public double getValue(final double time)
 	{
-		if (Time.isUndefinedTime(time) || eventsCount == 0) {
-			return baseValue;
+		State state = this.state;
+		if (Time.isUndefinedTime(time) || state.values == null) {
+			return state.baseValue;
 		}
 
 		int bin = TimeBinUtils.getTimeBinIndex(time, timeSlice, numSlots);
-		return values[bin];
+		return state.values[bin];
 	}
 
 
@@ -137,7 +140,25 @@ implements TimeVariantAttribute
 	public void clearEvents()
 	{
 		eventsCount = 0;
-		eventsCountWhenLastRecalc = -1;
-		values = null;
+		State state = this.state;
+		if (state != null) {
+			// the base value does not depend on the change events
+			this.state = new State(state.baseValue, null, 0);
+		}
+	}
+
+
+	private static final class State {
+		final double baseValue;
+		/** <code>null</code> if there are no change events */
+		final double[] values;
+		/** the number of change events the values were calculated for */
+		final int eventsCount;
+
+		State(double baseValue, double[] values, int eventsCount) {
+			this.baseValue = baseValue;
+			this.values = values;
+			this.eventsCount = eventsCount;
+		}
 	}
 }
@@ -28,7 +28,7 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.NetworkFactory;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.scenario.Lockable;
-import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.collections.IncrementalKDTree;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
 import java.util.Collection;
@@ -62,7 +62,8 @@ import java.util.Queue;
 
 	private final Map<Id<Link>, Link> links = new LinkedHashMap<>();
 
-	private QuadTree<Node> nodeQuadTree = null;
+	/** built lazily, then updated whenever nodes are added or removed */
+	private volatile IncrementalKDTree<Node> nodeIndex = null;
 
 	private LinkQuadTree linkQuadTree = null;
 
@@ -181,19 +182,8 @@ import java.util.Queue;
 					".\nNode is not added to the network.");
 		}
 		this.nodes.put(id, nn);
-		if (this.nodeQuadTree != null) {
-			if (Double.isInfinite(this.nodeQuadTree.getMinEasting())) {
-				// looks like the quad tree was initialized with infinite bounds, see MATSIM-278.
-				this.nodeQuadTree.clear();
-				this.nodeQuadTree = null;
-			} else if (this.nodeQuadTree.getMinEasting() <= nn.getCoord().getX() && this.nodeQuadTree.getMaxEasting() > nn.getCoord().getX()
-					&& this.nodeQuadTree.getMinNorthing() <= nn.getCoord().getY() && this.nodeQuadTree.getMaxNorthing() > nn.getCoord().getY()) {
-				this.nodeQuadTree.put(nn.getCoord().getX(), nn.getCoord().getY(), nn);
-			} else {
-				// we add a node outside the current bounds, invalidate it
-				this.nodeQuadTree.clear();
-				this.nodeQuadTree = null;
-			}
+		if (this.nodeIndex != null) {
+			this.nodeIndex.add(nn);
 		}
 
 		// show counter
@@ -223,8 +213,8 @@ import java.util.Queue;
 		for (Link l : links1) {
 			removeLink(l.getId());
 		}
-		if (this.nodeQuadTree != null) {
-			this.nodeQuadTree.remove(n.getCoord().getX(),n.getCoord().getY(),n);
+		if (this.nodeIndex != null) {
+			this.nodeIndex.remove(n);
 		}
 		return n;
 	}
@@ -358,8 +348,7 @@ import java.util.Queue;
 	 * @return the closest node found, null if none
 	 */
 	@Override public Node getNearestNode(final Coord coord) {
-		if (this.nodeQuadTree == null) { buildQuadTree(); }
-		return this.nodeQuadTree.getClosest(coord.getX(), coord.getY());
+		return getNodeIndex().getClosest(coord.getX(), coord.getY());
 	}
 
 	/**
@@ -370,8 +359,7 @@ import java.util.Queue;
 	 * @return all nodes within distance to <code>coord</code>
 	 */
 	@Override public Collection<Node> getNearestNodes(final Coord coord, final double distance) {
-		if (this.nodeQuadTree == null) { buildQuadTree(); }
-		return this.nodeQuadTree.getDisk(coord.getX(), coord.getY(), distance);
+		return getNodeIndex().getDisk(coord.getX(), coord.getY(), distance);
 	}
 
 	@Override
@@ -399,40 +387,27 @@ import java.util.Queue;
 	//	}
 	// it is safer if all functionality that could be done here is either done lazily or directly when nodes/links are added.  kai, jul'16
 
-	synchronized private void buildQuadTree() {
-		/* the method must be synchronized to ensure we only build one quadTree
-		 * in case that multiple threads call a method that requires the quadTree.
+	@Override public final IncrementalKDTree<Node> getNodeIndex() {
+		IncrementalKDTree<Node> index = this.nodeIndex;
+		return (index != null) ? index : buildNodeIndex();
+	}
+
+	synchronized private IncrementalKDTree<Node> buildNodeIndex() {
+		/* the method must be synchronized to ensure we only build one index
+		 * in case that multiple threads call a method that requires the index.
 		 */
-		if (this.nodeQuadTree != null) {
-			return;
+		if (this.nodeIndex != null) {
+			return this.nodeIndex;
 		}
 		double startTime = System.currentTimeMillis();
-		double minx = Double.POSITIVE_INFINITY;
-		double miny = Double.POSITIVE_INFINITY;
-		double maxx = Double.NEGATIVE_INFINITY;
-		double maxy = Double.NEGATIVE_INFINITY;
-		for (Node n : this.nodes.values()) {
-			if (n.getCoord().getX() < minx) { minx = n.getCoord().getX(); }
-			if (n.getCoord().getY() < miny) { miny = n.getCoord().getY(); }
-			if (n.getCoord().getX() > maxx) { maxx = n.getCoord().getX(); }
-			if (n.getCoord().getY() > maxy) { maxy = n.getCoord().getY(); }
-		}
-		minx -= 1.0;
-		miny -= 1.0;
-		maxx += 1.0;
-		maxy += 1.0;
-		// yy the above four lines are problematic if the coordinate values are much smaller than one. kai, oct'15
-
-		log.info("building QuadTree for nodes: xrange(" + minx + "," + maxx + "); yrange(" + miny + "," + maxy + ")");
-		QuadTree<Node> quadTree = new QuadTree<>(minx, miny, maxx, maxy);
-		for (Node n : this.nodes.values()) {
-			quadTree.put(n.getCoord().getX(), n.getCoord().getY(), n);
-		}
-		/* assign the quadTree at the very end, when it is complete.
-		 * otherwise, other threads may already start working on an incomplete quadtree
+		log.info("building spatial index for " + this.nodes.size() + " nodes");
+		IncrementalKDTree<Node> index = new IncrementalKDTree<>(this.nodes.values(), n -> n.getCoord().getX(), n -> n.getCoord().getY());
+		/* assign the index at the very end, when it is complete.
+		 * otherwise, other threads may already start working on an incomplete index
 		 */
-		this.nodeQuadTree = quadTree;
-		log.info("Building QuadTree took " + ((System.currentTimeMillis() - startTime) / 1000.0) + " seconds.");
+		this.nodeIndex = index;
+		log.info("Building spatial index took " + ((System.currentTimeMillis() - startTime) / 1000.0) + " seconds.");
+		return index;
 	}
 
 	synchronized private void buildLinkQuadTree() {
@@ -509,7 +484,4 @@ import java.util.Queue;
 	@Override public final LinkQuadTree getLinkQuadTree() {
 		return this.linkQuadTree ;
 	}
-	@Override public final QuadTree<Node> getNodeQuadTree() {
-		return this.nodeQuadTree ;
-	}
 }
@@ -23,7 +23,7 @@ import java.util.Collection;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Node;
-import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.collections.IncrementalKDTree;
 
 /**
  * @author nagel
@@ -37,7 +37,7 @@ public interface SearchableNetwork {
 
 	Collection<Node> getNearestNodes(Coord coord, double distance);
 
-	QuadTree<Node> getNodeQuadTree();
+	IncrementalKDTree<Node> getNodeIndex();
 
 	LinkQuadTree getLinkQuadTree();
 
@@ -41,6 +41,10 @@ import org.matsim.api.core.v01.network.*;
 	private final TimeVariantAttribute variableFreespeed;
 	private final TimeVariantAttribute variableFlowCapacity;
 	private final TimeVariantAttribute variableLanes;
+	// The getters are not synchronized: they are called for every link by the routers and the mobsim, possibly
+	// from several threads. The attributes publish their recalculated values as immutable objects, which are never
+	// null once calculated, not even after clearEvents(). Only the recalculation itself is synchronized with
+	// applying and clearing events.
 
 	//////////////////////////////////////////////////////////////////////
 	// constructor
@@ -121,7 +125,7 @@ import org.matsim.api.core.v01.network.*;
 	 * @return the freespeed at time <tt>time</tt>.
 	 */
 	@Override
-	public synchronized double getFreespeed(final double time) {
+	public double getFreespeed(final double time) {
 
 		if (variableFreespeed.isRecalcRequired()) {
 			recalcFreespeed();
@@ -147,7 +151,7 @@ import org.matsim.api.core.v01.network.*;
 	 * @return the flow capacity at time <tt>time</tt>.
 	 */
 	@Override
-	public synchronized double getFlowCapacityPerSec(final double time) {
+	public double getFlowCapacityPerSec(final double time) {
 
 		if (variableFlowCapacity.isRecalcRequired()) {
 			recalcFlowCapacity();
@@ -171,7 +175,7 @@ import org.matsim.api.core.v01.network.*;
 	 * @return the capacity per network's capperiod timestep
 	 */
 	@Override
-	public synchronized double getCapacity(final double time) {
+	public double getCapacity(final double time) {
 		return getFlowCapacityPerSec(time) * getCapacityPeriod();
 	}
 
@@ -193,7 +197,7 @@ import org.matsim.api.core.v01.network.*;
 	 * encode the (min) width of the link to calculate the flow capacity - [GL] 13may08
 	 */
 	@Override
-	public synchronized double getNumberOfLanes(final double time) {
+	public double getNumberOfLanes(final double time) {
 		if (variableLanes.isRecalcRequired()) {
 			recalcLanes();
 		}
@@ -24,18 +24,30 @@ import java.util.*;
 import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
 
 
+/**
+ * Stores the value of an attribute for each interval between two change events. A value is looked up in
+ * constant expected time: the range between the first and the last change event is divided into equally long
+ * bins, and for each bin the interval valid at its start is precomputed, so only the few change events within
+ * one bin have to be checked. The arrays are kept in immutable {@link Intervals} that are replaced as a whole on
+ * each recalculation, so {@link #getValue(double)} needs no locking and reading threads always see a consistent
+ * state.
+ */
 final class VariableIntervalTimeVariantAttribute
 implements TimeVariantAttribute
 {
-	private int aEvents = 1;
-	private double[] aValues;
-	private double[] aTimes;
+	/** below this number of change events, searching the times directly is as fast as using the bins */
+	private static final int MIN_EVENTS_FOR_BINS = 8;
+
+	private volatile int aEvents = 1;
+	/** <code>null</code> until the first recalculation */
+	private volatile Intervals intervals;
 
 
 	@Override
 	public boolean isRecalcRequired()
 	{
-		return (this.aTimes == null) || (this.aTimes.length != this.aEvents);
+		Intervals intervals = this.intervals;
+		return (intervals == null) || (intervals.times.length != this.aEvents);
 		// The first condition just says if there is no material, we don't need to do anything.
 		// yyyy The second condition is a bit weird.  It essentially checks if the cached data structure (aTimes) has
 		// as many entries as it should have (given by aEvents).  This does need, however, an honest calling of
@@ -52,10 +64,11 @@ implements TimeVariantAttribute
 	public void recalc(TreeMap<Double, NetworkChangeEvent> changeEvents,
 			ChangeValueGetter valueGetter, double baseValue)
 	{
-		this.aTimes = new double[this.aEvents];
-		this.aValues = new double[this.aEvents];
-		this.aTimes[0] = Double.NEGATIVE_INFINITY;
-		this.aValues[0] = baseValue;
+		int events = this.aEvents;
+		double[] aTimes = new double[events];
+		double[] aValues = new double[events];
+		aTimes[0] = Double.NEGATIVE_INFINITY;
+		aValues[0] = baseValue;
 
 		int numEvent = 0;
 		if (changeEvents != null) {
@@ -66,19 +79,19 @@ implements TimeVariantAttribute
 					switch( value.getType() ) {
 					case ABSOLUTE_IN_SI_UNITS:
 						// here, we just need to replace the value:
-						this.aValues[++numEvent] = value.getValue();
-						this.aTimes[numEvent] = event.getStartTime();
+						aValues[++numEvent] = value.getValue();
+						aTimes[numEvent] = event.getStartTime();
 						break;
 					case FACTOR: {
 						// there, the change event multiplies what we have so far:
-						double currentValue = this.aValues[numEvent];
-						this.aValues[++numEvent] = currentValue * value.getValue();
-						this.aTimes[numEvent] = event.getStartTime();
+						double currentValue = aValues[numEvent];
+						aValues[++numEvent] = currentValue * value.getValue();
+						aTimes[numEvent] = event.getStartTime();
 						break; }
 					case OFFSET_IN_SI_UNITS: {
-						double currentValue = this.aValues[numEvent];
-						this.aValues[++numEvent] = currentValue + value.getValue();
-						this.aTimes[numEvent] = event.getStartTime();
+						double currentValue = aValues[numEvent];
+						aValues[++numEvent] = currentValue + value.getValue();
+						aTimes[numEvent] = event.getStartTime();
 						break; }
 					default:
 						throw new RuntimeException( "unknown ChangeType" ) ;
@@ -87,20 +100,18 @@ implements TimeVariantAttribute
 			}
 		}
 
-		if (numEvent != this.aEvents - 1) {
-			throw new RuntimeException("Expected number of change events (" + (this.aEvents - 1)
+		if (numEvent != events - 1) {
+			throw new RuntimeException("Expected number of change events (" + (events - 1)
 					+ ") differs from the number of events found (" + numEvent + ")!");
 		}
+		this.intervals = new Intervals(aTimes, aValues);
 	}
 
 
 	@Override
 	public double getValue(final double time)
 	{
-		// after we have put everything into an array by recalc, we just need a binary search:
-		int key = Arrays.binarySearch(this.aTimes, time);
-		key = key >= 0 ? key : -key - 2;
-		return this.aValues[key];
+		return this.intervals.getValue(time);
 	}
 
 
@@ -114,8 +125,81 @@ implements TimeVariantAttribute
 	@Override
 	public void clearEvents()
 	{
-		aTimes = null;
-		aValues = null;
 		aEvents = 1;
+		Intervals intervals = this.intervals;
+		if (intervals != null) {
+			// the base value does not depend on the change events; a concurrent getValue() must not see null
+			this.intervals = new Intervals(new double[] { Double.NEGATIVE_INFINITY },
+					new double[] { intervals.values[0] });
+		}
+	}
+
+
+	private static final class Intervals {
+		/** start times of the intervals; the first one is <code>NEGATIVE_INFINITY</code> */
+		final double[] times;
+		final double[] values;
+
+		final double binStart;
+		final double binSize;
+		/** for each bin, the index of the interval valid at the start of the bin */
+		final int[] firstIntervalOfBin;
+
+		Intervals(double[] times, double[] values) {
+			this.times = times;
+			this.values = values;
+
+			int last = times.length - 1;
+			if (last < MIN_EVENTS_FOR_BINS) {
+				this.binStart = 0;
+				this.binSize = 0;
+				this.firstIntervalOfBin = null;
+				return;
+			}
+			// roughly one change event per bin, fewer if they are unevenly distributed
+			this.binStart = times[1];
+			this.binSize = (times[last] - times[1]) / last;
+			this.firstIntervalOfBin = new int[last];
+			int interval = 1;
+			for (int bin = 0; bin < last; bin++) {
+				double t = this.binStart + bin * this.binSize;
+				while (interval < last && times[interval + 1] <= t) {
+					interval++;
+				}
+				this.firstIntervalOfBin[bin] = interval;
+			}
+		}
+
+		double getValue(double time) {
+			int last = this.times.length - 1;
+			if (this.firstIntervalOfBin == null) {
+				int key = Arrays.binarySearch(this.times, time);
+				key = key >= 0 ? key : -key - 2;
+				return this.values[key];
+			}
+			if (time < this.binStart) {
+				return this.values[0];
+			}
+			if (!(time < this.times[last])) { // also catches NaN, like the binary search
+				return this.values[last];
+			}
+			int bin = Math.min((int) ((time - this.binStart) / this.binSize), last - 1);
+			int from = this.firstIntervalOfBin[bin];
+			int to = (bin + 1 < last) ? this.firstIntervalOfBin[bin + 1] : last;
+			while (this.times[from] > time) {
+				// only possible due to rounding at the bin borders
+				from--;
+			}
+			if (to - from > MIN_EVENTS_FOR_BINS) {
+				// many change events within one bin
+				int key = Arrays.binarySearch(this.times, from, last + 1, time);
+				key = key >= 0 ? key : -key - 2;
+				return this.values[key];
+			}
+			while (from < last && this.times[from + 1] <= time) {
+				from++;
+			}
+			return this.values[from];
+		}
 	}
 }
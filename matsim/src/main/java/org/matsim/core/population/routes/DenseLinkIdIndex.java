@@ -0,0 +1,81 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * DenseLinkIdIndex.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+/**
+ * Maps link ids to dense, non-negative integers and back.
+ *
+ * <p>The index is initialized with the links of a network in their iteration order, so that links
+ * which are close to each other in the network file usually also get close indices. Links that
+ * are not (yet) part of the network, e.g. pt links added after the population was created, get
+ * a new index appended on first use. Reading is lock-free; only the assignment of new indices is
+ * synchronized.</p>
+ */
+final class DenseLinkIdIndex {
+
+	private final Map<Id<Link>, Integer> indices;
+	private volatile Id<Link>[] ids;
+	private int size = 0;
+
+	@SuppressWarnings("unchecked")
+	DenseLinkIdIndex(final Network network) {
+		int initialCapacity = Math.max(16, network.getLinks().size());
+		this.indices = new ConcurrentHashMap<>(initialCapacity);
+		this.ids = new Id[initialCapacity];
+		for (Id<Link> linkId : network.getLinks().keySet()) {
+			getOrCreateIndex(linkId);
+		}
+	}
+
+	int getOrCreateIndex(final Id<Link> linkId) {
+		Integer index = this.indices.get(linkId);
+		if (index != null) {
+			return index;
+		}
+		synchronized (this) {
+			index = this.indices.get(linkId);
+			if (index != null) {
+				return index;
+			}
+			Id<Link>[] tmp = this.ids;
+			if (this.size == tmp.length) {
+				tmp = Arrays.copyOf(tmp, tmp.length + (tmp.length >> 1) + 1);
+			}
+			tmp[this.size] = linkId;
+			this.ids = tmp; // volatile write publishes the new entry before the index becomes visible
+			this.indices.put(linkId, this.size);
+			return this.size++;
+		}
+	}
+
+	Id<Link> getLinkId(final int index) {
+		return this.ids[index];
+	}
+
+}
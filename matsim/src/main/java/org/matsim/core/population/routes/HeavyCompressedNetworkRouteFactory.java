@@ -0,0 +1,64 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HeavyCompressedNetworkRouteFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Route;
+
+/**
+ * Creates {@link HeavyCompressedNetworkRouteImpl}s. All routes created by one factory share
+ * the same {@link DenseLinkIdIndex}, which is built lazily from the network on the first route.
+ */
+public final class HeavyCompressedNetworkRouteFactory implements RouteFactory {
+
+	private volatile DenseLinkIdIndex index = null;
+	private final Network network;
+
+	public HeavyCompressedNetworkRouteFactory(final Network network) {
+		this.network = network;
+	}
+
+	@Override
+	public Route createRoute(final Id<Link> startLinkId, final Id<Link> endLinkId) {
+		if ( network==null ) {
+			throw new RuntimeException( "need to set Network in Population in order to be able to create compressed routes") ;
+		}
+		DenseLinkIdIndex idx = this.index;
+		if (idx == null) {
+			synchronized (this) {
+				idx = this.index;
+				if (idx == null) {
+					idx = new DenseLinkIdIndex(this.network);
+					this.index = idx;
+				}
+			}
+		}
+		return new HeavyCompressedNetworkRouteImpl(startLinkId, endLinkId, idx);
+	}
+
+	@Override
+	public String getCreatedRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+}
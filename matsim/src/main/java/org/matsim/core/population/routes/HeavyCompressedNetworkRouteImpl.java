@@ -0,0 +1,351 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HeavyCompressedNetworkRouteImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link NetworkRoute} that stores the links of a route as a byte array.
+ *
+ * <p>Description of the encoding:<br />
+ * Every link gets a dense integer index from a {@link DenseLinkIdIndex} shared by all routes created
+ * by the same {@link HeavyCompressedNetworkRouteFactory}. The route stores the difference of each
+ * link index to the index of the previous link (the first link is compared against 0), zig-zag encoded
+ * so that small negative differences stay small, and written as variable-length integer with 7 bits per byte.
+ * As links following each other in a route are usually also close to each other in the network
+ * file, most links need only one or two bytes instead of a reference in an <code>ArrayList</code>.
+ * </p>
+ *
+ * <p>In contrast to {@link CompressedNetworkRouteImpl}, the encoding does not depend on the start link
+ * or on a map of subsequent links, and decoding does not need to look up any link in the network.
+ * {@link #getLinkIds()} returns a read-only view that decodes the links on the fly; sequential access
+ * (as done by the mobsim agents, which ask for one link after the other) is amortized O(1).</p>
+ */
+final class HeavyCompressedNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final DenseLinkIdIndex index;
+	private byte[] encoded = EMPTY;
+	private int size = 0;
+	private double travelCost = Double.NaN;
+	private Id<Vehicle> vehicleId = null;
+	/** caches the view returned by getLinkIds(), so agents asking for the next link can continue decoding where they stopped */
+	private transient LinkIdsView linkIdsView = null;
+
+	HeavyCompressedNetworkRouteImpl(final Id<Link> startLinkId, final Id<Link> endLinkId, final DenseLinkIdIndex index) {
+		super(startLinkId, endLinkId);
+		this.index = index;
+	}
+
+	@Override
+	public HeavyCompressedNetworkRouteImpl clone() {
+		HeavyCompressedNetworkRouteImpl cloned = (HeavyCompressedNetworkRouteImpl) super.clone();
+		// the byte array is never modified, only replaced, so it can be shared between the clones
+		cloned.linkIdsView = null;
+		return cloned;
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		LinkIdsView view = this.linkIdsView;
+		if (view == null || view.encoded != this.encoded) {
+			view = new LinkIdsView(this.encoded, this.size, this.index);
+			this.linkIdsView = view;
+		}
+		return view;
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(Id<Link> fromLinkId, Id<Link> toLinkId) {
+		List<Id<Link>> route = new ArrayList<>(getLinkIds());
+		int fromIndex = -1;
+		int toIndex = -1;
+
+		if (fromLinkId.equals(this.getStartLinkId())) {
+			fromIndex = 0;
+		} else {
+			for (int i = 0, n = route.size(); (i < n) && (fromIndex < 0); i++) {
+				if (fromLinkId.equals(route.get(i))) {
+					fromIndex = i+1;
+				}
+			}
+			if (fromIndex < 0 && fromLinkId.equals(this.getEndLinkId())) {
+				fromIndex = route.size();
+			}
+			if (fromIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because fromLinkId is not part of the route.");
+			}
+		}
+
+		if (fromLinkId.equals(toLinkId)) {
+			toIndex = fromIndex - 1;
+		} else {
+			for (int i = fromIndex, n = route.size(); (i < n) && (toIndex < 0); i++) {
+				if (fromLinkId.equals(route.get(i))) {
+					fromIndex = i+1; // in case of a loop, cut it short
+				}
+				if (toLinkId.equals(route.get(i))) {
+					toIndex = i;
+				}
+			}
+			if (toIndex < 0 && toLinkId.equals(this.getEndLinkId())) {
+				toIndex = route.size();
+			}
+			if (toIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because toLinkId is not part of the route.");
+			}
+		}
+		NetworkRoute ret = new HeavyCompressedNetworkRouteImpl(fromLinkId, toLinkId, this.index);
+		if (toIndex > fromIndex) {
+			ret.setLinkIds(fromLinkId, route.subList(fromIndex, toIndex), toLinkId);
+		} else {
+			ret.setLinkIds(fromLinkId, null, toLinkId);
+		}
+		return ret;
+	}
+
+	@Override
+	public double getTravelCost() {
+		return this.travelCost;
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		this.travelCost = travelCost;
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
+		setStartLinkId(startLinkId);
+		setEndLinkId(endLinkId);
+		if ((srcRoute == null) || srcRoute.isEmpty()) {
+			this.encoded = EMPTY;
+			this.size = 0;
+			return;
+		}
+		// at most 5 bytes per link; trimmed at the end
+		byte[] buffer = new byte[srcRoute.size() * 5];
+		int pos = 0;
+		int previous = 0;
+		for (Id<Link> linkId : srcRoute) {
+			int current = this.index.getOrCreateIndex(linkId);
+			int delta = current - previous;
+			int zigzag = (delta << 1) ^ (delta >> 31);
+			while ((zigzag & ~0x7F) != 0) {
+				buffer[pos++] = (byte) ((zigzag & 0x7F) | 0x80);
+				zigzag >>>= 7;
+			}
+			buffer[pos++] = (byte) zigzag;
+			previous = current;
+		}
+		byte[] tmp = new byte[pos];
+		System.arraycopy(buffer, 0, tmp, 0, pos);
+		this.encoded = tmp;
+		this.size = srcRoute.size();
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		this.vehicleId = vehicleId;
+	}
+
+	@Override
+	public String getRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	@Override
+	public String getRouteDescription() {
+		// decode directly into the description, without creating the intermediate list of link ids
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		LinkIdIterator iter = new LinkIdIterator(this.encoded, this.size, this.index);
+		while (iter.hasNext()) {
+			desc.append(" ");
+			desc.append(iter.next().toString());
+		}
+		// If the start links equals the end link additionally check if its is a round trip.
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || this.size > 0) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
+		}
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(String routeDescription) {
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds(routeDescription);
+		Id<Link> startLinkId = getStartLinkId();
+		Id<Link> endLinkId = getEndLinkId();
+		if (linkIds.size() > 0) {
+			startLinkId = linkIds.remove(0);
+			setStartLinkId(startLinkId);
+		}
+		if (linkIds.size() > 0) {
+			endLinkId = linkIds.remove(linkIds.size() - 1);
+			setEndLinkId(endLinkId);
+		}
+		this.setLinkIds(startLinkId, linkIds, endLinkId);
+	}
+
+	@Override
+	public String toString() {
+		String str = super.toString();
+		str += " linkIds=" + this.getLinkIds() ;
+		str += " travelCost=" + this.getTravelCost() ;
+		return str ;
+	}
+
+	/*package*/ int getEncodedSize() {
+		return this.encoded.length;
+	}
+
+	/**
+	 * Immutable decoding position: the link at <code>position</code> has the dense index <code>value</code>,
+	 * the encoding of the next link starts at <code>offset</code>.
+	 */
+	private static final class Cursor {
+		final int position;
+		final int offset;
+		final int value;
+
+		Cursor(final int position, final int offset, final int value) {
+			this.position = position;
+			this.offset = offset;
+			this.value = value;
+		}
+	}
+
+	private static final Cursor START = new Cursor(-1, 0, 0);
+
+	/**
+	 * Read-only list over the encoded links. The cursor is replaced atomically with an immutable object,
+	 * so the view can be read from several threads; at worst a thread has to start decoding from the
+	 * beginning again.
+	 */
+	private static final class LinkIdsView extends AbstractList<Id<Link>> implements RandomAccess {
+		final byte[] encoded;
+		private final int size;
+		private final DenseLinkIdIndex index;
+		private Cursor cursor = START;
+
+		LinkIdsView(final byte[] encoded, final int size, final DenseLinkIdIndex index) {
+			this.encoded = encoded;
+			this.size = size;
+			this.index = index;
+		}
+
+		@Override
+		public Id<Link> get(final int i) {
+			if (i < 0 || i >= this.size) {
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+			}
+			Cursor c = this.cursor;
+			if (c.position > i) {
+				c = START;
+			}
+			int position = c.position;
+			int offset = c.offset;
+			int value = c.value;
+			while (position < i) {
+				int zigzag = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = this.encoded[offset++];
+					zigzag |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				value += (zigzag >>> 1) ^ -(zigzag & 1);
+				position++;
+			}
+			if (position != c.position) {
+				this.cursor = new Cursor(position, offset, value);
+			}
+			return this.index.getLinkId(value);
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public Iterator<Id<Link>> iterator() {
+			return new LinkIdIterator(this.encoded, this.size, this.index);
+		}
+	}
+
+	private static final class LinkIdIterator implements Iterator<Id<Link>> {
+		private final byte[] encoded;
+		private final int size;
+		private final DenseLinkIdIndex index;
+		private int position = 0;
+		private int offset = 0;
+		private int value = 0;
+
+		LinkIdIterator(final byte[] encoded, final int size, final DenseLinkIdIndex index) {
+			this.encoded = encoded;
+			this.size = size;
+			this.index = index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.position < this.size;
+		}
+
+		@Override
+		public Id<Link> next() {
+			if (this.position >= this.size) {
+				throw new NoSuchElementException();
+			}
+			int zigzag = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.encoded[this.offset++];
+				zigzag |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			this.value += (zigzag >>> 1) ^ -(zigzag & 1);
+			this.position++;
+			return this.index.getLinkId(this.value);
+		}
+	}
+
+}
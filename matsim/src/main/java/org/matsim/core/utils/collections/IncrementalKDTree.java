@@ -0,0 +1,231 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalKDTree.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A 2-dimensional index for nearest-neighbor and radius queries on points that, in contrast to
+ * {@link PackedKDTree}, can be updated.
+ *
+ * <p>The index follows the logarithmic method (Bentley and Saxe): new points go into a small unsorted buffer, the
+ * other points are stored in immutable {@link PackedKDTree}s of geometrically growing capacities. Only when the
+ * buffer is full, it is merged with the smaller trees into a new tree, so an insertion takes amortized
+ * <i>O(log<sup>2</sup> n)</i>. A removal only marks the point as removed; once half of the points in the trees are
+ * marked, the trees are rebuilt into one. A query visits the buffer and each of the <i>O(log n)</i> trees.</p>
+ *
+ * <p>Values are compared by identity. The coordinates of a value must not change while it is in the index.</p>
+ *
+ * <p>The index may be queried by several threads at the same time, but not while it is modified.</p>
+ *
+ * @param <T> the type of the values stored in the index
+ */
+public final class IncrementalKDTree<T> {
+
+	private static final int BUFFER_SIZE = 64;
+
+	private final ToDoubleFunction<? super T> getX;
+	private final ToDoubleFunction<? super T> getY;
+
+	private final List<T> buffer = new ArrayList<>(BUFFER_SIZE);
+	/** the tree at level i is null or holds at most (BUFFER_SIZE << i) points (including the removed ones) */
+	private final List<PackedKDTree<T>> trees = new ArrayList<>();
+	/** points removed from the index, but still stored in one of the trees */
+	private final Set<T> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Predicate<T> notRemoved = v -> !this.removed.contains(v);
+
+	private int treePointCount = 0;
+	private int size = 0;
+
+	/**
+	 * Builds the index from the given values. Runs in <i>O(n log n)</i>.
+	 *
+	 * @param values the values to be stored in the index
+	 * @param getX returns the x coordinate of a value
+	 * @param getY returns the y coordinate of a value
+	 */
+	public IncrementalKDTree(final Collection<? extends T> values, final ToDoubleFunction<? super T> getX,
+			final ToDoubleFunction<? super T> getY) {
+		this.getX = getX;
+		this.getY = getY;
+		if (!values.isEmpty()) {
+			addTree(new ArrayList<T>(values), 0);
+		}
+		this.size = values.size();
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds a value that is not in the index.
+	 */
+	public void add(final T value) {
+		this.size++;
+		if (this.removed.remove(value)) {
+			return; // still stored in its tree
+		}
+		this.buffer.add(value);
+		if (this.buffer.size() == BUFFER_SIZE) {
+			mergeBuffer();
+		}
+	}
+
+	/**
+	 * Removes a value that is in the index.
+	 */
+	public void remove(final T value) {
+		this.size--;
+		for (int i = 0; i < this.buffer.size(); i++) {
+			if (this.buffer.get(i) == value) {
+				this.buffer.remove(i);
+				return;
+			}
+		}
+		this.removed.add(value);
+		if (2 * this.removed.size() > this.treePointCount) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * @return the value closest to (x, y), <code>null</code> if the index is empty
+	 */
+	public T getClosest(final double x, final double y) {
+		T best = null;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (T value : this.buffer) {
+			double d = distanceSquared(this.getX.applyAsDouble(value), this.getY.applyAsDouble(value), x, y);
+			if (d < bestDistance) {
+				bestDistance = d;
+				best = value;
+			}
+		}
+		Predicate<T> filter = this.removed.isEmpty() ? null : this.notRemoved;
+		for (PackedKDTree<T> tree : this.trees) {
+			if (tree == null) {
+				continue;
+			}
+			int index = tree.getNearest(x, y, filter);
+			if (index >= 0) {
+				double d = distanceSquared(tree.getX(index), tree.getY(index), x, y);
+				if (d < bestDistance) {
+					bestDistance = d;
+					best = tree.get(index);
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return all values with a distance of at most <code>distance</code> to (x, y)
+	 */
+	public Collection<T> getDisk(final double x, final double y, final double distance) {
+		final Collection<T> result = new ArrayList<>();
+		double maxDistance = distance * distance;
+		for (T value : this.buffer) {
+			if (distanceSquared(this.getX.applyAsDouble(value), this.getY.applyAsDouble(value), x, y) <= maxDistance) {
+				result.add(value);
+			}
+		}
+		for (PackedKDTree<T> tree : this.trees) {
+			if (tree != null) {
+				tree.forEachInDisk(x, y, distance, value -> {
+					if (!this.removed.contains(value)) {
+						result.add(value);
+					}
+				});
+			}
+		}
+		return result;
+	}
+
+	private void mergeBuffer() {
+		List<T> points = new ArrayList<>(this.buffer);
+		this.buffer.clear();
+		int level = 0;
+		while (level < this.trees.size() && this.trees.get(level) != null) {
+			collectPoints(level, points);
+			level++;
+		}
+		addTree(points, level);
+	}
+
+	private void rebuild() {
+		List<T> points = new ArrayList<>(this.buffer);
+		this.buffer.clear();
+		for (int level = 0; level < this.trees.size(); level++) {
+			if (this.trees.get(level) != null) {
+				collectPoints(level, points);
+			}
+		}
+		this.trees.clear();
+		if (!points.isEmpty()) {
+			addTree(points, 0);
+		}
+	}
+
+	/**
+	 * Moves the points of the tree at the given level (except for the removed ones) to the list.
+	 */
+	private void collectPoints(final int level, final List<T> points) {
+		PackedKDTree<T> tree = this.trees.get(level);
+		for (int i = 0; i < tree.size(); i++) {
+			T value = tree.get(i);
+			if (!this.removed.remove(value)) {
+				points.add(value);
+			}
+		}
+		this.treePointCount -= tree.size();
+		this.trees.set(level, null);
+	}
+
+	/**
+	 * Puts the points into a new tree at the first free level that is not lower than minLevel and that can hold them.
+	 */
+	private void addTree(final List<T> points, int minLevel) {
+		int level = minLevel;
+		while ((BUFFER_SIZE << level) < points.size() || (level < this.trees.size() && this.trees.get(level) != null)) {
+			level++;
+		}
+		while (this.trees.size() <= level) {
+			this.trees.add(null);
+		}
+		this.trees.set(level, new PackedKDTree<>(points, this.getX, this.getY));
+		this.treePointCount += points.size();
+	}
+
+	private static double distanceSquared(final double x1, final double y1, final double x2, final double y2) {
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		return dx * dx + dy * dy;
+	}
+}
@@ -0,0 +1,338 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedKDTree.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An immutable, bulk-loaded 2-dimensional kd-tree for nearest-neighbor and radius queries on points.
+ *
+ * <p>In contrast to the {@link QuadTree}, the tree is not made of node objects: the points are sorted into
+ * parallel arrays once, such that the median of every range <code>[from, to)</code> is the splitting
+ * point of that range. The tree structure is implicit in the array positions, ranges of at most
+ * {@value #LEAF_SIZE} points are scanned linearly. The queries do not allocate any objects (except
+ * {@link #getDisk(double, double, double)}, which returns a new collection), and since the tree cannot
+ * be modified after construction, it can be queried by several threads at the same time.</p>
+ *
+ * <p>If the set of points changes, a new tree has to be built, or {@link IncrementalKDTree} is used.</p>
+ *
+ * @param <T> the type of the values stored in the tree
+ */
+public final class PackedKDTree<T> {
+
+	private static final int LEAF_SIZE = 8;
+
+	private final double[] xs;
+	private final double[] ys;
+	private final Object[] values;
+	/** for the splitting point of each range: <code>true</code> if the range is split by x, <code>false</code> if by y */
+	private final boolean[] splitByX;
+
+	/**
+	 * Builds the tree from the given values. Runs in <i>O(n log n)</i>.
+	 *
+	 * @param values the values to be stored in the tree
+	 * @param getX returns the x coordinate of a value
+	 * @param getY returns the y coordinate of a value
+	 */
+	public PackedKDTree(final Collection<? extends T> values, final ToDoubleFunction<? super T> getX, final ToDoubleFunction<? super T> getY) {
+		int n = values.size();
+		this.xs = new double[n];
+		this.ys = new double[n];
+		this.values = new Object[n];
+		this.splitByX = new boolean[n];
+		int i = 0;
+		for (T value : values) {
+			this.xs[i] = getX.applyAsDouble(value);
+			this.ys[i] = getY.applyAsDouble(value);
+			this.values[i] = value;
+			i++;
+		}
+		build(0, n);
+	}
+
+	public int size() {
+		return this.values.length;
+	}
+
+	/**
+	 * @param index a position in the tree, as returned by {@link #getNearest(double, double)} or
+	 * {@link #getKNearest(double, double, int, int[], double[])}
+	 * @return the value at this position
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(final int index) {
+		return (T) this.values[index];
+	}
+
+	public double getX(final int index) {
+		return this.xs[index];
+	}
+
+	public double getY(final int index) {
+		return this.ys[index];
+	}
+
+	/**
+	 * @return the value closest to (x, y), <code>null</code> if the tree is empty
+	 */
+	public T getClosest(final double x, final double y) {
+		int index = getNearest(x, y);
+		return index < 0 ? null : get(index);
+	}
+
+	/**
+	 * @return the position of the point closest to (x, y), -1 if the tree is empty
+	 */
+	public int getNearest(final double x, final double y) {
+		return nearest(0, this.values.length, x, y, null, -1, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * @return the position of the point closest to (x, y) among the points whose values are accepted by the filter,
+	 * -1 if there is no such point
+	 */
+	public int getNearest(final double x, final double y, final Predicate<? super T> filter) {
+		return nearest(0, this.values.length, x, y, filter, -1, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Finds the <code>k</code> points closest to (x, y). The results are written to the given arrays,
+	 * which must have at least length <code>k</code>, ordered by increasing distance.
+	 *
+	 * @param indices receives the positions of the found points, see {@link #get(int)}
+	 * @param distances receives the distances of the found points to (x, y)
+	 * @return the number of points found, i.e. the minimum of <code>k</code> and {@link #size()}
+	 */
+	public int getKNearest(final double x, final double y, final int k, final int[] indices, final double[] distances) {
+		if (indices.length < k || distances.length < k) {
+			throw new IllegalArgumentException("the result arrays must have at least length k=" + k);
+		}
+		// distances holds the squared distances while searching
+		int found = kNearest(0, this.values.length, x, y, k, indices, distances, 0);
+		for (int i = 0; i < found; i++) {
+			distances[i] = Math.sqrt(distances[i]);
+		}
+		return found;
+	}
+
+	/**
+	 * Passes all values with a distance of at most <code>distance</code> to (x, y) to the consumer.
+	 */
+	public void forEachInDisk(final double x, final double y, final double distance, final Consumer<? super T> consumer) {
+		disk(0, this.values.length, x, y, distance * distance, consumer);
+	}
+
+	/**
+	 * @return all values with a distance of at most <code>distance</code> to (x, y)
+	 */
+	public Collection<T> getDisk(final double x, final double y, final double distance) {
+		final Collection<T> result = new ArrayList<>();
+		forEachInDisk(x, y, distance, result::add);
+		return result;
+	}
+
+	private void build(final int from, final int to) {
+		if (to - from <= LEAF_SIZE) {
+			return;
+		}
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			minX = Math.min(minX, this.xs[i]);
+			maxX = Math.max(maxX, this.xs[i]);
+			minY = Math.min(minY, this.ys[i]);
+			maxY = Math.max(maxY, this.ys[i]);
+		}
+		boolean byX = (maxX - minX) >= (maxY - minY);
+		int mid = (from + to) >>> 1;
+		select(from, to - 1, mid, byX);
+		this.splitByX[mid] = byX;
+		build(from, mid);
+		build(mid + 1, to);
+	}
+
+	/**
+	 * Reorders the range <code>[left, right]</code> such that position <code>k</code> holds the point it would hold
+	 * if the range was sorted, all points before have a smaller or equal coordinate, all points after a larger or
+	 * equal one (Hoare's selection algorithm).
+	 */
+	private void select(int left, int right, final int k, final boolean byX) {
+		final double[] coords = byX ? this.xs : this.ys;
+		while (left < right) {
+			double pivot = coords[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (coords[i] < pivot) {
+					i++;
+				}
+				while (coords[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void swap(final int i, final int j) {
+		double x = this.xs[i];
+		this.xs[i] = this.xs[j];
+		this.xs[j] = x;
+		double y = this.ys[i];
+		this.ys[i] = this.ys[j];
+		this.ys[j] = y;
+		Object v = this.values[i];
+		this.values[i] = this.values[j];
+		this.values[j] = v;
+	}
+
+	private double distanceSquared(final int index, final double x, final double y) {
+		double dx = this.xs[index] - x;
+		double dy = this.ys[index] - y;
+		return dx * dx + dy * dy;
+	}
+
+	private boolean accepts(final Predicate<? super T> filter, final int index) {
+		return filter == null || filter.test(get(index));
+	}
+
+	private int nearest(final int from, final int to, final double x, final double y, final Predicate<? super T> filter,
+			int best, double bestDistance) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				double d = distanceSquared(i, x, y);
+				if (d < bestDistance && accepts(filter, i)) {
+					bestDistance = d;
+					best = i;
+				}
+			}
+			return best;
+		}
+		int mid = (from + to) >>> 1;
+		double d = distanceSquared(mid, x, y);
+		if (d < bestDistance && accepts(filter, mid)) {
+			bestDistance = d;
+			best = mid;
+		}
+		double diff = this.splitByX[mid] ? x - this.xs[mid] : y - this.ys[mid];
+		if (diff < 0) {
+			best = nearest(from, mid, x, y, filter, best, bestDistance);
+			bestDistance = best < 0 ? Double.POSITIVE_INFINITY : distanceSquared(best, x, y);
+			if (diff * diff < bestDistance) {
+				best = nearest(mid + 1, to, x, y, filter, best, bestDistance);
+			}
+		} else {
+			best = nearest(mid + 1, to, x, y, filter, best, bestDistance);
+			bestDistance = best < 0 ? Double.POSITIVE_INFINITY : distanceSquared(best, x, y);
+			if (diff * diff < bestDistance) {
+				best = nearest(from, mid, x, y, filter, best, bestDistance);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the new number of found points
+	 */
+	private int kNearest(final int from, final int to, final double x, final double y, final int k,
+			final int[] indices, final double[] distances, int found) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				found = offer(i, distanceSquared(i, x, y), k, indices, distances, found);
+			}
+			return found;
+		}
+		int mid = (from + to) >>> 1;
+		found = offer(mid, distanceSquared(mid, x, y), k, indices, distances, found);
+		double diff = this.splitByX[mid] ? x - this.xs[mid] : y - this.ys[mid];
+		if (diff < 0) {
+			found = kNearest(from, mid, x, y, k, indices, distances, found);
+			if (found < k || diff * diff < distances[k - 1]) {
+				found = kNearest(mid + 1, to, x, y, k, indices, distances, found);
+			}
+		} else {
+			found = kNearest(mid + 1, to, x, y, k, indices, distances, found);
+			if (found < k || diff * diff < distances[k - 1]) {
+				found = kNearest(from, mid, x, y, k, indices, distances, found);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Inserts a point into the sorted result arrays if it is among the k closest so far.
+	 */
+	private static int offer(final int index, final double distance, final int k, final int[] indices, final double[] distances, int found) {
+		if (k == 0 || (found == k && distance >= distances[k - 1])) {
+			return found;
+		}
+		int pos = (found < k) ? found++ : k - 1;
+		while (pos > 0 && distances[pos - 1] > distance) {
+			indices[pos] = indices[pos - 1];
+			distances[pos] = distances[pos - 1];
+			pos--;
+		}
+		indices[pos] = index;
+		distances[pos] = distance;
+		return found;
+	}
+
+	private void disk(final int from, final int to, final double x, final double y, final double maxDistance, final Consumer<? super T> consumer) {
+		if (to - from <= LEAF_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (distanceSquared(i, x, y) <= maxDistance) {
+					consumer.accept(get(i));
+				}
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		double diff = this.splitByX[mid] ? x - this.xs[mid] : y - this.ys[mid];
+		if (diff <= 0 || diff * diff <= maxDistance) {
+			disk(from, mid, x, y, maxDistance, consumer);
+		}
+		if (distanceSquared(mid, x, y) <= maxDistance) {
+			consumer.accept(get(mid));
+		}
+		if (diff >= 0 || diff * diff <= maxDistance) {
+			disk(mid + 1, to, x, y, maxDistance, consumer);
+		}
+	}
+
+}
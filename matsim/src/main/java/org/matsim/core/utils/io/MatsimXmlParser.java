@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 import java.util.zip.GZIPInputStream;
 
@@ -53,7 +55,9 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 
 	private static final Logger log = Logger.getLogger(MatsimXmlParser.class);
 
-	private final Stack<StringBuffer> buffers = new Stack<>();
+	/** one buffer per nesting level, re-used for all elements on that level */
+	private final List<StringBuilder> buffers = new ArrayList<>();
+	private int depth = 0;
 	private final Stack<String> theContext = new Stack<>();
 
 	private boolean isValidating = true;
@@ -176,6 +180,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	}
 
 	public final void parse(final InputSource input) throws UncheckedIOException {
+		this.depth = 0;
 		try {
 			SAXParserFactory factory = SAXParserFactory.newInstance();
 			factory.setValidating(this.isValidating);
@@ -331,9 +336,8 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	public void characters(final char[] ch, final int start, final int length) throws SAXException {
 		// has to be non-final since otherwise the events parser does not work.  Probably ok (this here is just a default implementation). kai, jul'16
 		
-		StringBuffer buffer = this.buffers.peek();
-		if (buffer != null) {
-			buffer.append(ch, start, length);
+		if (this.depth > 0) {
+			this.buffers.get(this.depth - 1).append(ch, start, length);
 		}
 	}
 
@@ -342,7 +346,11 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		// I have not good intuition if making this one non-final might be ok.  kai, jul'16
 
 		String tag = (uri.length() == 0) ? qName : localName;
-		this.buffers.push(new StringBuffer());
+		if (this.depth == this.buffers.size()) {
+			this.buffers.add(new StringBuilder());
+		}
+		this.buffers.get(this.depth).setLength(0);
+		this.depth++;
 		this.startTag(tag, atts, this.theContext);
 		this.theContext.push(tag);
 	}
@@ -353,8 +361,11 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		
 		String tag = (uri.length() == 0) ? qName : localName;
 		this.theContext.pop();
-		StringBuffer buffer = this.buffers.pop();
-		this.endTag(tag, buffer.toString(), this.theContext);
+		this.depth--;
+		StringBuilder buffer = this.buffers.get(this.depth);
+		// most elements have no content, so avoid creating new empty strings for them
+		String content = (buffer.length() == 0) ? "" : buffer.toString();
+		this.endTag(tag, content, this.theContext);
 	}
 
 	/* implement ErrorHandler */
@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountsMetrics.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+/**
+ * Aggregated comparison of simulated volumes with counts, as published by the {@link CountsTracker}.
+ * Hours are 0-based, i.e. hour 0 corresponds to the count volume of hour 1.
+ */
+public final class CountsMetrics {
+
+	/** a GEH value below this threshold is usually considered a good fit */
+	public static final double GEH_THRESHOLD = 5.0;
+
+	private final int iteration;
+	private final int iterationsAveraged;
+	private final int[] numberOfValues;
+	private final double[] rmse;
+	private final double[] bias;
+	private final double[] meanGeh;
+	private final double[] shareGehBelowThreshold;
+	private final double totalRmse;
+	private final double totalBias;
+	private final double totalMeanGeh;
+	private final double totalShareGehBelowThreshold;
+
+	/**
+	 * @param sumSquaredErrors per hour, the sum of (sim - count)^2 over all counts
+	 * @param sumErrors per hour, the sum of (sim - count) over all counts
+	 * @param sumGeh per hour, the sum of the GEH values over all counts
+	 * @param gehBelowThreshold per hour, the number of counts with a GEH value below {@link #GEH_THRESHOLD}
+	 * @param numberOfValues per hour, the number of counts
+	 */
+	CountsMetrics(int iteration, int iterationsAveraged, double[] sumSquaredErrors, double[] sumErrors, double[] sumGeh,
+			int[] gehBelowThreshold, int[] numberOfValues) {
+		this.iteration = iteration;
+		this.iterationsAveraged = iterationsAveraged;
+		int hours = numberOfValues.length;
+		this.numberOfValues = numberOfValues.clone();
+		this.rmse = new double[hours];
+		this.bias = new double[hours];
+		this.meanGeh = new double[hours];
+		this.shareGehBelowThreshold = new double[hours];
+		double totalSquaredErrors = 0.0;
+		double totalErrors = 0.0;
+		double totalGeh = 0.0;
+		int totalBelowThreshold = 0;
+		int totalValues = 0;
+		for (int h = 0; h < hours; h++) {
+			int n = numberOfValues[h];
+			// the incrementally updated sums may be slightly negative due to rounding
+			this.rmse[h] = Math.sqrt(Math.max(0.0, sumSquaredErrors[h]) / n);
+			this.bias[h] = sumErrors[h] / n;
+			this.meanGeh[h] = sumGeh[h] / n;
+			this.shareGehBelowThreshold[h] = (double) gehBelowThreshold[h] / n;
+			totalSquaredErrors += sumSquaredErrors[h];
+			totalErrors += sumErrors[h];
+			totalGeh += sumGeh[h];
+			totalBelowThreshold += gehBelowThreshold[h];
+			totalValues += n;
+		}
+		this.totalRmse = Math.sqrt(Math.max(0.0, totalSquaredErrors) / totalValues);
+		this.totalBias = totalErrors / totalValues;
+		this.totalMeanGeh = totalGeh / totalValues;
+		this.totalShareGehBelowThreshold = (double) totalBelowThreshold / totalValues;
+	}
+
+	public int getIteration() {
+		return this.iteration;
+	}
+
+	/**
+	 * @return the number of iterations over which the simulated volumes were averaged before comparing them to the counts
+	 */
+	public int getIterationsAveraged() {
+		return this.iterationsAveraged;
+	}
+
+	/**
+	 * @return the number of count values per hour
+	 */
+	public int[] getNumberOfValues() {
+		return this.numberOfValues.clone();
+	}
+
+	/**
+	 * @return the root mean square error of the simulated volumes per hour, NaN for hours without count values
+	 */
+	public double[] getRmse() {
+		return this.rmse.clone();
+	}
+
+	/**
+	 * @return the mean of (sim - count) per hour, NaN for hours without count values
+	 */
+	public double[] getBias() {
+		return this.bias.clone();
+	}
+
+	public double[] getMeanGeh() {
+		return this.meanGeh.clone();
+	}
+
+	public double[] getShareGehBelowThreshold() {
+		return this.shareGehBelowThreshold.clone();
+	}
+
+	public double getTotalRmse() {
+		return this.totalRmse;
+	}
+
+	public double getTotalBias() {
+		return this.totalBias;
+	}
+
+	public double getTotalMeanGeh() {
+		return this.totalMeanGeh;
+	}
+
+	public double getTotalShareGehBelowThreshold() {
+		return this.totalShareGehBelowThreshold;
+	}
+
+	/**
+	 * The GEH statistic, as in {@link CountSimComparison#calculateGEHValue()}, but 0 if both values are 0.
+	 */
+	static double calculateGeh(double simValue, double countValue) {
+		double sum = simValue + countValue;
+		if (sum <= 0.0) return 0.0;
+		double diff = simValue - countValue;
+		return Math.sqrt(2 * diff * diff / sum);
+	}
+
+}
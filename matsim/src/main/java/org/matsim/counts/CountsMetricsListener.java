@@ -0,0 +1,34 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountsMetricsListener.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+/**
+ * Receives the comparison with counts of every iteration from the {@link CountsTracker}.
+ */
+public interface CountsMetricsListener {
+
+	/**
+	 * @param metrics the comparison of the volumes of the iteration which just ended
+	 * @param windowMetrics the comparison of the volumes averaged over the last iterations
+	 */
+	void notifyCountsMetrics(CountsMetrics metrics, CountsMetrics windowMetrics);
+
+}
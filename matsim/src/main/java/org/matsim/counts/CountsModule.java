@@ -40,6 +40,8 @@ public class CountsModule extends AbstractModule {
     @Override
     public void install() {
         addControlerListenerBinding().to(CountsControlerListener.class);
+        addControlerListenerBinding().to(CountsTracker.class);
+        addEventHandlerBinding().to(CountsTracker.class);
         bind(CountsInitializer.class).asEagerSingleton();
     }
 
@@ -0,0 +1,314 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountsTracker.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.groups.CountsConfigGroup;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.utils.collections.CollectionUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Compares the simulated volumes with the counts in every iteration, other than the {@link CountsControlerListener}
+ * which only does so every {@link CountsConfigGroup#getWriteCountsInterval()} iterations, but writes much more output.
+ * <p></p>
+ * Only the counted links are followed. The error statistics are updated with every vehicle leaving a counted link,
+ * so nothing but a few sums has to be aggregated at the end of the iteration. Additionally, the volumes of the last
+ * {@link CountsConfigGroup#getAverageCountsOverIterations()} iterations are kept, and the averages are compared with
+ * the counts as well.
+ * <p></p>
+ * The results are published to the registered {@link CountsMetricsListener}s and, if running in the controler,
+ * written to {@value #FILENAME_COUNTS_METRICS} in the output directory.
+ */
+@Singleton
+public final class CountsTracker implements LinkLeaveEventHandler, VehicleEntersTrafficEventHandler, IterationEndsListener, ShutdownListener {
+
+	private final static Logger log = Logger.getLogger(CountsTracker.class);
+
+	public static final String FILENAME_COUNTS_METRICS = "countsMetrics.txt";
+
+	private static final int HOURS = 24;
+
+	private final Map<Id<Link>, Integer> countIndices = new HashMap<>();
+	/** [count * HOURS + hour], NaN if there is no count value for the hour */
+	private final double[] countValues;
+	private final int[] numberOfValues = new int[HOURS];
+	private final double countsScaleFactor;
+	private final Set<String> analyzedModes;
+	private final Set<Id<Vehicle>> analyzedVehicles = new HashSet<>();
+
+	/** [count * HOURS + hour], the volumes of the current iteration */
+	private final int[] volumes;
+	private final double[] sumSquaredErrors = new double[HOURS];
+	private final double[] sumErrors = new double[HOURS];
+	private final double[] sumGeh = new double[HOURS];
+	private final int[] gehBelowThreshold = new int[HOURS];
+
+	private final int[][] window;
+	private final double[] windowSums;
+	private int windowPosition = 0;
+	private int iterationsInWindow = 0;
+
+	private final List<CountsMetricsListener> listeners = new ArrayList<>();
+	private final OutputDirectoryHierarchy controlerIO;
+	private BufferedWriter out = null;
+	private CountsMetrics metrics = null;
+	private CountsMetrics windowMetrics = null;
+
+	@Inject
+	CountsTracker(Counts<Link> counts, CountsConfigGroup config, OutputDirectoryHierarchy controlerIO) {
+		this(counts, config.getCountsScaleFactor(), config.isFilterModes() ? CollectionUtils.stringToSet(config.getAnalyzedModes()) : null,
+				config.getAverageCountsOverIterations(), config.getWriteCountsInterval() > 0 ? controlerIO : null);
+	}
+
+	/**
+	 * @param analyzedModes the network modes whose vehicles are counted, <code>null</code> to count all vehicles
+	 * @param windowSize the number of iterations over which the volumes are averaged for the window metrics
+	 */
+	public CountsTracker(Counts<Link> counts, double countsScaleFactor, Set<String> analyzedModes, int windowSize) {
+		this(counts, countsScaleFactor, analyzedModes, windowSize, null);
+	}
+
+	private CountsTracker(Counts<Link> counts, double countsScaleFactor, Set<String> analyzedModes, int windowSize, OutputDirectoryHierarchy controlerIO) {
+		this.countsScaleFactor = countsScaleFactor;
+		this.analyzedModes = analyzedModes;
+		this.controlerIO = controlerIO;
+
+		int numberOfCounts = counts.getCounts().size();
+		this.countValues = new double[numberOfCounts * HOURS];
+		Arrays.fill(this.countValues, Double.NaN);
+		for (Count<Link> count : counts.getCounts().values()) {
+			int index = this.countIndices.size();
+			this.countIndices.put(count.getId(), index);
+			for (Volume volume : count.getVolumes().values()) {
+				int hour = volume.getHourOfDayStartingWithOne() - 1;
+				if (hour >= 0 && hour < HOURS) {
+					this.countValues[index * HOURS + hour] = volume.getValue();
+					this.numberOfValues[hour]++;
+				}
+			}
+		}
+
+		this.volumes = new int[this.countValues.length];
+		this.window = new int[Math.max(1, windowSize)][this.countValues.length];
+		this.windowSums = new double[this.countValues.length];
+		resetStatistics();
+	}
+
+	public void addMetricsListener(CountsMetricsListener listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * @return the comparison of the last iteration that ended, <code>null</code> if there was none yet
+	 */
+	public CountsMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * @return the comparison of the volumes averaged over the last iterations, <code>null</code> if there was none yet
+	 */
+	public CountsMetrics getWindowMetrics() {
+		return this.windowMetrics;
+	}
+
+	@Override
+	public void handleEvent(VehicleEntersTrafficEvent event) {
+		if (this.analyzedModes != null) {
+			if (this.analyzedModes.contains(event.getNetworkMode())) {
+				this.analyzedVehicles.add(event.getVehicleId());
+			} else {
+				this.analyzedVehicles.remove(event.getVehicleId());
+			}
+		}
+	}
+
+	@Override
+	public void handleEvent(LinkLeaveEvent event) {
+		Integer index = this.countIndices.get(event.getLinkId());
+		if (index == null) {
+			return;
+		}
+		if (this.analyzedModes != null && !this.analyzedVehicles.contains(event.getVehicleId())) {
+			return;
+		}
+		int hour = (int) (event.getTime() / 3600);
+		if (hour >= HOURS) {
+			return;
+		}
+		int cell = index * HOURS + hour;
+		double countValue = this.countValues[cell];
+		double oldValue = this.volumes[cell] * this.countsScaleFactor;
+		this.volumes[cell]++;
+		if (Double.isNaN(countValue)) {
+			return;
+		}
+		double newValue = this.volumes[cell] * this.countsScaleFactor;
+		removeValue(hour, oldValue, countValue);
+		addValue(hour, newValue, countValue);
+	}
+
+	@Override
+	public void reset(int iteration) {
+		Arrays.fill(this.volumes, 0);
+		this.analyzedVehicles.clear();
+		resetStatistics();
+	}
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		if (this.countIndices.isEmpty()) {
+			return;
+		}
+		this.metrics = new CountsMetrics(event.getIteration(), 1, this.sumSquaredErrors, this.sumErrors, this.sumGeh,
+				this.gehBelowThreshold, this.numberOfValues);
+
+		// replace the oldest volumes in the window
+		int[] oldest = this.window[this.windowPosition];
+		for (int i = 0; i < this.volumes.length; i++) {
+			this.windowSums[i] += this.volumes[i] - oldest[i];
+		}
+		System.arraycopy(this.volumes, 0, oldest, 0, this.volumes.length);
+		this.windowPosition = (this.windowPosition + 1) % this.window.length;
+		this.iterationsInWindow = Math.min(this.iterationsInWindow + 1, this.window.length);
+
+		double[] windowSquaredErrors = new double[HOURS];
+		double[] windowErrors = new double[HOURS];
+		double[] windowGeh = new double[HOURS];
+		int[] windowBelowThreshold = new int[HOURS];
+		for (int cell = 0; cell < this.countValues.length; cell++) {
+			double countValue = this.countValues[cell];
+			if (Double.isNaN(countValue)) {
+				continue;
+			}
+			int hour = cell % HOURS;
+			double simValue = this.windowSums[cell] / this.iterationsInWindow * this.countsScaleFactor;
+			double error = simValue - countValue;
+			double geh = CountsMetrics.calculateGeh(simValue, countValue);
+			windowSquaredErrors[hour] += error * error;
+			windowErrors[hour] += error;
+			windowGeh[hour] += geh;
+			if (geh < CountsMetrics.GEH_THRESHOLD) windowBelowThreshold[hour]++;
+		}
+		this.windowMetrics = new CountsMetrics(event.getIteration(), this.iterationsInWindow, windowSquaredErrors, windowErrors,
+				windowGeh, windowBelowThreshold, this.numberOfValues);
+
+		for (CountsMetricsListener listener : this.listeners) {
+			listener.notifyCountsMetrics(this.metrics, this.windowMetrics);
+		}
+		if (this.controlerIO != null) {
+			writeMetrics();
+		}
+		log.info("counts comparison: RMSE=" + this.metrics.getTotalRmse() + " mean GEH=" + this.metrics.getTotalMeanGeh()
+				+ " (averaged over " + this.iterationsInWindow + " iterations: RMSE=" + this.windowMetrics.getTotalRmse()
+				+ " mean GEH=" + this.windowMetrics.getTotalMeanGeh() + ")");
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		if (this.out != null) {
+			try {
+				this.out.close();
+			} catch (IOException e) {
+				log.warn("Could not close output-stream.", e);
+			}
+			this.out = null;
+		}
+	}
+
+	private void writeMetrics() {
+		try {
+			if (this.out == null) {
+				this.out = IOUtils.getBufferedWriter(this.controlerIO.getOutputFilename(FILENAME_COUNTS_METRICS));
+				this.out.write("ITERATION\tRMSE\tBIAS\tMEAN_GEH\tSHARE_GEH_BELOW_5\tWINDOW_ITERATIONS\tWINDOW_RMSE\tWINDOW_BIAS\tWINDOW_MEAN_GEH\tWINDOW_SHARE_GEH_BELOW_5\n");
+			}
+			this.out.write(this.metrics.getIteration() + "\t" + this.metrics.getTotalRmse() + "\t" + this.metrics.getTotalBias()
+					+ "\t" + this.metrics.getTotalMeanGeh() + "\t" + this.metrics.getTotalShareGehBelowThreshold()
+					+ "\t" + this.windowMetrics.getIterationsAveraged() + "\t" + this.windowMetrics.getTotalRmse()
+					+ "\t" + this.windowMetrics.getTotalBias() + "\t" + this.windowMetrics.getTotalMeanGeh()
+					+ "\t" + this.windowMetrics.getTotalShareGehBelowThreshold() + "\n");
+			this.out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Sets the statistics to the state of all simulated volumes being 0.
+	 */
+	private void resetStatistics() {
+		Arrays.fill(this.sumSquaredErrors, 0.0);
+		Arrays.fill(this.sumErrors, 0.0);
+		Arrays.fill(this.sumGeh, 0.0);
+		Arrays.fill(this.gehBelowThreshold, 0);
+		for (int cell = 0; cell < this.countValues.length; cell++) {
+			double countValue = this.countValues[cell];
+			if (!Double.isNaN(countValue)) {
+				addValue(cell % HOURS, 0.0, countValue);
+			}
+		}
+	}
+
+	private void addValue(int hour, double simValue, double countValue) {
+		double error = simValue - countValue;
+		double geh = CountsMetrics.calculateGeh(simValue, countValue);
+		this.sumSquaredErrors[hour] += error * error;
+		this.sumErrors[hour] += error;
+		this.sumGeh[hour] += geh;
+		if (geh < CountsMetrics.GEH_THRESHOLD) this.gehBelowThreshold[hour]++;
+	}
+
+	private void removeValue(int hour, double simValue, double countValue) {
+		double error = simValue - countValue;
+		double geh = CountsMetrics.calculateGeh(simValue, countValue);
+		this.sumSquaredErrors[hour] -= error * error;
+		this.sumErrors[hour] -= error;
+		this.sumGeh[hour] -= geh;
+		if (geh < CountsMetrics.GEH_THRESHOLD) this.gehBelowThreshold[hour]--;
+	}
+
+}
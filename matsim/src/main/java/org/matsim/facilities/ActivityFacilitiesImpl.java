@@ -24,7 +24,7 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
-import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.collections.IncrementalKDTree;
 import org.matsim.utils.objectattributes.ObjectAttributes;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
@@ -57,7 +57,8 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 
 	private final ObjectAttributes facilityAttributes = new ObjectAttributes();
 
-	private QuadTree<ActivityFacility> facilitiesQuadTree;
+	/** built lazily, then updated whenever facilities are added */
+	private volatile IncrementalKDTree<ActivityFacility> facilitiesIndex;
 
 	//////////////////////////////////////////////////////////////////////
 	// constructor
@@ -88,6 +89,9 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 		}
 		ActivityFacilityImpl f = new ActivityFacilityImpl(id, center, linkId);
 		this.facilities.put(f.getId(),f);
+		if (this.facilitiesIndex != null) {
+			this.facilitiesIndex.add(f);
+		}
 
 		// show counter
 		if (this.facilities.size() % this.nextMsg == 0) {
@@ -140,6 +144,9 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 		}
 
 		this.facilities.put(facility.getId(),facility);
+		if (this.facilitiesIndex != null) {
+			this.facilitiesIndex.add(facility);
+		}
 	}
 
 	@Override
@@ -167,42 +174,28 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 		return stb.toString();
 	}
 
-	synchronized private void buildQuadTree() {
-		/* the method must be synchronized to ensure we only build one quadTree
-		 * in case that multiple threads call a method that requires the quadTree.
+	private IncrementalKDTree<ActivityFacility> getFacilitiesIndex() {
+		IncrementalKDTree<ActivityFacility> index = this.facilitiesIndex;
+		return (index != null) ? index : buildFacilitiesIndex();
+	}
+
+	synchronized private IncrementalKDTree<ActivityFacility> buildFacilitiesIndex() {
+		/* the method must be synchronized to ensure we only build one index
+		 * in case that multiple threads call a method that requires the index.
 		 */
-		if (this.facilitiesQuadTree != null) {
-			return;
+		if (this.facilitiesIndex != null) {
+			return this.facilitiesIndex;
 		}
 		double startTime = System.currentTimeMillis();
-		double minx = Double.POSITIVE_INFINITY;
-		double miny = Double.POSITIVE_INFINITY;
-		double maxx = Double.NEGATIVE_INFINITY;
-		double maxy = Double.NEGATIVE_INFINITY;
-		for ( ActivityFacility n : this.facilities.values()) {
-			if (n.getCoord().getX() < minx) { minx = n.getCoord().getX(); }
-			if (n.getCoord().getY() < miny) { miny = n.getCoord().getY(); }
-			if (n.getCoord().getX() > maxx) { maxx = n.getCoord().getX(); }
-			if (n.getCoord().getY() > maxy) { maxy = n.getCoord().getY(); }
-		}
-		minx -= 1.0;
-		miny -= 1.0;
-		maxx += 1.0;
-		maxy += 1.0;
-		// yy the above four lines are problematic if the coordinate values are much smaller than one. kai, oct'15
-
-		log.info("building QuadTree for nodes: xrange(" + minx + "," + maxx + "); yrange(" + miny + "," + maxy + ")");
-		QuadTree<ActivityFacility> quadTree = new QuadTree<>(minx, miny, maxx, maxy);
-		for (ActivityFacility n : this.facilities.values()) {
-			quadTree.put(n.getCoord().getX(), n.getCoord().getY(), n);
-		}
-		/* assign the quadTree at the very end, when it is complete.
-		 * otherwise, other threads may already start working on an incomplete quadtree
+		log.info("building spatial index for " + this.facilities.size() + " facilities");
+		IncrementalKDTree<ActivityFacility> index = new IncrementalKDTree<>(this.facilities.values(), f -> f.getCoord().getX(), f -> f.getCoord().getY());
+		/* assign the index at the very end, when it is complete.
+		 * otherwise, other threads may already start working on an incomplete index
 		 */
-		this.facilitiesQuadTree = quadTree;
-		log.info("Building QuadTree took " + ((System.currentTimeMillis() - startTime) / 1000.0) + " seconds.");
+		this.facilitiesIndex = index;
+		log.info("Building spatial index took " + ((System.currentTimeMillis() - startTime) / 1000.0) + " seconds.");
+		return index;
 	}
-	
 
 	/**
 	 * finds the node nearest to <code>coord</code>
@@ -211,8 +204,7 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 	 * @return the closest node found, null if none
 	 */
 	@Override public ActivityFacility getNearestFacility(final Coord coord) {
-		if (this.facilitiesQuadTree == null) { buildQuadTree(); }
-		return this.facilitiesQuadTree.getClosest(coord.getX(), coord.getY());
+		return getFacilitiesIndex().getClosest(coord.getX(), coord.getY());
 	}
 
 	/**
@@ -223,8 +215,7 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 	 * @return all nodes within distance to <code>coord</code>
 	 */
 	@Override public Collection<ActivityFacility> getNearestFacilities(final Coord coord, final double distance) {
-		if (this.facilitiesQuadTree == null) { buildQuadTree(); }
-		return this.facilitiesQuadTree.getDisk(coord.getX(), coord.getY(), distance);
+		return getFacilitiesIndex().getDisk(coord.getX(), coord.getY(), distance);
 	}
 
 
@@ -0,0 +1,175 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinarySnapshotReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Reads files written by {@link BinarySnapshotWriter}. Only the ids and the index of the snapshots
+ * are read when the file is opened, every snapshot is read from the file when it is requested.
+ */
+public class BinarySnapshotReader implements Closeable {
+
+	private static final AgentSnapshotInfo.AgentState[] STATES = AgentSnapshotInfo.AgentState.values();
+
+	private final FileChannel channel;
+	private final double originX;
+	private final double originY;
+	private final double resolution;
+	private final List<Id<Person>> agentIds;
+	private final double[] times;
+	private final long[] positions;
+	private final int[] numbersOfAgents;
+	private final AgentSnapshotInfoFactory snapshotInfoFactory = new AgentSnapshotInfoFactory(null);
+
+	public BinarySnapshotReader(String filename) {
+		try {
+			this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+
+			ByteBuffer header = read(0, BinarySnapshotWriter.HEADER_SIZE);
+			if (header.getInt() != BinarySnapshotWriter.MAGIC) {
+				throw new UncheckedIOException(filename + " is not a binary snapshot file.");
+			}
+			int version = header.getInt();
+			if (version != BinarySnapshotWriter.VERSION) {
+				throw new UncheckedIOException("Unsupported version " + version + " of binary snapshot file " + filename);
+			}
+			this.originX = header.getDouble();
+			this.originY = header.getDouble();
+			this.resolution = header.getDouble();
+
+			long size = this.channel.size();
+			ByteBuffer footer = read(size - BinarySnapshotWriter.FOOTER_SIZE, BinarySnapshotWriter.FOOTER_SIZE);
+			long idsPosition = footer.getLong();
+			long indexPosition = footer.getLong();
+			if (footer.getInt() != BinarySnapshotWriter.MAGIC) {
+				throw new UncheckedIOException(filename + " is incomplete, it was probably not finished.");
+			}
+
+			ByteBuffer trailer = read(idsPosition, (int) (size - BinarySnapshotWriter.FOOTER_SIZE - idsPosition));
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(trailer.array()));
+			int numberOfIds = in.readInt();
+			this.agentIds = new ArrayList<>(numberOfIds);
+			for (int i = 0; i < numberOfIds; i++) {
+				this.agentIds.add(Id.createPersonId(in.readUTF()));
+			}
+			if (idsPosition + trailer.capacity() - in.available() != indexPosition) {
+				throw new UncheckedIOException(filename + " is corrupt.");
+			}
+			int numberOfFrames = in.readInt();
+			this.times = new double[numberOfFrames];
+			this.positions = new long[numberOfFrames];
+			this.numbersOfAgents = new int[numberOfFrames];
+			for (int i = 0; i < numberOfFrames; i++) {
+				this.times[i] = in.readDouble();
+				this.positions[i] = in.readLong();
+				this.numbersOfAgents[i] = in.readInt();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public int getNumberOfSnapshots() {
+		return this.times.length;
+	}
+
+	public double getSnapshotTime(int snapshot) {
+		return this.times[snapshot];
+	}
+
+	/**
+	 * @return the index of the last snapshot at or before the given time, -1 if there is none
+	 */
+	public int getSnapshotIndex(double time) {
+		int index = Arrays.binarySearch(this.times, time);
+		if (index >= 0) {
+			// there might be several snapshots with the same time, take the last one
+			while (index + 1 < this.times.length && this.times[index + 1] == time) index++;
+			return index;
+		}
+		return -index - 2;
+	}
+
+	/**
+	 * @return the positions of all agents in the given snapshot, in the order in which they were written
+	 */
+	public List<AgentSnapshotInfo> readSnapshot(int snapshot) {
+		int numberOfAgents = this.numbersOfAgents[snapshot];
+		ByteBuffer buffer;
+		try {
+			buffer = read(this.positions[snapshot], BinarySnapshotWriter.FRAME_HEADER_SIZE + numberOfAgents * BinarySnapshotWriter.RECORD_SIZE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.position(BinarySnapshotWriter.FRAME_HEADER_SIZE);
+
+		List<AgentSnapshotInfo> agents = new ArrayList<>(numberOfAgents);
+		for (int i = 0; i < numberOfAgents; i++) {
+			Id<Person> id = this.agentIds.get(buffer.getInt());
+			double x = this.originX + buffer.getInt() * this.resolution;
+			double y = this.originY + buffer.getInt() * this.resolution;
+			double azimuth = (buffer.getShort() & 0xffff) * BinarySnapshotWriter.AZIMUTH_UNIT;
+			double color = (buffer.getShort() & 0xffff) * BinarySnapshotWriter.COLOR_UNIT;
+			byte state = buffer.get();
+
+			AgentSnapshotInfo info = this.snapshotInfoFactory.createAgentSnapshotInfo(id, x, y, 0.0, azimuth);
+			info.setColorValueBetweenZeroAndOne(color);
+			if (state >= 0) info.setAgentState(STATES[state]);
+			agents.add(info);
+		}
+		return agents;
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			int read = this.channel.read(buffer, position + buffer.position());
+			if (read < 0) throw new UncheckedIOException("unexpected end of file");
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+}
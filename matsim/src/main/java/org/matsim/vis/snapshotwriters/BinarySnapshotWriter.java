@@ -0,0 +1,338 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinarySnapshotWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes the positions of the agents into a compact binary file which can be read
+ * with random access to any snapshot, see {@link BinarySnapshotReader}.
+ * <p></p>
+ * The coordinates are stored as integers in units of a given resolution (default 0.1 m) relative
+ * to the position of the first agent written, the azimuth and the color value are stored as 16 bit
+ * values. Agent ids are stored once, the snapshots refer to them by their index. An index with the
+ * time and the file position of every snapshot is written at the end of the file.
+ * <p></p>
+ * The snapshots are encoded on the calling thread, but written to the file by a separate thread,
+ * such that the mobsim does not have to wait for the disk. If the writer thread fails, the exception is
+ * rethrown on the calling thread by the next call to this writer. As {@link TransimsSnapshotWriter} does,
+ * agents performing an activity are skipped.
+ * <p></p>
+ * File layout (big endian):
+ * <pre>
+ * header:   int magic, int version, double originX, double originY, double resolution
+ * snapshot: double time, int numberOfAgents, numberOfAgents * (int agentIndex, int x, int y, short azimuth, short color, byte state)
+ * ids:      int numberOfIds, numberOfIds * UTF-8 string (as written by DataOutput.writeUTF)
+ * index:    int numberOfSnapshots, numberOfSnapshots * (double time, long position, int numberOfAgents)
+ * footer:   long positionOfIds, long positionOfIndex, int magic
+ * </pre>
+ */
+public class BinarySnapshotWriter implements SnapshotWriter {
+
+	private static final Logger log = Logger.getLogger(BinarySnapshotWriter.class);
+
+	/*package*/ static final int MAGIC = 0x4d534e50; // "MSNP"
+	/*package*/ static final int VERSION = 1;
+	/*package*/ static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+	/*package*/ static final int FOOTER_SIZE = 8 + 8 + 4;
+	/*package*/ static final int FRAME_HEADER_SIZE = 8 + 4;
+	/*package*/ static final int RECORD_SIZE = 4 + 4 + 4 + 2 + 2 + 1;
+	/*package*/ static final double AZIMUTH_UNIT = 2.0 * Math.PI / 65536.0;
+	/*package*/ static final double COLOR_UNIT = 1.0 / 65535.0;
+
+	public static final double DEFAULT_RESOLUTION = 0.1;
+
+	private static final int QUEUED_FRAMES = 4;
+	private static final long POLL_TIMEOUT_MS = 100;
+	private static final Frame END_OF_FILE = new Frame();
+
+	private final FileChannel channel;
+	private final double resolution;
+	private double originX = Double.NaN;
+	private double originY = Double.NaN;
+
+	private final Map<Id<Person>, Integer> agentIndices = new HashMap<>();
+	private final List<Id<Person>> agentIds = new ArrayList<>();
+
+	private final BlockingQueue<Frame> fullFrames = new ArrayBlockingQueue<>(QUEUED_FRAMES);
+	private final BlockingQueue<Frame> emptyFrames = new ArrayBlockingQueue<>(QUEUED_FRAMES + 1);
+	/*package*/ final Thread writerThread;
+	private volatile Throwable writerFailure = null;
+	private Frame currentFrame = null;
+	private boolean finished = false;
+
+	// only accessed by the writer thread until it has terminated
+	private final List<Frame> frameIndex = new ArrayList<>();
+
+	public BinarySnapshotWriter(String filename) {
+		this(filename, DEFAULT_RESOLUTION);
+	}
+
+	/**
+	 * @param resolution the precision of the stored coordinates, in the units of the coordinate system
+	 */
+	public BinarySnapshotWriter(String filename, double resolution) {
+		this.resolution = resolution;
+		try {
+			this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.channel.position(HEADER_SIZE); // the header is written in finish(), when the origin is known
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		for (int i = 0; i < QUEUED_FRAMES + 1; i++) {
+			Frame frame = new Frame();
+			frame.buffer = ByteBuffer.allocate(64 * 1024);
+			this.emptyFrames.add(frame);
+		}
+		this.writerThread = new Thread(new Writer(), "BinarySnapshotWriter");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	@Override
+	public void beginSnapshot(double time) {
+		checkWriterFailure();
+		this.currentFrame = takeEmptyFrame();
+		this.currentFrame.time = time;
+		this.currentFrame.numberOfAgents = 0;
+		this.currentFrame.buffer.clear();
+		this.currentFrame.buffer.position(FRAME_HEADER_SIZE);
+	}
+
+	@Override
+	public void addAgent(AgentSnapshotInfo position) {
+		// drop all parking vehicles
+		if (position.getAgentState() == AgentSnapshotInfo.AgentState.PERSON_AT_ACTIVITY) return;
+
+		if (Double.isNaN(this.originX)) {
+			this.originX = position.getEasting();
+			this.originY = position.getNorthing();
+		}
+		Integer index = this.agentIndices.get(position.getId());
+		if (index == null) {
+			index = this.agentIds.size();
+			this.agentIndices.put(position.getId(), index);
+			this.agentIds.add(position.getId());
+		}
+
+		ByteBuffer buffer = this.currentFrame.buffer;
+		if (buffer.remaining() < RECORD_SIZE) {
+			ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+			buffer.flip();
+			larger.put(buffer);
+			this.currentFrame.buffer = larger;
+			buffer = larger;
+		}
+		buffer.putInt(index);
+		buffer.putInt((int) Math.round((position.getEasting() - this.originX) / this.resolution));
+		buffer.putInt((int) Math.round((position.getNorthing() - this.originY) / this.resolution));
+		double azimuth = position.getAzimuth() % (2.0 * Math.PI);
+		if (azimuth < 0) azimuth += 2.0 * Math.PI;
+		buffer.putShort((short) Math.round(azimuth / AZIMUTH_UNIT));
+		double color = Math.max(0.0, Math.min(1.0, position.getColorValueBetweenZeroAndOne()));
+		buffer.putShort((short) Math.round(color / COLOR_UNIT));
+		AgentSnapshotInfo.AgentState state = position.getAgentState();
+		buffer.put((byte) (state == null ? -1 : state.ordinal()));
+		this.currentFrame.numberOfAgents++;
+	}
+
+	@Override
+	public void endSnapshot() {
+		Frame frame = this.currentFrame;
+		this.currentFrame = null;
+		frame.buffer.putDouble(0, frame.time);
+		frame.buffer.putInt(8, frame.numberOfAgents);
+		frame.buffer.flip();
+		put(frame);
+	}
+
+	@Override
+	public void finish() {
+		if (this.finished) return;
+		this.finished = true;
+		RuntimeException failure = null;
+		try {
+			put(END_OF_FILE);
+			this.writerThread.join();
+			checkWriterFailure();
+			writeTrailer();
+		} catch (IOException e) {
+			failure = new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			failure = new RuntimeException(e);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			log.error("Could not close the snapshot file.", e);
+			if (failure == null) {
+				failure = new UncheckedIOException(e);
+			} else {
+				failure.addSuppressed(e);
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void writeTrailer() throws IOException {
+		long idsPosition = this.channel.position();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(this.agentIds.size());
+		for (Id<Person> id : this.agentIds) {
+			out.writeUTF(id.toString());
+		}
+		long indexPosition = idsPosition + out.size();
+		out.writeInt(this.frameIndex.size());
+		for (Frame frame : this.frameIndex) {
+			out.writeDouble(frame.time);
+			out.writeLong(frame.position);
+			out.writeInt(frame.numberOfAgents);
+		}
+		out.writeLong(idsPosition);
+		out.writeLong(indexPosition);
+		out.writeInt(MAGIC);
+		out.flush();
+		writeFully(ByteBuffer.wrap(bytes.toByteArray()), idsPosition);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putDouble(Double.isNaN(this.originX) ? 0.0 : this.originX);
+		header.putDouble(Double.isNaN(this.originY) ? 0.0 : this.originY);
+		header.putDouble(this.resolution);
+		header.flip();
+		writeFully(header, 0);
+	}
+
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += this.channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Waits for the writer thread to hand back a frame, but does not wait forever if the writer thread has died.
+	 */
+	private Frame takeEmptyFrame() {
+		try {
+			while (true) {
+				Frame frame = this.emptyFrames.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				if (frame != null) {
+					return frame;
+				}
+				checkWriterAlive();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void put(Frame frame) {
+		try {
+			while (!this.fullFrames.offer(frame, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				checkWriterAlive();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void checkWriterAlive() {
+		checkWriterFailure();
+		if (!this.writerThread.isAlive()) {
+			throw new IllegalStateException("The snapshot writer thread has terminated.");
+		}
+	}
+
+	private void checkWriterFailure() {
+		Throwable failure = this.writerFailure;
+		if (failure == null) {
+			return;
+		}
+		if (failure instanceof IOException) {
+			throw new UncheckedIOException(failure);
+		}
+		throw new RuntimeException("Writing the snapshots failed.", failure);
+	}
+
+	private static class Frame {
+		double time;
+		int numberOfAgents;
+		long position;
+		ByteBuffer buffer;
+	}
+
+	private class Writer implements Runnable {
+		@Override
+		public void run() {
+			while (true) {
+				Frame frame;
+				try {
+					frame = fullFrames.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (frame == END_OF_FILE) return;
+
+				try {
+					Frame entry = new Frame();
+					entry.time = frame.time;
+					entry.numberOfAgents = frame.numberOfAgents;
+					entry.position = channel.position();
+					while (frame.buffer.hasRemaining()) {
+						channel.write(frame.buffer);
+					}
+					frameIndex.add(entry);
+				} catch (IOException | RuntimeException | Error e) {
+					// the mobsim notices the failure the next time it passes or waits for a frame
+					writerFailure = e;
+					return;
+				}
+				emptyFrames.add(frame);
+			}
+		}
+	}
+
+}
@@ -41,6 +41,9 @@ public class SnapshotWritersModule extends AbstractModule {
 		if (getConfig().controler().getSnapshotFormat().contains("transims")) {
 			addSnapshotWriterBinding().toProvider(TransimsSnapshotWriterFactory.class);
 		}
+		if (getConfig().controler().getSnapshotFormat().contains("binary")) {
+			addSnapshotWriterBinding().toProvider(BinarySnapshotWriterFactory.class);
+		}
 		if (getConfig().controler().getWriteSnapshotsInterval() != 0) {
 
 			addMobsimListenerBinding().toProvider(SnapshotWriterManagerProvider.class);
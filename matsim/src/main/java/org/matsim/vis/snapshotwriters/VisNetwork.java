@@ -1,5 +1,6 @@
 package org.matsim.vis.snapshotwriters;
 
+import java.util.Collection;
 import java.util.Map;
 
 import org.matsim.api.core.v01.Id;
@@ -10,4 +11,14 @@ public interface VisNetwork {
 
 	Map<Id<Link>,? extends VisLink> getVisLinks() ;
 	Network getNetwork() ;
+
+	/**
+	 * Adds the positions of all agents on the links to the given collection. Implementations may
+	 * collect them in parallel, but must add them in the order of {@link #getVisLinks()}.
+	 */
+	default void addAgentSnapshotInfos(Collection<AgentSnapshotInfo> positions) {
+		for (VisLink link : getVisLinks().values()) {
+			link.getVisData().addAgentSnapshotInfo(positions);
+		}
+	}
 }
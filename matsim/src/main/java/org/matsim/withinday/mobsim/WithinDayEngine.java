@@ -41,6 +41,7 @@ import javax.inject.Singleton;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This Class implements the MobsimEngine interface. If added to a
@@ -76,6 +77,12 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 	private Map<WithinDayDuringActivityReplannerFactory, Tuple<Double, Double>> duringActivityReplannerFactory;
 	private Map<WithinDayDuringLegReplannerFactory, Tuple<Double, Double>> duringLegReplannerFactory;
 	
+	/*
+	 * Lives as long as the engine, i.e. it is shared by all time steps and iterations.
+	 * Null if only one thread is used.
+	 */
+	private final ForkJoinPool identificationPool;
+	
 	private InternalInterface internalInterface;
 
 	@Inject
@@ -94,6 +101,13 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 		this.initialReplanningModule = new InitialReplanningModule(parallelInitialReplanner);
 		this.duringActivityReplanningModule = new DuringActivityReplanningModule(parallelDuringActivityReplanner);
 		this.duringLegReplanningModule = new DuringLegReplanningModule(parallelDuringLegReplanner);
+		
+		if (globalConfigGroup.getNumberOfThreads() > 1) {
+			this.identificationPool = new ForkJoinPool(globalConfigGroup.getNumberOfThreads());
+			this.initialReplanningModule.setIdentificationPool(this.identificationPool);
+			this.duringActivityReplanningModule.setIdentificationPool(this.identificationPool);
+			this.duringLegReplanningModule.setIdentificationPool(this.identificationPool);
+		} else this.identificationPool = null;
 	}
 
 	public void doInitialReplanning(boolean value) {
@@ -196,6 +210,10 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 		this.parallelDuringActivityReplanner.resetReplanners();
 		this.parallelDuringLegReplanner.resetReplanners();
 		
+		this.initialReplanningModule.resetLatencies();
+		this.duringActivityReplanningModule.resetLatencies();
+		this.duringLegReplanningModule.resetLatencies();
+		
 		this.initialReplanningPerformed = false;
 	}
 
@@ -204,6 +222,10 @@ public class WithinDayEngine implements MobsimEngine, ActivityEndReschedulerProv
 		this.parallelInitialReplanner.afterSim();
 		this.parallelDuringActivityReplanner.afterSim();
 		this.parallelDuringLegReplanner.afterSim();
+		
+		this.initialReplanningModule.logLatencies();
+		this.duringActivityReplanningModule.logLatencies();
+		this.duringLegReplanningModule.logLatencies();
 	}
 
 	@Override
@@ -21,9 +21,13 @@
 package org.matsim.withinday.mobsim;
 
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.utils.misc.Time;
 import org.matsim.withinday.replanning.identifiers.interfaces.AgentSelector;
 import org.matsim.withinday.replanning.parallel.ParallelReplanner;
 import org.matsim.withinday.replanning.replanners.interfaces.WithinDayReplanner;
@@ -32,23 +36,94 @@ import org.matsim.withinday.replanning.replanners.tools.ReplanningTask;
 
 public abstract class WithinDayReplanningModule<T extends WithinDayReplannerFactory<? extends AgentSelector>> {
 
+	private static final Logger log = Logger.getLogger(WithinDayReplanningModule.class);
+	
 	protected ParallelReplanner<T> parallelReplanner;
 	
+	/*
+	 * If set, the identifiers are run in this pool, which allows them to
+	 * evaluate their filters in parallel (see AgentSelector.selectAgents(...)).
+	 */
+	private ForkJoinPool identificationPool = null;
+	
+	// latencies in nanoseconds, of the last time step and summed up over the iteration
+	private long lastIdentificationTime = 0;
+	private long lastReplanningTime = 0;
+	private long totalIdentificationTime = 0;
+	private long totalReplanningTime = 0;
+	private long maxStepTime = 0;
+	private int steps = 0;
+	
 	public void doReplanning(double time) {
+		long start = System.nanoTime();
+		int tasks = 0;
+		
 		for (T factory : this.parallelReplanner.getWithinDayReplannerFactories()) {
 			Set<? extends AgentSelector> identifiers = factory.getIdentifers(); 
 			Id<WithinDayReplanner> id = factory.getId();
 			
 			for (AgentSelector identifier : identifiers) {
-				for (MobsimAgent withinDayAgent : identifier.getAgentsToReplan(time)) {					
+				for (MobsimAgent withinDayAgent : getAgentsToReplan(identifier, time)) {					
 					ReplanningTask replanningTask = new ReplanningTask(withinDayAgent, id);
 					this.parallelReplanner.addReplanningTask(replanningTask);
+					tasks++;
 				}
 			}
 		}
 		
+		long identified = System.nanoTime();
 		this.parallelReplanner.run(time);
+		long end = System.nanoTime();
+		
+		this.lastIdentificationTime = identified - start;
+		this.lastReplanningTime = end - identified;
+		this.totalIdentificationTime += this.lastIdentificationTime;
+		this.totalReplanningTime += this.lastReplanningTime;
+		this.maxStepTime = Math.max(this.maxStepTime, end - start);
+		this.steps++;
+		if (tasks > 0 && log.isDebugEnabled()) {
+			log.debug(getClass().getSimpleName() + " at " + Time.writeTime(time) + ": " + tasks + " agents, identification took " + 
+					this.lastIdentificationTime / 1000 + "us, replanning took " + this.lastReplanningTime / 1000 + "us");
+		}
+	}
+	
+	private Set<MobsimAgent> getAgentsToReplan(AgentSelector identifier, double time) {
+		if (this.identificationPool == null) return identifier.getAgentsToReplan(time);
+		else return this.identificationPool.invoke(ForkJoinTask.adapt(() -> identifier.getAgentsToReplan(time)));
 	}
 	
+	public final void setIdentificationPool(ForkJoinPool identificationPool) {
+		this.identificationPool = identificationPool;
+	}
+	
+	/**
+	 * @return the time in nanoseconds the identifiers needed in the last call of {@link #doReplanning(double)}
+	 */
+	public final long getLastIdentificationTime() {
+		return this.lastIdentificationTime;
+	}
+	
+	/**
+	 * @return the time in nanoseconds the replanners needed in the last call of {@link #doReplanning(double)}
+	 */
+	public final long getLastReplanningTime() {
+		return this.lastReplanningTime;
+	}
+	
+	public final void resetLatencies() {
+		this.lastIdentificationTime = 0;
+		this.lastReplanningTime = 0;
+		this.totalIdentificationTime = 0;
+		this.totalReplanningTime = 0;
+		this.maxStepTime = 0;
+		this.steps = 0;
+	}
+	
+	public final void logLatencies() {
+		if (this.steps == 0) return;
+		log.info(getClass().getSimpleName() + ": " + this.steps + " time steps, identification took " + 
+				this.totalIdentificationTime / 1000000 + "ms, replanning took " + this.totalReplanningTime / 1000000 + 
+				"ms in total; slowest time step took " + this.maxStepTime / 1000 + "us");
+	}
 
 }
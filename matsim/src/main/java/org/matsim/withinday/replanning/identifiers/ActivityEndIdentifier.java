@@ -23,8 +23,6 @@ package org.matsim.withinday.replanning.identifiers;
 import java.util.Set;
 import java.util.TreeSet;
 
-import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.withinday.replanning.identifiers.interfaces.DuringActivityAgentSelector;
 import org.matsim.withinday.replanning.identifiers.tools.ActivityReplanningMap;
@@ -42,10 +40,7 @@ public class ActivityEndIdentifier extends DuringActivityAgentSelector {
 	public Set<MobsimAgent> getAgentsToReplan(double time) {
 		Set<MobsimAgent> agentsToReplan = new TreeSet<MobsimAgent>(new ById());
 
-		for (MobsimAgent mobsimAgent : this.activityReplanningMap.getActivityEndingAgents(time)) {
-			Id<Person> agentId = mobsimAgent.getId();
-			if (this.applyFilters(agentId, time)) agentsToReplan.add(mobsimAgent);
-		}
+		this.selectAgents(this.activityReplanningMap.getActivityEndingAgents(time), agentsToReplan, time);
 			
 		/*
 		 * Here was lots of additional code that identified agents which ended their activity, then
@@ -20,7 +20,7 @@
 
 package org.matsim.withinday.replanning.identifiers;
 
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -46,10 +46,8 @@ public class InitialIdentifierImpl extends InitialIdentifier {
 		/*
 		 * Apply filter to remove agents that should not be replanned.
 		 */
-		for (Entry<Id<Person>, MobsimAgent> entry : this.mobsimDataProvider.getAgents().entrySet()) {
-			Id<Person> agentId = entry.getKey();
-			if (this.applyFilters(agentId, time))  agentsToReplan.add(entry.getValue());
-		}
+		Map<Id<Person>, MobsimAgent> mapping = this.mobsimDataProvider.getAgents();
+		this.selectAgents(mapping.keySet(), mapping, agentsToReplan, time);
 		
 		return agentsToReplan;
 	}
@@ -51,9 +51,7 @@ public class LeaveLinkIdentifier extends DuringLegAgentSelector {
 		 * Identify those leg performing agents that should be replanned.
 		 * Add them to a set of MobsimAgents.
 		 */
-		for (Id<Person> agentId : this.linkReplanningMap.getReplanningAgents(time)) {
-			if (this.applyFilters(agentId, time)) agentsToReplan.add(mapping.get(agentId));
-		}
+		this.selectAgents(this.linkReplanningMap.getReplanningAgents(time), mapping, agentsToReplan, time);
 		
 		return agentsToReplan;
 	}
@@ -51,9 +51,7 @@ public class LegStartedIdentifier extends DuringLegAgentSelector {
 		 * Identify those leg performing agents that should be replanned.
 		 * Add them to a set of MobsimAgents.
 		 */
-		for (Id<Person> agentId : this.linkReplanningMap.getLegStartedAgents()) {
-			if (this.applyFilters(agentId, time)) agentsToReplan.add(mapping.get(agentId));
-		}
+		this.selectAgents(this.linkReplanningMap.getLegStartedAgents(), mapping, agentsToReplan, time);
 		
 		return agentsToReplan;
 	}
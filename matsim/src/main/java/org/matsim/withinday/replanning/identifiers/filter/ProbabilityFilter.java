@@ -26,12 +26,10 @@ import java.util.Set;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
-import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.withinday.replanning.identifiers.interfaces.AgentFilter;
 
 public class ProbabilityFilter implements AgentFilter {
 
-	private final Random random = MatsimRandom.getLocalInstance();
 	private final double replanningProbability;
 	
 	// use the factory
@@ -57,8 +55,10 @@ public class ProbabilityFilter implements AgentFilter {
 		 * This ensures that the filter's outcomes do not depend on the order
 		 * in which agents are filtered. Otherwise agents stored in unsorted
 		 * data structures will not produce deterministic outcomes!
+		 * A new Random object is used for each agent since the filter might be
+		 * applied by several threads at the same time.
 		 */
-		random.setSeed(id.hashCode() + (long) time);
+		Random random = new Random(id.hashCode() + (long) time);
 		
 		/*
 		 * Based on a random number it is decided whether an agent should 
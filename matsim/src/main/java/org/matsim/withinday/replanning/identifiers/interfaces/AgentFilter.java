@@ -30,6 +30,9 @@ import org.matsim.api.core.v01.population.Person;
  * structures. Therefore please ensure that the filter result does NOT depend
  * on the order in which agents are processed. If e.g. random numbers are drawn,
  * set a deterministic seed (e.g. agentId.hashCode() + (long) time).
+ * <p></p>
+ * When running with several threads, a filter is applied to different agents
+ * in parallel, so it must not modify any shared state.
  *  
  * @author cdobler
  */
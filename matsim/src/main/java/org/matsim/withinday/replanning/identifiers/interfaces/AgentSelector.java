@@ -20,9 +20,13 @@
 
 package org.matsim.withinday.replanning.identifiers.interfaces;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
@@ -38,6 +42,12 @@ import org.matsim.core.mobsim.framework.MobsimAgent;
  */
 public abstract class AgentSelector {
 	
+	/*
+	 * Below this number of candidates, the filters are always applied sequentially.
+	 * Larger candidate sets are split into index ranges of at most this size.
+	 */
+	private static final int MIN_AGENTS_PER_TASK = 512;
+	
 	private AgentSelectorFactory identifierFactory;
 	private final Set<AgentFilter> agentFilters = new LinkedHashSet<AgentFilter>();
 	
@@ -66,6 +76,82 @@ public abstract class AgentSelector {
 		return true;
 	}
 	
+	/**
+	 * Applies the filters to the given agents and adds the accepted ones to <code>agentsToReplan</code>.
+	 * <p></p>
+	 * If called from within a {@link java.util.concurrent.ForkJoinPool} (as the {@code WithinDayEngine}
+	 * does when running with more than one thread), the filters of large candidate sets are evaluated in
+	 * parallel on index ranges of the candidates; idle threads steal ranges from busy ones. The filters
+	 * therefore have to be thread-safe, i.e. must not modify any shared state. The result does not depend
+	 * on the number of threads, since the accepted agents are added sequentially in the order of the candidates.
+	 */
+	protected final void selectAgents(Collection<? extends MobsimAgent> candidates, Set<MobsimAgent> agentsToReplan, double time) {
+		MobsimAgent[] agents = candidates.toArray(new MobsimAgent[candidates.size()]);
+		Id<?>[] ids = new Id<?>[agents.length];
+		for (int i = 0; i < agents.length; i++) ids[i] = agents[i].getId();
+		addAccepted(ids, agents, agentsToReplan, time);
+	}
+	
+	/**
+	 * Like {@link #selectAgents(Collection, Set, double)}, but for candidates given by their ids.
+	 */
+	protected final void selectAgents(Collection<Id<Person>> candidateIds, Map<Id<Person>, MobsimAgent> mapping,
+			Set<MobsimAgent> agentsToReplan, double time) {
+		Id<?>[] ids = candidateIds.toArray(new Id<?>[candidateIds.size()]);
+		MobsimAgent[] agents = new MobsimAgent[ids.length];
+		for (int i = 0; i < ids.length; i++) agents[i] = mapping.get(ids[i]);
+		addAccepted(ids, agents, agentsToReplan, time);
+	}
+	
+	private void addAccepted(Id<?>[] ids, MobsimAgent[] agents, Set<MobsimAgent> agentsToReplan, double time) {
+		boolean[] accepted = new boolean[ids.length];
+		if (ForkJoinTask.inForkJoinPool() && ids.length > MIN_AGENTS_PER_TASK && !this.agentFilters.isEmpty()) {
+			new FilterTask(ids, accepted, 0, ids.length, time).invoke();
+		} else {
+			applyFilters(ids, accepted, 0, ids.length, time);
+		}
+		for (int i = 0; i < agents.length; i++) {
+			if (accepted[i]) agentsToReplan.add(agents[i]);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void applyFilters(Id<?>[] ids, boolean[] accepted, int from, int to, double time) {
+		for (int i = from; i < to; i++) {
+			accepted[i] = applyFilters((Id<Person>) ids[i], time);
+		}
+	}
+	
+	private final class FilterTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Id<?>[] ids;
+		private final boolean[] accepted;
+		private final int from;
+		private final int to;
+		private final double time;
+		
+		FilterTask(Id<?>[] ids, boolean[] accepted, int from, int to, double time) {
+			this.ids = ids;
+			this.accepted = accepted;
+			this.from = from;
+			this.to = to;
+			this.time = time;
+		}
+		
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= MIN_AGENTS_PER_TASK) {
+				applyFilters(this.ids, this.accepted, this.from, this.to, this.time);
+			} else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new FilterTask(this.ids, this.accepted, this.from, mid, this.time),
+						new FilterTask(this.ids, this.accepted, mid, this.to, this.time));
+			}
+		}
+	}
+	
 	public final void setAgentSelectorFactory(AgentSelectorFactory factory) {
 		this.identifierFactory = factory;
 	}
@@ -56,6 +56,12 @@ import java.util.concurrent.CyclicBarrier;
 /**
  * Collects link travel times over a given time span (storedTravelTimesBinSize)
  * and calculates an average travel time over this time span.
+ * <p></p>
+ * The trips of each link are stored in a ring buffer, i.e. adding a trip and
+ * removing trips that have left the time span are O(1) operations which do not
+ * create any objects. The estimated travel times are updated once per time step
+ * and published via volatile fields, so they can be read by routers running
+ * on other threads without any locking.
  * 
  * TODO:
  * - make storedTravelTimesBinSize configurable (e.g. via config)
@@ -73,7 +79,11 @@ public class WithinDayTravelTime implements TravelTime,
 
 	private Network network;
 
-	// Trips with no Activity on the current Link
+	/*
+	 * Link enter times of the vehicles, NaN if a vehicle is not on a link or has performed
+	 * an activity on its current link. The entries are kept and re-used when a vehicle
+	 * enters its next link.
+	 */
 	private Map<Id<Vehicle>, TripBin> regularActiveTrips; // VehicleId
 	private Map<Id<Link>, TravelTimeInfo> travelTimeInfos; // LinkId
 	
@@ -234,31 +244,24 @@ public class WithinDayTravelTime implements TravelTime,
 		 */
 		if (filterModes && vehiclesToFilter.contains(event.getVehicleId())) return;
 		
-		Id<Vehicle> vehicleId = event.getVehicleId();
-		double time = event.getTime();
-
-		TripBin tripBin = new TripBin();
-		tripBin.enterTime = time;
-
-		this.regularActiveTrips.put(vehicleId, tripBin);
+		TripBin tripBin = this.regularActiveTrips.get(event.getVehicleId());
+		if (tripBin == null) {
+			tripBin = new TripBin();
+			this.regularActiveTrips.put(event.getVehicleId(), tripBin);
+		}
+		tripBin.enterTime = event.getTime();
 	}
 
 	@Override
 	public void handleEvent(LinkLeaveEvent event) {
-		Id<Link> linkId = event.getLinkId();
-		Id<Vehicle> vehicleId = event.getVehicleId();
-		double time = event.getTime();
-
-		TripBin tripBin = this.regularActiveTrips.remove(vehicleId);
-		if (tripBin != null) {
-			tripBin.leaveTime = time;
+		TripBin tripBin = this.regularActiveTrips.get(event.getVehicleId());
+		if (tripBin != null && !Double.isNaN(tripBin.enterTime)) {
+			double time = event.getTime();
+			double tripTime = time - tripBin.enterTime;
+			tripBin.enterTime = Double.NaN;
 
-			double tripTime = tripBin.leaveTime - tripBin.enterTime;
-
-			TravelTimeInfo travelTimeInfo = this.travelTimeInfoProvider.getTravelTimeInfo(linkId);
-			travelTimeInfo.tripBins.add(tripBin);
-			travelTimeInfo.addedTravelTimes += tripTime;
-			travelTimeInfo.addedTrips++;
+			TravelTimeInfo travelTimeInfo = this.travelTimeInfoProvider.getTravelTimeInfo(event.getLinkId());
+			travelTimeInfo.addTrip(time, tripTime);
 
 			travelTimeInfo.checkActiveState();
 			travelTimeInfo.checkBinSize(tripTime);
@@ -281,9 +284,8 @@ public class WithinDayTravelTime implements TravelTime,
 	 */
 	@Override
 	public void handleEvent(VehicleLeavesTrafficEvent event) {
-		Id<Vehicle> vehicleId = event.getVehicleId();
-
-		this.regularActiveTrips.remove(vehicleId);
+		TripBin tripBin = this.regularActiveTrips.get(event.getVehicleId());
+		if (tripBin != null) tripBin.enterTime = Double.NaN;
 		
 		// try to remove vehicle from set with filtered vehicles
 		if (filterModes) this.vehiclesToFilter.remove(event.getVehicleId());
@@ -426,23 +428,31 @@ public class WithinDayTravelTime implements TravelTime,
 	}
 
 	private static class TripBin {
-		double enterTime;
-		double leaveTime;
+		double enterTime = Double.NaN;
 	}
 
 	/*package*/ static class TravelTimeInfo {
 
+		private static final double[] EMPTY = new double[0];
+		
 		UpdateMeanTravelTimesRunnable runnable;
-		List<TripBin> tripBins = new ArrayList<>();
+		
+		/*
+		 * Ring buffer containing the leave times and travel times of the trips in the
+		 * current time window, ordered by leave time. The capacity is always a power of 2.
+		 */
+		private double[] leaveTimes = EMPTY;
+		private double[] tripTimes = EMPTY;
+		private int firstTrip = 0;
+		private int trips = 0;
 
 		boolean isActive = false;
-		// int numActiveTrips = 0;
-		int addedTrips = 0;
 		double addedTravelTimes = 0.0;
 		double sumTravelTimes = 0.0; // We cache the sum of the TravelTimes
 
 		double freeSpeedTravelTime = Double.MAX_VALUE; // We cache the FreeSpeedTravelTimes
-		double travelTime = Double.MAX_VALUE; 
+		// read by routers on other threads
+		volatile double travelTime = Double.MAX_VALUE; 
 
 		double dynamicBinSize = 0.0; // size of the time window that is taken into account
 
@@ -454,6 +464,49 @@ public class WithinDayTravelTime implements TravelTime,
 			this.dynamicBinSize = freeSpeedTravelTime * 2.5;
 		}
 
+		/*package*/ void addTrip(double leaveTime, double tripTime) {
+			if (this.trips == this.leaveTimes.length) grow();
+			int index = (this.firstTrip + this.trips) & (this.leaveTimes.length - 1);
+			this.leaveTimes[index] = leaveTime;
+			this.tripTimes[index] = tripTime;
+			this.trips++;
+			this.addedTravelTimes += tripTime;
+		}
+		
+		/*
+		 * Removes the trips which have left the link more than dynamicBinSize before the given time.
+		 * @return the sum of their travel times
+		 */
+		/*package*/ double removeOldTrips(double time) {
+			double removedTravelTimes = 0.0;
+			int mask = this.leaveTimes.length - 1;
+			while (this.trips > 0 && this.leaveTimes[this.firstTrip] + this.dynamicBinSize < time) {
+				removedTravelTimes += this.tripTimes[this.firstTrip];
+				this.firstTrip = (this.firstTrip + 1) & mask;
+				this.trips--;
+			}
+			if (this.trips == 0) this.firstTrip = 0;
+			return removedTravelTimes;
+		}
+		
+		/*package*/ int getNumberOfTrips() {
+			return this.trips;
+		}
+		
+		private void grow() {
+			int capacity = Math.max(4, this.leaveTimes.length * 2);
+			double[] newLeaveTimes = new double[capacity];
+			double[] newTripTimes = new double[capacity];
+			for (int i = 0; i < this.trips; i++) {
+				int index = (this.firstTrip + i) & (this.leaveTimes.length - 1);
+				newLeaveTimes[i] = this.leaveTimes[index];
+				newTripTimes[i] = this.tripTimes[index];
+			}
+			this.leaveTimes = newLeaveTimes;
+			this.tripTimes = newTripTimes;
+			this.firstTrip = 0;
+		}
+		
 		/*package*/ void checkActiveState() {
 			if (!isActive) {
 				this.isActive = true;
@@ -557,7 +610,7 @@ public class WithinDayTravelTime implements TravelTime,
 		private CyclicBarrier endBarrier = null;
 		
 		private double time = Time.UNDEFINED_TIME;
-		private Collection<TravelTimeInfo> activeTravelTimeInfos;
+		private List<TravelTimeInfo> activeTravelTimeInfos;
 
 		public UpdateMeanTravelTimesRunnable() {
 			activeTravelTimeInfos = new ArrayList<>();
@@ -614,9 +667,13 @@ public class WithinDayTravelTime implements TravelTime,
 						return;
 					}
 					
-					Iterator<TravelTimeInfo> iter = activeTravelTimeInfos.iterator();
-					while (iter.hasNext()) {
-						TravelTimeInfo travelTimeInfo = iter.next();
+					/*
+					 * Links which are deactivated are removed by compacting the list
+					 * in place instead of removing them one by one.
+					 */
+					int stillActive = 0;
+					for (int i = 0; i < activeTravelTimeInfos.size(); i++) {
+						TravelTimeInfo travelTimeInfo = activeTravelTimeInfos.get(i);
 						calcBinTravelTime(this.time, travelTimeInfo);
 
 						/*
@@ -624,12 +681,14 @@ public class WithinDayTravelTime implements TravelTime,
 						 * we deactivate the link and ensure that its expected
 						 * travel time is its free speed travel time.
 						 */
-						if (travelTimeInfo.tripBins.size() == 0) {
+						if (travelTimeInfo.getNumberOfTrips() == 0) {
 							travelTimeInfo.isActive = false;
 							travelTimeInfo.travelTime = travelTimeInfo.freeSpeedTravelTime;
-							iter.remove();
+						} else {
+							activeTravelTimeInfos.set(stillActive++, travelTimeInfo);
 						}
 					}
+					activeTravelTimeInfos.subList(stillActive, activeTravelTimeInfos.size()).clear();
 
 				} catch (InterruptedException | BrokenBarrierException e) {
 					throw new RuntimeException(e);
@@ -638,20 +697,8 @@ public class WithinDayTravelTime implements TravelTime,
 		} // run()
 
 		private void calcBinTravelTime(double time, TravelTimeInfo travelTimeInfo) {
-			double removedTravelTimes = 0.0;
-
-			List<TripBin> tripBins = travelTimeInfo.tripBins;
-
 			// first remove old TravelTimes
-			Iterator<TripBin> iter = tripBins.iterator();
-			while (iter.hasNext()) {
-				TripBin tripBin = iter.next();
-				if (tripBin.leaveTime + travelTimeInfo.dynamicBinSize < time) {
-					double travelTime = tripBin.leaveTime - tripBin.enterTime;
-					removedTravelTimes += travelTime;
-					iter.remove();
-				} else break;
-			}
+			double removedTravelTimes = travelTimeInfo.removeOldTrips(time);
 
 			/*
 			 * We don't need an update if no Trips have been added or removed
@@ -670,7 +717,7 @@ public class WithinDayTravelTime implements TravelTime,
 			 * Ensure that we don't allow TravelTimes shorter than the FreeSpeedTravelTime.
 			 */
 			double meanTravelTime = travelTimeInfo.freeSpeedTravelTime;
-			if (!tripBins.isEmpty()) meanTravelTime = travelTimeInfo.sumTravelTimes / tripBins.size();
+			if (travelTimeInfo.getNumberOfTrips() > 0) meanTravelTime = travelTimeInfo.sumTravelTimes / travelTimeInfo.getNumberOfTrips();
 
 			if (meanTravelTime < travelTimeInfo.freeSpeedTravelTime) {
 //				log.warn("Mean TravelTime too short?");
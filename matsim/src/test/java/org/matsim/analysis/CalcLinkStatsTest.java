@@ -19,7 +19,9 @@
 
 package org.matsim.analysis;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 
 import org.junit.Assert;
 import org.junit.Rule;
@@ -39,6 +41,7 @@ import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
 import org.matsim.core.trafficmonitoring.TravelTimeCalculator;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.vehicles.Vehicle;
 
@@ -282,4 +285,75 @@ public class CalcLinkStatsTest {
 		Assert.assertEquals(2.5, cls2.getAvgLinkVolumes(link1.getId())[1], 1e-8);
 		Assert.assertEquals(3.0, cls2.getAvgLinkVolumes(link2.getId())[1], 1e-8);
 	}
+
+	@Test
+	public void testLinkAddedAfterConstruction() {
+		Scenario s = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = s.getNetwork();
+		NetworkFactory nf = network.getFactory();
+
+		Node node1 = nf.createNode(Id.create("1", Node.class), new Coord((double) 0, (double) 0));
+		Node node2 = nf.createNode(Id.create("2", Node.class), new Coord((double) 1000, (double) 0));
+		network.addNode(node1);
+		network.addNode(node2);
+		Link link1 = nf.createLink(Id.create("101", Link.class), node1, node2);
+		network.addLink(link1);
+
+		CalcLinkStats cls = new CalcLinkStats(network);
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(3600, 86400, network);
+
+		Link link2 = nf.createLink(Id.create("102", Link.class), node2, node1);
+		network.addLink(link2);
+
+		Id<Vehicle> vehId = Id.create("1001", Vehicle.class);
+		analyzer.handleEvent(new LinkLeaveEvent(1000, vehId, link1.getId()));
+		analyzer.handleEvent(new LinkLeaveEvent(1010, vehId, link2.getId()));
+		analyzer.handleEvent(new LinkLeaveEvent(1020, vehId, link2.getId()));
+		Assert.assertEquals(2, analyzer.getVolumesForLink(link2.getId())[0]);
+
+		// the links are taken from the network on reset
+		cls.reset();
+		cls.addData(analyzer, new FreeSpeedTravelTime());
+		Assert.assertEquals(1.0, cls.getAvgLinkVolumes(link1.getId())[0], 1e-8);
+		Assert.assertEquals(2.0, cls.getAvgLinkVolumes(link2.getId())[0], 1e-8);
+	}
+
+	@Test
+	public void testWriteCsvFile() throws IOException {
+		Scenario s = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = s.getNetwork();
+		NetworkFactory nf = network.getFactory();
+
+		Node node1 = nf.createNode(Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = nf.createNode(Id.create("2", Node.class), new Coord(1000, 0));
+		network.addNode(node1);
+		network.addNode(node2);
+		Link link1 = nf.createLink(Id.create("101", Link.class), node1, node2);
+		network.addLink(link1);
+
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(3600, 86400, network);
+		CalcLinkStats cls = new CalcLinkStats(network);
+		Id<Vehicle> vehId = Id.create("1001", Vehicle.class);
+		analyzer.handleEvent(new LinkLeaveEvent(1000, vehId, link1.getId()));
+		analyzer.handleEvent(new LinkLeaveEvent(4000, vehId, link1.getId()));
+		analyzer.handleEvent(new LinkLeaveEvent(4010, vehId, link1.getId()));
+		cls.addData(analyzer, new FreeSpeedTravelTime());
+
+		String filename = this.util.getOutputDirectory() + "linkstats.csv";
+		cls.writeCsvFile(filename);
+
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			Assert.assertEquals("link;hour;volume_min;volume_avg;volume_max;traveltime_min;traveltime_avg;traveltime_max", reader.readLine());
+			double freespeedTravelTime = link1.getLength() / link1.getFreespeed();
+			for (int hour = 0; hour < 24; hour++) {
+				String[] parts = reader.readLine().split(";");
+				Assert.assertEquals("101", parts[0]);
+				Assert.assertEquals(hour, Integer.parseInt(parts[1]));
+				double expectedVolume = hour == 0 ? 1.0 : (hour == 1 ? 2.0 : 0.0);
+				Assert.assertEquals(expectedVolume, Double.parseDouble(parts[3]), 1e-8);
+				Assert.assertEquals(freespeedTravelTime, Double.parseDouble(parts[6]), 1e-8);
+			}
+			Assert.assertNull(reader.readLine());
+		}
+	}
 }
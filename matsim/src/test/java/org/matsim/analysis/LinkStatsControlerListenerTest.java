@@ -310,6 +310,7 @@ public class LinkStatsControlerListenerTest {
 		controler.run();
 		
 		Assert.assertTrue(new File(config.controler().getOutputDirectory() + "ITERS/it.0/0.linkstats.txt.gz").exists());
+		Assert.assertFalse(new File(config.controler().getOutputDirectory() + "ITERS/it.0/0.linkstats.csv.gz").exists());
 		Assert.assertFalse(new File(config.controler().getOutputDirectory() + "ITERS/it.1/1.linkstats.txt.gz").exists());
 		Assert.assertFalse(new File(config.controler().getOutputDirectory() + "ITERS/it.2/2.linkstats.txt.gz").exists());
 		Assert.assertTrue(new File(config.controler().getOutputDirectory() + "ITERS/it.3/3.linkstats.txt.gz").exists());
@@ -330,6 +331,7 @@ public class LinkStatsControlerListenerTest {
 		
 		lsConfig.setWriteLinkStatsInterval(3);
 		lsConfig.setAverageLinkStatsOverIterations(2);
+		lsConfig.setWriteLinkStatsCsv(true);
 		Scenario scenario = ScenarioUtils.createScenario(config);
 		Node node1 = scenario.getNetwork().getFactory().createNode(Id.create("1", Node.class), new Coord((double) 0, (double) 0));
 		Node node2 = scenario.getNetwork().getFactory().createNode(Id.create("2", Node.class), new Coord((double) 1000, (double) 0));
@@ -360,6 +362,8 @@ public class LinkStatsControlerListenerTest {
 		Assert.assertFalse(new File(config.controler().getOutputDirectory() + "ITERS/it.5/5.linkstats.txt.gz").exists());
 		Assert.assertTrue(new File(config.controler().getOutputDirectory() + "ITERS/it.6/6.linkstats.txt.gz").exists());
 		Assert.assertFalse(new File(config.controler().getOutputDirectory() + "ITERS/it.7/7.linkstats.txt.gz").exists());
+		Assert.assertTrue(new File(config.controler().getOutputDirectory() + "ITERS/it.3/3.linkstats.csv.gz").exists());
+		Assert.assertTrue(new File(config.controler().getOutputDirectory() + "ITERS/it.6/6.linkstats.csv.gz").exists());
 		
 		double[] volumes = getVolumes(config.controler().getOutputDirectory() + "ITERS/it.3/3.linkstats.txt");
 		Assert.assertEquals(3, volumes[0], 1e-8);
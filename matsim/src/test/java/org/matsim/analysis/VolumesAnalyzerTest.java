@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * VolumesAnalyzerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class VolumesAnalyzerTest {
+
+	@Test
+	public void testVolumesPerMode() {
+		Network network = createNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link2 = Id.create("2", Link.class);
+		Id<Link> unknownLink = Id.create("99", Link.class);
+		Id<Vehicle> car = Id.create("car", Vehicle.class);
+		Id<Vehicle> bike = Id.create("bike", Vehicle.class);
+
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(900, 3600, network);
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(0.0, Id.create("p1", Person.class), link1, car, TransportMode.car, 1.0));
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(0.0, Id.create("p2", Person.class), link1, bike, TransportMode.bike, 1.0));
+		analyzer.handleEvent(new LinkLeaveEvent(100.0, car, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(1000.0, car, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(1000.0, bike, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(5000.0, bike, unknownLink));
+
+		Assert.assertEquals(6, analyzer.getVolumesArraySize());
+		Assert.assertArrayEquals(new int[] {1, 2, 0, 0, 0, 0}, analyzer.getVolumesForLink(link1));
+		Assert.assertArrayEquals(new int[] {1, 1, 0, 0, 0, 0}, analyzer.getVolumesForLink(link1, TransportMode.car));
+		Assert.assertArrayEquals(new int[] {0, 1, 0, 0, 0, 0}, analyzer.getVolumesForLink(link1, TransportMode.bike));
+		Assert.assertArrayEquals(new int[] {0, 0, 0, 0, 0, 1}, analyzer.getVolumesForLink(unknownLink));
+		Assert.assertArrayEquals(new int[] {0, 0, 0, 0, 0, 1}, analyzer.getVolumesForLink(unknownLink, TransportMode.bike));
+		Assert.assertNull(analyzer.getVolumesForLink(link2));
+		Assert.assertNull(analyzer.getVolumesForLink(link2, TransportMode.car));
+		Assert.assertNull(analyzer.getVolumesForLink(link1, TransportMode.walk));
+		Assert.assertEquals(3.0, analyzer.getVolumesPerHourForLink(link1)[0], 0.0);
+		Assert.assertEquals(2.0, analyzer.getVolumesPerHourForLink(link1, TransportMode.car)[0], 0.0);
+
+		Assert.assertEquals(2, analyzer.getLinkIds().size());
+		Assert.assertTrue(analyzer.getLinkIds().contains(link1));
+		Assert.assertTrue(analyzer.getLinkIds().contains(unknownLink));
+		Assert.assertEquals(2, analyzer.getModes().size());
+
+		analyzer.reset(1);
+		Assert.assertNull(analyzer.getVolumesForLink(link1));
+		Assert.assertNull(analyzer.getVolumesForLink(unknownLink));
+		Assert.assertNull(analyzer.getVolumesForLink(link1, TransportMode.car));
+		Assert.assertEquals(0, analyzer.getLinkIds().size());
+		Assert.assertEquals(0, analyzer.getModes().size());
+	}
+
+	@Test
+	public void testParallelEvents() throws InterruptedException {
+		Network network = createNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link2 = Id.create("2", Link.class);
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(3600, 24 * 3600 - 1, network);
+		Id<Vehicle> vehicle = Id.create("1", Vehicle.class);
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(0.0, Id.create("1", Person.class), link1, vehicle, TransportMode.car, 1.0));
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					analyzer.handleEvent(new LinkLeaveEvent(i % 7200, vehicle, (i % 2 == 0) ? link1 : link2));
+				}
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		Assert.assertEquals(4 * 5000, analyzer.getVolumesForLink(link1)[0] + analyzer.getVolumesForLink(link1)[1]);
+		Assert.assertEquals(4 * 5000, analyzer.getVolumesForLink(link2, TransportMode.car)[0] + analyzer.getVolumesForLink(link2, TransportMode.car)[1]);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testLinkIdOfOtherType() {
+		Network network = createNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		// same string, but created for another type and thus with another index
+		Id<Link> link1OfOtherType = (Id<Link>) (Id<?>) Id.create("1", Person.class);
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(3600, 24 * 3600 - 1, network);
+		Id<Vehicle> vehicle = Id.create("1", Vehicle.class);
+
+		analyzer.handleEvent(new LinkLeaveEvent(100.0, vehicle, link1));
+		analyzer.handleEvent(new LinkLeaveEvent(200.0, vehicle, link1OfOtherType));
+
+		Assert.assertEquals(2, analyzer.getVolumesForLink(link1)[0]);
+		Assert.assertEquals(2, analyzer.getVolumesForLink(link1OfOtherType)[0]);
+		Assert.assertEquals(1, analyzer.getLinkIds().size());
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory nf = network.getFactory();
+		Node node1 = nf.createNode(Id.create("1", Node.class), new Coord(0.0, 0.0));
+		Node node2 = nf.createNode(Id.create("2", Node.class), new Coord(1000.0, 0.0));
+		Node node3 = nf.createNode(Id.create("3", Node.class), new Coord(2000.0, 0.0));
+		network.addNode(node1);
+		network.addNode(node2);
+		network.addNode(node3);
+		network.addLink(nf.createLink(Id.create("1", Link.class), node1, node2));
+		network.addLink(nf.createLink(Id.create("2", Link.class), node2, node3));
+		return network;
+	}
+
+}
@@ -67,7 +67,24 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex() {
+		// a type of its own, so that no other test has created ids of it before
+		Assert.assertEquals(0, Id.getNumberOfIds(TIndexed.class));
+		Id<TIndexed> id1 = Id.create("1", TIndexed.class);
+		Id<TIndexed> id2 = Id.create("2", TIndexed.class);
+		Id<TIndexed> id1again = Id.create("1", TIndexed.class);
+		Id<TNode> nodeId1 = Id.create("1", TNode.class);
+
+		Assert.assertEquals(0, id1.index());
+		Assert.assertEquals(1, id2.index());
+		Assert.assertEquals(0, id1again.index());
+		Assert.assertEquals(2, Id.getNumberOfIds(TIndexed.class));
+		Assert.assertTrue(nodeId1.index() < Id.getNumberOfIds(TNode.class));
+	}
+	
 	private static class TLink {}
 	private static class TNode {}
+	private static class TIndexed {}
 	
 }
@@ -71,4 +71,16 @@ public class LinkStatsConfigGroupTest {
 		Assert.assertNotNull(cg.getParams().get("averageLinkStatsOverIterations"));
 	}
 	
+	@Test
+	public void testWriteLinkStatsCsv() {
+		LinkStatsConfigGroup cg = new LinkStatsConfigGroup();
+		// test initial value
+		Assert.assertFalse(cg.isWriteLinkStatsCsv());
+		Assert.assertEquals("false", cg.getValue("writeLinkStatsCsv"));
+		// test setting with addParam
+		cg.addParam("writeLinkStatsCsv", "true");
+		Assert.assertTrue(cg.isWriteLinkStatsCsv());
+		Assert.assertEquals("true", cg.getValue("writeLinkStatsCsv"));
+	}
+
 }
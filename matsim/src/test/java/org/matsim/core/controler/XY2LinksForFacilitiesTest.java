@@ -0,0 +1,84 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * XY2LinksForFacilitiesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.FacilitiesUtils;
+
+public class XY2LinksForFacilitiesTest {
+
+	@Test
+	public void testParallel_sameLinksAsSequential() {
+		Network network = createGridNetwork(20);
+		ActivityFacilities sequential = createFacilities(5000);
+		ActivityFacilities parallel = createFacilities(5000);
+
+		XY2LinksForFacilities.run(network, sequential);
+		XY2LinksForFacilities.run(network, parallel, 4);
+
+		for (ActivityFacility facility : sequential.getFacilities().values()) {
+			Assert.assertNotNull(facility.getLinkId());
+			Assert.assertEquals(facility.getLinkId(), parallel.getFacilities().get(facility.getId()).getLinkId());
+		}
+	}
+
+	private static Network createGridNetwork(int size) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				nodes[i][j] = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + "_" + j), new Coord(i * 100.0, j * 100.0));
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (i + 1 < size) {
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(i + "_" + j + "_x"), nodes[i][j], nodes[i + 1][j], 100.0, 10.0, 1000.0, 1.0);
+				}
+				if (j + 1 < size) {
+					NetworkUtils.createAndAddLink(network, Id.createLinkId(i + "_" + j + "_y"), nodes[i][j], nodes[i][j + 1], 100.0, 10.0, 1000.0, 1.0);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static ActivityFacilities createFacilities(int count) {
+		ActivityFacilities facilities = FacilitiesUtils.createActivityFacilities();
+		Random r = new Random(4711);
+		for (int i = 0; i < count; i++) {
+			Coord coord = new Coord(r.nextDouble() * 1900.0, r.nextDouble() * 1900.0);
+			facilities.addActivityFacility(facilities.getFactory().createActivityFacility(Id.create(i, ActivityFacility.class), coord));
+		}
+		return facilities;
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.matsim.core.mobsim.jdeqsim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class ParallelJDEQSimulationTest extends AbstractJDEQSimTest {
+
+	@Test
+	public void test_equilPlans100_twoThreads() {
+		Scenario scenario = loadEquilPlans100();
+
+		this.runParallelJDEQSim(scenario, 2);
+
+		assertEquals(scenario.getPopulation().getPersons().size(), super.eventsByPerson.size());
+		super.checkAscendingTimeStamps();
+		super.checkEventsCorrespondToPlans(scenario.getPopulation());
+	}
+
+	@Test
+	public void test_equilPlans100_oneThreadPerLink() {
+		Scenario scenario = loadEquilPlans100();
+
+		this.runParallelJDEQSim(scenario, scenario.getNetwork().getLinks().size());
+
+		assertEquals(scenario.getPopulation().getPersons().size(), super.eventsByPerson.size());
+		super.checkAscendingTimeStamps();
+		super.checkEventsCorrespondToPlans(scenario.getPopulation());
+	}
+
+	@Test
+	public void test_equilPlans100_deterministic() {
+		Scenario scenario = loadEquilPlans100();
+
+		this.runParallelJDEQSim(scenario, 4);
+		List<String> firstRun = new ArrayList<>();
+		for (Event event : super.allEvents) {
+			firstRun.add(event.toString());
+		}
+
+		super.allEvents.clear();
+		super.eventsByPerson.clear();
+		this.runParallelJDEQSim(scenario, 4);
+		List<String> secondRun = new ArrayList<>();
+		for (Event event : super.allEvents) {
+			secondRun.add(event.toString());
+		}
+
+		assertEquals(firstRun, secondRun);
+	}
+
+	@Test
+	public void test_equilPlans100_oneThreadLikeJDEQSimulation() {
+		Scenario scenario = loadEquilPlans100();
+
+		this.runJDEQSim(scenario);
+		List<String> sequential = new ArrayList<>();
+		for (Event event : super.allEvents) {
+			sequential.add(event.toString());
+		}
+
+		super.allEvents.clear();
+		super.eventsByPerson.clear();
+		this.runParallelJDEQSim(scenario, 1);
+		List<String> parallel = new ArrayList<>();
+		for (Event event : super.allEvents) {
+			parallel.add(event.toString());
+		}
+
+		assertEquals(sequential, parallel);
+	}
+
+	private static Scenario loadEquilPlans100() {
+		Config config = ConfigUtils.loadConfig("test/scenarios/equil/config.xml");
+		MatsimRandom.reset(config.global().getRandomSeed());
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		ScenarioUtils.loadScenario(scenario);
+		return scenario;
+	}
+
+}
@@ -118,5 +118,27 @@ public class TestMessageFactory extends MatsimTestCase{
 		assertEquals(true,MessageFactory.getDeadlockPreventionMessage(scheduler, vehicle).vehicle==vehicle);
 	}
 	
+	// check that the messages are pooled per thread
+	public void testMessageFactory7() throws InterruptedException{
+		MessageFactory.GC_ALL_MESSAGES();
+		JDEQSimConfigGroup.setGC_MESSAGES(false);
+		final EndLegMessage message=new EndLegMessage(null,null);
+		MessageFactory.disposeEndLegMessage(message);
+		
+		final EndLegMessage[] otherThreadMessage=new EndLegMessage[1];
+		Thread thread=new Thread(new Runnable() {
+			@Override
+			public void run() {
+				otherThreadMessage[0]=MessageFactory.getEndLegMessage(null, null);
+			}
+		});
+		thread.start();
+		thread.join();
+		
+		assertNotSame(message, otherThreadMessage[0]);
+		assertEquals(1, MessageFactory.getEndLegMessageQueue().size());
+		assertSame(message, MessageFactory.getEndLegMessage(null, null));
+	}
+	
 	
 }
@@ -1,5 +1,10 @@
 package org.matsim.core.mobsim.jdeqsim;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.matsim.core.mobsim.jdeqsim.util.DummyMessage;
 import org.matsim.testcases.MatsimTestCase;
 
@@ -51,6 +56,33 @@ public class TestMessageQueue extends MatsimTestCase {
 		assertEquals(true, mq.getNextMessage().getMessageArrivalTime()==1);
 	}
 	
+	public void testPutMessage_alreadyQueued(){
+		MessageQueue mq=new MessageQueue();
+		Message m1=new DummyMessage();
+		m1.setMessageArrivalTime(1);
+		mq.putMessage(m1);
+		try {
+			mq.putMessage(m1);
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			new MessageQueue().putMessage(m1);
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(1, mq.getQueueSize());
+
+		// can be put again after it has been taken out of the queue
+		assertEquals(true, mq.getNextMessage()==m1);
+		mq.putMessage(m1);
+		mq.removeMessage(m1);
+		mq.putMessage(m1);
+		assertEquals(1, mq.getQueueSize());
+	}
+	
 	public void testRemoveMessage1(){
 		MessageQueue mq=new MessageQueue();
 		Message m1=new DummyMessage();
@@ -130,4 +162,83 @@ public class TestMessageQueue extends MatsimTestCase {
 	
 	
 	
+	// messages with same time and priority are returned in the order they were added
+	public void testSameTimeAndPriorityIsFifo(){
+		MessageQueue mq=new MessageQueue();
+		List<Message> messages=new ArrayList<>();
+		for (int i=0;i<100;i++){
+			Message m=new DummyMessage();
+			m.setMessageArrivalTime(1);
+			messages.add(m);
+			mq.putMessage(m);
+		}
+		for (Message m : messages){
+			assertEquals(true, mq.getNextMessage()==m);
+		}
+		assertEquals(true, mq.isEmpty());
+	}
+
+	// removing a message which is not (or no longer) in the queue must not change the queue
+	public void testRemoveMessageNotInQueue(){
+		MessageQueue mq=new MessageQueue();
+		Message m1=new DummyMessage();
+		m1.setMessageArrivalTime(1);
+
+		Message m2=new DummyMessage();
+		m2.setMessageArrivalTime(2);
+
+		mq.putMessage(m1);
+		mq.putMessage(m2);
+		assertEquals(true, mq.getNextMessage()==m1);
+		mq.removeMessage(m1);
+		assertEquals(1, mq.getQueueSize());
+		assertEquals(true, mq.getNextMessage()==m2);
+
+		// a removed message can be put into the queue again
+		mq.putMessage(m1);
+		assertEquals(true, mq.getNextMessage()==m1);
+		assertEquals(true, mq.isEmpty());
+	}
+
+	// many messages, with resizing of the queue, far away messages and messages earlier than the last one fetched
+	public void testRandomMessages(){
+		MessageQueue mq=new MessageQueue();
+		Random r=new Random(4711);
+		List<Message> expected=new ArrayList<>();
+		for (int i=0;i<5000;i++){
+			Message m=new DummyMessage();
+			m.setMessageArrivalTime(i % 100 == 0 ? 1e7 + r.nextDouble() : r.nextInt(86400));
+			m.setPriority(r.nextInt(3));
+			expected.add(m);
+			mq.putMessage(m);
+		}
+		// remove every third message
+		for (int i=0;i<expected.size();i+=3){
+			mq.removeMessage(expected.get(i));
+			expected.set(i, null);
+		}
+		expected.removeAll(Collections.singleton(null));
+		assertEquals(expected.size(), mq.getQueueSize());
+
+		// interleave fetching with adding messages in the "past" of the current queue head
+		Message first=mq.getNextMessage();
+		expected.remove(first);
+		Message early=new DummyMessage();
+		early.setMessageArrivalTime(first.getMessageArrivalTime());
+		mq.putMessage(early);
+		expected.add(early);
+
+		Collections.sort(expected);
+		Message previous=first;
+		for (Message m : expected){
+			Message next=mq.getNextMessage();
+			assertEquals(m.getMessageArrivalTime(), next.getMessageArrivalTime(), 0.0);
+			assertEquals(m.getPriority(), next.getPriority());
+			assertTrue(previous.compareTo(next) <= 0);
+			previous=next;
+		}
+		assertEquals(true, mq.isEmpty());
+		assertEquals(null, mq.getNextMessage());
+	}
+
 }
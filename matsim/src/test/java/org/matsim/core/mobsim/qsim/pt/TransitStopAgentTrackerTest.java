@@ -20,6 +20,10 @@
 
 package org.matsim.core.mobsim.qsim.pt;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.apache.log4j.Logger;
@@ -29,6 +33,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.pt.fakes.FakeAgent;
 import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
@@ -114,4 +119,78 @@ public class TransitStopAgentTrackerTest extends TestCase {
 			log.info("catched expected exception.", e);
 		}
 	}
+
+	public void testGetAgentsAtStopForLine() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TransitStopAgentTracker tracker = new TransitStopAgentTracker(events);
+		TransitScheduleFactory builder = new TransitScheduleFactoryImpl();
+		final Id<TransitLine> line1 = Id.create(1, TransitLine.class);
+		final Id<TransitLine> line2 = Id.create(2, TransitLine.class);
+		PTPassengerAgent agent1 = new LineAgent(line1);
+		PTPassengerAgent agent2 = new FakeAgent(null, null); // any line
+		PTPassengerAgent agent3 = new LineAgent(line2);
+		PTPassengerAgent agent4 = new LineAgent(line1);
+		TransitStopFacility stop1 = builder.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord((double) 2, (double) 3), false);
+
+		tracker.addAgentToStop(10, agent1, stop1.getId());
+		tracker.addAgentToStop(10, agent2, stop1.getId());
+		tracker.addAgentToStop(10, agent3, stop1.getId());
+		tracker.addAgentToStop(10, agent4, stop1.getId());
+
+		assertEquals(Arrays.asList(agent1, agent2, agent3, agent4), tracker.getAgentsAtFacility(stop1.getId()));
+		assertEquals(Arrays.asList(agent1, agent2, agent4), tracker.getAgentsAtStop(stop1.getId(), line1));
+		assertEquals(Arrays.asList(agent2, agent3), tracker.getAgentsAtStop(stop1.getId(), line2));
+		assertEquals(Arrays.asList(agent2), tracker.getAgentsAtStop(stop1.getId(), Id.create(3, TransitLine.class)));
+
+		tracker.removeAgentFromStop(agent2, stop1.getId());
+		tracker.removeAgentFromStop(agent1, stop1.getId());
+		assertEquals(Arrays.asList(agent4), tracker.getAgentsAtStop(stop1.getId(), line1));
+		assertEquals(Arrays.asList(agent3), tracker.getAgentsAtStop(stop1.getId(), line2));
+		assertEquals(Arrays.asList(agent3, agent4), tracker.getAgentsAtFacility(stop1.getId()));
+	}
+
+	public void testForEachAgentAtStop() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TransitStopAgentTracker tracker = new TransitStopAgentTracker(events);
+		TransitScheduleFactory builder = new TransitScheduleFactoryImpl();
+		final Id<TransitLine> line1 = Id.create(1, TransitLine.class);
+		PTPassengerAgent agent1 = new LineAgent(line1);
+		PTPassengerAgent agent2 = new FakeAgent(null, null); // any line
+		PTPassengerAgent agent3 = new LineAgent(Id.create(2, TransitLine.class));
+		PTPassengerAgent agent4 = new LineAgent(line1);
+		TransitStopFacility stop1 = builder.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord((double) 2, (double) 3), false);
+		TransitStopFacility stop2 = builder.createTransitStopFacility(Id.create(2, TransitStopFacility.class), new Coord((double) 4, (double) 3), false);
+
+		tracker.addAgentToStop(10, agent1, stop1.getId());
+		tracker.addAgentToStop(10, agent2, stop1.getId());
+		tracker.addAgentToStop(10, agent3, stop1.getId());
+		tracker.addAgentToStop(10, agent4, stop1.getId());
+
+		List<PTPassengerAgent> visited = new ArrayList<>();
+		tracker.forEachAgentAtStop(stop1.getId(), line1, visited::add);
+		assertEquals(Arrays.asList(agent1, agent2, agent4), visited);
+
+		// stops as soon as the visitor returns false
+		visited.clear();
+		tracker.forEachAgentAtStop(stop1.getId(), line1, agent -> visited.add(agent) && visited.size() < 2);
+		assertEquals(Arrays.asList(agent1, agent2), visited);
+
+		visited.clear();
+		tracker.forEachAgentAtStop(stop2.getId(), line1, visited::add);
+		assertTrue(visited.isEmpty());
+	}
+
+	private static class LineAgent extends FakeAgent {
+		private final Id<TransitLine> lineId;
+
+		LineAgent(Id<TransitLine> lineId) {
+			super(null, null);
+			this.lineId = lineId;
+		}
+
+		@Override
+		public Id<TransitLine> getDesiredTransitLineId() {
+			return this.lineId;
+		}
+	}
 }
@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineSnapshotTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
+import org.matsim.vis.snapshotwriters.VisLink;
+
+/**
+ * Checks that the snapshots collected by the {@link QNetsimEngineRunner}s are the same as the ones
+ * collected by iterating over the links.
+ */
+public class QNetsimEngineSnapshotTest {
+
+	@Test
+	public void testParallelSnapshots_threads() {
+		runAndCompareSnapshots(false);
+	}
+
+	@Test
+	public void testParallelSnapshots_threadpool() {
+		runAndCompareSnapshots(true);
+	}
+
+	private static void runAndCompareSnapshots(boolean usingThreadpool) {
+		Config config = ConfigUtils.loadConfig("test/scenarios/equil/config.xml");
+		config.plans().setInputFile("plans100.xml");
+		config.qsim().setNumberOfThreads(3);
+		config.qsim().setUsingThreadpool(usingThreadpool);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+
+		QSim qsim = new QSimBuilder(config).useDefaults().build(scenario, EventsUtils.createEventsManager());
+		SnapshotComparer comparer = new SnapshotComparer();
+		qsim.addQueueSimulationListeners(comparer);
+		qsim.run();
+
+		Assert.assertTrue(comparer.comparedPositions > 0);
+	}
+
+	private static class SnapshotComparer implements MobsimAfterSimStepListener {
+
+		int comparedPositions = 0;
+
+		@Override
+		public void notifyMobsimAfterSimStep(MobsimAfterSimStepEvent e) {
+			if (e.getSimulationTime() % 60 != 0) return;
+			QSim qsim = (QSim) e.getQueueSimulation();
+
+			List<AgentSnapshotInfo> serial = new ArrayList<>();
+			for (VisLink link : qsim.getVisNetwork().getVisLinks().values()) {
+				link.getVisData().addAgentSnapshotInfo(serial);
+			}
+			List<AgentSnapshotInfo> parallel = new ArrayList<>();
+			qsim.getVisNetwork().addAgentSnapshotInfos(parallel);
+
+			Assert.assertEquals(serial.size(), parallel.size());
+			for (int i = 0; i < serial.size(); i++) {
+				Assert.assertEquals(serial.get(i).getId(), parallel.get(i).getId());
+				Assert.assertEquals(serial.get(i).getEasting(), parallel.get(i).getEasting(), 0.0);
+				Assert.assertEquals(serial.get(i).getNorthing(), parallel.get(i).getNorthing(), 0.0);
+				Assert.assertEquals(serial.get(i).getAgentState(), parallel.get(i).getAgentState());
+			}
+			this.comparedPositions += serial.size();
+		}
+	}
+
+}
@@ -20,6 +20,10 @@
 
 package org.matsim.core.network;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -31,6 +35,7 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.NetworkFactory;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.utils.geometry.CoordUtils;
 
 /**
  * @author mrieser
@@ -229,6 +234,35 @@ public class NetworkImplTest extends AbstractNetworkTest {
 		Assert.assertEquals(node2, n);
 	}
 
+	@Test
+	public void testAddAndRemoveNodes_interleavedWithQueries() {
+		NetworkImpl network = new NetworkImpl();
+		List<Node> nodes = new ArrayList<>();
+		Random r = new Random(4711);
+		for (int i = 0; i < 2000; i++) {
+			if (nodes.isEmpty() || r.nextDouble() < 0.7) {
+				Node node = NetworkUtils.createNode(Id.create(i, Node.class),
+						new Coord(r.nextDouble() * 1000, r.nextDouble() * 1000));
+				network.addNode(node);
+				nodes.add(node);
+			} else {
+				Node node = nodes.remove(r.nextInt(nodes.size()));
+				network.removeNode(node.getId());
+			}
+
+			Coord coord = new Coord(r.nextDouble() * 1000, r.nextDouble() * 1000);
+			Node expected = null;
+			for (Node node : nodes) {
+				if (expected == null || CoordUtils.calcEuclideanDistance(node.getCoord(), coord) < CoordUtils
+						.calcEuclideanDistance(expected.getCoord(), coord)) {
+					expected = node;
+				}
+			}
+			Assert.assertEquals(expected, NetworkUtils.getNearestNode(network, coord));
+			Assert.assertEquals(nodes.size(), network.getNodeIndex().size());
+		}
+	}
+
 	@Test
 	public void testRemoveLink_alsoInQuadTrees() {
 		Network network = new NetworkImpl();
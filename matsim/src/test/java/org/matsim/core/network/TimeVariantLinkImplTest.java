@@ -20,6 +20,11 @@
 
 package org.matsim.core.network;
 
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
@@ -352,6 +357,115 @@ public class TimeVariantLinkImplTest extends MatsimTestCase {
 	}
 
 
+	/**
+	 * Tests the lookup with many, unevenly distributed change events, including times just at and around the changes.
+	 */
+	public void testManyFreespeedChanges() {
+		final Network network = NetworkUtils.createNetwork();
+		NetworkFactory nf = network.getFactory();
+		nf.setLinkFactory(new VariableIntervalTimeVariantLinkFactory());
+		((NetworkImpl)network).setFactory(nf);
+
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord((double) 0, (double) 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord((double) 100, (double) 0));
+		TimeVariantLinkImpl link = (TimeVariantLinkImpl)NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), node1, node2, (double) 100, (double) 10, (double) 3600, (double) 1 );
+
+		// a cluster of changes in the morning, a few spread over the rest of the day
+		Random r = new Random(4711);
+		TreeMap<Double, Double> changes = new TreeMap<>();
+		for (int i = 0; i < 200; i++) {
+			changes.put(7*3600.0 + r.nextInt(1800), 1.0 + r.nextInt(30));
+		}
+		for (int i = 0; i < 20; i++) {
+			changes.put((double) r.nextInt(30*3600), 1.0 + r.nextInt(30));
+		}
+		for (Map.Entry<Double, Double> e : changes.entrySet()) {
+			NetworkChangeEvent change = new NetworkChangeEvent(e.getKey());
+			change.addLink(link);
+			change.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, e.getValue()));
+			link.applyEvent(change);
+		}
+
+		assertEquals(10.0, link.getFreespeed(Time.getUndefinedTime()), EPSILON);
+		for (double time : changes.keySet()) {
+			for (double t : new double[] {time - 0.5, time, time + 0.5}) {
+				Map.Entry<Double, Double> expected = changes.floorEntry(t);
+				assertEquals(expected == null ? 10.0 : expected.getValue(), link.getFreespeed(t), EPSILON);
+			}
+		}
+		for (int i = 0; i < 1000; i++) {
+			double t = r.nextDouble() * 36*3600;
+			Map.Entry<Double, Double> expected = changes.floorEntry(t);
+			assertEquals(expected == null ? 10.0 : expected.getValue(), link.getFreespeed(t), EPSILON);
+		}
+	}
+
+	/**
+	 * Tests that the attributes return the base value when the events are cleared after a getter has checked
+	 * {@link TimeVariantAttribute#isRecalcRequired()}, but before it looks up the value.
+	 */
+	public void testGetValueAfterClearEvents() {
+		NetworkChangeEvent change = new NetworkChangeEvent(7*3600.0);
+		change.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 20.0));
+		TreeMap<Double, NetworkChangeEvent> changeEvents = new TreeMap<>();
+		changeEvents.put(change.getStartTime(), change);
+
+		for (TimeVariantAttribute attribute : new TimeVariantAttribute[] { new VariableIntervalTimeVariantAttribute(),
+				new FixedIntervalTimeVariantAttribute(15 * 60, 30 * 3600) }) {
+			attribute.incChangeEvents();
+			attribute.recalc(changeEvents, TimeVariantAttribute.FREESPEED_GETTER, 10.0);
+			assertEquals(20.0, attribute.getValue(8*3600.0), EPSILON);
+
+			attribute.clearEvents();
+			assertEquals(10.0, attribute.getValue(8*3600.0), EPSILON);
+			assertFalse(attribute.isRecalcRequired());
+		}
+	}
+
+	/**
+	 * Tests that events can be cleared and applied while other threads look up the freespeed.
+	 */
+	public void testConcurrentClearEventsAndGetFreespeed() throws InterruptedException {
+		for (LinkFactory lf : linkFactories(15 * 60, 30 * 3600)) {
+			testConcurrentClearEventsAndGetFreespeed(lf);
+		}
+	}
+
+	private void testConcurrentClearEventsAndGetFreespeed(LinkFactory lf) throws InterruptedException {
+		final Network network = NetworkUtils.createNetwork();
+		NetworkFactory nf = network.getFactory();
+		nf.setLinkFactory(lf);
+		((NetworkImpl)network).setFactory(nf);
+
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord((double) 0, (double) 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord((double) 100, (double) 0));
+		TimeVariantLinkImpl link = (TimeVariantLinkImpl)NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), node1, node2, (double) 100, (double) 10, (double) 3600, (double) 1 );
+
+		NetworkChangeEvent change = new NetworkChangeEvent(7*3600.0);
+		change.addLink(link);
+		change.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 20.0));
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread writer = new Thread(() -> {
+			try {
+				for (int i = 0; i < 20000; i++) {
+					link.clearEvents();
+					link.applyEvent(change);
+				}
+			} catch (Throwable t) {
+				failure.set(t);
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			double freespeed = link.getFreespeed(8*3600.0);
+			assertTrue(freespeed == 10.0 || freespeed == 20.0);
+		}
+		writer.join();
+		assertNull(failure.get());
+		assertEquals(20.0, link.getFreespeed(8*3600.0), EPSILON);
+	}
+
     static LinkFactory[] linkFactories(int interval, int maxTime)
     {
         return new LinkFactory[] {
@@ -0,0 +1,108 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HeavyCompressedNetworkRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.network.NetworkUtils;
+
+public class HeavyCompressedNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return (NetworkRoute) new HeavyCompressedNetworkRouteFactory(network).createRoute(fromLinkId, toLinkId);
+	}
+
+	@Test
+	public void testGetLinkIds_randomAndSequentialAccess() {
+		Network network = createTestNetwork();
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds("22 12 -23 3 24 14 -24 -22");
+		NetworkRoute route = getNetworkRouteInstance(Id.create("1", Link.class), Id.create("4", Link.class), network);
+		route.setLinkIds(Id.create("1", Link.class), linkIds, Id.create("4", Link.class));
+
+		List<Id<Link>> decoded = route.getLinkIds();
+		Assert.assertEquals(linkIds.size(), decoded.size());
+		// backwards, forces the view to restart decoding
+		for (int i = linkIds.size() - 1; i >= 0; i--) {
+			Assert.assertEquals("different link at position " + i, linkIds.get(i), decoded.get(i));
+		}
+		// forwards, continues from the cached position
+		for (int i = 0; i < linkIds.size(); i++) {
+			Assert.assertEquals("different link at position " + i, linkIds.get(i), decoded.get(i));
+		}
+		Iterator<Id<Link>> iter = decoded.iterator();
+		for (Id<Link> linkId : linkIds) {
+			Assert.assertEquals(linkId, iter.next());
+		}
+		Assert.assertFalse(iter.hasNext());
+		Assert.assertEquals(linkIds, new ArrayList<>(decoded));
+	}
+
+	@Test
+	public void testSetLinkIds_linkNotInNetwork() {
+		Network network = createTestNetwork();
+		Id<Link> unknown = Id.create("pt_1", Link.class);
+		List<Id<Link>> linkIds = new ArrayList<>(NetworkUtils.getLinkIds("22 12"));
+		linkIds.add(unknown);
+		NetworkRoute route = getNetworkRouteInstance(Id.create("1", Link.class), Id.create("4", Link.class), network);
+		route.setLinkIds(Id.create("1", Link.class), linkIds, Id.create("4", Link.class));
+
+		Assert.assertEquals(linkIds, new ArrayList<>(route.getLinkIds()));
+	}
+
+	@Test
+	public void testEncodedSize() {
+		Network network = createTestNetwork();
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds("22 12 -23 3 24 14");
+		HeavyCompressedNetworkRouteImpl route = (HeavyCompressedNetworkRouteImpl) getNetworkRouteInstance(Id.create("1", Link.class), Id.create("4", Link.class), network);
+		route.setLinkIds(Id.create("1", Link.class), linkIds, Id.create("4", Link.class));
+
+		// the test network is small enough that every delta fits into a single byte
+		Assert.assertEquals(linkIds.size(), route.getEncodedSize());
+	}
+
+	@Test
+	public void testClone() {
+		Network network = createTestNetwork();
+		Id<Link> startLinkId = Id.create("1", Link.class);
+		Id<Link> endLinkId = Id.create("4", Link.class);
+		NetworkRoute route1 = getNetworkRouteInstance(startLinkId, endLinkId, network);
+		List<Id<Link>> srcRoute = new ArrayList<>(NetworkUtils.getLinkIds("22 12"));
+		route1.setLinkIds(startLinkId, srcRoute, endLinkId);
+		Assert.assertEquals(2, route1.getLinkIds().size());
+
+		NetworkRoute route2 = route1.clone();
+
+		srcRoute.add(Id.create("13", Link.class));
+		route2.setLinkIds(startLinkId, srcRoute, endLinkId);
+
+		Assert.assertEquals(2, route1.getLinkIds().size());
+		Assert.assertEquals(3, route2.getLinkIds().size());
+	}
+
+}
@@ -75,6 +75,17 @@ public class RouteFactoryImplTest {
 		Assert.assertEquals(CompressedNetworkRouteImpl.class, pf.getRouteFactories().createRoute(NetworkRoute.class, startLinkId, endLinkId).getClass());
 	}
 
+	@Test
+	public void testConstructor_HeavyCompressedNetworkRouteType() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setNetworkRouteType(PlansConfigGroup.NetworkRouteType.HeavyCompressedNetworkRoute);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		PopulationFactory pf = scenario.getPopulation().getFactory();
 
+		Id<Link> linkId = Id.create(1, Link.class);
+		final Id<Link> startLinkId = linkId;
+		final Id<Link> endLinkId = linkId;
+		Assert.assertEquals(HeavyCompressedNetworkRouteImpl.class, pf.getRouteFactories().createRoute(NetworkRoute.class, startLinkId, endLinkId).getClass());
+	}
 
 }
@@ -112,6 +112,32 @@ public class RouteFactoryIntegrationTest {
 			}
 		}
 
+
+		// test the heavy compressed routes
+		config.controler().setOutputDirectory(utils.getOutputDirectory() + "/variant2");
+		MutableScenario scenario3 = (MutableScenario) ScenarioUtils.createScenario(config);
+		scenario3.getPopulation().getFactory().getRouteFactories().setRouteFactory(NetworkRoute.class, new HeavyCompressedNetworkRouteFactory(scenario3.getNetwork()));
+		ScenarioUtils.loadScenario(scenario3);
+
+		Controler controler3 = new Controler(scenario3);
+		controler3.getConfig().controler().setCreateGraphs(false);
+		controler3.getConfig().controler().setWriteEventsInterval(0);
+		controler3.run();
+
+		Population population3 = controler3.getScenario().getPopulation();
+		for (Person person : population3.getPersons().values()) {
+			int planCounter = 0;
+			for (Plan plan : person.getPlans()) {
+				planCounter++;
+				for (PlanElement pe : plan.getPlanElements()) {
+					if (pe instanceof Leg) {
+						Route route = ((Leg) pe).getRoute();
+						Assert.assertTrue("person: " + person.getId() + "; plan: " + planCounter,
+								route instanceof HeavyCompressedNetworkRouteImpl || route instanceof GenericRouteImpl );
+					}
+				}
+			}
+		}
 	}
 
 }
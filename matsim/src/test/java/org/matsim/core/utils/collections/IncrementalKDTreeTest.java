@@ -0,0 +1,128 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IncrementalKDTreeTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+
+/**
+ * Test for {@link IncrementalKDTree}, interleaves insertions and removals with queries and compares the results with
+ * a linear search.
+ */
+public class IncrementalKDTreeTest {
+
+	@Test
+	public void testEmptyIndex() {
+		IncrementalKDTree<Coord> index = new IncrementalKDTree<>(Collections.<Coord>emptyList(), Coord::getX, Coord::getY);
+		Assert.assertEquals(0, index.size());
+		Assert.assertNull(index.getClosest(0, 0));
+		Assert.assertTrue(index.getDisk(0, 0, 1000).isEmpty());
+	}
+
+	@Test
+	public void testAddAndRemoveInterleavedWithQueries() {
+		Random r = new Random(4711);
+		List<Coord> coords = createRandomCoords(500, r);
+		IncrementalKDTree<Coord> index = new IncrementalKDTree<>(coords, Coord::getX, Coord::getY);
+		coords = new ArrayList<>(coords);
+
+		for (int i = 0; i < 5000; i++) {
+			if (coords.isEmpty() || r.nextDouble() < 0.6) {
+				Coord c = new Coord(r.nextDouble() * 1000, r.nextDouble() * 1000);
+				coords.add(c);
+				index.add(c);
+			} else {
+				Coord c = coords.remove(r.nextInt(coords.size()));
+				index.remove(c);
+			}
+			Assert.assertEquals(coords.size(), index.size());
+
+			double x = r.nextDouble() * 1200 - 100;
+			double y = r.nextDouble() * 1200 - 100;
+			Coord closest = index.getClosest(x, y);
+			Assert.assertEquals(distance(findClosest(coords, x, y), x, y), distance(closest, x, y), 0.0);
+			Assert.assertTrue(coords.contains(closest));
+
+			if (i % 10 == 0) {
+				double radius = r.nextDouble() * 200;
+				HashSet<Coord> expected = new HashSet<>();
+				for (Coord c : coords) {
+					if (distance(c, x, y) <= radius) {
+						expected.add(c);
+					}
+				}
+				List<Coord> disk = new ArrayList<>(index.getDisk(x, y, radius));
+				Assert.assertEquals(expected.size(), disk.size());
+				Assert.assertEquals(expected, new HashSet<>(disk));
+			}
+		}
+	}
+
+	@Test
+	public void testRemoveAllAndReAdd() {
+		Random r = new Random(42);
+		List<Coord> coords = createRandomCoords(300, r);
+		IncrementalKDTree<Coord> index = new IncrementalKDTree<>(coords, Coord::getX, Coord::getY);
+		for (Coord c : coords) {
+			index.remove(c);
+		}
+		Assert.assertEquals(0, index.size());
+		Assert.assertNull(index.getClosest(500, 500));
+
+		for (Coord c : coords) {
+			index.add(c);
+			Assert.assertEquals(0.0, distance(index.getClosest(c.getX(), c.getY()), c.getX(), c.getY()), 0.0);
+		}
+		Assert.assertEquals(coords.size(), index.size());
+		Assert.assertEquals(coords.size(), index.getDisk(500, 500, 1000).size());
+	}
+
+	private static List<Coord> createRandomCoords(int n, Random r) {
+		List<Coord> coords = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			coords.add(new Coord(r.nextDouble() * 1000, r.nextDouble() * 1000));
+		}
+		return coords;
+	}
+
+	private static Coord findClosest(List<Coord> coords, double x, double y) {
+		Coord closest = null;
+		for (Coord c : coords) {
+			if (closest == null || distance(c, x, y) < distance(closest, x, y)) {
+				closest = c;
+			}
+		}
+		return closest;
+	}
+
+	private static double distance(Coord c, double x, double y) {
+		return Math.sqrt((c.getX() - x) * (c.getX() - x) + (c.getY() - y) * (c.getY() - y));
+	}
+
+}
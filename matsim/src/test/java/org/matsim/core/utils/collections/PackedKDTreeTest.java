@@ -0,0 +1,158 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedKDTreeTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+
+/**
+ * Test for {@link PackedKDTree}, compares the results of the queries with a linear search.
+ */
+public class PackedKDTreeTest {
+
+	@Test
+	public void testEmptyTree() {
+		PackedKDTree<Coord> tree = new PackedKDTree<>(Collections.<Coord>emptyList(), Coord::getX, Coord::getY);
+		Assert.assertEquals(0, tree.size());
+		Assert.assertNull(tree.getClosest(0, 0));
+		Assert.assertEquals(-1, tree.getNearest(0, 0));
+		Assert.assertTrue(tree.getDisk(0, 0, 1000).isEmpty());
+		Assert.assertEquals(0, tree.getKNearest(0, 0, 3, new int[3], new double[3]));
+	}
+
+	@Test
+	public void testGetClosest() {
+		List<Coord> coords = createRandomCoords(1000, 4711);
+		PackedKDTree<Coord> tree = new PackedKDTree<>(coords, Coord::getX, Coord::getY);
+		Assert.assertEquals(coords.size(), tree.size());
+
+		Random r = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			double x = r.nextDouble() * 1200 - 100;
+			double y = r.nextDouble() * 1200 - 100;
+			Coord closest = tree.getClosest(x, y);
+			Assert.assertEquals(distance(findClosest(coords, x, y), x, y), distance(closest, x, y), 0.0);
+		}
+		for (Coord c : coords) {
+			Assert.assertEquals(0.0, distance(tree.getClosest(c.getX(), c.getY()), c.getX(), c.getY()), 0.0);
+		}
+	}
+
+	@Test
+	public void testGetKNearest() {
+		List<Coord> coords = createRandomCoords(1000, 4711);
+		PackedKDTree<Coord> tree = new PackedKDTree<>(coords, Coord::getX, Coord::getY);
+
+		int k = 10;
+		int[] indices = new int[k];
+		double[] distances = new double[k];
+		Random r = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			final double x = r.nextDouble() * 1000;
+			final double y = r.nextDouble() * 1000;
+			Assert.assertEquals(k, tree.getKNearest(x, y, k, indices, distances));
+
+			List<Coord> sorted = new ArrayList<>(coords);
+			sorted.sort((c1, c2) -> Double.compare(distance(c1, x, y), distance(c2, x, y)));
+			for (int j = 0; j < k; j++) {
+				Assert.assertEquals(distance(sorted.get(j), x, y), distances[j], 1e-9);
+				Assert.assertEquals(distances[j], distance(tree.get(indices[j]), x, y), 1e-9);
+			}
+		}
+
+		// k larger than the tree
+		List<Coord> few = createRandomCoords(5, 1);
+		PackedKDTree<Coord> small = new PackedKDTree<>(few, Coord::getX, Coord::getY);
+		Assert.assertEquals(5, small.getKNearest(0, 0, k, indices, distances));
+		HashSet<Coord> found = new HashSet<>();
+		for (int j = 0; j < 5; j++) {
+			found.add(small.get(indices[j]));
+		}
+		Assert.assertEquals(new HashSet<>(few), found);
+	}
+
+	@Test
+	public void testGetDisk() {
+		List<Coord> coords = createRandomCoords(1000, 4711);
+		PackedKDTree<Coord> tree = new PackedKDTree<>(coords, Coord::getX, Coord::getY);
+
+		Random r = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			double x = r.nextDouble() * 1000;
+			double y = r.nextDouble() * 1000;
+			double radius = r.nextDouble() * 200;
+			Collection<Coord> disk = tree.getDisk(x, y, radius);
+
+			HashSet<Coord> expected = new HashSet<>();
+			for (Coord c : coords) {
+				if (distance(c, x, y) <= radius) {
+					expected.add(c);
+				}
+			}
+			Assert.assertEquals(expected.size(), disk.size());
+			Assert.assertEquals(expected, new HashSet<>(disk));
+		}
+	}
+
+	@Test
+	public void testDuplicateCoordinates() {
+		List<Coord> coords = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			coords.add(new Coord(10.0, (double) (i % 3)));
+		}
+		PackedKDTree<Coord> tree = new PackedKDTree<>(coords, Coord::getX, Coord::getY);
+		Assert.assertEquals(0.0, distance(tree.getClosest(10.0, 1.0), 10.0, 1.0), 0.0);
+		Assert.assertEquals(100, tree.getDisk(10.0, 1.0, 1.0).size());
+		Assert.assertEquals(34, tree.getDisk(10.0, 0.0, 0.5).size());
+	}
+
+	private static List<Coord> createRandomCoords(int n, long seed) {
+		Random r = new Random(seed);
+		List<Coord> coords = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			coords.add(new Coord(r.nextDouble() * 1000, r.nextDouble() * 1000));
+		}
+		return coords;
+	}
+
+	private static Coord findClosest(List<Coord> coords, double x, double y) {
+		Coord closest = null;
+		for (Coord c : coords) {
+			if (closest == null || distance(c, x, y) < distance(closest, x, y)) {
+				closest = c;
+			}
+		}
+		return closest;
+	}
+
+	private static double distance(Coord c, double x, double y) {
+		return Math.sqrt((c.getX() - x) * (c.getX() - x) + (c.getY() - y) * (c.getY() - y));
+	}
+
+}
@@ -20,6 +20,8 @@
 package org.matsim.core.utils.io;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 import org.junit.Assert;
@@ -92,12 +94,35 @@ public class MatsimXmlParserTest {
 		Assert.assertEquals("value2", parser.lastAttributes.getValue("someAttribute2"));
 	}
 	
+	@Test
+	public void testNestedContent() {
+		String str = "<?xml version='1.0' encoding='UTF-8'?>\r\n" +
+				"<root a=\"1\" b=\"2\">\r\n" +
+				"<dummy someAttribute=\"value1\">content</dummy>\r\n" +
+				"<dummy2><![CDATA[<cdata>]]></dummy2>text" +
+				"</root>";
+
+		TestParser parser = new TestParser();
+		parser.setValidating(false);
+
+		parser.parse(new ByteArrayInputStream(str.getBytes()));
+		Assert.assertEquals(3, parser.contents.size());
+		Assert.assertEquals("content", parser.contents.get(0));
+		Assert.assertEquals("<cdata>", parser.contents.get(1));
+		Assert.assertEquals("\n\ntext", parser.contents.get(2));
+		Assert.assertEquals("dummy2", parser.lastStartTag);
+		Assert.assertEquals("root", parser.lastEndTag);
+		Assert.assertEquals(0, parser.lastAttributes.getLength());
+		Assert.assertNull(parser.lastAttributes.getValue("someAttribute"));
+	}
+
 	private static class TestParser extends MatsimXmlParser {
 
 		public String lastStartTag = null;
 		public String lastEndTag = null;
 		public Attributes lastAttributes = null;
 		public String lastContent = null;
+		public List<String> contents = new ArrayList<>();
 		
 		@Override
 		public void startTag(String name, Attributes atts, Stack<String> context) {
@@ -109,6 +134,7 @@ public class MatsimXmlParserTest {
 		public void endTag(String name, String content, Stack<String> context) {
 			this.lastEndTag = name;
 			this.lastContent = content;
+			this.contents.add(content);
 		}
 		
 	}
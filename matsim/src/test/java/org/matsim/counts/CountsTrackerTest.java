@@ -0,0 +1,134 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountsTrackerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.analysis.VolumesAnalyzer;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.counts.algorithms.CountsComparisonAlgorithm;
+import org.matsim.vehicles.Vehicle;
+
+public class CountsTrackerTest {
+
+	@Test
+	public void testSameResultAsCountsComparison() {
+		Counts<Link> counts = createCounts();
+		CountsTracker tracker = new CountsTracker(counts, 2.0, null, 3);
+		List<CountsMetrics> published = new ArrayList<>();
+		tracker.addMetricsListener((metrics, windowMetrics) -> published.add(metrics));
+		VolumesAnalyzer volumes = new VolumesAnalyzer(3600, 24 * 3600 - 1, NetworkUtils.createNetwork());
+
+		tracker.reset(0);
+		Random random = new Random(4711);
+		Id<Vehicle> vehicle = Id.create("1", Vehicle.class);
+		for (int i = 0; i < 5000; i++) {
+			LinkLeaveEvent event = new LinkLeaveEvent(random.nextInt(26 * 3600), vehicle, Id.create(random.nextInt(5), Link.class));
+			tracker.handleEvent(event);
+			volumes.handleEvent(event);
+		}
+		tracker.notifyIterationEnds(new IterationEndsEvent(null, 0));
+
+		CountsComparisonAlgorithm cca = new CountsComparisonAlgorithm(volumes, counts, null, 2.0);
+		cca.run();
+		double[] sumSquaredErrors = new double[24];
+		double[] sumErrors = new double[24];
+		double[] sumGeh = new double[24];
+		int[] values = new int[24];
+		for (CountSimComparison comparison : cca.getComparison()) {
+			int hour = comparison.getHour() - 1;
+			double error = comparison.getSimulationValue() - comparison.getCountValue();
+			sumSquaredErrors[hour] += error * error;
+			sumErrors[hour] += error;
+			sumGeh[hour] += comparison.calculateGEHValue();
+			values[hour]++;
+		}
+
+		CountsMetrics metrics = tracker.getMetrics();
+		Assert.assertEquals(Collections.singletonList(metrics), published);
+		Assert.assertEquals(0, metrics.getIteration());
+		for (int hour = 0; hour < 24; hour++) {
+			Assert.assertEquals(values[hour], metrics.getNumberOfValues()[hour]);
+			Assert.assertEquals(Math.sqrt(sumSquaredErrors[hour] / values[hour]), metrics.getRmse()[hour], 1e-6);
+			Assert.assertEquals(sumErrors[hour] / values[hour], metrics.getBias()[hour], 1e-6);
+			Assert.assertEquals(sumGeh[hour] / values[hour], metrics.getMeanGeh()[hour], 1e-6);
+		}
+		// the window contains only one iteration so far
+		Assert.assertEquals(1, tracker.getWindowMetrics().getIterationsAveraged());
+		Assert.assertEquals(metrics.getTotalRmse(), tracker.getWindowMetrics().getTotalRmse(), 1e-6);
+	}
+
+	@Test
+	public void testWindowAndModes() {
+		Counts<Link> counts = new Counts<>();
+		counts.createAndAddCount(Id.create("0", Link.class), "station").createVolume(1, 10.0);
+		CountsTracker tracker = new CountsTracker(counts, 1.0, Collections.singleton(TransportMode.car), 2);
+		Id<Vehicle> car = Id.create("car", Vehicle.class);
+		Id<Vehicle> truck = Id.create("truck", Vehicle.class);
+		Id<Link> link = Id.create("0", Link.class);
+
+		// 4, 8 and 12 cars in three iterations, the trucks are not counted
+		for (int iteration = 0; iteration < 3; iteration++) {
+			tracker.reset(iteration);
+			tracker.handleEvent(new VehicleEntersTrafficEvent(0.0, null, link, car, TransportMode.car, 1.0));
+			tracker.handleEvent(new VehicleEntersTrafficEvent(0.0, null, link, truck, "truck", 1.0));
+			for (int i = 0; i < 4 * (iteration + 1); i++) {
+				tracker.handleEvent(new LinkLeaveEvent(100.0 + i, car, link));
+				tracker.handleEvent(new LinkLeaveEvent(100.0 + i, truck, link));
+			}
+			tracker.notifyIterationEnds(new IterationEndsEvent(null, iteration));
+		}
+
+		Assert.assertEquals(2.0, tracker.getMetrics().getTotalBias(), 1e-10);
+		Assert.assertEquals(2.0, tracker.getMetrics().getTotalRmse(), 1e-10);
+		Assert.assertEquals(1.0, tracker.getMetrics().getTotalShareGehBelowThreshold(), 0.0);
+		Assert.assertTrue(Double.isNaN(tracker.getMetrics().getRmse()[1]));
+		// (8 + 12) / 2 = 10
+		Assert.assertEquals(2, tracker.getWindowMetrics().getIterationsAveraged());
+		Assert.assertEquals(0.0, tracker.getWindowMetrics().getTotalRmse(), 1e-10);
+		Assert.assertEquals(0.0, tracker.getWindowMetrics().getTotalMeanGeh(), 1e-10);
+	}
+
+	private static Counts<Link> createCounts() {
+		Counts<Link> counts = new Counts<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 4; i++) {
+			Count<Link> count = counts.createAndAddCount(Id.create(i, Link.class), "station " + i);
+			for (int hour = 1; hour <= 24; hour++) {
+				if (i == 3 && hour % 2 == 0) continue; // not all hours are counted
+				count.createVolume(hour, random.nextInt(100));
+			}
+		}
+		return counts;
+	}
+
+}
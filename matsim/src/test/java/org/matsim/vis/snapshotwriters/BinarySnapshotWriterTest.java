@@ -0,0 +1,122 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinarySnapshotWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class BinarySnapshotWriterTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteAndRead() {
+		String filename = utils.getOutputDirectory() + "snapshots.bin";
+		AgentSnapshotInfoFactory factory = new AgentSnapshotInfoFactory(null);
+
+		BinarySnapshotWriter writer = new BinarySnapshotWriter(filename);
+		// enough agents to make the frame buffer grow
+		for (int t = 0; t < 10; t++) {
+			writer.beginSnapshot(t * 60.0);
+			for (int i = 0; i < 5000; i++) {
+				AgentSnapshotInfo info = factory.createAgentSnapshotInfo(Id.createPersonId(i), 680000.0 + i + t * 10.3, 4900000.0 - i * 0.5, 0.0, (i % 7) * 0.9);
+				info.setColorValueBetweenZeroAndOne((i % 11) / 10.0);
+				info.setAgentState((i % 50 == 0) ? AgentSnapshotInfo.AgentState.PERSON_AT_ACTIVITY : AgentSnapshotInfo.AgentState.PERSON_DRIVING_CAR);
+				writer.addAgent(info);
+			}
+			writer.endSnapshot();
+		}
+		writer.finish();
+
+		BinarySnapshotReader reader = new BinarySnapshotReader(filename);
+		Assert.assertEquals(10, reader.getNumberOfSnapshots());
+		Assert.assertEquals(-1, reader.getSnapshotIndex(-1.0));
+		Assert.assertEquals(3, reader.getSnapshotIndex(180.0));
+		Assert.assertEquals(3, reader.getSnapshotIndex(200.0));
+		Assert.assertEquals(9, reader.getSnapshotIndex(100000.0));
+
+		// random access, in reverse order
+		for (int t = 9; t >= 0; t--) {
+			Assert.assertEquals(t * 60.0, reader.getSnapshotTime(t), 0.0);
+			List<AgentSnapshotInfo> agents = reader.readSnapshot(t);
+			Assert.assertEquals(4900, agents.size()); // agents performing an activity are skipped
+			int j = 0;
+			for (int i = 0; i < 5000; i++) {
+				if (i % 50 == 0) continue;
+				AgentSnapshotInfo info = agents.get(j++);
+				Assert.assertEquals(Id.create(i, Person.class), info.getId());
+				Assert.assertEquals(680000.0 + i + t * 10.3, info.getEasting(), 0.05);
+				Assert.assertEquals(4900000.0 - i * 0.5, info.getNorthing(), 0.05);
+				Assert.assertEquals((i % 7) * 0.9, info.getAzimuth(), 1e-4);
+				Assert.assertEquals((i % 11) / 10.0, info.getColorValueBetweenZeroAndOne(), 1e-4);
+				Assert.assertEquals(AgentSnapshotInfo.AgentState.PERSON_DRIVING_CAR, info.getAgentState());
+			}
+		}
+		reader.close();
+	}
+
+	@Test
+	public void testEmptyFile() {
+		String filename = utils.getOutputDirectory() + "empty.bin";
+		new BinarySnapshotWriter(filename).finish();
+
+		BinarySnapshotReader reader = new BinarySnapshotReader(filename);
+		Assert.assertEquals(0, reader.getNumberOfSnapshots());
+		Assert.assertEquals(-1, reader.getSnapshotIndex(0.0));
+		reader.close();
+	}
+
+	@Test(timeout = 10000)
+	public void testWriterThreadTerminated() throws InterruptedException {
+		String filename = utils.getOutputDirectory() + "terminated.bin";
+		AgentSnapshotInfoFactory factory = new AgentSnapshotInfoFactory(null);
+
+		BinarySnapshotWriter writer = new BinarySnapshotWriter(filename);
+		writer.writerThread.interrupt();
+		writer.writerThread.join();
+
+		// must not block once all frames are used up
+		try {
+			for (int t = 0; t < 100; t++) {
+				writer.beginSnapshot(t * 60.0);
+				writer.addAgent(factory.createAgentSnapshotInfo(Id.createPersonId(1), 680000.0, 4900000.0, 0.0, 0.0));
+				writer.endSnapshot();
+			}
+			Assert.fail("expected an exception, as the snapshots are not written anymore");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			writer.finish();
+			Assert.fail("expected an exception, as the end of the file can not be written");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentSelectorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.withinday.replanning.identifiers.interfaces;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.withinday.replanning.identifiers.filter.ProbabilityFilterFactory;
+
+public class AgentSelectorTest {
+
+	@Test
+	public void testSelectAgents_sameResultInForkJoinPool() {
+		Map<Id<Person>, MobsimAgent> agents = new LinkedHashMap<>();
+		for (int i = 0; i < 10000; i++) {
+			Id<Person> id = Id.createPersonId(i);
+			agents.put(id, createAgent(id));
+		}
+
+		TestSelector selector = new TestSelector(agents);
+		selector.addAgentFilter(new ProbabilityFilterFactory(0.3).createAgentFilter());
+
+		List<MobsimAgent> sequential = new ArrayList<>(selector.getAgentsToReplan(3600.0));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int i = 0; i < 5; i++) {
+				List<MobsimAgent> parallel = new ArrayList<>(pool.invoke(ForkJoinTask.adapt(() -> selector.getAgentsToReplan(3600.0))));
+				Assert.assertEquals(sequential, parallel);
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		// roughly 30% of the agents should be selected
+		Assert.assertTrue(sequential.size() > 2500 && sequential.size() < 3500);
+		for (MobsimAgent agent : sequential) {
+			Assert.assertTrue(selector.applyFilters(agent.getId(), 3600.0));
+		}
+	}
+
+	private static MobsimAgent createAgent(final Id<Person> id) {
+		return (MobsimAgent) Proxy.newProxyInstance(MobsimAgent.class.getClassLoader(), new Class<?>[] { MobsimAgent.class },
+				(proxy, method, args) -> {
+					if (method.getName().equals("getId")) return id;
+					if (method.getName().equals("hashCode")) return id.hashCode();
+					if (method.getName().equals("equals")) return proxy == args[0];
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static class TestSelector extends AgentSelector {
+
+		private final Map<Id<Person>, MobsimAgent> agents;
+
+		TestSelector(Map<Id<Person>, MobsimAgent> agents) {
+			this.agents = agents;
+		}
+
+		@Override
+		public Set<MobsimAgent> getAgentsToReplan(double time) {
+			Set<MobsimAgent> agentsToReplan = new LinkedHashSet<>();
+			this.selectAgents(this.agents.keySet(), this.agents, agentsToReplan, time);
+			return agentsToReplan;
+		}
+	}
+
+}
@@ -153,6 +153,28 @@ public class WithinDayTravelTimeTest extends MatsimTestCase {
 		controler.run();
 	}
 
+	@Test
+	public void testTravelTimeInfoTripBuffer() {
+		WithinDayTravelTime.TravelTimeInfo info = new WithinDayTravelTime.TravelTimeInfo();
+		info.init(10.0);	// time window of 25 seconds
+
+		// the buffer wraps around and has to grow while it is wrapped around
+		double sum = 0.0;
+		for (int t = 0; t < 100; t++) {
+			info.addTrip(t, 10.0 + t % 3);
+			sum += 10.0 + t % 3;
+			sum -= info.removeOldTrips(t);
+			assertEquals(Math.min(t + 1, 26), info.getNumberOfTrips());
+		}
+		double expected = 0.0;
+		for (int t = 74; t < 100; t++) expected += 10.0 + t % 3;
+		assertEquals(expected, sum, 1e-10);
+
+		sum -= info.removeOldTrips(200.0);
+		assertEquals(0, info.getNumberOfTrips());
+		assertEquals(0.0, sum, 1e-10);
+	}
+
 	/**
 	 * Check travel times before and after a time step.
 	 * 